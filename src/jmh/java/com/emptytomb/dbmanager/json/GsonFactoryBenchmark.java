@@ -0,0 +1,146 @@
+package com.emptytomb.dbmanager.json;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emptytomb.dbmanager.domain.Personality;
+import com.emptytomb.dbmanager.domain.Question;
+import com.emptytomb.dbmanager.domain.Scripture;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+* The GsonFactoryBenchmark class compares the shared Gson of GsonFactory, bound to the
+* streaming adapters of this package, with the reflective Gson the services used before, in
+* both directions, over lists of the domain objects the resources return most.
+*
+* <p>Run with {@code mvn -Pjmh test-compile exec:exec}; JMH options go in
+* {@code -Djmh.args="..."}, e.g. {@code -Djmh.args="-p model=scripture -f 1"}.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GsonFactoryBenchmark {
+	private static final int SIZE = 1000;
+
+	@Param({"scripture", "question", "personality"})
+	private String model;
+
+	private final Gson shared = GsonFactory.getGson();
+	private final Gson reflective = new Gson();
+	private List<?> objects;
+	private Type type;
+	private String json;
+
+	@Setup
+	public void setup() {
+		if ("scripture".equals(model)) {
+			objects = scriptures();
+			type = new TypeToken<List<Scripture>>() {}.getType();
+		} else if ("question".equals(model)) {
+			objects = questions();
+			type = new TypeToken<List<Question>>() {}.getType();
+		} else {
+			objects = personalities();
+			type = new TypeToken<List<Personality>>() {}.getType();
+		}
+		json = reflective.toJson(objects, type);
+		if (!json.equals(shared.toJson(objects, type))) {
+			throw new IllegalStateException("adapters and reflection disagree on " + model);
+		}
+	}
+
+	@Benchmark
+	public String toJsonShared() {
+		return shared.toJson(objects, type);
+	}
+
+	@Benchmark
+	public String toJsonReflective() {
+		return reflective.toJson(objects, type);
+	}
+
+	@Benchmark
+	public Object fromJsonShared() {
+		return shared.fromJson(json, type);
+	}
+
+	@Benchmark
+	public Object fromJsonReflective() {
+		return reflective.fromJson(json, type);
+	}
+
+	private static List<Scripture> scriptures() {
+		String[] books = {"Genesis", "Exodus", "Isaiah", "Matthew", "John", "Romans"};
+		String[] authors = {"Moses", "Moses", "Isaiah", "Matthew", "John", "Paul"};
+		List<Scripture> scriptures = new ArrayList<Scripture>(SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			Scripture scripture = new Scripture();
+			scripture.setScriptureId(i + 1);
+			scripture.setTestament(i % 6 < 3 ? "OLD" : "NEW");
+			scripture.setBook(books[i % 6]);
+			scripture.setAuthor(authors[i % 6]);
+			scripture.setChapter(i / 30 + 1);
+			scripture.setVerse(i % 30 + 1);
+			scripture.setProphecy(i % 7 == 0);
+			scriptures.add(scripture);
+		}
+		return scriptures;
+	}
+
+	private static List<Question> questions() {
+		String[] difficulties = {"easy", "medium", "hard"};
+		List<Question> questions = new ArrayList<Question>(SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			Question question = new Question();
+			question.setQuestionId(i + 1);
+			question.setCategoryId(i % 12 + 1);
+			question.setText("Which prophet was taken up to heaven in a whirlwind, question " + i + "?");
+			question.setType(i % 2 == 0 ? "multiple choice" : "true/false");
+			question.setTestament(i % 3 == 0 ? "new" : "old");
+			question.setDifficulty(difficulties[i % 3]);
+			question.setSinceVersion(1.0f + (i % 4) / 10.0f);
+			questions.add(question);
+		}
+		return questions;
+	}
+
+	private static List<Personality> personalities() {
+		StringBuilder bio = new StringBuilder();
+		while (bio.length() < 1024) {
+			bio.append("Pastor, author and teacher, known for \"expository\" preaching & radio broadcasts. ");
+		}
+		List<Personality> personalities = new ArrayList<Personality>(SIZE);
+		for (int i = 0; i < SIZE; i++) {
+			Personality personality = new Personality();
+			personality.setPersonalityId(i + 1);
+			personality.setOrganizationId(i % 40 + 1);
+			personality.setName("Personality " + i);
+			personality.setTitle(i % 2 == 0 ? "Senior Pastor" : null);
+			personality.setBio(bio.toString());
+			personalities.add(personality);
+		}
+		return personalities;
+	}
+}
@@ -0,0 +1,263 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.dao.AnswerStatsDao;
+import com.emptytomb.dbmanager.dao.DaoException;
+
+/**
+* The AnswerCounters class counts the answers submitted to each question, the correct ones,
+* and the picks of each choice, in memory, and adds the counts to the statistics tables every
+* FLUSH_SECONDS (default 5, {@code -Ddbmanager.answers.flushSeconds}) in a few multi-row
+* upserts per table, so that an answer costs no database write of its own.
+*
+* <p>Each counter is a LongAdder, which starts as a single cell and only adds cells when
+* threads contend on it, so many threads counting answers to the same question do not queue
+* on one value while a question answered once costs a few dozen bytes. A flush reads each
+* counter's sum and subtracts exactly that amount, so an answer counted during a flush goes
+* into this flush or the next one, never both and never neither; sumThenReset() could lose
+* an answer added between its sum and its reset. Counts that could not be added are put
+* back and tried again at the next flush.</p>
+*
+* <p>Between taking the counts and adding them to the tables, they are in neither place.
+* Readers that add the counts to the tables' statistics call beginRead() and endRead()
+* around both reads, which holds off flushes in the meantime.</p>
+*
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class AnswerCounters {
+  private Logger logger = LoggerFactory.getLogger(AnswerCounters.class);
+  private static AnswerCounters instance = null;
+
+  private static final long FLUSH_SECONDS = Long.getLong("dbmanager.answers.flushSeconds", 5);
+
+  private final ConcurrentHashMap<Integer, LongAdder> answers = new ConcurrentHashMap<Integer, LongAdder>();
+  private final ConcurrentHashMap<Integer, LongAdder> correct = new ConcurrentHashMap<Integer, LongAdder>();
+  private final ConcurrentHashMap<Integer, LongAdder> picks = new ConcurrentHashMap<Integer, LongAdder>();
+  private final ConcurrentHashMap<Integer, Integer> choiceQuestions = new ConcurrentHashMap<Integer, Integer>();
+  private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+  private ScheduledExecutorService executor = null;
+
+  private AnswerCounters() {
+  }
+
+  /**
+   * This method returns the single instance of the AnswerCounters object.
+   *
+   * @return  the AnswerCounters object
+   *
+  */
+  public static AnswerCounters getInstance() {
+      if (instance == null) {
+          synchronized (AnswerCounters.class) {
+              if (instance == null) {
+                  instance = new AnswerCounters();
+              }
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method counts one answer.
+   *
+   * @param   questionId        the unique id of the question answered
+   * @param   questionChoiceId  the unique id of the choice picked
+   * @param   isCorrect         true if the choice picked is a correct answer
+  */
+  public void record(int questionId, int questionChoiceId, boolean isCorrect) {
+	  counter(answers, questionId).increment();
+	  if (isCorrect) {
+		  counter(correct, questionId).increment();
+	  }
+	  // read first: a put on a key already present locks its bin, and the most picked
+	  // choices are the keys present every time
+	  if (choiceQuestions.get(questionChoiceId) == null) {
+		  choiceQuestions.putIfAbsent(questionChoiceId, questionId);
+	  }
+	  counter(picks, questionChoiceId).increment();
+  }
+
+  /**
+   * @param   questionId  the unique id of a question
+   * @return              the answers to the question counted since the last flush
+  */
+  public long getAnswers(int questionId) {
+	  return sum(answers, questionId);
+  }
+
+  /**
+   * @param   questionId  the unique id of a question
+   * @return              the correct answers to the question counted since the last flush
+  */
+  public long getCorrect(int questionId) {
+	  return sum(correct, questionId);
+  }
+
+  /**
+   * @param   questionChoiceId  the unique id of a choice
+   * @return                    the picks of the choice counted since the last flush
+  */
+  public long getPicks(int questionChoiceId) {
+	  return sum(picks, questionChoiceId);
+  }
+
+  /**
+   * This method holds off flushes until endRead() is called, so that statistics read from
+   * the tables and the counts read from here add up to every answer exactly once.
+  */
+  public void beginRead() {
+	  flushLock.readLock().lock();
+  }
+
+  /**
+   * This method lets flushes held off by beginRead() go ahead.
+  */
+  public void endRead() {
+	  flushLock.readLock().unlock();
+  }
+
+  /**
+   * This method adds every count gathered since the last flush to the statistics tables.
+   * Counts that could not be added are kept for the next flush.
+  */
+  public synchronized void flush() {
+	  flushLock.writeLock().lock();
+	  try {
+		  flushCounts();
+	  } finally {
+		  flushLock.writeLock().unlock();
+	  }
+  }
+
+  private void flushCounts() {
+	  // ids in order, so that flushes from several instances lock rows in the same order
+	  Integer[] questionIds = answers.keySet().toArray(new Integer[0]);
+	  Arrays.sort(questionIds);
+	  int[] flushedQuestions = new int[questionIds.length];
+	  long[] flushedAnswers = new long[questionIds.length];
+	  long[] flushedCorrect = new long[questionIds.length];
+	  int questionCount = 0;
+	  for (Integer questionId : questionIds) {
+		  long answerCount = take(answers, questionId);
+		  long correctCount = take(correct, questionId);
+		  if (answerCount != 0 || correctCount != 0) {
+			  flushedQuestions[questionCount] = questionId;
+			  flushedAnswers[questionCount] = answerCount;
+			  flushedCorrect[questionCount++] = correctCount;
+		  }
+	  }
+	  Integer[] choiceIds = picks.keySet().toArray(new Integer[0]);
+	  Arrays.sort(choiceIds);
+	  int[] flushedChoices = new int[choiceIds.length];
+	  int[] flushedChoiceQuestions = new int[choiceIds.length];
+	  long[] flushedPicks = new long[choiceIds.length];
+	  int choiceCount = 0;
+	  for (Integer choiceId : choiceIds) {
+		  long pickCount = take(picks, choiceId);
+		  if (pickCount != 0) {
+			  flushedChoices[choiceCount] = choiceId;
+			  flushedChoiceQuestions[choiceCount] = choiceQuestions.get(choiceId);
+			  flushedPicks[choiceCount++] = pickCount;
+		  }
+	  }
+	  if (questionCount == 0 && choiceCount == 0) {
+		  return;
+	  }
+	  try {
+		  AnswerStatsDao.getInstance().add(Arrays.copyOf(flushedQuestions, questionCount),
+				  Arrays.copyOf(flushedAnswers, questionCount), Arrays.copyOf(flushedCorrect, questionCount),
+				  Arrays.copyOf(flushedChoices, choiceCount), Arrays.copyOf(flushedChoiceQuestions, choiceCount),
+				  Arrays.copyOf(flushedPicks, choiceCount));
+	  } catch (DaoException e) {
+		  logger.error(this.getClass().getName() + ": flush() - REASON-> " + e.getReason());
+		  for (int i = 0; i < questionCount; i++) {
+			  counter(answers, flushedQuestions[i]).add(flushedAnswers[i]);
+			  if (flushedCorrect[i] != 0) {
+				  counter(correct, flushedQuestions[i]).add(flushedCorrect[i]);
+			  }
+		  }
+		  for (int i = 0; i < choiceCount; i++) {
+			  counter(picks, flushedChoices[i]).add(flushedPicks[i]);
+		  }
+	  }
+  }
+
+  /**
+   * This method starts the periodic flush.
+  */
+  public synchronized void start() {
+	  if (executor != null) {
+		  return;
+	  }
+	  executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		  @Override
+		  public Thread newThread(Runnable runnable) {
+			  Thread thread = new Thread(runnable, "answer-counters");
+			  thread.setDaemon(true);
+			  return thread;
+		  }
+	  });
+	  executor.scheduleWithFixedDelay(new Runnable() {
+		  @Override
+		  public void run() {
+			  try {
+				  flush();
+			  } catch (RuntimeException e) {
+				  logger.error(AnswerCounters.this.getClass().getName() + ": flush() - REASON-> " + e.getMessage());
+			  }
+		  }
+	  }, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * This method stops the periodic flush, then flushes what was counted since the last one.
+  */
+  public synchronized void stop() {
+	  if (executor != null) {
+		  executor.shutdownNow();
+		  executor = null;
+	  }
+	  flush();
+  }
+
+  private static LongAdder counter(ConcurrentHashMap<Integer, LongAdder> counters, int id) {
+	  LongAdder counter = counters.get(id);
+	  if (counter == null) {
+		  counters.putIfAbsent(id, new LongAdder());
+		  counter = counters.get(id);
+	  }
+	  return counter;
+  }
+
+  // subtracts what the counter holds now; increments racing with it stay for the next flush
+  private static long take(ConcurrentHashMap<Integer, LongAdder> counters, int id) {
+	  LongAdder counter = counters.get(id);
+	  if (counter == null) {
+		  return 0;
+	  }
+	  long count = counter.sum();
+	  counter.add(-count);
+	  return count;
+  }
+
+  private static long sum(ConcurrentHashMap<Integer, LongAdder> counters, int id) {
+	  LongAdder counter = counters.get(id);
+	  return counter == null ? 0 : counter.sum();
+  }
+}
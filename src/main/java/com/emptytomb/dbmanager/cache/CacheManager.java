@@ -0,0 +1,124 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+* The CacheManager class is the registry of all in-process caches, keyed by the
+* database table whose rows they hold. It is the single place through which local
+* writes and the ChangeLogPoller invalidate cached rows.
+* 
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CacheManager {
+  private static CacheManager instance = null;
+  private final ConcurrentHashMap<String, List<ManagedCache>> caches =
+      new ConcurrentHashMap<String, List<ManagedCache>>();
+
+  private CacheManager() {
+  }
+
+  /**
+   * This method returns the single instance of the CacheManager object.
+   * 
+   * @return  the CacheManager object
+   * 
+  */
+  public static CacheManager getInstance() {
+      if (instance == null) {      
+          synchronized (CacheManager.class) {
+              if (instance == null) {
+                  instance = new CacheManager();
+              } 
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method registers the specified cache under its table name.
+   * 
+   * @param   cache  the cache to register
+   * @return         the registered cache
+  */
+  public <C extends ManagedCache> C register(C cache) {
+	  List<ManagedCache> list = caches.get(cache.getName());
+	  if (list == null) {
+		  caches.putIfAbsent(cache.getName(), new CopyOnWriteArrayList<ManagedCache>());
+		  list = caches.get(cache.getName());
+	  }
+	  list.add(cache);
+	  return cache;
+  }
+
+  /**
+   * This method invalidates the specified row in every cache registered for the table.
+   * 
+   * @param   table  the database table that changed
+   * @param   id     the unique id of the row that changed
+  */
+  public void invalidate(String table, int id) {
+	  List<ManagedCache> list = caches.get(table);
+	  if (list != null) {
+		  for (ManagedCache cache : list) {
+			  cache.invalidate(id);
+		  }
+	  }
+  }
+
+  /**
+   * This method pins the specified rows in every cache registered for the table.
+   * 
+   * @param   table  the database table
+   * @param   ids    the unique ids of the rows to pin
+  */
+  public void pin(String table, int[] ids) {
+	  List<ManagedCache> list = caches.get(table);
+	  if (list != null) {
+		  for (ManagedCache cache : list) {
+			  cache.pin(ids);
+		  }
+	  }
+  }
+
+  /**
+   * This method empties every cache registered for the table.
+   * 
+   * @param   table  the database table whose cached rows may be wrong
+  */
+  public void invalidateTable(String table) {
+	  List<ManagedCache> list = caches.get(table);
+	  if (list != null) {
+		  for (ManagedCache cache : list) {
+			  cache.invalidateAll();
+		  }
+	  }
+  }
+
+  /**
+   * This method empties every registered cache.
+  */
+  public void invalidateAll() {
+	  for (ManagedCache cache : getCaches()) {
+		  cache.invalidateAll();
+	  }
+  }
+
+  /**
+   * @return  all registered caches
+  */
+  public List<ManagedCache> getCaches() {
+	  List<ManagedCache> result = new ArrayList<ManagedCache>();
+	  for (List<ManagedCache> list : caches.values()) {
+		  result.addAll(list);
+	  }
+	  return result;
+  }
+}
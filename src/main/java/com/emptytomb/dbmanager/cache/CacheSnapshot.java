@@ -0,0 +1,190 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.dao.ChangeLogDao;
+import com.emptytomb.dbmanager.dao.DaoException;
+
+/**
+* The CacheSnapshot class persists the contents of every registered cache to a local file
+* on shutdown and reloads it on startup, so that a redeployed node comes back warm.
+* 
+* <p>The file holds, per cache, the table version the cached rows are consistent with.
+* On reload the file is memory-mapped and a cache section is only restored when its table
+* version still matches the change_log table; a table that has been written since is
+* dropped and refills from MySQL as usual. The layout is:</p>
+* 
+* <pre>{@code
+* int MAGIC, int FORMAT
+* int sectionCount
+* per section: UTF cacheName, UTF cacheClass, long tableVersion, int length, byte[length]
+* }</pre>
+* 
+* <p>The file location defaults to dbmanager-cache.snapshot in java.io.tmpdir and can be
+* set with the {@code dbmanager.cache.snapshot} system property.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CacheSnapshot {
+  private Logger logger = LoggerFactory.getLogger(CacheSnapshot.class);
+  private static final int MAGIC = 0x44424d53;  // DBMS
+  private static final int FORMAT = 1;
+  private final File file;
+
+  public CacheSnapshot() {
+	  this(new File(System.getProperty("dbmanager.cache.snapshot",
+			  new File(System.getProperty("java.io.tmpdir"), "dbmanager-cache.snapshot").getPath())));
+  }
+
+  public CacheSnapshot(File file) {
+	  this.file = file;
+  }
+
+  /**
+   * This method writes every registered cache to the snapshot file. The ChangeLogPoller
+   * should be stopped first; pending changes are applied before the caches are written.
+   * 
+   * <p>Table versions are read before the final poll, so every cached row reflects at
+   * least that version. A table written later gets a newer version and is discarded on
+   * reload.</p>
+  */
+  public void save() {
+	  ChangeLogPoller poller = ChangeLogPoller.getInstance();
+	  Map<String, Long> tableVersions;
+	  try {
+		  tableVersions = ChangeLogDao.getInstance().tableVersions();
+	  } catch (DaoException e) {
+		  logger.error(this.getClass().getName() + ": save() - REASON-> " + e.getReason());
+		  return;
+	  }
+	  poller.pollNow();
+	  long cursor = poller.getCursor();
+	  List<ManagedCache> caches = CacheManager.getInstance().getCaches();
+	  File temp = new File(file.getPath() + ".tmp");
+	  int sections = 0;
+	  try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));) {
+		  out.writeInt(MAGIC);
+		  out.writeInt(FORMAT);
+		  out.writeInt(caches.size());
+		  ByteArrayOutputStream section = new ByteArrayOutputStream();
+		  for (ManagedCache cache : caches) {
+			  Long tableVersion = tableVersions.get(cache.getName());
+			  long version = tableVersion == null ? 0 : tableVersion;
+			  section.reset();
+			  if (version <= cursor && cursor >= 0) {
+				  DataOutputStream sectionOut = new DataOutputStream(section);
+				  cache.save(sectionOut);
+				  sectionOut.flush();
+				  sections++;
+			  } else {
+				  // Changes not yet applied: write an empty section that will be skipped
+				  version = Long.MAX_VALUE;
+			  }
+			  out.writeUTF(cache.getName());
+			  out.writeUTF(cache.getClass().getName());
+			  out.writeLong(version);
+			  out.writeInt(section.size());
+			  section.writeTo(out);
+		  }
+	  } catch (IOException e) {
+		  logger.error(this.getClass().getName() + ": save() - REASON-> " + e.getMessage());
+		  temp.delete();
+		  return;
+	  }
+	  try {
+		  Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		  logger.info("Cache snapshot of " + sections + " caches written to " + file);
+	  } catch (IOException e) {
+		  logger.error(this.getClass().getName() + ": save() - REASON-> " + e.getMessage());
+	  }
+  }
+
+  /**
+   * This method reloads the registered caches from the snapshot file, dropping every
+   * section whose table has been written since the snapshot was taken.
+   * 
+   * @return  the change log version from which the ChangeLogPoller should start, or -1
+   *          if nothing was restored
+  */
+  public long restore() {
+	  if (!file.isFile()) {
+		  return -1;
+	  }
+	  long startVersion;
+	  Map<String, Long> tableVersions;
+	  try {
+		  ChangeLogDao changeLog = ChangeLogDao.getInstance();
+		  startVersion = changeLog.currentVersion();
+		  tableVersions = changeLog.tableVersions();
+	  } catch (DaoException e) {
+		  logger.error(this.getClass().getName() + ": restore() - REASON-> " + e.getReason());
+		  return -1;
+	  }
+	  Map<String, ManagedCache> caches = new HashMap<String, ManagedCache>();
+	  for (ManagedCache cache : CacheManager.getInstance().getCaches()) {
+		  caches.put(cache.getName() + "/" + cache.getClass().getName(), cache);
+	  }
+	  int restored = 0;
+	  int dropped = 0;
+	  try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);) {
+		  MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		  if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+			  logger.warn("Ignoring cache snapshot " + file + " with unknown format");
+			  return -1;
+		  }
+		  int count = buffer.getInt();
+		  for (int i = 0; i < count; i++) {
+			  String name = readUTF(buffer);
+			  String type = readUTF(buffer);
+			  long version = buffer.getLong();
+			  int length = buffer.getInt();
+			  ByteBuffer section = buffer.slice();
+			  section.limit(length);
+			  buffer.position(buffer.position() + length);
+
+			  Long current = tableVersions.get(name);
+			  ManagedCache cache = caches.get(name + "/" + type);
+			  if (cache == null || version != (current == null ? 0 : current)) {
+				  dropped++;
+				  continue;
+			  }
+			  cache.restore(section);
+			  restored++;
+		  }
+	  } catch (IOException | RuntimeException e) {
+		  logger.error(this.getClass().getName() + ": restore() - REASON-> " + e.getMessage());
+		  CacheManager.getInstance().invalidateAll();
+		  return -1;
+	  }
+	  logger.info("Cache snapshot restored " + restored + " caches, dropped " + dropped + " stale caches");
+	  return startVersion;
+  }
+
+  private static String readUTF(ByteBuffer buffer) {
+	  int length = buffer.getShort() & 0xFFFF;
+	  byte[] bytes = new byte[length];
+	  buffer.get(bytes);
+	  // writeUTF uses modified UTF-8, identical to UTF-8 for table and class names
+	  return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
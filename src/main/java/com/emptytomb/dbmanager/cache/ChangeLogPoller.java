@@ -0,0 +1,203 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.dao.ChangeLogDao;
+import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.domain.ChangeLogEntry;
+
+/**
+* The ChangeLogPoller class runs a background thread that reads the change_log table
+* and invalidates the rows written by any DbManager node in the local caches.
+* 
+* <p>Versions are assigned by an AUTO_INCREMENT column, so two concurrent transactions
+* can commit out of version order. When the poller sees a hole in the version sequence
+* it keeps re-reading from the hole until the missing version shows up or GAP_TIMEOUT_MILLIS
+* elapses (a rolled back write leaves a permanent hole). A hole of more than MAX_TRACKED_GAP
+* versions is not tracked version by version: every local cache is emptied at once, and
+* again when GAP_TIMEOUT_MILLIS has elapsed, so whatever of the hole commits meanwhile is
+* not missed. If the database is unreachable the cursor simply stops advancing, and the
+* next successful poll catches up in batches.</p>
+* 
+* <p>The poll interval defaults to 250 ms and can be set with the
+* {@code dbmanager.changelog.pollMillis} system property.</p>
+* 
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ChangeLogPoller {
+  private Logger logger = LoggerFactory.getLogger(ChangeLogPoller.class);
+  private static ChangeLogPoller instance = null;
+
+  private static final long POLL_MILLIS = Long.getLong("dbmanager.changelog.pollMillis", 250L);
+  private static final int BATCH_SIZE = 1000;
+  private static final long GAP_TIMEOUT_MILLIS = 10000L;
+  private static final int MAX_TRACKED_GAP = 1000;
+  private static final long PURGE_MILLIS = 3600000L;
+  private static final int RETENTION_SECONDS = 86400;
+
+  private ScheduledExecutorService executor = null;
+  private long cursor = -1;   // every version <= cursor has been applied
+  private long highest = -1;  // highest version applied
+  private final TreeMap<Long, Long> gaps = new TreeMap<Long, Long>();  // version -> first seen millis
+  private long resyncFrom = -1;  // first version of an untracked hole, -1 if none
+  private long resyncAt = 0;     // millis at which to empty every cache again
+  private long lastPurge = 0;
+
+  private ChangeLogPoller() {
+  }
+
+  /**
+   * This method returns the single instance of the ChangeLogPoller object.
+   * 
+   * @return  the ChangeLogPoller object
+   * 
+  */
+  public static ChangeLogPoller getInstance() {
+      if (instance == null) {      
+          synchronized (ChangeLogPoller.class) {
+              if (instance == null) {
+                  instance = new ChangeLogPoller();
+              } 
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method starts polling the change log.
+   * 
+   * @param   fromVersion  the last version already reflected in the local caches, or a
+   *                       negative value to start from the current end of the change log
+  */
+  public synchronized void start(long fromVersion) {
+	  if (executor != null) {
+		  return;
+	  }
+	  cursor = fromVersion;
+	  highest = fromVersion;
+	  gaps.clear();
+	  resyncFrom = -1;
+	  resyncAt = 0;
+	  executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		  @Override
+		  public Thread newThread(Runnable runnable) {
+			  Thread thread = new Thread(runnable, "change-log-poller");
+			  thread.setDaemon(true);
+			  return thread;
+		  }
+	  });
+	  executor.scheduleWithFixedDelay(new Runnable() {
+		  @Override
+		  public void run() {
+			  poll();
+		  }
+	  }, 0, POLL_MILLIS, TimeUnit.MILLISECONDS);
+	  logger.info("Change log poller started, interval " + POLL_MILLIS + " ms");
+  }
+
+  /**
+   * This method stops polling the change log.
+  */
+  public synchronized void stop() {
+	  if (executor != null) {
+		  executor.shutdownNow();
+		  executor = null;
+	  }
+  }
+
+  /**
+   * @return  the version up to which every change has been applied locally
+  */
+  public synchronized long getCursor() {
+	  return cursor;
+  }
+
+  /**
+   * This method applies every change recorded so far, whether or not the poller is running.
+  */
+  public void pollNow() {
+	  poll();
+  }
+
+  private synchronized void poll() {
+	  try {
+		  ChangeLogDao changeLog = ChangeLogDao.getInstance();
+		  if (cursor < 0) {
+			  cursor = changeLog.currentVersion();
+			  highest = cursor;
+		  }
+		  if (!gaps.isEmpty()) {
+			  apply(changeLog.listSince(gaps.firstKey() - 1, BATCH_SIZE));
+		  }
+		  List<ChangeLogEntry> entries;
+		  do {
+			  entries = changeLog.listSince(highest, BATCH_SIZE);
+			  apply(entries);
+		  } while (entries.size() == BATCH_SIZE);
+		  purge(changeLog);
+	  } catch (DaoException e) {
+		  logger.error(this.getClass().getName() + ": poll() - REASON-> " + e.getReason());
+	  } catch (RuntimeException e) {
+		  logger.error(this.getClass().getName() + ": poll() - REASON-> " + e.getMessage());
+	  }
+  }
+
+  private void apply(List<ChangeLogEntry> entries) {
+	  long now = System.currentTimeMillis();
+	  CacheManager cacheManager = CacheManager.getInstance();
+	  for (ChangeLogEntry entry : entries) {
+		  long version = entry.getVersion();
+		  if (version > highest) {
+			  if (version - highest - 1 <= MAX_TRACKED_GAP) {
+				  for (long missing = highest + 1; missing < version; missing++) {
+					  gaps.put(missing, now);
+				  }
+			  } else {
+				  logger.warn(this.getClass().getName() + ": apply() - REASON-> " + (version - highest - 1) +
+						  " versions missing after " + highest + ", emptying every cache");
+				  cacheManager.invalidateAll();
+				  if (resyncFrom < 0) {
+					  resyncFrom = highest + 1;
+				  }
+				  resyncAt = now + GAP_TIMEOUT_MILLIS;
+			  }
+			  highest = version;
+		  } else if (gaps.remove(version) == null) {
+			  continue;  // already applied
+		  }
+		  cacheManager.invalidate(entry.getTableName(), entry.getRowId());
+	  }
+	  while (!gaps.isEmpty() && now - gaps.firstEntry().getValue() > GAP_TIMEOUT_MILLIS) {
+		  gaps.pollFirstEntry();
+	  }
+	  if (resyncFrom >= 0 && now >= resyncAt) {
+		  cacheManager.invalidateAll();
+		  resyncFrom = -1;
+	  }
+	  cursor = gaps.isEmpty() ? highest : gaps.firstKey() - 1;
+	  if (resyncFrom >= 0) {
+		  cursor = Math.min(cursor, resyncFrom - 1);
+	  }
+  }
+
+  private void purge(ChangeLogDao changeLog) throws DaoException {
+	  long now = System.currentTimeMillis();
+	  if (now - lastPurge > PURGE_MILLIS) {
+		  lastPurge = now;
+		  changeLog.purge(RETENTION_SECONDS);
+	  }
+  }
+}
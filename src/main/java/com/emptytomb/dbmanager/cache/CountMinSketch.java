@@ -0,0 +1,78 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+* The CountMinSketch class is a fixed-size streaming frequency estimator for int keys.
+* Estimates never undercount, and overcount by at most 2N/width with high probability,
+* where N is the number of increments since the last decay.
+* 
+* <p>Counters are updated with atomic increments, so recording is lock-free.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CountMinSketch {
+  private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+  private final int width;
+  private final int mask;
+  private final AtomicIntegerArray counters;
+
+  /**
+   * @param   width  counters per row, rounded up to a power of two
+  */
+  public CountMinSketch(int width) {
+	  int size = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+	  this.width = size;
+	  this.mask = size - 1;
+	  this.counters = new AtomicIntegerArray(size * SEEDS.length);
+  }
+
+  /**
+   * This method counts one occurrence of the specified key.
+   * 
+   * @param   key  the key
+   * @return       the estimated count of the key, including this occurrence
+  */
+  public int add(int key) {
+	  int estimate = Integer.MAX_VALUE;
+	  for (int row = 0; row < SEEDS.length; row++) {
+		  int count = counters.incrementAndGet(row * width + bucket(key, row));
+		  estimate = Math.min(estimate, count);
+	  }
+	  return estimate;
+  }
+
+  /**
+   * @param   key  the key
+   * @return       the estimated count of the key
+  */
+  public int estimate(int key) {
+	  int estimate = Integer.MAX_VALUE;
+	  for (int row = 0; row < SEEDS.length; row++) {
+		  estimate = Math.min(estimate, counters.get(row * width + bucket(key, row)));
+	  }
+	  return estimate;
+  }
+
+  /**
+   * This method halves every counter, so that old traffic fades out.
+  */
+  public void decay() {
+	  for (int i = 0; i < counters.length(); i++) {
+		  int count;
+		  do {
+			  count = counters.get(i);
+		  } while (count != 0 && !counters.compareAndSet(i, count, count >>> 1));
+	  }
+  }
+
+  private int bucket(int key, int row) {
+	  int h = key * SEEDS[row];
+	  h ^= h >>> 15;
+	  h *= 0x2C1B3C6D;
+	  h ^= h >>> 12;
+	  return h & mask;
+  }
+}
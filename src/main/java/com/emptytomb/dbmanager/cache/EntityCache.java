@@ -0,0 +1,225 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* The EntityCache class is a read-through cache of domain objects keyed by row id.
+* 
+* <p>Loads race with invalidations: a DAO reads {@link #stamp()} before it queries
+* MySQL and hands the stamp back to {@link #put(int, Object, long)}. If any
+* invalidation happened in between, the freshly loaded (and possibly stale) object
+* is discarded rather than cached.</p>
+* 
+* <p>Each entry records its estimated size and last access time, which the
+* MemoryGovernor uses to shed the coldest entries across all caches. Pinned ids
+* are skipped when shedding.</p>
+* 
+* <p>Snapshots hold each entry as its id followed by the Java serialized object.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class EntityCache<T> implements ManagedCache {
+  // ConcurrentHashMap node, boxed key and Entry holder
+  private static final long ENTRY_OVERHEAD = 96;
+
+  private final String name;
+  private final SizeEstimator<T> estimator;
+  private final ConcurrentHashMap<Integer, Entry<T>> entries = new ConcurrentHashMap<Integer, Entry<T>>();
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private volatile int[] pinned = new int[0];  // sorted
+
+  private static class Entry<T> {
+	  private final T value;
+	  private final long size;
+	  private volatile long accessed;
+
+	  Entry(T value, long size) {
+		  this.value = value;
+		  this.size = size;
+		  this.accessed = System.nanoTime();
+	  }
+  }
+
+  public EntityCache(String name, SizeEstimator<T> estimator) {
+	  this.name = name;
+	  this.estimator = estimator;
+  }
+
+  @Override
+  public String getName() {
+	  return name;
+  }
+
+  /**
+   * @param   id  the unique id of the row
+   * @return      the cached object, or null if the row is not cached
+  */
+  public T get(int id) {
+	  Entry<T> entry = entries.get(id);
+	  if (entry == null) {
+		  return null;
+	  }
+	  entry.accessed = System.nanoTime();
+	  return entry.value;
+  }
+
+  /**
+   * @return  the current invalidation stamp, to be passed to {@link #put(int, Object, long)}
+  */
+  public long stamp() {
+	  return generation.get();
+  }
+
+  /**
+   * This method caches the specified object unless an invalidation happened after
+   * the specified stamp was taken.
+   * 
+   * @param   id     the unique id of the row
+   * @param   value  the object loaded from the database
+   * @param   stamp  the value returned by {@link #stamp()} before the load started
+  */
+  public void put(int id, T value, long stamp) {
+	  Entry<T> entry = new Entry<T>(value, ENTRY_OVERHEAD + estimator.estimate(value));
+	  Entry<T> old = entries.put(id, entry);
+	  bytes.addAndGet(entry.size - (old == null ? 0 : old.size));
+	  if (generation.get() != stamp) {
+		  remove(id, entry);
+	  }
+  }
+
+  @Override
+  public void invalidate(int id) {
+	  generation.incrementAndGet();
+	  Entry<T> old = entries.remove(id);
+	  if (old != null) {
+		  bytes.addAndGet(-old.size);
+	  }
+  }
+
+  @Override
+  public void invalidateAll() {
+	  generation.incrementAndGet();
+	  for (Map.Entry<Integer, Entry<T>> entry : entries.entrySet()) {
+		  remove(entry.getKey(), entry.getValue());
+	  }
+  }
+
+  @Override
+  public int size() {
+	  return entries.size();
+  }
+
+  @Override
+  public long estimatedBytes() {
+	  return bytes.get();
+  }
+
+  @Override
+  public long offHeapBytes() {
+	  return 0;
+  }
+
+  @Override
+  public int sampleAccessTimes(long[] accessTimes, long[] sizes) {
+	  // Reservoir sampling, shedding is rare enough for a full pass
+	  int seen = 0;
+	  int[] pins = pinned;
+	  ThreadLocalRandom random = ThreadLocalRandom.current();
+	  for (Map.Entry<Integer, Entry<T>> mapEntry : entries.entrySet()) {
+		  if (Arrays.binarySearch(pins, mapEntry.getKey()) >= 0) {
+			  continue;
+		  }
+		  Entry<T> entry = mapEntry.getValue();
+		  int slot = seen < accessTimes.length ? seen : random.nextInt(seen + 1);
+		  if (slot < accessTimes.length) {
+			  accessTimes[slot] = entry.accessed;
+			  sizes[slot] = entry.size;
+		  }
+		  seen++;
+	  }
+	  return Math.min(seen, accessTimes.length);
+  }
+
+  @Override
+  public long evictColderThan(long accessTime) {
+	  long freed = 0;
+	  int[] pins = pinned;
+	  for (Map.Entry<Integer, Entry<T>> entry : entries.entrySet()) {
+		  if (entry.getValue().accessed - accessTime < 0 && Arrays.binarySearch(pins, entry.getKey()) < 0
+				  && remove(entry.getKey(), entry.getValue())) {
+			  freed += entry.getValue().size;
+		  }
+	  }
+	  return freed;
+  }
+
+  @Override
+  public void pin(int[] ids) {
+	  int[] sorted = Arrays.copyOf(ids, ids.length);
+	  Arrays.sort(sorted);
+	  pinned = sorted;
+  }
+
+  @Override
+  public void save(DataOutputStream out) throws IOException {
+	  Map<Integer, T> copy = new HashMap<Integer, T>();
+	  for (Map.Entry<Integer, Entry<T>> entry : entries.entrySet()) {
+		  copy.put(entry.getKey(), entry.getValue().value);
+	  }
+	  out.writeInt(copy.size());
+	  ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	  for (Map.Entry<Integer, T> entry : copy.entrySet()) {
+		  buffer.reset();
+		  try (ObjectOutputStream objects = new ObjectOutputStream(buffer);) {
+			  objects.writeObject(entry.getValue());
+		  }
+		  out.writeInt(entry.getKey());
+		  out.writeInt(buffer.size());
+		  buffer.writeTo(out);
+	  }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void restore(ByteBuffer in) throws IOException {
+	  long stamp = stamp();
+	  int count = in.getInt();
+	  byte[] buffer = new byte[256];
+	  for (int i = 0; i < count; i++) {
+		  int id = in.getInt();
+		  int length = in.getInt();
+		  if (buffer.length < length) {
+			  buffer = new byte[length];
+		  }
+		  in.get(buffer, 0, length);
+		  try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(buffer, 0, length));) {
+			  put(id, (T) objects.readObject(), stamp);
+		  } catch (ClassNotFoundException | ClassCastException e) {
+			  throw new IOException("unreadable " + name + " entry " + id, e);
+		  }
+	  }
+  }
+
+  private boolean remove(int id, Entry<T> entry) {
+	  if (entries.remove(id, entry)) {
+		  bytes.addAndGet(-entry.size);
+		  return true;
+	  }
+	  return false;
+  }
+}
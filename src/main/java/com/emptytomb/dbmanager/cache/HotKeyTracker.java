@@ -0,0 +1,166 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.emptytomb.dbmanager.domain.HotKey;
+
+/**
+* The HotKeyTracker class finds the most requested ids of one entity: a CountMinSketch
+* estimates every id's request count and a bounded min-heap keeps the K ids with the
+* highest estimates.
+* 
+* <p>Recording is lock-free unless the estimate reaches the smallest count in the heap,
+* which only happens for ids that are already hot or about to become so.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class HotKeyTracker {
+  private final CountMinSketch sketch;
+  private final int capacity;
+  private final int[] heapIds;
+  private final int[] heapCounts;
+  private int heapSize = 0;
+  private volatile int admissionCount = 0;  // smallest count in a full heap
+
+  /**
+   * @param   capacity     the number of heavy hitters to keep
+   * @param   sketchWidth  counters per row of the sketch
+  */
+  public HotKeyTracker(int capacity, int sketchWidth) {
+	  this.sketch = new CountMinSketch(sketchWidth);
+	  this.capacity = capacity;
+	  this.heapIds = new int[capacity];
+	  this.heapCounts = new int[capacity];
+  }
+
+  /**
+   * This method counts one request for the specified id.
+   * 
+   * @param   id  the unique id that was requested
+  */
+  public void record(int id) {
+	  int estimate = sketch.add(id);
+	  if (estimate > admissionCount) {
+		  offer(id, estimate);
+	  }
+  }
+
+  /**
+   * @return  the heavy hitters, highest estimated count first
+  */
+  public synchronized List<HotKey> getHeavyHitters() {
+	  List<HotKey> result = new ArrayList<HotKey>(heapSize);
+	  for (int i = 0; i < heapSize; i++) {
+		  HotKey hotKey = new HotKey();
+		  hotKey.setId(heapIds[i]);
+		  hotKey.setCount(heapCounts[i]);
+		  result.add(hotKey);
+	  }
+	  Collections.sort(result, new Comparator<HotKey>() {
+		  @Override
+		  public int compare(HotKey a, HotKey b) {
+			  return Long.compare(b.getCount(), a.getCount());
+		  }
+	  });
+	  return result;
+  }
+
+  /**
+   * @return  the ids of the heavy hitters, in no particular order
+  */
+  public synchronized int[] getHotIds() {
+	  return Arrays.copyOf(heapIds, heapSize);
+  }
+
+  /**
+   * This method halves every count, so that ids which stopped being requested drop
+   * out of the heavy hitters as traffic shifts.
+  */
+  public synchronized void decay() {
+	  sketch.decay();
+	  int kept = 0;
+	  for (int i = 0; i < heapSize; i++) {
+		  int count = heapCounts[i] >>> 1;
+		  if (count > 0) {
+			  heapIds[kept] = heapIds[i];
+			  heapCounts[kept] = count;
+			  kept++;
+		  }
+	  }
+	  heapSize = kept;
+	  for (int i = heapSize / 2 - 1; i >= 0; i--) {
+		  siftDown(i);
+	  }
+	  updateAdmission();
+  }
+
+  private synchronized void offer(int id, int estimate) {
+	  for (int i = 0; i < heapSize; i++) {
+		  if (heapIds[i] == id) {
+			  heapCounts[i] = Math.max(heapCounts[i], estimate);
+			  siftDown(i);
+			  updateAdmission();
+			  return;
+		  }
+	  }
+	  if (heapSize < capacity) {
+		  heapIds[heapSize] = id;
+		  heapCounts[heapSize] = estimate;
+		  siftUp(heapSize++);
+	  } else if (estimate > heapCounts[0]) {
+		  heapIds[0] = id;
+		  heapCounts[0] = estimate;
+		  siftDown(0);
+	  }
+	  updateAdmission();
+  }
+
+  private void updateAdmission() {
+	  admissionCount = heapSize < capacity ? 0 : heapCounts[0];
+  }
+
+  private void siftUp(int i) {
+	  while (i > 0) {
+		  int parent = (i - 1) / 2;
+		  if (heapCounts[parent] <= heapCounts[i]) {
+			  break;
+		  }
+		  swap(i, parent);
+		  i = parent;
+	  }
+  }
+
+  private void siftDown(int i) {
+	  while (true) {
+		  int smallest = i;
+		  int left = 2 * i + 1;
+		  int right = left + 1;
+		  if (left < heapSize && heapCounts[left] < heapCounts[smallest]) {
+			  smallest = left;
+		  }
+		  if (right < heapSize && heapCounts[right] < heapCounts[smallest]) {
+			  smallest = right;
+		  }
+		  if (smallest == i) {
+			  return;
+		  }
+		  swap(i, smallest);
+		  i = smallest;
+	  }
+  }
+
+  private void swap(int a, int b) {
+	  int id = heapIds[a];
+	  heapIds[a] = heapIds[b];
+	  heapIds[b] = id;
+	  int count = heapCounts[a];
+	  heapCounts[a] = heapCounts[b];
+	  heapCounts[b] = count;
+  }
+}
@@ -0,0 +1,175 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.domain.HotKey;
+
+/**
+* The HotKeys class tracks the most requested ids of every entity and keeps them cached.
+* 
+* <p>Every GET by id on a REST resource is recorded in the entity's HotKeyTracker. Every
+* POLICY_SECONDS the current heavy hitters of each table are pinned in its caches, so the
+* MemoryGovernor never sheds them, and prefetched through the table's RowLoader. Every
+* DECAY_SECONDS all counts are halved, so the heavy hitters follow shifts in traffic such
+* as a new reading plan within a few minutes.</p>
+* 
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class HotKeys {
+  private Logger logger = LoggerFactory.getLogger(HotKeys.class);
+  private static HotKeys instance = null;
+
+  private static final int HEAVY_HITTERS = 64;
+  private static final int SKETCH_WIDTH = 4096;
+  private static final long POLICY_SECONDS = 10;
+  private static final long DECAY_SECONDS = 60;
+
+  private final ConcurrentHashMap<String, HotKeyTracker> trackers = new ConcurrentHashMap<String, HotKeyTracker>();
+  private final ConcurrentHashMap<String, RowLoader> loaders = new ConcurrentHashMap<String, RowLoader>();
+  private ScheduledExecutorService executor = null;
+
+  private HotKeys() {
+  }
+
+  /**
+   * This method returns the single instance of the HotKeys object.
+   * 
+   * @return  the HotKeys object
+   * 
+  */
+  public static HotKeys getInstance() {
+      if (instance == null) {      
+          synchronized (HotKeys.class) {
+              if (instance == null) {
+                  instance = new HotKeys();
+              } 
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method counts one request for the specified row.
+   * 
+   * @param   table  the name of the table that was read
+   * @param   id     the unique id of the row that was read
+  */
+  public void record(String table, int id) {
+	  HotKeyTracker tracker = trackers.get(table);
+	  if (tracker == null) {
+		  trackers.putIfAbsent(table, new HotKeyTracker(HEAVY_HITTERS, SKETCH_WIDTH));
+		  tracker = trackers.get(table);
+	  }
+	  tracker.record(id);
+  }
+
+  /**
+   * This method registers the loader used to prefetch hot rows of the specified table.
+   * 
+   * @param   table   the name of the table
+   * @param   loader  the loader that caches a row of the table
+  */
+  public void registerLoader(String table, RowLoader loader) {
+	  loaders.put(table, loader);
+  }
+
+  /**
+   * @param   table  the name of the table
+   * @return         the heavy hitters of the table, highest count first; null if the
+   *                 table has never been read
+  */
+  public List<HotKey> getHeavyHitters(String table) {
+	  HotKeyTracker tracker = trackers.get(table);
+	  return tracker == null ? null : tracker.getHeavyHitters();
+  }
+
+  /**
+   * @return  the heavy hitters of every table that has been read, by table name
+  */
+  public Map<String, List<HotKey>> getHeavyHitters() {
+	  Map<String, List<HotKey>> result = new TreeMap<String, List<HotKey>>();
+	  for (Map.Entry<String, HotKeyTracker> entry : trackers.entrySet()) {
+		  result.put(entry.getKey(), entry.getValue().getHeavyHitters());
+	  }
+	  return result;
+  }
+
+  /**
+   * This method starts the pin/prefetch policy and the periodic decay.
+  */
+  public synchronized void start() {
+	  if (executor != null) {
+		  return;
+	  }
+	  executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		  @Override
+		  public Thread newThread(Runnable runnable) {
+			  Thread thread = new Thread(runnable, "hot-keys");
+			  thread.setDaemon(true);
+			  return thread;
+		  }
+	  });
+	  executor.scheduleWithFixedDelay(new Runnable() {
+		  @Override
+		  public void run() {
+			  applyPolicy();
+		  }
+	  }, POLICY_SECONDS, POLICY_SECONDS, TimeUnit.SECONDS);
+	  executor.scheduleWithFixedDelay(new Runnable() {
+		  @Override
+		  public void run() {
+			  for (HotKeyTracker tracker : trackers.values()) {
+				  tracker.decay();
+			  }
+		  }
+	  }, DECAY_SECONDS, DECAY_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * This method stops the pin/prefetch policy and the periodic decay.
+  */
+  public synchronized void stop() {
+	  if (executor != null) {
+		  executor.shutdownNow();
+		  executor = null;
+	  }
+  }
+
+  private void applyPolicy() {
+	  CacheManager cacheManager = CacheManager.getInstance();
+	  for (Map.Entry<String, HotKeyTracker> entry : trackers.entrySet()) {
+		  String table = entry.getKey();
+		  int[] hotIds = entry.getValue().getHotIds();
+		  cacheManager.pin(table, hotIds);
+		  RowLoader loader = loaders.get(table);
+		  if (loader == null) {
+			  continue;
+		  }
+		  try {
+			  for (int id : hotIds) {
+				  loader.load(id);
+			  }
+		  } catch (DaoException e) {
+			  logger.error(this.getClass().getName() + ": applyPolicy() - REASON-> " + e.getReason());
+		  } catch (RuntimeException e) {
+			  logger.error(this.getClass().getName() + ": applyPolicy() - REASON-> " + e.getMessage());
+		  }
+	  }
+  }
+}
@@ -0,0 +1,92 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+* The ManagedCache interface is implemented by every in-process cache that holds rows
+* of a database table. Caches register with the CacheManager under their table name so
+* that local writes and change log entries written by other nodes can invalidate them.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public interface ManagedCache {
+	/**
+	 * @return  the name of the database table whose rows this cache holds
+	*/
+	public String getName();
+
+	/**
+	 * This method removes the entry for the specified row id, if present.
+	 * 
+	 * @param   id  the unique id of the row that changed
+	*/
+	public void invalidate(int id);
+
+	/**
+	 * This method removes every entry held by this cache.
+	*/
+	public void invalidateAll();
+
+	/**
+	 * @return  the number of entries currently held by this cache
+	*/
+	public int size();
+
+	/**
+	 * @return  the estimated number of heap bytes retained by this cache
+	*/
+	public long estimatedBytes();
+
+	/**
+	 * @return  the number of off-heap bytes allocated by this cache
+	*/
+	public long offHeapBytes();
+
+	/**
+	 * This method samples the last access time and estimated size of up to
+	 * accessTimes.length entries, chosen uniformly at random.
+	 * 
+	 * @param   accessTimes  receives the System.nanoTime() of each sampled entry's last access
+	 * @param   sizes        receives the estimated bytes of each sampled entry
+	 * @return               the number of entries sampled; 0 if this cache cannot shed entries
+	*/
+	public int sampleAccessTimes(long[] accessTimes, long[] sizes);
+
+	/**
+	 * This method evicts every entry last accessed before the specified time.
+	 * 
+	 * @param   accessTime  the System.nanoTime() cutoff
+	 * @return              the estimated number of bytes freed
+	*/
+	public long evictColderThan(long accessTime);
+
+	/**
+	 * This method replaces the set of pinned row ids. Pinned entries are never shed
+	 * by the MemoryGovernor, but are still invalidated when the row changes.
+	 * 
+	 * @param   ids  the unique ids of the rows to pin
+	*/
+	public void pin(int[] ids);
+
+	/**
+	 * This method writes every entry held by this cache to a snapshot.
+	 * 
+	 * @param   out  the stream to write the entries to
+	 * 
+	 * @throws  IOException if the snapshot could not be written
+	*/
+	public void save(DataOutputStream out) throws IOException;
+
+	/**
+	 * This method adds the entries written by save() back into this cache.
+	 * 
+	 * @param   in  a buffer positioned at the entries, usually a slice of a memory-mapped file
+	 * 
+	 * @throws  IOException if the entries could not be read
+	*/
+	public void restore(ByteBuffer in) throws IOException;
+}
@@ -0,0 +1,275 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+* The MemoryGovernor class enforces one heap budget, in estimated bytes, across every
+* cache registered with the CacheManager.
+* 
+* <p>Caches are shed in two situations: once a second the governor checks the total
+* against the budget, and the heap memory pools notify it through MemoryPoolMXBean
+* usage thresholds when the old generation fills up, before the JVM is driven into
+* back-to-back full collections. Either way the coldest entries across all caches go
+* first: each cache contributes a random sample of entry access times weighted by its
+* size, the samples are merged to find the access time below which enough bytes would
+* be freed, and every cache evicts its entries older than that.</p>
+* 
+* <p>The budget defaults to a quarter of the maximum heap and can be set with the
+* {@code dbmanager.cache.budgetBytes} system property.</p>
+* 
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class MemoryGovernor {
+  private Logger logger = LoggerFactory.getLogger(MemoryGovernor.class);
+  private static MemoryGovernor instance = null;
+
+  private static final double HEAP_THRESHOLD = 0.75;
+  private static final double SHED_TO_BUDGET = 0.9;
+  private static final double SHED_ON_PRESSURE = 0.5;
+  private static final int SAMPLE_SIZE = 1024;
+  private static final int MAX_ROUNDS = 3;
+
+  private final long budgetBytes = Long.getLong("dbmanager.cache.budgetBytes", Runtime.getRuntime().maxMemory() / 4);
+  private ScheduledExecutorService executor = null;
+  private NotificationListener listener = null;
+
+  private MemoryGovernor() {
+  }
+
+  /**
+   * This method returns the single instance of the MemoryGovernor object.
+   * 
+   * @return  the MemoryGovernor object
+   * 
+  */
+  public static MemoryGovernor getInstance() {
+      if (instance == null) {      
+          synchronized (MemoryGovernor.class) {
+              if (instance == null) {
+                  instance = new MemoryGovernor();
+              } 
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * @param   s  a cached String, may be null
+   * @return     the estimated heap bytes retained by the String
+  */
+  public static long sizeOf(String s) {
+	  return s == null ? 0 : 40 + 2L * s.length();
+  }
+
+  /**
+   * @param   bytes  a cached byte array, may be null
+   * @return         the estimated heap bytes retained by the array
+  */
+  public static long sizeOf(byte[] bytes) {
+	  return bytes == null ? 0 : 16 + bytes.length;
+  }
+
+  /**
+   * This method starts the budget check and registers for heap usage threshold notifications.
+  */
+  public synchronized void start() {
+	  if (executor != null) {
+		  return;
+	  }
+	  executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		  @Override
+		  public Thread newThread(Runnable runnable) {
+			  Thread thread = new Thread(runnable, "memory-governor");
+			  thread.setDaemon(true);
+			  return thread;
+		  }
+	  });
+	  executor.scheduleWithFixedDelay(new Runnable() {
+		  @Override
+		  public void run() {
+			  enforceBudget();
+		  }
+	  }, 1, 1, TimeUnit.SECONDS);
+
+	  for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+		  long max = pool.getUsage().getMax();
+		  if (pool.getType() != MemoryType.HEAP || max <= 0) {
+			  continue;
+		  }
+		  if (pool.isUsageThresholdSupported()) {
+			  pool.setUsageThreshold((long) (max * HEAP_THRESHOLD));
+		  }
+		  if (pool.isCollectionUsageThresholdSupported()) {
+			  pool.setCollectionUsageThreshold((long) (max * HEAP_THRESHOLD));
+		  }
+	  }
+	  listener = new NotificationListener() {
+		  @Override
+		  public void handleNotification(Notification notification, Object handback) {
+			  String type = notification.getType();
+			  if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type) ||
+				  MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+				  relieveHeapPressure();
+			  }
+		  }
+	  };
+	  ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+	  logger.info("Memory governor started, cache budget " + budgetBytes + " bytes");
+  }
+
+  /**
+   * This method stops the budget check and unregisters from heap notifications.
+  */
+  public synchronized void stop() {
+	  if (executor == null) {
+		  return;
+	  }
+	  try {
+		  ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(listener);
+	  } catch (ListenerNotFoundException e) {
+		  logger.warn(this.getClass().getName() + ": stop() - REASON-> " + e.getMessage());
+	  }
+	  executor.shutdownNow();
+	  executor = null;
+	  listener = null;
+  }
+
+  /**
+   * @return  the cache budget in bytes
+  */
+  public long getBudgetBytes() {
+	  return budgetBytes;
+  }
+
+  /**
+   * @return  the estimated heap bytes used by all registered caches
+  */
+  public long getUsedBytes() {
+	  long used = 0;
+	  for (ManagedCache cache : CacheManager.getInstance().getCaches()) {
+		  used += cache.estimatedBytes();
+	  }
+	  return used;
+  }
+
+  /**
+   * This method evicts the coldest entries across all caches until roughly the
+   * specified number of bytes has been freed.
+   * 
+   * @param   bytesToFree  the number of bytes to free
+   * @return              the estimated number of bytes freed
+  */
+  public synchronized long shed(long bytesToFree) {
+	  long freed = 0;
+	  for (int round = 0; round < MAX_ROUNDS && freed < bytesToFree; round++) {
+		  long cutoff = findCutoff(bytesToFree - freed);
+		  if (cutoff == Long.MIN_VALUE) {
+			  break;
+		  }
+		  for (ManagedCache cache : CacheManager.getInstance().getCaches()) {
+			  freed += cache.evictColderThan(cutoff);
+		  }
+	  }
+	  logger.info("Memory governor shed " + freed + " of " + bytesToFree + " requested bytes");
+	  return freed;
+  }
+
+  private void enforceBudget() {
+	  try {
+		  long used = getUsedBytes();
+		  if (used > budgetBytes) {
+			  shed(used - (long) (budgetBytes * SHED_TO_BUDGET));
+		  }
+	  } catch (RuntimeException e) {
+		  logger.error(this.getClass().getName() + ": enforceBudget() - REASON-> " + e.getMessage());
+	  }
+  }
+
+  private void relieveHeapPressure() {
+	  ScheduledExecutorService current = executor;
+	  if (current == null) {
+		  return;
+	  }
+	  // Never shed on the JMX notification thread
+	  current.execute(new Runnable() {
+		  @Override
+		  public void run() {
+			  long used = getUsedBytes();
+			  logger.warn("Heap usage threshold exceeded, shedding caches holding " + used + " bytes");
+			  shed((long) (used * SHED_ON_PRESSURE));
+		  }
+	  });
+  }
+
+  // Returns the access time below which roughly bytesToFree bytes are held, across all caches
+  private long findCutoff(long bytesToFree) {
+	  List<ManagedCache> caches = CacheManager.getInstance().getCaches();
+	  long[] times = new long[caches.size() * SAMPLE_SIZE];
+	  double[] weights = new double[times.length];
+	  long[] sampleTimes = new long[SAMPLE_SIZE];
+	  long[] sampleSizes = new long[SAMPLE_SIZE];
+	  int count = 0;
+	  for (ManagedCache cache : caches) {
+		  int sampled = cache.sampleAccessTimes(sampleTimes, sampleSizes);
+		  long sampledBytes = 0;
+		  for (int i = 0; i < sampled; i++) {
+			  sampledBytes += sampleSizes[i];
+		  }
+		  if (sampledBytes == 0) {
+			  continue;
+		  }
+		  // Each sample stands for its share of the cache's bytes
+		  double scale = (double) cache.estimatedBytes() / sampledBytes;
+		  for (int i = 0; i < sampled; i++) {
+			  times[count] = sampleTimes[i];
+			  weights[count] = sampleSizes[i] * scale;
+			  count++;
+		  }
+	  }
+	  if (count == 0) {
+		  return Long.MIN_VALUE;
+	  }
+	  Integer[] order = new Integer[count];
+	  for (int i = 0; i < count; i++) {
+		  order[i] = i;
+	  }
+	  final long[] sortTimes = times;
+	  Arrays.sort(order, new Comparator<Integer>() {
+		  @Override
+		  public int compare(Integer a, Integer b) {
+			  return Long.signum(sortTimes[a] - sortTimes[b]);
+		  }
+	  });
+	  double accumulated = 0;
+	  for (int i = 0; i < count; i++) {
+		  accumulated += weights[order[i]];
+		  if (accumulated >= bytesToFree) {
+			  return times[order[i]] + 1;
+		  }
+	  }
+	  return times[order[count - 1]] + 1;
+  }
+}
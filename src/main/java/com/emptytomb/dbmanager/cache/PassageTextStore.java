@@ -0,0 +1,735 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+* The PassageTextStore class caches passages with their text held off-heap as UTF-8 in
+* direct ByteBuffer segments. Everything else lives in parallel primitive int arrays
+* indexed by slot, and an open-addressing int table maps passage id to slot, so a cached
+* translation costs a few dozen bytes of heap per verse instead of a Passage and a String.
+* 
+* <p>Updated text is appended to the current segment and the old bytes become garbage;
+* once garbage exceeds the live bytes the store compacts itself into fresh segments.</p>
+* 
+* <p>Loads race with invalidations. The ids of the most recent invalidations are kept in a
+* ring indexed by generation, so a row loaded under an older stamp is only discarded when
+* that particular id was invalidated in the meantime, and a bulk load of the whole table
+* survives concurrent writes to a handful of rows.</p>
+* 
+* <p>The store remembers whether it holds the complete passage table. While it is complete,
+* invalidated ids are queued so that the next list request can reload just those rows.
+* That flag is part of snapshots, so a restored store can serve the list without a reload.</p>
+* 
+* <p>The text is off-heap and the heap footprint is a few fixed arrays, so the store is
+* reported to the MemoryGovernor but never asked to shed entries; evicting single rows
+* would only force the next list request to reload the whole table.</p>
+* 
+* <p>Slots are renumbered by compaction, so a reader that walks every passage takes a
+* Snapshot, which copies the slot arrays under one read lock and shares the segments.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class PassageTextStore implements ManagedCache {
+  private static final int SEGMENT_SIZE = 8 * 1024 * 1024;
+  private static final int NULL_TEXT = -1;
+  private static final int ABSENT = -2;
+  private static final int MAX_DIRTY = 4096;
+  private static final int RING_SIZE = 4096;
+
+  private final String name;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private long generation = 0;
+  private long clearedGeneration = 0;
+  private final int[] invalidated = new int[RING_SIZE];  // id invalidated at generation g, at g % RING_SIZE
+
+  private final List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+  private int segmentPosition = 0;
+  private long liveBytes = 0;
+  private long garbageBytes = 0;
+
+  private int slotCount = 0;
+  private int liveCount = 0;
+  private int[] ids = new int[1024];
+  private int[] translationIds = new int[1024];
+  private int[] scriptureIds = new int[1024];
+  private int[] segmentOf = new int[1024];
+  private int[] offsetOf = new int[1024];
+  private int[] lengthOf = new int[1024];
+  private int[] index = new int[2048];  // slot + 1, 0 when empty
+
+  private boolean complete = false;
+  private int[] dirty = new int[64];
+  private int dirtyCount = 0;
+
+  /**
+   * The Row class is a reusable holder for one passage read out of the store. The text
+   * bytes are copied into a buffer owned by the holder, which grows as needed.
+   */
+  public static class Row {
+	  private int passageId;
+	  private int translationId;
+	  private int scriptureId;
+	  private byte[] text = new byte[256];
+	  private int textLength;
+
+	  public int getPassageId() {
+		  return passageId;
+	  }
+
+	  public int getTranslationId() {
+		  return translationId;
+	  }
+
+	  public int getScriptureId() {
+		  return scriptureId;
+	  }
+
+	  /**
+	   * @return  the buffer holding the UTF-8 text; only the first getTextLength() bytes are valid
+	  */
+	  public byte[] getText() {
+		  return text;
+	  }
+
+	  /**
+	   * @return  the length of the UTF-8 text, or -1 if the passage text is null
+	  */
+	  public int getTextLength() {
+		  return textLength;
+	  }
+
+	  /**
+	   * This method fills the holder with a passage that was not read out of a store.
+	   * 
+	   * @param   passageId      the unique id of the passage
+	   * @param   translationId  the translation id of the passage
+	   * @param   scriptureId    the scripture id of the passage
+	   * @param   text           the passage text, may be null
+	  */
+	  public void set(int passageId, int translationId, int scriptureId, String text) {
+		  this.passageId = passageId;
+		  this.translationId = translationId;
+		  this.scriptureId = scriptureId;
+		  if (text == null) {
+			  textLength = NULL_TEXT;
+			  return;
+		  }
+		  byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		  if (this.text.length < bytes.length) {
+			  this.text = new byte[Math.max(bytes.length, this.text.length * 2)];
+		  }
+		  System.arraycopy(bytes, 0, this.text, 0, bytes.length);
+		  textLength = bytes.length;
+	  }
+  }
+
+  /**
+   * The Snapshot class holds the passages of the store as they were at one moment. Only
+   * the slot arrays are copied; the text stays in the segments, whose bytes are never
+   * overwritten, so puts, invalidations and compactions that follow leave it untouched.
+   */
+  public static class Snapshot {
+	  private final boolean complete;
+	  private final int count;
+	  private final int[] ids;
+	  private final int[] translationIds;
+	  private final int[] scriptureIds;
+	  private final int[] segmentOf;
+	  private final int[] offsetOf;
+	  private final int[] lengthOf;
+	  private final List<ByteBuffer> segments;
+
+	  private Snapshot(boolean complete, int count, int[] ids, int[] translationIds, int[] scriptureIds,
+			  int[] segmentOf, int[] offsetOf, int[] lengthOf, List<ByteBuffer> segments) {
+		  this.complete = complete;
+		  this.count = count;
+		  this.ids = ids;
+		  this.translationIds = translationIds;
+		  this.scriptureIds = scriptureIds;
+		  this.segmentOf = segmentOf;
+		  this.offsetOf = offsetOf;
+		  this.lengthOf = lengthOf;
+		  this.segments = segments;
+	  }
+
+	  /**
+	   * @return  true if the store held every row of the passage table, none of them
+	   *          invalidated, when the snapshot was taken
+	  */
+	  public boolean isComplete() {
+		  return complete;
+	  }
+
+	  /**
+	   * @return  the number of passages in the snapshot
+	  */
+	  public int size() {
+		  return count;
+	  }
+
+	  /**
+	   * This method copies a passage of the snapshot into the holder.
+	   * 
+	   * @param   i    the position of the passage, from 0 to size() - 1, in load order
+	   * @param   row  the holder to fill
+	  */
+	  public void read(int i, Row row) {
+		  int length = lengthOf[i];
+		  row.passageId = ids[i];
+		  row.translationId = translationIds[i];
+		  row.scriptureId = scriptureIds[i];
+		  row.textLength = length;
+		  if (length > 0) {
+			  if (row.text.length < length) {
+				  row.text = new byte[Math.max(length, row.text.length * 2)];
+			  }
+			  ByteBuffer segment = segments.get(segmentOf[i]).duplicate();
+			  segment.position(offsetOf[i]);
+			  segment.get(row.text, 0, length);
+		  }
+	  }
+  }
+
+  public PassageTextStore(String name) {
+	  this.name = name;
+  }
+
+  @Override
+  public String getName() {
+	  return name;
+  }
+
+  /**
+   * @return  the current invalidation stamp, to be passed to put() and markComplete()
+  */
+  public long stamp() {
+	  lock.readLock().lock();
+	  try {
+		  return generation;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @param   id  the unique id of the passage
+   * @return      true if the passage is held by the store
+  */
+  public boolean contains(int id) {
+	  lock.readLock().lock();
+	  try {
+		  int slot = find(id);
+		  return slot >= 0 && lengthOf[slot] != ABSENT;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * This method stores the specified passage unless the passage was invalidated after
+   * the specified stamp was taken.
+   * 
+   * @param   passageId      the unique id of the passage
+   * @param   translationId  the translation id of the passage
+   * @param   scriptureId    the scripture id of the passage
+   * @param   text           the passage text, may be null
+   * @param   stamp          the value returned by stamp() before the passage was loaded
+  */
+  public void put(int passageId, int translationId, int scriptureId, String text, long stamp) {
+	  byte[] bytes = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+	  lock.writeLock().lock();
+	  try {
+		  if (invalidatedSince(passageId, stamp)) {
+			  return;
+		  }
+		  int slot = find(passageId);
+		  if (slot < 0) {
+			  slot = newSlot(passageId);
+		  } else {
+			  release(slot);
+		  }
+		  translationIds[slot] = translationId;
+		  scriptureIds[slot] = scriptureId;
+		  if (bytes == null) {
+			  lengthOf[slot] = NULL_TEXT;
+		  } else {
+			  append(slot, bytes, bytes.length);
+		  }
+		  liveCount++;
+		  compactIfWasteful();
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method copies the specified passage into the holder.
+   * 
+   * @param   id   the unique id of the passage
+   * @param   row  the holder to fill
+   * @return       true if the passage is held by the store
+  */
+  public boolean read(int id, Row row) {
+	  lock.readLock().lock();
+	  try {
+		  int slot = find(id);
+		  return slot >= 0 && copy(slot, row);
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * This method takes a snapshot of every passage held by the store, under one read lock.
+   * 
+   * @return  the Snapshot
+  */
+  public Snapshot snapshot() {
+	  lock.readLock().lock();
+	  try {
+		  int[] snapshotIds = new int[liveCount];
+		  int[] snapshotTranslationIds = new int[liveCount];
+		  int[] snapshotScriptureIds = new int[liveCount];
+		  int[] snapshotSegmentOf = new int[liveCount];
+		  int[] snapshotOffsetOf = new int[liveCount];
+		  int[] snapshotLengthOf = new int[liveCount];
+		  int count = 0;
+		  for (int slot = 0; slot < slotCount; slot++) {
+			  if (lengthOf[slot] == ABSENT) {
+				  continue;
+			  }
+			  snapshotIds[count] = ids[slot];
+			  snapshotTranslationIds[count] = translationIds[slot];
+			  snapshotScriptureIds[count] = scriptureIds[slot];
+			  snapshotSegmentOf[count] = segmentOf[slot];
+			  snapshotOffsetOf[count] = offsetOf[slot];
+			  snapshotLengthOf[count] = lengthOf[slot];
+			  count++;
+		  }
+		  return new Snapshot(complete && dirtyCount == 0, count, snapshotIds, snapshotTranslationIds,
+				  snapshotScriptureIds, snapshotSegmentOf, snapshotOffsetOf, snapshotLengthOf,
+				  new ArrayList<ByteBuffer>(segments));
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @return  true if the store holds every row of the passage table
+  */
+  public boolean isComplete() {
+	  lock.readLock().lock();
+	  try {
+		  return complete;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * This method records that the whole passage table has been loaded. Rows invalidated
+   * while the table was loading are queued as dirty.
+   * 
+   * @param   stamp  the value returned by stamp() before the table was loaded
+  */
+  public void markComplete(long stamp) {
+	  lock.writeLock().lock();
+	  try {
+		  if (stamp < clearedGeneration || generation - stamp > Math.min(RING_SIZE, MAX_DIRTY)) {
+			  return;
+		  }
+		  complete = true;
+		  dirtyCount = 0;
+		  for (long g = stamp + 1; g <= generation; g++) {
+			  addDirty(invalidated[(int) (g % RING_SIZE)]);
+		  }
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method records that the store can no longer be trusted to hold every row.
+  */
+  public void markIncomplete() {
+	  lock.writeLock().lock();
+	  try {
+		  complete = false;
+		  dirtyCount = 0;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method returns, and forgets, the ids invalidated since the store became complete.
+   * 
+   * @return  the invalidated ids; empty if the store is not complete
+  */
+  public int[] drainDirty() {
+	  lock.writeLock().lock();
+	  try {
+		  int[] result = complete ? Arrays.copyOf(dirty, dirtyCount) : new int[0];
+		  dirtyCount = 0;
+		  return result;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidate(int id) {
+	  lock.writeLock().lock();
+	  try {
+		  generation++;
+		  invalidated[(int) (generation % RING_SIZE)] = id;
+		  int slot = find(id);
+		  if (slot >= 0 && lengthOf[slot] != ABSENT) {
+			  release(slot);
+			  lengthOf[slot] = ABSENT;
+		  }
+		  if (complete) {
+			  addDirty(id);
+		  }
+		  compactIfWasteful();
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidateAll() {
+	  lock.writeLock().lock();
+	  try {
+		  generation++;
+		  clearedGeneration = generation;
+		  segments.clear();
+		  segmentPosition = 0;
+		  liveBytes = 0;
+		  garbageBytes = 0;
+		  slotCount = 0;
+		  liveCount = 0;
+		  Arrays.fill(index, 0);
+		  complete = false;
+		  dirtyCount = 0;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public int size() {
+	  lock.readLock().lock();
+	  try {
+		  return liveCount;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long estimatedBytes() {
+	  lock.readLock().lock();
+	  try {
+		  return 4L * (ids.length * 6 + index.length + invalidated.length + dirty.length);
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public int sampleAccessTimes(long[] accessTimes, long[] sizes) {
+	  return 0;
+  }
+
+  @Override
+  public long evictColderThan(long accessTime) {
+	  return 0;
+  }
+
+  @Override
+  public void pin(int[] ids) {
+	  // Never shed, so nothing to pin
+  }
+
+  @Override
+  public long offHeapBytes() {
+	  lock.readLock().lock();
+	  try {
+		  long total = 0;
+		  for (ByteBuffer segment : segments) {
+			  total += segment.capacity();
+		  }
+		  return total;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public void save(DataOutputStream out) throws IOException {
+	  lock.readLock().lock();
+	  try {
+		  out.writeBoolean(complete && dirtyCount == 0);
+		  out.writeInt(liveCount);
+		  byte[] buffer = new byte[256];
+		  for (int slot = 0; slot < slotCount; slot++) {
+			  int length = lengthOf[slot];
+			  if (length == ABSENT) {
+				  continue;
+			  }
+			  out.writeInt(ids[slot]);
+			  out.writeInt(translationIds[slot]);
+			  out.writeInt(scriptureIds[slot]);
+			  out.writeInt(length);
+			  if (length > 0) {
+				  if (buffer.length < length) {
+					  buffer = new byte[length];
+				  }
+				  ByteBuffer segment = segments.get(segmentOf[slot]).duplicate();
+				  segment.position(offsetOf[slot]);
+				  segment.get(buffer, 0, length);
+				  out.write(buffer, 0, length);
+			  }
+		  }
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public void restore(ByteBuffer in) throws IOException {
+	  lock.writeLock().lock();
+	  try {
+		  boolean wasComplete = in.get() != 0;
+		  int count = in.getInt();
+		  byte[] buffer = new byte[256];
+		  for (int i = 0; i < count; i++) {
+			  int id = in.getInt();
+			  int translationId = in.getInt();
+			  int scriptureId = in.getInt();
+			  int length = in.getInt();
+			  int slot = find(id);
+			  if (slot < 0) {
+				  slot = newSlot(id);
+			  } else {
+				  release(slot);
+			  }
+			  translationIds[slot] = translationId;
+			  scriptureIds[slot] = scriptureId;
+			  if (length == NULL_TEXT) {
+				  lengthOf[slot] = NULL_TEXT;
+			  } else {
+				  if (buffer.length < length) {
+					  buffer = new byte[length];
+				  }
+				  in.get(buffer, 0, length);
+				  append(slot, buffer, length);
+			  }
+			  liveCount++;
+		  }
+		  if (wasComplete && liveCount == count) {
+			  complete = true;
+			  dirtyCount = 0;
+		  }
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  private boolean invalidatedSince(int id, long stamp) {
+	  if (stamp < clearedGeneration || generation - stamp > RING_SIZE) {
+		  return true;
+	  }
+	  for (long g = stamp + 1; g <= generation; g++) {
+		  if (invalidated[(int) (g % RING_SIZE)] == id) {
+			  return true;
+		  }
+	  }
+	  return false;
+  }
+
+  private void addDirty(int id) {
+	  if (dirtyCount == MAX_DIRTY) {
+		  complete = false;
+		  dirtyCount = 0;
+		  return;
+	  }
+	  if (dirtyCount == dirty.length) {
+		  dirty = Arrays.copyOf(dirty, dirty.length * 2);
+	  }
+	  dirty[dirtyCount++] = id;
+  }
+
+  private boolean copy(int slot, Row row) {
+	  int length = lengthOf[slot];
+	  if (length == ABSENT) {
+		  return false;
+	  }
+	  row.passageId = ids[slot];
+	  row.translationId = translationIds[slot];
+	  row.scriptureId = scriptureIds[slot];
+	  row.textLength = length;
+	  if (length > 0) {
+		  if (row.text.length < length) {
+			  row.text = new byte[Math.max(length, row.text.length * 2)];
+		  }
+		  ByteBuffer segment = segments.get(segmentOf[slot]).duplicate();
+		  segment.position(offsetOf[slot]);
+		  segment.get(row.text, 0, length);
+	  }
+	  return true;
+  }
+
+  private void append(int slot, byte[] bytes, int length) {
+	  ByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+	  if (segment == null || segment.capacity() - segmentPosition < length) {
+		  segment = ByteBuffer.allocateDirect(Math.max(SEGMENT_SIZE, length));
+		  segments.add(segment);
+		  segmentPosition = 0;
+	  }
+	  ByteBuffer target = segment.duplicate();
+	  target.position(segmentPosition);
+	  target.put(bytes, 0, length);
+	  segmentOf[slot] = segments.size() - 1;
+	  offsetOf[slot] = segmentPosition;
+	  lengthOf[slot] = length;
+	  segmentPosition += length;
+	  liveBytes += length;
+  }
+
+  private void release(int slot) {
+	  if (lengthOf[slot] == ABSENT) {
+		  return;
+	  }
+	  if (lengthOf[slot] > 0) {
+		  liveBytes -= lengthOf[slot];
+		  garbageBytes += lengthOf[slot];
+	  }
+	  liveCount--;
+  }
+
+  private void compactIfWasteful() {
+	  if (garbageBytes > SEGMENT_SIZE && garbageBytes > liveBytes) {
+		  compact();
+	  }
+  }
+
+  private void compact() {
+	  List<ByteBuffer> oldSegments = new ArrayList<ByteBuffer>(segments);
+	  int[] oldIds = ids;
+	  int[] oldTranslationIds = translationIds;
+	  int[] oldScriptureIds = scriptureIds;
+	  int[] oldSegmentOf = segmentOf;
+	  int[] oldOffsetOf = offsetOf;
+	  int[] oldLengthOf = lengthOf;
+	  int oldSlotCount = slotCount;
+	  int capacity = Math.max(1024, liveCount);
+
+	  segments.clear();
+	  segmentPosition = 0;
+	  liveBytes = 0;
+	  garbageBytes = 0;
+	  slotCount = 0;
+	  ids = new int[capacity];
+	  translationIds = new int[capacity];
+	  scriptureIds = new int[capacity];
+	  segmentOf = new int[capacity];
+	  offsetOf = new int[capacity];
+	  lengthOf = new int[capacity];
+	  index = new int[tableSize(capacity)];
+
+	  byte[] buffer = new byte[256];
+	  for (int old = 0; old < oldSlotCount; old++) {
+		  int length = oldLengthOf[old];
+		  if (length == ABSENT) {
+			  continue;
+		  }
+		  int slot = newSlot(oldIds[old]);
+		  translationIds[slot] = oldTranslationIds[old];
+		  scriptureIds[slot] = oldScriptureIds[old];
+		  if (length == NULL_TEXT) {
+			  lengthOf[slot] = NULL_TEXT;
+			  continue;
+		  }
+		  if (buffer.length < length) {
+			  buffer = new byte[length];
+		  }
+		  ByteBuffer source = oldSegments.get(oldSegmentOf[old]).duplicate();
+		  source.position(oldOffsetOf[old]);
+		  source.get(buffer, 0, length);
+		  append(slot, buffer, length);
+	  }
+  }
+
+  private int newSlot(int id) {
+	  if (slotCount == ids.length) {
+		  int capacity = ids.length * 2;
+		  ids = Arrays.copyOf(ids, capacity);
+		  translationIds = Arrays.copyOf(translationIds, capacity);
+		  scriptureIds = Arrays.copyOf(scriptureIds, capacity);
+		  segmentOf = Arrays.copyOf(segmentOf, capacity);
+		  offsetOf = Arrays.copyOf(offsetOf, capacity);
+		  lengthOf = Arrays.copyOf(lengthOf, capacity);
+	  }
+	  if ((slotCount + 1) * 2 > index.length) {
+		  rehash(index.length * 2);
+	  }
+	  int slot = slotCount++;
+	  ids[slot] = id;
+	  lengthOf[slot] = ABSENT;
+	  insert(id, slot);
+	  return slot;
+  }
+
+  private int find(int id) {
+	  int mask = index.length - 1;
+	  for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+		  int entry = index[i];
+		  if (entry == 0) {
+			  return -1;
+		  }
+		  if (ids[entry - 1] == id) {
+			  return entry - 1;
+		  }
+	  }
+  }
+
+  private void insert(int id, int slot) {
+	  int mask = index.length - 1;
+	  int i = mix(id) & mask;
+	  while (index[i] != 0) {
+		  i = (i + 1) & mask;
+	  }
+	  index[i] = slot + 1;
+  }
+
+  private void rehash(int size) {
+	  index = new int[size];
+	  for (int slot = 0; slot < slotCount; slot++) {
+		  insert(ids[slot], slot);
+	  }
+  }
+
+  private static int tableSize(int capacity) {
+	  int size = 2048;
+	  while (size < capacity * 2) {
+		  size <<= 1;
+	  }
+	  return size;
+  }
+
+  private static int mix(int id) {
+	  int h = id * 0x9E3779B9;
+	  return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,208 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* The PrecompressedCache class holds compressed response bodies that are derived from the
+* rows of one table, keyed by request path, media type and content encoding, so that
+* repeated list requests are answered without serializing or compressing again.
+*
+* <p>Every entry depends on the whole table, so a change to any row drops them all.
+* Loads race with invalidations the same way as in EntityCache, except that the stamp is
+* shared by all tables: it is read before the request is matched to a resource, when the
+* table is not yet known, and a body is only cached if no PrecompressedCache has been
+* invalidated or created since.</p>
+*
+* <p>Entries are budgeted and shed by the MemoryGovernor like any other cache. They are
+* not written to snapshots; the first compressed request after a restart rebuilds them.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class PrecompressedCache implements ManagedCache {
+  // ConcurrentHashMap node, key String and Entry holder
+  private static final long ENTRY_OVERHEAD = 160;
+  private static final ConcurrentHashMap<String, PrecompressedCache> tables = new ConcurrentHashMap<String, PrecompressedCache>();
+  private static final AtomicLong generation = new AtomicLong();
+
+  private final String name;
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+  private final AtomicLong bytes = new AtomicLong();
+
+  private static class Entry {
+	  private final byte[] body;
+	  private final long size;
+	  private volatile long accessed;
+
+	  Entry(String key, byte[] body) {
+		  this.body = body;
+		  this.size = ENTRY_OVERHEAD + MemoryGovernor.sizeOf(key) + MemoryGovernor.sizeOf(body);
+		  this.accessed = System.nanoTime();
+	  }
+  }
+
+  private PrecompressedCache(String name) {
+	  this.name = name;
+  }
+
+  /**
+   * This method returns the cache of compressed bodies derived from the specified table,
+   * creating and registering it with the CacheManager on first use.
+   *
+   * @param   table  the name of the database table
+   * @return         the PrecompressedCache for the table
+  */
+  public static synchronized PrecompressedCache forTable(String table) {
+	  PrecompressedCache cache = tables.get(table);
+	  if (cache == null) {
+		  cache = CacheManager.getInstance().register(new PrecompressedCache(table));
+		  tables.put(table, cache);
+		  // writes to the table before it was registered were never seen
+		  generation.incrementAndGet();
+	  }
+	  return cache;
+  }
+
+  /**
+   * This method looks the specified response up in the caches of every table.
+   *
+   * @param   key  the request path, media type and content encoding of the response
+   * @return       the compressed body, or null if it is not cached
+  */
+  public static byte[] find(String key) {
+	  for (PrecompressedCache cache : tables.values()) {
+		  byte[] body = cache.get(key);
+		  if (body != null) {
+			  return body;
+		  }
+	  }
+	  return null;
+  }
+
+  /**
+   * @return  the current invalidation stamp of all tables, to be passed to
+   *          {@link #put(String, byte[], long)}
+  */
+  public static long stamp() {
+	  return generation.get();
+  }
+
+  @Override
+  public String getName() {
+	  return name;
+  }
+
+  /**
+   * @param   key  the request path, media type and content encoding of the response
+   * @return       the compressed body, or null if it is not cached
+  */
+  public byte[] get(String key) {
+	  Entry entry = entries.get(key);
+	  if (entry == null) {
+		  return null;
+	  }
+	  entry.accessed = System.nanoTime();
+	  return entry.body;
+  }
+
+  /**
+   * This method caches the specified compressed body unless any table changed after the
+   * specified stamp was taken.
+   *
+   * @param   key    the request path, media type and content encoding of the response
+   * @param   body   the compressed body
+   * @param   stamp  the value returned by {@link #stamp()} before the response was produced
+  */
+  public void put(String key, byte[] body, long stamp) {
+	  Entry entry = new Entry(key, body);
+	  Entry old = entries.put(key, entry);
+	  bytes.addAndGet(entry.size - (old == null ? 0 : old.size));
+	  if (generation.get() != stamp) {
+		  remove(key, entry);
+	  }
+  }
+
+  @Override
+  public void invalidate(int id) {
+	  invalidateAll();
+  }
+
+  @Override
+  public void invalidateAll() {
+	  generation.incrementAndGet();
+	  for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+		  remove(entry.getKey(), entry.getValue());
+	  }
+  }
+
+  @Override
+  public int size() {
+	  return entries.size();
+  }
+
+  @Override
+  public long estimatedBytes() {
+	  return bytes.get();
+  }
+
+  @Override
+  public long offHeapBytes() {
+	  return 0;
+  }
+
+  @Override
+  public int sampleAccessTimes(long[] accessTimes, long[] sizes) {
+	  int seen = 0;
+	  ThreadLocalRandom random = ThreadLocalRandom.current();
+	  for (Entry entry : entries.values()) {
+		  int slot = seen < accessTimes.length ? seen : random.nextInt(seen + 1);
+		  if (slot < accessTimes.length) {
+			  accessTimes[slot] = entry.accessed;
+			  sizes[slot] = entry.size;
+		  }
+		  seen++;
+	  }
+	  return Math.min(seen, accessTimes.length);
+  }
+
+  @Override
+  public long evictColderThan(long accessTime) {
+	  long freed = 0;
+	  for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+		  if (entry.getValue().accessed - accessTime < 0 && remove(entry.getKey(), entry.getValue())) {
+			  freed += entry.getValue().size;
+		  }
+	  }
+	  return freed;
+  }
+
+  @Override
+  public void pin(int[] ids) {
+	  // entries are keyed by request, not by row
+  }
+
+  @Override
+  public void save(DataOutputStream out) throws IOException {
+	  out.writeInt(0);
+  }
+
+  @Override
+  public void restore(ByteBuffer in) throws IOException {
+	  in.getInt();
+  }
+
+  private boolean remove(String key, Entry entry) {
+	  if (entries.remove(key, entry)) {
+		  bytes.addAndGet(-entry.size);
+		  return true;
+	  }
+	  return false;
+  }
+}
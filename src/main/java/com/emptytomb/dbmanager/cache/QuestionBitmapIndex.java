@@ -0,0 +1,558 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+* The QuestionBitmapIndex class holds one bitmap per value of each filterable attribute of a
+* question (category, difficulty, testament, type and since version), so that any
+* combination of filters, and the number of questions per value of each attribute, is
+* answered by ANDing and ORing words of bits instead of reading the table.
+*
+* <p>Each question is given a row, and row numbers are reused when questions are removed, so
+* the rows stay dense however sparse the ids: a bitmap takes one bit per row up to its last
+* set bit, about 12 KB per value for 100,000 questions. A bitmap shorter than another reads
+* as zeros beyond its end.</p>
+*
+* <p>The index is registered with the CacheManager under its table so that writes seen in
+* the change log mark questions dirty. The owner reindexes dirty questions, and rebuilds
+* the whole index when it is not complete, before filtering. It is not written to
+* snapshots; it is rebuilt from the table, or from a cache of it, on first use.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuestionBitmapIndex implements ManagedCache {
+  private static final int MAX_DIRTY = 4096;
+  // object headers, fields and array header of one bitmap in its map
+  private static final long BITMAP_OVERHEAD = 96;
+  // boxed key, boxed value and entry of one question in the row map
+  private static final long ENTRY_OVERHEAD = 48;
+
+  private final String name;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Integer, Integer> rows = new HashMap<Integer, Integer>();
+  private int[] ids = new int[1024];  // question id of each row, 0 when free
+  private long[] live = new long[16];
+  private int rowCount = 0;
+  private int[] free = new int[64];
+  private int freeCount = 0;
+
+  private final Attribute<Integer> categories = new Attribute<Integer>();
+  private final Attribute<String> difficulties = new Attribute<String>();
+  private final Attribute<String> testaments = new Attribute<String>();
+  private final Attribute<String> types = new Attribute<String>();
+  private final Attribute<Float> sinceVersions = new Attribute<Float>();
+
+  private boolean complete = false;
+  private boolean overflowed = false;
+  private int[] dirty = new int[64];
+  private int dirtyCount = 0;
+
+  /**
+   * The questions that match a filter, in id order, and the number of questions per value
+   * of each attribute. The counts of an attribute apply every filter but its own, so they
+   * are what each value of the attribute would match in its place.
+  */
+  public static final class Result {
+	  private final int[] ids;
+	  private final Map<Integer, Integer> categoryCounts;
+	  private final Map<String, Integer> difficultyCounts;
+	  private final Map<String, Integer> testamentCounts;
+	  private final Map<String, Integer> typeCounts;
+	  private final Map<Float, Integer> sinceVersionCounts;
+
+	  Result(int[] ids, Map<Integer, Integer> categoryCounts, Map<String, Integer> difficultyCounts,
+			  Map<String, Integer> testamentCounts, Map<String, Integer> typeCounts, Map<Float, Integer> sinceVersionCounts) {
+		  this.ids = ids;
+		  this.categoryCounts = categoryCounts;
+		  this.difficultyCounts = difficultyCounts;
+		  this.testamentCounts = testamentCounts;
+		  this.typeCounts = typeCounts;
+		  this.sinceVersionCounts = sinceVersionCounts;
+	  }
+
+	  /**
+	   * @return  the unique ids of the questions that match, in id order
+	  */
+	  public int[] getIds() {
+		  return ids;
+	  }
+
+	  /**
+	   * @return  the number of questions by category id, in id order
+	  */
+	  public Map<Integer, Integer> getCategoryCounts() {
+		  return categoryCounts;
+	  }
+
+	  /**
+	   * @return  the number of questions by difficulty, in name order
+	  */
+	  public Map<String, Integer> getDifficultyCounts() {
+		  return difficultyCounts;
+	  }
+
+	  /**
+	   * @return  the number of questions by testament, in name order
+	  */
+	  public Map<String, Integer> getTestamentCounts() {
+		  return testamentCounts;
+	  }
+
+	  /**
+	   * @return  the number of questions by type, in name order
+	  */
+	  public Map<String, Integer> getTypeCounts() {
+		  return typeCounts;
+	  }
+
+	  /**
+	   * @return  the number of questions by since version, in version order
+	  */
+	  public Map<Float, Integer> getSinceVersionCounts() {
+		  return sinceVersionCounts;
+	  }
+  }
+
+  /*
+   * The bitmaps of one attribute by value, and the value of each row. String values are
+   * compared without case and reported as first written.
+   */
+  private static final class Attribute<K extends Comparable<K>> {
+	  private final TreeMap<K, long[]> bitmaps = new TreeMap<K, long[]>();
+	  private final Map<K, String> names = new HashMap<K, String>();
+	  private Object[] values = new Object[1024];
+
+	  void set(int row, K value, String name) {
+		  long[] bitmap = bitmaps.get(value);
+		  if (bitmap == null) {
+			  bitmap = new long[(row >>> 6) + 1];
+			  names.put(value, name);
+		  } else if (bitmap.length <= row >>> 6) {
+			  bitmap = Arrays.copyOf(bitmap, Math.max((row >>> 6) + 1, bitmap.length * 2));
+		  }
+		  bitmap[row >>> 6] |= 1L << row;
+		  bitmaps.put(value, bitmap);
+		  if (row >= values.length) {
+			  values = Arrays.copyOf(values, Math.max(row + 1, values.length * 2));
+		  }
+		  values[row] = value;
+	  }
+
+	  @SuppressWarnings("unchecked")
+	  void clear(int row) {
+		  K value = (K) values[row];
+		  values[row] = null;
+		  long[] bitmap = bitmaps.get(value);
+		  bitmap[row >>> 6] &= ~(1L << row);
+		  if (isEmpty(bitmap)) {
+			  bitmaps.remove(value);
+			  names.remove(value);
+		  }
+	  }
+
+	  @SuppressWarnings("unchecked")
+	  boolean equals(int row, K value) {
+		  return value.equals((K) values[row]);
+	  }
+
+	  void reset() {
+		  bitmaps.clear();
+		  names.clear();
+		  Arrays.fill(values, null);
+	  }
+
+	  Map<K, Integer> counts(long[] base) {
+		  Map<K, Integer> counts = new LinkedHashMap<K, Integer>();
+		  for (Map.Entry<K, long[]> entry : bitmaps.entrySet()) {
+			  int count = andCount(base, entry.getValue());
+			  if (count > 0) {
+				  counts.put(entry.getKey(), count);
+			  }
+		  }
+		  return counts;
+	  }
+
+	  Map<String, Integer> namedCounts(long[] base) {
+		  Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+		  for (Map.Entry<K, Integer> entry : counts(base).entrySet()) {
+			  counts.put(names.get(entry.getKey()), entry.getValue());
+		  }
+		  return counts;
+	  }
+
+	  long bytes() {
+		  long bytes = 8L * values.length;
+		  for (long[] bitmap : bitmaps.values()) {
+			  bytes += BITMAP_OVERHEAD + 8L * bitmap.length;
+		  }
+		  return bytes;
+	  }
+  }
+
+  public QuestionBitmapIndex(String name) {
+	  this.name = name;
+  }
+
+  @Override
+  public String getName() {
+	  return name;
+  }
+
+  /**
+   * This method indexes a question, replacing the attributes it was indexed with before.
+   *
+   * @param   id            the unique id of the question
+   * @param   categoryId    the category of the question
+   * @param   difficulty    the difficulty of the question
+   * @param   testament     the testament of the question
+   * @param   type          the type of the question
+   * @param   sinceVersion  the version the question was added in
+  */
+  public void add(int id, int categoryId, String difficulty, String testament, String type, float sinceVersion) {
+	  lock.writeLock().lock();
+	  try {
+		  Integer existing = rows.get(id);
+		  int row;
+		  if (existing != null) {
+			  row = existing;
+			  if (categories.equals(row, categoryId) && difficulties.equals(row, normalize(difficulty)) &&
+					  testaments.equals(row, normalize(testament)) && types.equals(row, normalize(type)) &&
+					  sinceVersions.equals(row, sinceVersion)) {
+				  return;
+			  }
+			  clearAttributes(row);
+		  } else {
+			  row = freeCount > 0 ? free[--freeCount] : rowCount++;
+			  if (row >= ids.length) {
+				  ids = Arrays.copyOf(ids, ids.length * 2);
+			  }
+			  if (row >>> 6 >= live.length) {
+				  live = Arrays.copyOf(live, live.length * 2);
+			  }
+			  ids[row] = id;
+			  live[row >>> 6] |= 1L << row;
+			  rows.put(id, row);
+		  }
+		  categories.set(row, categoryId, null);
+		  difficulties.set(row, normalize(difficulty), display(difficulty));
+		  testaments.set(row, normalize(testament), display(testament));
+		  types.set(row, normalize(type), display(type));
+		  sinceVersions.set(row, sinceVersion, null);
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * @param   id  the unique id of the question to remove from the index
+  */
+  public void remove(int id) {
+	  lock.writeLock().lock();
+	  try {
+		  Integer row = rows.remove(id);
+		  if (row == null) {
+			  return;
+		  }
+		  clearAttributes(row);
+		  ids[row] = 0;
+		  live[row >>> 6] &= ~(1L << row);
+		  if (freeCount == free.length) {
+			  free = Arrays.copyOf(free, free.length * 2);
+		  }
+		  free[freeCount++] = row;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method returns the questions that match every specified filter, and the number of
+   * questions per value of each attribute under the other filters.
+   *
+   * @param   categoryIds      the categories to match any of, or null for every category
+   * @param   difficulty       the difficulties to match any of, or null for every difficulty
+   * @param   testament        the testaments to match any of, or null for every testament
+   * @param   type             the types to match any of, or null for every type
+   * @param   minSinceVersion  the least since version to match, or NaN for every version
+   * @return                   the questions that match and the counts
+  */
+  public Result filter(Integer[] categoryIds, String[] difficulty, String[] testament, String[] type, float minSinceVersion) {
+	  lock.readLock().lock();
+	  try {
+		  long[] byCategory = categoryIds == null ? null : or(categories, categoryIds);
+		  long[] byDifficulty = difficulty == null ? null : or(difficulties, normalize(difficulty));
+		  long[] byTestament = testament == null ? null : or(testaments, normalize(testament));
+		  long[] byType = type == null ? null : or(types, normalize(type));
+		  long[] bySinceVersion = null;
+		  if (!Float.isNaN(minSinceVersion)) {
+			  bySinceVersion = or(sinceVersions, sinceVersions.bitmaps.tailMap(minSinceVersion, true).keySet().toArray(new Float[0]));
+		  }
+
+		  long[] matches = and(live, byCategory, byDifficulty, byTestament, byType, bySinceVersion);
+		  int[] result = new int[andCount(matches, matches)];
+		  int count = 0;
+		  for (int word = 0; word < matches.length; word++) {
+			  for (long bits = matches[word]; bits != 0; bits &= bits - 1) {
+				  result[count++] = ids[(word << 6) + Long.numberOfTrailingZeros(bits)];
+			  }
+		  }
+		  Arrays.sort(result);
+
+		  return new Result(result,
+				  categories.counts(and(live, byDifficulty, byTestament, byType, bySinceVersion)),
+				  difficulties.namedCounts(and(live, byCategory, byTestament, byType, bySinceVersion)),
+				  testaments.namedCounts(and(live, byCategory, byDifficulty, byType, bySinceVersion)),
+				  types.namedCounts(and(live, byCategory, byDifficulty, byTestament, bySinceVersion)),
+				  sinceVersions.counts(and(live, byCategory, byDifficulty, byTestament, byType)));
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @return  true if every row of the table is indexed and none has changed since
+  */
+  public boolean isCurrent() {
+	  lock.readLock().lock();
+	  try {
+		  return complete && dirtyCount == 0;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @return  true if every row of the table has been indexed, though some may be dirty
+  */
+  public boolean isComplete() {
+	  lock.readLock().lock();
+	  try {
+		  return complete;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * This method empties the index before every row of the table is indexed again. Rows
+   * changed from now on are queued as dirty.
+  */
+  public void clear() {
+	  lock.writeLock().lock();
+	  try {
+		  rows.clear();
+		  Arrays.fill(ids, 0);
+		  Arrays.fill(live, 0);
+		  rowCount = 0;
+		  freeCount = 0;
+		  categories.reset();
+		  difficulties.reset();
+		  testaments.reset();
+		  types.reset();
+		  sinceVersions.reset();
+		  complete = false;
+		  overflowed = false;
+		  dirtyCount = 0;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method records that every row of the table has been indexed since clear(),
+   * unless too many rows changed meanwhile to be reindexed one by one.
+  */
+  public void markComplete() {
+	  lock.writeLock().lock();
+	  try {
+		  complete = !overflowed;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method returns, and forgets, the ids of the rows changed since they were indexed.
+   *
+   * @return  the dirty ids
+  */
+  public int[] drainDirty() {
+	  lock.writeLock().lock();
+	  try {
+		  int[] result = Arrays.copyOf(dirty, dirtyCount);
+		  dirtyCount = 0;
+		  return result;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidate(int id) {
+	  lock.writeLock().lock();
+	  try {
+		  if (overflowed) {
+			  return;
+		  }
+		  if (dirtyCount == MAX_DIRTY) {
+			  overflowed = true;
+			  complete = false;
+			  dirtyCount = 0;
+			  return;
+		  }
+		  if (dirtyCount == dirty.length) {
+			  dirty = Arrays.copyOf(dirty, dirty.length * 2);
+		  }
+		  dirty[dirtyCount++] = id;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidateAll() {
+	  clear();
+  }
+
+  @Override
+  public int size() {
+	  lock.readLock().lock();
+	  try {
+		  return rows.size();
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long estimatedBytes() {
+	  lock.readLock().lock();
+	  try {
+		  return ENTRY_OVERHEAD * rows.size() + 4L * (ids.length + free.length + dirty.length) + 8L * live.length +
+				 categories.bytes() + difficulties.bytes() + testaments.bytes() + types.bytes() + sinceVersions.bytes();
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long offHeapBytes() {
+	  return 0;
+  }
+
+  @Override
+  public int sampleAccessTimes(long[] accessTimes, long[] sizes) {
+	  // a partial index would miscount every filter; it is never shed
+	  return 0;
+  }
+
+  @Override
+  public long evictColderThan(long accessTime) {
+	  return 0;
+  }
+
+  @Override
+  public void pin(int[] ids) {
+	  // Never shed, so nothing to pin
+  }
+
+  @Override
+  public void save(DataOutputStream out) throws IOException {
+	  // rebuilt on first use instead
+  }
+
+  @Override
+  public void restore(ByteBuffer in) throws IOException {
+	  // nothing saved
+  }
+
+  private void clearAttributes(int row) {
+	  categories.clear(row);
+	  difficulties.clear(row);
+	  testaments.clear(row);
+	  types.clear(row);
+	  sinceVersions.clear(row);
+  }
+
+  private static <K extends Comparable<K>> long[] or(Attribute<K> attribute, K[] values) {
+	  long[] result = new long[0];
+	  for (K value : values) {
+		  long[] bitmap = attribute.bitmaps.get(value);
+		  if (bitmap == null) {
+			  continue;
+		  }
+		  if (bitmap.length > result.length) {
+			  result = Arrays.copyOf(result, bitmap.length);
+		  }
+		  for (int word = 0; word < bitmap.length; word++) {
+			  result[word] |= bitmap[word];
+		  }
+	  }
+	  return result;
+  }
+
+  /*
+   * Returns the AND of the specified bitmaps, skipping null ones, as long as the shortest.
+   */
+  private static long[] and(long[] first, long[]... others) {
+	  int length = first.length;
+	  for (long[] other : others) {
+		  if (other != null) {
+			  length = Math.min(length, other.length);
+		  }
+	  }
+	  long[] result = Arrays.copyOf(first, length);
+	  for (long[] other : others) {
+		  if (other != null) {
+			  for (int word = 0; word < length; word++) {
+				  result[word] &= other[word];
+			  }
+		  }
+	  }
+	  return result;
+  }
+
+  private static int andCount(long[] a, long[] b) {
+	  int count = 0;
+	  for (int word = 0, length = Math.min(a.length, b.length); word < length; word++) {
+		  count += Long.bitCount(a[word] & b[word]);
+	  }
+	  return count;
+  }
+
+  private static boolean isEmpty(long[] bitmap) {
+	  for (long word : bitmap) {
+		  if (word != 0) {
+			  return false;
+		  }
+	  }
+	  return true;
+  }
+
+  private static String[] normalize(String[] values) {
+	  String[] result = new String[values.length];
+	  for (int i = 0; i < values.length; i++) {
+		  result[i] = normalize(values[i]);
+	  }
+	  return result;
+  }
+
+  private static String normalize(String value) {
+	  return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static String display(String value) {
+	  return value == null ? "" : value.trim();
+  }
+}
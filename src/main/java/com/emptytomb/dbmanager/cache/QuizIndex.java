@@ -0,0 +1,484 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+* The QuizIndex class holds the id of every question bucketed by its combination of category,
+* difficulty, testament and type, so that a quiz is drawn at random from the matching buckets
+* without reading the table.
+*
+* <p>Each bucket is a sorted int array of question ids. A sample of n questions without
+* replacement is a partial Fisher-Yates shuffle over the concatenated matching buckets, in which
+* only the n swapped positions are remembered, so it takes O(n) however many questions match.
+* Buckets are kept in key order and ids in id order, so the same seed over the same questions
+* draws the same quiz on every instance.</p>
+*
+* <p>The index is registered with the CacheManager under its table so that writes seen in
+* the change log mark questions dirty. The owner reindexes dirty questions, and rebuilds
+* the whole index when it is not complete, before sampling. It is not written to
+* snapshots; it is rebuilt from the table, or from a cache of it, on first use.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuizIndex implements ManagedCache {
+  private static final int MAX_DIRTY = 4096;
+  // object headers, fields and array header of one bucket
+  private static final long BUCKET_OVERHEAD = 96;
+  // boxed key, boxed value and entry of one question in the bucket map
+  private static final long ENTRY_OVERHEAD = 48;
+
+  private final String name;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final TreeMap<Key, Bucket> buckets = new TreeMap<Key, Bucket>();
+  private final Map<Integer, Bucket> bucketOf = new HashMap<Integer, Bucket>();
+
+  private boolean complete = false;
+  private boolean overflowed = false;
+  private int[] dirty = new int[64];
+  private int dirtyCount = 0;
+
+  /**
+   * The attribute a quiz can be stratified by: the quiz is shared as evenly as possible
+   * between the values of the attribute among the matching questions.
+  */
+  public static enum Stratum {
+	  CATEGORY, DIFFICULTY, TESTAMENT, TYPE
+  }
+
+  private static final class Key implements Comparable<Key> {
+	  private final int categoryId;
+	  private final String difficulty;
+	  private final String testament;
+	  private final String type;
+
+	  Key(int categoryId, String difficulty, String testament, String type) {
+		  this.categoryId = categoryId;
+		  this.difficulty = normalize(difficulty);
+		  this.testament = normalize(testament);
+		  this.type = normalize(type);
+	  }
+
+	  boolean matches(int categoryId, String difficulty, String testament, String type) {
+		  return (categoryId == 0 || this.categoryId == categoryId) &&
+				 (difficulty == null || difficulty.equals(this.difficulty)) &&
+				 (testament == null || testament.equals(this.testament)) &&
+				 (type == null || type.equals(this.type));
+	  }
+
+	  String value(Stratum stratum) {
+		  switch (stratum) {
+		  case CATEGORY:
+			  return String.valueOf(categoryId);
+		  case DIFFICULTY:
+			  return difficulty;
+		  case TESTAMENT:
+			  return testament;
+		  default:
+			  return type;
+		  }
+	  }
+
+	  @Override
+	  public int compareTo(Key other) {
+		  int result = Integer.compare(categoryId, other.categoryId);
+		  if (result == 0) {
+			  result = difficulty.compareTo(other.difficulty);
+		  }
+		  if (result == 0) {
+			  result = testament.compareTo(other.testament);
+		  }
+		  if (result == 0) {
+			  result = type.compareTo(other.type);
+		  }
+		  return result;
+	  }
+  }
+
+  private static final class Bucket {
+	  private final Key key;
+	  private int[] ids = new int[8];
+	  private int size = 0;
+
+	  Bucket(Key key) {
+		  this.key = key;
+	  }
+
+	  void add(int id) {
+		  int position = Arrays.binarySearch(ids, 0, size, id);
+		  if (position >= 0) {
+			  return;
+		  }
+		  position = -position - 1;
+		  if (size == ids.length) {
+			  ids = Arrays.copyOf(ids, size * 2);
+		  }
+		  System.arraycopy(ids, position, ids, position + 1, size - position);
+		  ids[position] = id;
+		  size++;
+	  }
+
+	  void remove(int id) {
+		  int position = Arrays.binarySearch(ids, 0, size, id);
+		  if (position >= 0) {
+			  System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+			  size--;
+		  }
+	  }
+  }
+
+  public QuizIndex(String name) {
+	  this.name = name;
+  }
+
+  @Override
+  public String getName() {
+	  return name;
+  }
+
+  /**
+   * This method indexes a question, replacing the attributes it was indexed with before.
+   *
+   * @param   id          the unique id of the question
+   * @param   categoryId  the category of the question
+   * @param   difficulty  the difficulty of the question
+   * @param   testament   the testament of the question
+   * @param   type        the type of the question
+  */
+  public void add(int id, int categoryId, String difficulty, String testament, String type) {
+	  Key key = new Key(categoryId, difficulty, testament, type);
+	  lock.writeLock().lock();
+	  try {
+		  Bucket previous = bucketOf.get(id);
+		  if (previous != null) {
+			  if (previous.key.compareTo(key) == 0) {
+				  return;
+			  }
+			  removeFrom(previous, id);
+		  }
+		  Bucket bucket = buckets.get(key);
+		  if (bucket == null) {
+			  bucket = new Bucket(key);
+			  buckets.put(key, bucket);
+		  }
+		  bucket.add(id);
+		  bucketOf.put(id, bucket);
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * @param   id  the unique id of the question to remove from the index
+  */
+  public void remove(int id) {
+	  lock.writeLock().lock();
+	  try {
+		  Bucket bucket = bucketOf.remove(id);
+		  if (bucket != null) {
+			  removeFrom(bucket, id);
+		  }
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method draws up to count questions at random without replacement from the
+   * questions that match every specified attribute, in random order.
+   *
+   * @param   categoryId  the category to draw from, or 0 for every category
+   * @param   difficulty  the difficulty to draw from, or null for every difficulty
+   * @param   testament   the testament to draw from, or null for every testament
+   * @param   type        the type to draw from, or null for every type
+   * @param   stratum     the attribute to share the quiz evenly between the values of, or
+   *                      null to draw uniformly from every matching question
+   * @param   count       the most questions to draw
+   * @param   random      the source of randomness; the same seed draws the same quiz from
+   *                      the same questions
+   * @return              the unique ids of the questions drawn, fewer than count if fewer match
+  */
+  public int[] sample(int categoryId, String difficulty, String testament, String type, Stratum stratum,
+		  int count, Random random) {
+	  difficulty = difficulty == null ? null : normalize(difficulty);
+	  testament = testament == null ? null : normalize(testament);
+	  type = type == null ? null : normalize(type);
+	  lock.readLock().lock();
+	  try {
+		  // each stratum is the matching buckets with one value of the attribute, in key order
+		  TreeMap<String, List<Bucket>> strata = new TreeMap<String, List<Bucket>>();
+		  for (Bucket bucket : buckets.values()) {
+			  if (bucket.size == 0 || !bucket.key.matches(categoryId, difficulty, testament, type)) {
+				  continue;
+			  }
+			  String value = stratum == null ? "" : bucket.key.value(stratum);
+			  List<Bucket> stratumBuckets = strata.get(value);
+			  if (stratumBuckets == null) {
+				  stratumBuckets = new ArrayList<Bucket>();
+				  strata.put(value, stratumBuckets);
+			  }
+			  stratumBuckets.add(bucket);
+		  }
+		  List<List<Bucket>> groups = new ArrayList<List<Bucket>>(strata.values());
+		  int[] sizes = new int[groups.size()];
+		  for (int i = 0; i < sizes.length; i++) {
+			  for (Bucket bucket : groups.get(i)) {
+				  sizes[i] += bucket.size;
+			  }
+		  }
+		  int[] shares = share(sizes, count, random);
+		  int total = 0;
+		  for (int share : shares) {
+			  total += share;
+		  }
+		  int[] result = new int[total];
+		  int drawn = 0;
+		  for (int i = 0; i < shares.length; i++) {
+			  drawn = draw(groups.get(i), sizes[i], shares[i], random, result, drawn);
+		  }
+		  // mix the strata
+		  for (int i = result.length - 1; i > 0; i--) {
+			  int j = random.nextInt(i + 1);
+			  int id = result[i];
+			  result[i] = result[j];
+			  result[j] = id;
+		  }
+		  return result;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @return  true if every row of the table is indexed and none has changed since
+  */
+  public boolean isCurrent() {
+	  lock.readLock().lock();
+	  try {
+		  return complete && dirtyCount == 0;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @return  true if every row of the table has been indexed, though some may be dirty
+  */
+  public boolean isComplete() {
+	  lock.readLock().lock();
+	  try {
+		  return complete;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * This method empties the index before every row of the table is indexed again. Rows
+   * changed from now on are queued as dirty.
+  */
+  public void clear() {
+	  lock.writeLock().lock();
+	  try {
+		  buckets.clear();
+		  bucketOf.clear();
+		  complete = false;
+		  overflowed = false;
+		  dirtyCount = 0;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method records that every row of the table has been indexed since clear(),
+   * unless too many rows changed meanwhile to be reindexed one by one.
+  */
+  public void markComplete() {
+	  lock.writeLock().lock();
+	  try {
+		  complete = !overflowed;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method returns, and forgets, the ids of the rows changed since they were indexed.
+   *
+   * @return  the dirty ids
+  */
+  public int[] drainDirty() {
+	  lock.writeLock().lock();
+	  try {
+		  int[] result = Arrays.copyOf(dirty, dirtyCount);
+		  dirtyCount = 0;
+		  return result;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidate(int id) {
+	  lock.writeLock().lock();
+	  try {
+		  if (overflowed) {
+			  return;
+		  }
+		  if (dirtyCount == MAX_DIRTY) {
+			  overflowed = true;
+			  complete = false;
+			  dirtyCount = 0;
+			  return;
+		  }
+		  if (dirtyCount == dirty.length) {
+			  dirty = Arrays.copyOf(dirty, dirty.length * 2);
+		  }
+		  dirty[dirtyCount++] = id;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidateAll() {
+	  clear();
+  }
+
+  @Override
+  public int size() {
+	  lock.readLock().lock();
+	  try {
+		  return bucketOf.size();
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long estimatedBytes() {
+	  lock.readLock().lock();
+	  try {
+		  long bytes = ENTRY_OVERHEAD * bucketOf.size() + 4L * dirty.length;
+		  for (Bucket bucket : buckets.values()) {
+			  bytes += BUCKET_OVERHEAD + 4L * bucket.ids.length;
+		  }
+		  return bytes;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long offHeapBytes() {
+	  return 0;
+  }
+
+  @Override
+  public int sampleAccessTimes(long[] accessTimes, long[] sizes) {
+	  // a partial index would skew every quiz; it is never shed
+	  return 0;
+  }
+
+  @Override
+  public long evictColderThan(long accessTime) {
+	  return 0;
+  }
+
+  @Override
+  public void pin(int[] ids) {
+	  // Never shed, so nothing to pin
+  }
+
+  @Override
+  public void save(DataOutputStream out) throws IOException {
+	  // rebuilt on first use instead
+  }
+
+  @Override
+  public void restore(ByteBuffer in) throws IOException {
+	  // nothing saved
+  }
+
+  private void removeFrom(Bucket bucket, int id) {
+	  bucket.remove(id);
+	  if (bucket.size == 0) {
+		  buckets.remove(bucket.key);
+	  }
+  }
+
+  /**
+   * Shares count between strata of the specified sizes as evenly as possible: a stratum
+   * too small for its share gives all it has, and the rest is shared between the others.
+   * Strata are served in a random order, so when the count does not divide evenly, or is
+   * smaller than the number of strata, the extra questions fall on random strata.
+  */
+  private static int[] share(int[] sizes, int count, Random random) {
+	  int[] order = new int[sizes.length];
+	  for (int i = 0; i < order.length; i++) {
+		  int j = random.nextInt(i + 1);
+		  order[i] = order[j];
+		  order[j] = i;
+	  }
+	  int[] shares = new int[sizes.length];
+	  int open = sizes.length;
+	  int left = count;
+	  while (left > 0 && open > 0) {
+		  int each = Math.max(left / open, 1);
+		  open = 0;
+		  for (int k = 0; k < order.length && left > 0; k++) {
+			  int i = order[k];
+			  int add = Math.min(each, sizes[i] - shares[i]);
+			  shares[i] += add;
+			  left -= add;
+			  if (shares[i] < sizes[i]) {
+				  open++;
+			  }
+		  }
+	  }
+	  return shares;
+  }
+
+  /**
+   * Draws count ids without replacement from the concatenated buckets with a partial
+   * Fisher-Yates shuffle that keeps only the swapped positions.
+  */
+  private static int draw(List<Bucket> group, int size, int count, Random random, int[] result, int offset) {
+	  int[] starts = new int[group.size()];
+	  for (int i = 1; i < starts.length; i++) {
+		  starts[i] = starts[i - 1] + group.get(i - 1).size;
+	  }
+	  Map<Integer, Integer> swapped = new HashMap<Integer, Integer>(count * 2);
+	  for (int i = 0; i < count; i++) {
+		  int j = i + random.nextInt(size - i);
+		  Integer atJ = swapped.get(j);
+		  Integer atI = swapped.get(i);
+		  int position = atJ == null ? j : atJ;
+		  swapped.put(j, atI == null ? i : atI);
+		  // no bucket in a group is empty, so the starts are distinct
+		  int b = Arrays.binarySearch(starts, position);
+		  if (b < 0) {
+			  b = -b - 2;
+		  }
+		  result[offset++] = group.get(b).ids[position - starts[b]];
+	  }
+	  return offset;
+  }
+
+  private static String normalize(String value) {
+	  return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+  }
+}
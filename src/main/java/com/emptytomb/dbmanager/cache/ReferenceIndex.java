@@ -0,0 +1,194 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+* The ReferenceIndex class maps the canonical ordinal of a verse (see VerseReference) to the
+* id of its scripture row, so that a reference is resolved without a database round trip.
+*
+* <p>The whole table is indexed at once into two parallel int arrays forming an
+* open-addressing hash table, about 8 bytes per verse, which is replaced as a unit. Any
+* write to the table makes the index stale; the DAO reloads it on the next lookup, reading
+* {@link #stamp()} first so that a load racing with a write is used but not trusted.</p>
+*
+* <p>The index is written to snapshots, so a warm restart does not reload it.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ReferenceIndex implements ManagedCache {
+  // object headers and array headers of one table
+  private static final long TABLE_OVERHEAD = 64;
+
+  private final String name;
+  private final AtomicLong generation = new AtomicLong();
+  private volatile Table table = null;
+
+  private static final class Table {
+	  private final int[] keys;  // ordinal, 0 when empty
+	  private final int[] values;
+	  private final int size;
+	  private final long generation;
+
+	  Table(int[] ordinals, int[] ids, int count, long generation) {
+		  int capacity = Integer.highestOneBit(Math.max(count, 8) * 2 - 1) << 1;
+		  keys = new int[capacity];
+		  values = new int[capacity];
+		  int added = 0;
+		  for (int i = 0; i < count; i++) {
+			  int slot = slot(ordinals[i], capacity);
+			  while (keys[slot] != 0 && keys[slot] != ordinals[i]) {
+				  slot = (slot + 1) & (capacity - 1);
+			  }
+			  // the first row wins if two rows claim the same verse
+			  if (keys[slot] == 0) {
+				  keys[slot] = ordinals[i];
+				  values[slot] = ids[i];
+				  added++;
+			  }
+		  }
+		  this.size = added;
+		  this.generation = generation;
+	  }
+
+	  int get(int ordinal) {
+		  int mask = keys.length - 1;
+		  for (int slot = slot(ordinal, keys.length); keys[slot] != 0; slot = (slot + 1) & mask) {
+			  if (keys[slot] == ordinal) {
+				  return values[slot];
+			  }
+		  }
+		  return 0;
+	  }
+
+	  private static int slot(int ordinal, int capacity) {
+		  return (ordinal * 0x9E3779B9 >>> 7) & (capacity - 1);
+	  }
+  }
+
+  public ReferenceIndex(String name) {
+	  this.name = name;
+  }
+
+  @Override
+  public String getName() {
+	  return name;
+  }
+
+  /**
+   * @return  the current invalidation stamp, to be passed to {@link #load(int[], int[], int, long)}
+  */
+  public long stamp() {
+	  return generation.get();
+  }
+
+  /**
+   * @return  true if the index holds every row and no row has changed since it was loaded
+  */
+  public boolean isLoaded() {
+	  Table current = table;
+	  return current != null && current.generation == generation.get();
+  }
+
+  /**
+   * This method replaces the index with the specified rows. If the table changed after the
+   * specified stamp was taken, the rows are still used but the index stays stale.
+   *
+   * @param   ordinals  the canonical ordinal of each row
+   * @param   ids       the unique id of each row
+   * @param   count     the number of rows
+   * @param   stamp     the value returned by {@link #stamp()} before the rows were read
+  */
+  public void load(int[] ordinals, int[] ids, int count, long stamp) {
+	  table = new Table(ordinals, ids, count, stamp);
+  }
+
+  /**
+   * @param   ordinal  the canonical ordinal of a verse
+   * @return           the unique id of its scripture row, or 0 if there is none or the
+   *                   index has never been loaded
+  */
+  public int get(int ordinal) {
+	  Table current = table;
+	  return current == null ? 0 : current.get(ordinal);
+  }
+
+  @Override
+  public void invalidate(int id) {
+	  generation.incrementAndGet();
+  }
+
+  @Override
+  public void invalidateAll() {
+	  generation.incrementAndGet();
+  }
+
+  @Override
+  public int size() {
+	  Table current = table;
+	  return current == null ? 0 : current.size;
+  }
+
+  @Override
+  public long estimatedBytes() {
+	  Table current = table;
+	  return current == null ? 0 : TABLE_OVERHEAD + 8L * current.keys.length;
+  }
+
+  @Override
+  public long offHeapBytes() {
+	  return 0;
+  }
+
+  @Override
+  public int sampleAccessTimes(long[] accessTimes, long[] sizes) {
+	  // a partial index is no index; it is never shed
+	  return 0;
+  }
+
+  @Override
+  public long evictColderThan(long accessTime) {
+	  return 0;
+  }
+
+  @Override
+  public void pin(int[] ids) {
+	  // the whole index is always held
+  }
+
+  @Override
+  public void save(DataOutputStream out) throws IOException {
+	  Table current = table;
+	  if (current == null || !isLoaded()) {
+		  out.writeInt(0);
+		  return;
+	  }
+	  out.writeInt(current.size);
+	  for (int slot = 0; slot < current.keys.length; slot++) {
+		  if (current.keys[slot] != 0) {
+			  out.writeInt(current.keys[slot]);
+			  out.writeInt(current.values[slot]);
+		  }
+	  }
+  }
+
+  @Override
+  public void restore(ByteBuffer in) throws IOException {
+	  long stamp = stamp();
+	  int count = in.getInt();
+	  if (count == 0) {
+		  return;
+	  }
+	  int[] ordinals = new int[count];
+	  int[] ids = new int[count];
+	  for (int i = 0; i < count; i++) {
+		  ordinals[i] = in.getInt();
+		  ids[i] = in.getInt();
+	  }
+	  load(ordinals, ids, count, stamp);
+  }
+}
@@ -0,0 +1,23 @@
+package com.emptytomb.dbmanager.cache;
+
+import com.emptytomb.dbmanager.dao.DaoException;
+
+/**
+* The RowLoader interface is implemented by DAOs so that the HotKeys policy can prefetch
+* hot rows into their caches.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public interface RowLoader {
+	/**
+	 * This method makes sure the specified row is cached, reading it if necessary.
+	 * 
+	 * @param   id  the unique id of the row
+	 * 
+	 * @throws  DaoException if an underlying storage mechanism Exception was
+	 *          encountered during processing
+	*/
+	public void load(int id) throws DaoException;
+}
@@ -0,0 +1,17 @@
+package com.emptytomb.dbmanager.cache;
+
+/**
+* The SizeEstimator interface estimates the heap footprint of a cached domain object, so
+* that the MemoryGovernor can budget caches in bytes rather than entry counts.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public interface SizeEstimator<T> {
+	/**
+	 * @param   value  the cached object
+	 * @return         the estimated number of heap bytes retained by the object
+	*/
+	public long estimate(T value);
+}
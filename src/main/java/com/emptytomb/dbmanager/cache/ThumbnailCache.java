@@ -0,0 +1,380 @@
+package com.emptytomb.dbmanager.cache;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.dao.BlobStore;
+import com.emptytomb.dbmanager.utility.ImageTypes;
+
+/**
+* The ThumbnailCache class keeps scaled down copies of pictures in a directory on local disk,
+* in every size listed in {@code dbmanager.thumbnail.sizes} (default 64,128,256 pixels on the
+* longer side).
+*
+* <p>Files are addressed by the SHA-256 digest of the picture they were made from, the name
+* of its blob and the ETag it is served with, so a replaced picture simply gets new files and
+* nothing ever has to be invalidated. Every size is made from one decode of the picture:
+* opaque pictures are written as JPEG, pictures with transparency as PNG. A picture ImageIO
+* cannot read, such as WebP, is remembered with an empty marker file and served full size.</p>
+*
+* <p>The directory defaults to dbmanager-thumbnails in java.io.tmpdir and can be set with
+* {@code -Ddbmanager.thumbnail.dir=...}; it may be deleted at any time.</p>
+*
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ThumbnailCache {
+  private Logger logger = LoggerFactory.getLogger(ThumbnailCache.class);
+  private static ThumbnailCache instance = null;
+
+  private static final String JPEG_SUFFIX = ".jpg";
+  private static final String PNG_SUFFIX = ".png";
+  private static final String UNSUPPORTED_SUFFIX = ".unsupported";
+  private static final float JPEG_QUALITY = 0.85f;
+  private static final int BUFFER_SIZE = 8192;
+
+  private final File directory;
+  private final int[] sizes;
+  private final ConcurrentHashMap<String, Object> generating = new ConcurrentHashMap<String, Object>();
+  private ExecutorService executor = null;
+
+  private ThumbnailCache() {
+	  directory = new File(System.getProperty("dbmanager.thumbnail.dir",
+			  new File(System.getProperty("java.io.tmpdir"), "dbmanager-thumbnails").getPath()));
+	  sizes = parseSizes(System.getProperty("dbmanager.thumbnail.sizes", "64,128,256"));
+  }
+
+  /**
+   * This method returns the single instance of the ThumbnailCache object.
+   *
+   * @return  the ThumbnailCache object
+   *
+  */
+  public static ThumbnailCache getInstance() {
+      if (instance == null) {
+          synchronized (ThumbnailCache.class) {
+              if (instance == null) {
+                  instance = new ThumbnailCache();
+              }
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * @param   hash  the hex SHA-256 digest of the picture
+   * @param   size  the thumbnail size in pixels
+   * @return        the key of the thumbnail, which is also its ETag
+  */
+  public static String key(String hash, int size) {
+	  return hash + "-" + size;
+  }
+
+  /**
+   * @return  the configured thumbnail sizes in pixels, smallest first
+  */
+  public int[] getSizes() {
+	  return sizes.clone();
+  }
+
+  /**
+   * @param   size  a thumbnail size in pixels
+   * @return        true if thumbnails are made in that size
+  */
+  public boolean isSize(int size) {
+	  return Arrays.binarySearch(sizes, size) >= 0;
+  }
+
+  /**
+   * @param   key  the key of the thumbnail
+   * @return       the file holding the thumbnail, or null if it has not been made
+  */
+  public File find(String key) {
+	  File file = new File(directory, key + JPEG_SUFFIX);
+	  if (file.isFile()) {
+		  return file;
+	  }
+	  file = new File(directory, key + PNG_SUFFIX);
+	  return file.isFile() ? file : null;
+  }
+
+  /**
+   * @param   hash  the hex SHA-256 digest of the picture
+   * @return        true if the picture is known not to be readable by ImageIO
+  */
+  public boolean isUnsupported(String hash) {
+	  return new File(directory, hash + UNSUPPORTED_SUFFIX).isFile();
+  }
+
+  /**
+   * @param   file  a file returned by {@link #find(String)}
+   * @return        the media type of the thumbnail
+  */
+  public static String contentType(File file) {
+	  return file.getName().endsWith(PNG_SUFFIX) ? ImageTypes.IMAGE_PNG : ImageTypes.IMAGE_JPEG;
+  }
+
+  /**
+   * This method makes every size of thumbnail of the specified picture that is missing.
+   * Concurrent calls for the same picture make them once.
+   *
+   * @param   picture  the bytes of the picture
+   * @return           the hex SHA-256 digest of the picture, under which the thumbnails are found
+   *
+   * @throws  IOException if a thumbnail could not be written
+  */
+  public String store(byte[] picture) throws IOException {
+	  String hash = BlobStore.digest(picture);
+	  Object lock = new Object();
+	  Object existing = generating.putIfAbsent(hash, lock);
+	  if (existing != null) {
+		  lock = existing;
+	  }
+	  synchronized (lock) {
+		  try {
+			  if (!isComplete(hash)) {
+				  generate(hash, picture);
+			  }
+		  } finally {
+			  generating.remove(hash, lock);
+		  }
+	  }
+	  return hash;
+  }
+
+  /**
+   * This method makes the thumbnails of a picture in the background, once it is started.
+   *
+   * @param   picture  reads the bytes of the picture, or returns null if there is none
+  */
+  public synchronized void storeLater(final Callable<byte[]> picture) {
+	  if (executor == null) {
+		  return;
+	  }
+	  executor.execute(new Runnable() {
+		  @Override
+		  public void run() {
+			  try {
+				  byte[] bytes = picture.call();
+				  if (bytes != null) {
+					  store(bytes);
+				  }
+			  } catch (Exception e) {
+				  logger.error(ThumbnailCache.this.getClass().getName() + ": storeLater() - REASON-> " + e.getMessage());
+			  }
+		  }
+	  });
+  }
+
+  /**
+   * This method copies part of the specified thumbnail to the specified stream.
+   *
+   * @param   key     the key of the thumbnail
+   * @param   offset  the index of the first byte to copy
+   * @param   length  the number of bytes to copy
+   * @param   out     the stream to copy to
+   *
+   * @throws  IOException if the thumbnail is gone or the stream could not be written
+  */
+  public void copy(String key, long offset, long length, OutputStream out) throws IOException {
+	  File file = find(key);
+	  if (file == null) {
+		  throw new IOException("thumbnail " + key + " is gone");
+	  }
+	  try (RandomAccessFile in = new RandomAccessFile(file, "r");) {
+		  in.seek(offset);
+		  InputStream stream = Channels.newInputStream(in.getChannel());
+		  byte[] buffer = new byte[BUFFER_SIZE];
+		  while (length > 0) {
+			  int count = stream.read(buffer, 0, (int) Math.min(buffer.length, length));
+			  if (count < 0) {
+				  break;
+			  }
+			  out.write(buffer, 0, count);
+			  length -= count;
+		  }
+	  }
+  }
+
+  /**
+   * This method starts the background thread that makes thumbnails of uploaded pictures.
+  */
+  public synchronized void start() {
+	  if (executor != null) {
+		  return;
+	  }
+	  executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		  @Override
+		  public Thread newThread(Runnable runnable) {
+			  Thread thread = new Thread(runnable, "thumbnails");
+			  thread.setDaemon(true);
+			  return thread;
+		  }
+	  });
+  }
+
+  /**
+   * This method stops the background thread, dropping thumbnails not yet made.
+  */
+  public synchronized void stop() {
+	  if (executor != null) {
+		  executor.shutdownNow();
+		  executor = null;
+	  }
+  }
+
+  private boolean isComplete(String hash) {
+	  if (isUnsupported(hash)) {
+		  return true;
+	  }
+	  for (int size : sizes) {
+		  if (find(key(hash, size)) == null) {
+			  return false;
+		  }
+	  }
+	  return true;
+  }
+
+  private void generate(String hash, byte[] picture) throws IOException {
+	  Files.createDirectories(directory.toPath());
+	  BufferedImage image = null;
+	  try {
+		  image = decode(picture, sizes[sizes.length - 1]);
+	  } catch (IOException | RuntimeException e) {
+		  logger.warn(this.getClass().getName() + ": generate() - REASON-> " + e.getMessage());
+	  }
+	  if (image == null) {
+		  new File(directory, hash + UNSUPPORTED_SUFFIX).createNewFile();
+		  return;
+	  }
+	  boolean alpha = image.getColorModel().hasAlpha();
+	  // largest first, each scaled from the one before
+	  for (int i = sizes.length - 1; i >= 0; i--) {
+		  image = scale(image, sizes[i], alpha);
+		  write(image, key(hash, sizes[i]) + (alpha ? PNG_SUFFIX : JPEG_SUFFIX), alpha);
+	  }
+  }
+
+  // subsamples while reading, so a large picture is never decoded at full resolution
+  private static BufferedImage decode(byte[] picture, int largestSize) throws IOException {
+	  try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(picture));) {
+		  Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+		  if (!readers.hasNext()) {
+			  return null;
+		  }
+		  ImageReader reader = readers.next();
+		  try {
+			  reader.setInput(input, true, true);
+			  int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+			  int subsampling = Math.max(1, longest / (largestSize * 2));
+			  ImageReadParam param = reader.getDefaultReadParam();
+			  param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+			  return reader.read(0, param);
+		  } finally {
+			  reader.dispose();
+		  }
+	  }
+  }
+
+  /*
+   * Fits the image in a size x size box, halving with bilinear interpolation until the
+   * last step so that downscaling by large factors does not alias. Never scales up.
+   */
+  private static BufferedImage scale(BufferedImage source, int size, boolean alpha) {
+	  int width = source.getWidth();
+	  int height = source.getHeight();
+	  double factor = Math.min(1.0, (double) size / Math.max(width, height));
+	  int targetWidth = Math.max(1, (int) Math.round(width * factor));
+	  int targetHeight = Math.max(1, (int) Math.round(height * factor));
+	  BufferedImage current = source;
+	  do {
+		  width = Math.max(targetWidth, width / 2);
+		  height = Math.max(targetHeight, height / 2);
+		  BufferedImage next = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		  Graphics2D graphics = next.createGraphics();
+		  try {
+			  if (!alpha) {
+				  graphics.setColor(Color.WHITE);
+				  graphics.fillRect(0, 0, width, height);
+			  }
+			  graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			  graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			  graphics.drawImage(current, 0, 0, width, height, null);
+		  } finally {
+			  graphics.dispose();
+		  }
+		  current = next;
+	  } while (width != targetWidth || height != targetHeight);
+	  return current;
+  }
+
+  // written to a temporary file and renamed, so a reader never sees a partial thumbnail
+  private void write(BufferedImage image, String name, boolean png) throws IOException {
+	  File temp = File.createTempFile(name, ".tmp", directory);
+	  try {
+		  ImageWriter writer = ImageIO.getImageWritersByFormatName(png ? "png" : "jpeg").next();
+		  try (ImageOutputStream out = ImageIO.createImageOutputStream(temp);) {
+			  writer.setOutput(out);
+			  ImageWriteParam param = writer.getDefaultWriteParam();
+			  if (!png) {
+				  param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				  param.setCompressionQuality(JPEG_QUALITY);
+			  }
+			  writer.write(null, new IIOImage(image, null, null), param);
+		  } finally {
+			  writer.dispose();
+		  }
+		  Files.move(temp.toPath(), new File(directory, name).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				  StandardCopyOption.ATOMIC_MOVE);
+	  } finally {
+		  Files.deleteIfExists(temp.toPath());
+	  }
+  }
+
+  private static int[] parseSizes(String value) {
+	  String[] parts = value.split(",");
+	  int[] result = new int[parts.length];
+	  for (int i = 0; i < parts.length; i++) {
+		  result[i] = Integer.parseInt(parts[i].trim());
+		  if (result[i] <= 0) {
+			  throw new IllegalArgumentException("dbmanager.thumbnail.sizes must be positive: " + value);
+		  }
+	  }
+	  Arrays.sort(result);
+	  return result;
+  }
+}
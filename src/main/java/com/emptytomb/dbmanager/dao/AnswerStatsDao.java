@@ -0,0 +1,199 @@
+package com.emptytomb.dbmanager.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.domain.ChoiceStats;
+import com.emptytomb.dbmanager.domain.QuestionStats;
+import com.emptytomb.dbmanager.utility.ConnectionFactory;
+
+/**
+ * The AnswerStatsDao class implements the JDBC persistence storage layer for the answer
+ * statistics of the questions, kept in the question_stats and question_choice_stats tables.
+ *
+ * <p>Statistics are only ever added to, by the counts each instance has gathered since it
+ * last added them, so the additions of every instance sum up and need neither the change
+ * log nor a cache.</p>
+ *
+ * <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+ * can exist at a time.</p>
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public class AnswerStatsDao {
+  private Logger logger = LoggerFactory.getLogger(AnswerStatsDao.class);
+  private static AnswerStatsDao instance = null;
+  private Connection connection = null;
+
+  private static final String QUESTION_STATS_TABLE = "question_stats";
+  private static final String QUESTION_STATS_QUESTION_ID = "questionId";
+  private static final String QUESTION_STATS_ANSWERS = "answers";
+  private static final String QUESTION_STATS_CORRECT = "correct";
+  private static final String CHOICE_STATS_TABLE = "question_choice_stats";
+  private static final String CHOICE_STATS_CHOICE_ID = "questionChoiceId";
+  private static final String CHOICE_STATS_QUESTION_ID = "questionId";
+  private static final String CHOICE_STATS_PICKS = "picks";
+  // rows per multi-row upsert, so that a flush of many ids is a few statements, each well
+  // under max_allowed_packet
+  private static final int ROWS_PER_UPSERT = 500;
+  private static final String QUESTION_STATS_INSERT = "INSERT INTO " + QUESTION_STATS_TABLE + "(" +
+               QUESTION_STATS_QUESTION_ID + "," +
+               QUESTION_STATS_ANSWERS + "," +
+               QUESTION_STATS_CORRECT + ") " + "VALUES";
+  private static final String QUESTION_STATS_UPDATE = " ON DUPLICATE KEY UPDATE " +
+               QUESTION_STATS_ANSWERS + "=" + QUESTION_STATS_ANSWERS + "+VALUES(" + QUESTION_STATS_ANSWERS + ")," +
+               QUESTION_STATS_CORRECT + "=" + QUESTION_STATS_CORRECT + "+VALUES(" + QUESTION_STATS_CORRECT + ")";
+  private static final String CHOICE_STATS_INSERT = "INSERT INTO " + CHOICE_STATS_TABLE + "(" +
+               CHOICE_STATS_CHOICE_ID + "," +
+               CHOICE_STATS_QUESTION_ID + "," +
+               CHOICE_STATS_PICKS + ") " + "VALUES";
+  private static final String CHOICE_STATS_UPDATE = " ON DUPLICATE KEY UPDATE " +
+               CHOICE_STATS_PICKS + "=" + CHOICE_STATS_PICKS + "+VALUES(" + CHOICE_STATS_PICKS + ")";
+
+  private AnswerStatsDao() {
+	connection = ConnectionFactory.getInstance().getConnection();
+  }
+
+  /**
+   * This method returns the single instance of the AnswerStatsDao object.
+   *
+   * @return  the AnswerStatsDao object
+   *
+   */
+  public static AnswerStatsDao getInstance() {
+      if (instance == null) {
+          synchronized (AnswerStatsDao.class) {
+              if (instance == null) {
+                  instance = new AnswerStatsDao();
+              }
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method reads the statistics of the specified question from the question_stats and
+   * question_choice_stats tables stored in MySQL.
+   *
+   * @param   questionId  the unique id of the question
+   * @return              the QuestionStats object with the answers, correct answers and the
+   *                      picks of each choice picked at least once, in choice id order; the
+   *                      percentages are left to the caller
+   *
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public QuestionStats get(int questionId) throws DaoException {
+      QuestionStats stats = new QuestionStats();
+      stats.setQuestionId(questionId);
+      String questionSql = "SELECT " + QUESTION_STATS_ANSWERS + "," + QUESTION_STATS_CORRECT + " FROM " +
+                           QUESTION_STATS_TABLE + " WHERE " + QUESTION_STATS_QUESTION_ID + " = ?;";
+      String choiceSql = "SELECT " + CHOICE_STATS_CHOICE_ID + "," + CHOICE_STATS_PICKS + " FROM " + CHOICE_STATS_TABLE +
+                         " WHERE " + CHOICE_STATS_QUESTION_ID + " = ? ORDER BY " + CHOICE_STATS_CHOICE_ID + ";";
+      try (PreparedStatement questionStmt = connection.prepareStatement(questionSql);
+           PreparedStatement choiceStmt = connection.prepareStatement(choiceSql);) {
+          questionStmt.setInt(1, questionId);
+          try (ResultSet resultSet = questionStmt.executeQuery();) {
+              if (resultSet.next()) {
+                  stats.setAnswers(resultSet.getLong(QUESTION_STATS_ANSWERS));
+                  stats.setCorrect(resultSet.getLong(QUESTION_STATS_CORRECT));
+              }
+          }
+          choiceStmt.setInt(1, questionId);
+          try (ResultSet resultSet = choiceStmt.executeQuery();) {
+              while (resultSet.next()) {
+                  ChoiceStats choice = new ChoiceStats();
+                  choice.setQuestionChoiceId(resultSet.getInt(CHOICE_STATS_CHOICE_ID));
+                  choice.setPicks(resultSet.getLong(CHOICE_STATS_PICKS));
+                  stats.getChoices().add(choice);
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": get() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return stats;
+  }
+
+  /**
+   * This method adds the specified counts to the question_stats and question_choice_stats
+   * tables stored in MySQL, creating the rows that do not exist yet, in a single transaction.
+   * The rows of each table are sent as multi-row INSERT ... ON DUPLICATE KEY UPDATE statements
+   * of up to ROWS_PER_UPSERT rows, so a flush takes one round trip per statement rather than
+   * one per row, whatever the JDBC URL says about rewriting batches.
+   *
+   * <p><b>Note:</b> The counts are added over a connection of their own, so that a flush
+   * neither waits for nor holds up the write transactions on the shared connection.</p>
+   *
+   * @param    questionIds        the unique id of each question answered
+   * @param    answers            the number of answers to add to each question
+   * @param    correct            the number of correct answers to add to each question
+   * @param    choiceIds          the unique id of each choice picked
+   * @param    choiceQuestionIds  the unique id of the question of each choice picked
+   * @param    picks              the number of picks to add to each choice
+   *
+   * @throws   DaoException if a SQL Exception was encountered during processing, in which
+   *           case none of the counts were added
+   */
+  public void add(int[] questionIds, long[] answers, long[] correct, int[] choiceIds, int[] choiceQuestionIds,
+          long[] picks) throws DaoException {
+      if (questionIds.length == 0 && choiceIds.length == 0) {
+          return;
+      }
+      try (Connection statsConnection = ConnectionFactory.getInstance().openConnection();) {
+          statsConnection.setAutoCommit(false);
+          try {
+              for (int from = 0; from < questionIds.length; from += ROWS_PER_UPSERT) {
+                  int rows = Math.min(ROWS_PER_UPSERT, questionIds.length - from);
+                  try (PreparedStatement stmt = statsConnection.prepareStatement(
+                          upsertSql(QUESTION_STATS_INSERT, rows, QUESTION_STATS_UPDATE));) {
+                      int index = 1;
+                      for (int i = from; i < from + rows; i++) {
+                          stmt.setInt(index++, questionIds[i]);
+                          stmt.setLong(index++, answers[i]);
+                          stmt.setLong(index++, correct[i]);
+                      }
+                      stmt.executeUpdate();
+                  }
+              }
+              for (int from = 0; from < choiceIds.length; from += ROWS_PER_UPSERT) {
+                  int rows = Math.min(ROWS_PER_UPSERT, choiceIds.length - from);
+                  try (PreparedStatement stmt = statsConnection.prepareStatement(
+                          upsertSql(CHOICE_STATS_INSERT, rows, CHOICE_STATS_UPDATE));) {
+                      int index = 1;
+                      for (int i = from; i < from + rows; i++) {
+                          stmt.setInt(index++, choiceIds[i]);
+                          stmt.setInt(index++, choiceQuestionIds[i]);
+                          stmt.setLong(index++, picks[i]);
+                      }
+                      stmt.executeUpdate();
+                  }
+              }
+              statsConnection.commit();
+          } catch (SQLException e) {
+              statsConnection.rollback();
+              throw e;
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": add() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
+
+  private static String upsertSql(String insert, int rows, String update) {
+      StringBuilder sql = new StringBuilder(insert.length() + rows * 8 + update.length());
+      sql.append(insert);
+      for (int i = 0; i < rows; i++) {
+          sql.append(i == 0 ? "(?,?,?)" : ",(?,?,?)");
+      }
+      return sql.append(update).toString();
+  }
+}
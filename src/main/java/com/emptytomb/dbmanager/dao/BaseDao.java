@@ -1,5 +1,6 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -34,6 +35,19 @@ public interface BaseDao<T> {
     */    
     public List<T> list() throws DaoException;
     
+    /**
+     * This method reads all the <T> records from the underlying storage mechanism
+     * and hands them to the specified handler one at a time, without holding them
+     * all in memory.
+     * 
+     * @param    handler  the RowHandler that receives each <T> object
+     * 
+     * @throws   DaoException if an underlying storage mechanism Exception was
+     *           encountered during processing
+     * @throws   IOException if the handler failed to write a <T> object
+    */    
+    public void export(RowHandler<T> handler) throws DaoException, IOException;
+    
     /**
      * This method adds the specified <T> record to the underlying storage mechanism
      * and returns the unique id of the <T> added.
@@ -46,6 +60,18 @@ public interface BaseDao<T> {
     */    
     public int add(T t) throws DaoException;
     
+    /**
+     * This method adds the specified <T> records to the underlying storage mechanism
+     * as one unit: either all of them are added or none are.
+     * 
+     * @param    ts   the <T> objects
+     * @return        the unique ids of the <T> records added, in order
+     * 
+     * @throws   DaoException if an underlying storage mechanism Exception was
+     *           encountered during processing
+    */    
+    public int[] addAll(List<T> ts) throws DaoException;
+    
     /**
      * This method updates the specified <T> record in the underlying storage mechanism.
      * 
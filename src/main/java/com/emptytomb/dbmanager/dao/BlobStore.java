@@ -0,0 +1,248 @@
+package com.emptytomb.dbmanager.dao;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+* The BlobStore class keeps binary objects as files on local disk, each named by the
+* SHA-256 digest of its bytes, so that the database only stores the digest. The same bytes
+* stored twice share one file.
+*
+* <p>Files are spread over 256 subdirectories by the first two hex digits of their digest.
+* A blob is streamed to a temporary file while its digest is computed and then renamed into
+* place, so a blob is either absent or complete. Blobs that no row refers to any more are
+* removed by {@link #collectGarbage(Set)} once they are older than GRACE_MILLIS, which
+* leaves time for the row of a blob being stored to be written.</p>
+*
+* <p>The directory defaults to dbmanager-blobs in user.home and is set with
+* {@code -Ddbmanager.blob.dir=...}; instances sharing a database must share it too.</p>
+*
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class BlobStore {
+  private Logger logger = LoggerFactory.getLogger(BlobStore.class);
+  private static BlobStore instance = null;
+
+  private static final long GRACE_MILLIS = TimeUnit.HOURS.toMillis(1);
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int BUFFER_SIZE = 8192;
+  private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+  private static final String DIRECTORY_PROPERTY = "dbmanager.blob.dir";
+
+  private final File directory;
+
+  private BlobStore() {
+	  directory = new File(System.getProperty(DIRECTORY_PROPERTY,
+			  new File(System.getProperty("user.home"), "dbmanager-blobs").getPath()));
+  }
+
+  /**
+   * This method returns the single instance of the BlobStore object.
+   *
+   * @return  the BlobStore object
+   *
+  */
+  public static BlobStore getInstance() {
+      if (instance == null) {
+          synchronized (BlobStore.class) {
+              if (instance == null) {
+                  instance = new BlobStore();
+              }
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method stores the bytes of the specified stream, reading it to the end.
+   *
+   * @param   in      the stream to read
+   * @param   length  the number of bytes the stream must hold, or -1 if it is not known
+   * @return          the hex SHA-256 digest of the bytes, which names the blob
+   *
+   * @throws  IOException if the stream could not be read, held a different number of bytes
+   *          than expected, or the blob could not be written
+  */
+  public String put(InputStream in, long length) throws IOException {
+	  MessageDigest digest = sha256();
+	  Files.createDirectories(directory.toPath());
+	  File temp = File.createTempFile("blob", TEMP_SUFFIX, directory);
+	  try {
+		  long count = 0;
+		  try (OutputStream out = new FileOutputStream(temp);) {
+			  byte[] buffer = new byte[BUFFER_SIZE];
+			  for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+				  digest.update(buffer, 0, n);
+				  out.write(buffer, 0, n);
+				  count += n;
+			  }
+		  }
+		  if (length >= 0 && count != length) {
+			  throw new IOException("blob ended after " + count + " of " + length + " bytes");
+		  }
+		  String hash = toHex(digest.digest());
+		  File file = file(hash);
+		  if (file.isFile()) {
+			  // already stored; make it young again so garbage collection leaves it alone
+			  file.setLastModified(System.currentTimeMillis());
+		  } else {
+			  Files.createDirectories(file.getParentFile().toPath());
+			  Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		  }
+		  return hash;
+	  } finally {
+		  Files.deleteIfExists(temp.toPath());
+	  }
+  }
+
+  /**
+   * @return  true if the directory was set with -Ddbmanager.blob.dir rather than defaulted
+   *          to one of this instance's own
+  */
+  public boolean isDirectorySet() {
+	  return System.getProperty(DIRECTORY_PROPERTY) != null;
+  }
+
+  /**
+   * @param   hash  the digest of a blob
+   * @return        the size of the blob in bytes, or -1 if it is not stored
+  */
+  public long length(String hash) {
+	  File file = file(hash);
+	  return file.isFile() ? file.length() : -1;
+  }
+
+  /**
+   * This method copies the first bytes of the specified blob into the specified array.
+   *
+   * @param   hash    the digest of the blob
+   * @param   header  the array to fill
+   * @return          the number of bytes copied, less than the array length if the blob is shorter
+   *
+   * @throws  IOException if the blob is not stored or could not be read
+  */
+  public int readHeader(String hash, byte[] header) throws IOException {
+	  try (RandomAccessFile in = new RandomAccessFile(file(hash), "r");) {
+		  int count = 0;
+		  for (int n; count < header.length && (n = in.read(header, count, header.length - count)) > 0; ) {
+			  count += n;
+		  }
+		  return count;
+	  }
+  }
+
+  /**
+   * This method copies part of the specified blob to the specified stream.
+   *
+   * @param   hash    the digest of the blob
+   * @param   offset  the index of the first byte to copy
+   * @param   length  the number of bytes to copy
+   * @param   out     the stream to copy to
+   *
+   * @throws  IOException if the blob is not stored, could not be read or the stream could not be written
+  */
+  public void copy(String hash, long offset, long length, OutputStream out) throws IOException {
+	  try (RandomAccessFile file = new RandomAccessFile(file(hash), "r");) {
+		  file.seek(offset);
+		  InputStream in = Channels.newInputStream(file.getChannel());
+		  byte[] buffer = new byte[BUFFER_SIZE];
+		  while (length > 0) {
+			  int count = in.read(buffer, 0, (int) Math.min(buffer.length, length));
+			  if (count < 0) {
+				  break;
+			  }
+			  out.write(buffer, 0, count);
+			  length -= count;
+		  }
+	  }
+  }
+
+  /**
+   * This method deletes every blob not in the specified set, and every abandoned temporary
+   * file, that is older than GRACE_MILLIS.
+   *
+   * @param   referenced  the digests of the blobs still referred to
+   * @return              the number of files deleted
+  */
+  public int collectGarbage(Set<String> referenced) {
+	  long cutoff = System.currentTimeMillis() - GRACE_MILLIS;
+	  int deleted = 0;
+	  File[] children = directory.listFiles();
+	  if (children == null) {
+		  return 0;
+	  }
+	  for (File child : children) {
+		  File[] files = child.isDirectory() ? child.listFiles() : new File[] { child };
+		  if (files == null) {
+			  continue;
+		  }
+		  for (File file : files) {
+			  String name = file.getName();
+			  boolean garbage = name.endsWith(TEMP_SUFFIX) || (child.isDirectory() && !referenced.contains(name));
+			  if (garbage && file.lastModified() < cutoff) {
+				  if (file.delete()) {
+					  deleted++;
+				  } else {
+					  logger.warn(this.getClass().getName() + ": collectGarbage() - REASON-> could not delete " + file);
+				  }
+			  }
+		  }
+	  }
+	  return deleted;
+  }
+
+  private File file(String hash) {
+	  if (!DIGEST.matcher(hash).matches()) {
+		  throw new IllegalArgumentException("not a blob digest: " + hash);
+	  }
+	  return new File(new File(directory, hash.substring(0, 2)), hash);
+  }
+
+  private static MessageDigest sha256() {
+	  try {
+		  return MessageDigest.getInstance("SHA-256");
+	  } catch (NoSuchAlgorithmException e) {
+		  throw new IllegalStateException(e);
+	  }
+  }
+
+  /**
+   * @param   bytes  a digest
+   * @return         the digest in lower case hex
+  */
+  public static String toHex(byte[] bytes) {
+	  StringBuilder hex = new StringBuilder(bytes.length * 2);
+	  for (byte b : bytes) {
+		  hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+	  }
+	  return hex.toString();
+  }
+
+  /**
+   * @param   bytes  the bytes of a blob
+   * @return         the hex SHA-256 digest of the bytes, the name the blob is stored under
+  */
+  public static String digest(byte[] bytes) {
+	  return toHex(sha256().digest(bytes));
+  }
+}
@@ -0,0 +1,272 @@
+package com.emptytomb.dbmanager.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.domain.ChangeLogEntry;
+import com.emptytomb.dbmanager.utility.ConnectionFactory;
+
+/**
+ * The ChangeLogDao class implements the JDBC persistence storage layer for the change_log
+ * table. Every DAO write appends a (table, row id, version) record to the change_log table
+ * in the same transaction as the write itself, so that other DbManager nodes sharing the
+ * database can invalidate their in-process caches.
+ * 
+ * <p>DAO write methods use this class as follows:</p>
+ * 
+ * <pre>{@code
+ * try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+ *     changeLog.beginWrite(TABLE);
+ *     ...
+ *     pstmt.executeUpdate();
+ *     changeLog.recordWrite(TABLE, id);
+ * } catch (SQLException e) {
+ *     ...
+ * } finally {
+ *     changeLog.endWrite();
+ * }
+ * }</pre>
+ * 
+ * <p><b>Note:</b> All DAOs share a single JDBC connection, so write transactions are
+ * serialized by a lock held from beginWrite() until endWrite(). Reads on the same connection
+ * see a write before it commits, so a row read meanwhile may be cached; if the write is
+ * rolled back instead, endWrite() empties the caches of the table written. This class is
+ * implemented as a Singleton. Only one instance of this class can exist at a time.</p>
+ * 
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public class ChangeLogDao {
+  private Logger logger = LoggerFactory.getLogger(ChangeLogDao.class);
+  private static ChangeLogDao instance = null;
+  private Connection connection = null;
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private String writeTable = null;  // guarded by writeLock
+
+  private static final String CHANGE_LOG_TABLE = "change_log";
+  private static final String CHANGE_LOG_VERSION = "version";
+  private static final String CHANGE_LOG_TABLE_NAME = "tableName";
+  private static final String CHANGE_LOG_ROW_ID = "rowId";
+  private static final String CHANGE_LOG_CHANGED = "changed";
+
+  private ChangeLogDao() {
+	connection = ConnectionFactory.getInstance().getConnection();
+  }
+
+  /**
+   * This method returns the single instance of the ChangeLogDao object.
+   * 
+   * @return  the ChangeLogDao object
+   * 
+   */
+  public static ChangeLogDao getInstance() {
+      if (instance == null) {      
+          synchronized (ChangeLogDao.class) {
+              if (instance == null) {
+                  instance = new ChangeLogDao(); 
+              }
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method starts a write transaction on the shared connection.
+   * 
+   * @param    table  the name of the table to be written
+   * 
+   * @throws   SQLException if auto-commit could not be disabled
+   */
+  public void beginWrite(String table) throws SQLException {
+      writeLock.lock();
+      writeTable = table;
+      connection.setAutoCommit(false);
+  }
+
+  /**
+   * This method appends the specified row to the change_log table, commits the
+   * write transaction and invalidates the row in the local caches.
+   * 
+   * @param    table  the name of the table that was written
+   * @param    id     the unique id of the row that was written
+   * 
+   * @throws   SQLException if the change could not be recorded or committed
+   */
+  public void recordWrite(String table, int id) throws SQLException {
+      recordWrites(table, new int[] { id });
+  }
+
+  /**
+   * This method appends the specified rows to the change_log table in one batch,
+   * commits the write transaction and invalidates the rows in the local caches.
+   * 
+   * @param    table  the name of the table that was written
+   * @param    ids    the unique ids of the rows that were written
+   * 
+   * @throws   SQLException if the changes could not be recorded or committed
+   */
+  public void recordWrites(String table, int[] ids) throws SQLException {
+      String sql = "INSERT INTO " + CHANGE_LOG_TABLE + "(" +
+                   CHANGE_LOG_TABLE_NAME + "," +
+                   CHANGE_LOG_ROW_ID + ") " + "VALUES" +
+                   "(?,?)";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          for (int id : ids) {
+              pstmt.setString(1, table);
+              pstmt.setInt(2, id);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+      }
+      connection.commit();
+      connection.setAutoCommit(true);
+      for (int id : ids) {
+          CacheManager.getInstance().invalidate(table, id);
+      }
+  }
+
+  /**
+   * This method ends the write transaction started by beginWrite(). If the write was
+   * not recorded, the transaction is rolled back and every local cache of the table is
+   * emptied, since a read on the shared connection may have cached rows of the write.
+   * Safe to call when beginWrite() was never reached.
+   */
+  public void endWrite() {
+      if (!writeLock.isHeldByCurrentThread()) {
+          return;
+      }
+      try {
+          if (!connection.getAutoCommit()) {
+              try {
+                  connection.rollback();
+                  connection.setAutoCommit(true);
+              } finally {
+                  CacheManager.getInstance().invalidateTable(writeTable);
+              }
+          }
+      } catch (SQLException e) {
+          logger.error(this.getClass().getName() + ": endWrite() - REASON-> " + e.getMessage());
+      } finally {
+          writeTable = null;
+          writeLock.unlock();
+      }
+  }
+
+  /**
+   * This method returns the highest version recorded in the change_log table.
+   * 
+   * @return      the current change log version, 0 if the change log is empty
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public long currentVersion() throws DaoException {
+      long version = 0;
+      String sql = "SELECT MAX(" + CHANGE_LOG_VERSION + ") FROM " + CHANGE_LOG_TABLE + ";";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);
+           ResultSet resultSet = pstmt.executeQuery();) {
+          if (resultSet.next()) {
+              version = resultSet.getLong(1);
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": currentVersion() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return version;
+  }
+
+  /**
+   * This method returns the highest version recorded in the change_log table for
+   * each table that has been written.
+   * 
+   * @return      a map of table name to the table's current version
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public Map<String, Long> tableVersions() throws DaoException {
+      HashMap<String, Long> versions = new HashMap<String, Long>();
+      String sql = "SELECT " + CHANGE_LOG_TABLE_NAME + ", MAX(" + CHANGE_LOG_VERSION + ") FROM " +
+                   CHANGE_LOG_TABLE + " GROUP BY " + CHANGE_LOG_TABLE_NAME + ";";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);
+           ResultSet resultSet = pstmt.executeQuery();) {
+          while (resultSet.next()) {
+              versions.put(resultSet.getString(1), resultSet.getLong(2));
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": tableVersions() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return versions;
+  }
+
+  /**
+   * This method reads the change log records written after the specified version,
+   * in version order.
+   * 
+   * @param   version  the version after which to read
+   * @param   limit    the maximum number of records to return
+   * @return           List of ChangeLogEntry objects
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public List<ChangeLogEntry> listSince(long version, int limit) throws DaoException {
+      ArrayList<ChangeLogEntry> entries = new ArrayList<ChangeLogEntry>();
+      String sql = "SELECT * FROM " + CHANGE_LOG_TABLE + " WHERE " + CHANGE_LOG_VERSION + " > ? " +
+                   "ORDER BY " + CHANGE_LOG_VERSION + " LIMIT ?;";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          pstmt.setLong(1, version);
+          pstmt.setInt(2, limit);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  ChangeLogEntry entry = new ChangeLogEntry();
+                  entry.setVersion(resultSet.getLong(CHANGE_LOG_VERSION));
+                  entry.setTableName(resultSet.getString(CHANGE_LOG_TABLE_NAME));
+                  entry.setRowId(resultSet.getInt(CHANGE_LOG_ROW_ID));
+                  entries.add(entry);
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": listSince() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return entries;
+  }
+
+  /**
+   * This method deletes the change log records older than the specified age.
+   * 
+   * @param   retentionSeconds  the age, in seconds, after which records are deleted
+   * @return                    the number of records deleted
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int purge(int retentionSeconds) throws DaoException {
+      String sql = "DELETE FROM " + CHANGE_LOG_TABLE + " WHERE " + CHANGE_LOG_CHANGED +
+                   " < NOW() - INTERVAL ? SECOND;";
+      writeLock.lock();
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          pstmt.setInt(1, retentionSeconds);
+          return pstmt.executeUpdate();
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": purge() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          writeLock.unlock();
+      }
+  }
+}
@@ -1,5 +1,6 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -10,8 +11,17 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.EntityCache;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.RowLoader;
+import com.emptytomb.dbmanager.cache.SizeEstimator;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.domain.Commentary;
+import com.emptytomb.dbmanager.search.IntCounter;
+import com.emptytomb.dbmanager.search.InvertedIndex;
+import com.emptytomb.dbmanager.search.Query;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
 
 
@@ -30,15 +40,42 @@ public class CommentaryDao implements BaseDao<Commentary> {
   private Logger logger = LoggerFactory.getLogger(CommentaryDao.class);
   private static CommentaryDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private EntityCache<Commentary> cache = null;
+  private InvertedIndex search = null;
+  private final Object searchLock = new Object();
   
   private static final String COMMENTARY_TABLE = "commentary";
   private static final String COMMENTARY_ID = "id";
   private static final String COMMENTARY_PERSONALITY_ID = "personalityId";
   private static final String COMMENTARY_PASSAGE_ID = "passageId";
   private static final String COMMENTARY_TEXT = "text";
+  private static final String COMMENTARY_INSERT = "INSERT INTO " + COMMENTARY_TABLE + "(" +
+               COMMENTARY_PERSONALITY_ID + "," +
+               COMMENTARY_PASSAGE_ID + "," +
+               COMMENTARY_TEXT + ") " + "VALUES" +
+               "(?,?,?)";
+
+  private static final SizeEstimator<Commentary> COMMENTARY_SIZE = new SizeEstimator<Commentary>() {
+      @Override
+      public long estimate(Commentary commentary) {
+          return 32 +
+                 MemoryGovernor.sizeOf(commentary.getText());
+      }
+  };
+
      
    private CommentaryDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	cache = CacheManager.getInstance().register(new EntityCache<Commentary>(COMMENTARY_TABLE, COMMENTARY_SIZE));
+	search = CacheManager.getInstance().register(new InvertedIndex(COMMENTARY_TABLE));
+	HotKeys.getInstance().registerLoader(COMMENTARY_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			get(id);
+		}
+	});
   }
   
   /**
@@ -69,7 +106,11 @@ public class CommentaryDao implements BaseDao<Commentary> {
    */
   @Override
   public Commentary get(int id) throws DaoException {
-      Commentary commentary = null;
+      Commentary commentary = cache.get(id);
+      if (commentary != null) {
+          return commentary;
+      }
+      long stamp = cache.stamp();
       String sql = "SELECT * FROM " + COMMENTARY_TABLE + " WHERE " + COMMENTARY_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
@@ -84,6 +125,9 @@ public class CommentaryDao implements BaseDao<Commentary> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (commentary != null) {
+          cache.put(id, commentary, stamp);
+      }
       return commentary;
   }
 
@@ -116,7 +160,99 @@ public class CommentaryDao implements BaseDao<Commentary> {
        }
       return commentaries;
    }
+
+  /**
+   * This method reads one page of the commentary records on the specified passage, in id
+   * order, and keeps them in the commentary cache.
+   * 
+   * <p><b>Note:</b> A page starts after the last id of the page before, so each page is one
+   * range of the (passageId, id) index however many pages precede it.</p>
+   * 
+   * @param   passageId  the unique id of the passage
+   * @param   afterId    the id after which the page starts, 0 for the first page
+   * @param   limit      the most commentaries to return
+   * @return             List of Commentary objects, in id order
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public List<Commentary> listByPassage(int passageId, int afterId, int limit) throws DaoException {
+      return listBy(COMMENTARY_PASSAGE_ID, passageId, afterId, limit, "listByPassage");
+  }
+
+  /**
+   * This method reads one page of the commentary records by the specified personality, in
+   * id order, and keeps them in the commentary cache.
+   * 
+   * <p><b>Note:</b> A page starts after the last id of the page before, so each page is one
+   * range of the (personalityId, id) index however many pages precede it.</p>
+   * 
+   * @param   personalityId  the unique id of the personality
+   * @param   afterId        the id after which the page starts, 0 for the first page
+   * @param   limit          the most commentaries to return
+   * @return                 List of Commentary objects, in id order
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public List<Commentary> listByPersonality(int personalityId, int afterId, int limit) throws DaoException {
+      return listBy(COMMENTARY_PERSONALITY_ID, personalityId, afterId, limit, "listByPersonality");
+  }
+
+  /**
+   * This method reads all the commentary records from the commentary table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each Commentary object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a Commentary object
+   */
+  @Override
+  public void export(RowHandler<Commentary> handler) throws DaoException, IOException {
+      String sql = "SELECT * FROM " + COMMENTARY_TABLE + " ORDER BY " + COMMENTARY_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(getCommentaryFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
   
+  /**
+   * This method searches the text of the commentaries with the full-text index, and counts
+   * the commentaries found by personality.
+   * 
+   * <p><b>Note:</b> The first search indexes every commentary, streamed as by export().
+   * After that, each commentary written since the last search, here or on another instance,
+   * is reindexed on its own before searching.</p>
+   * 
+   * @param   query                the parsed query
+   * @param   personalityId        the personality to search, or 0 to search every personality
+   * @param   offset               the number of best commentaries to skip
+   * @param   limit                the most commentaries to return
+   * @param   personalityCounts    the counter to add each commentary found to, by personality id
+   * @return                       the ids of the commentaries found, best first, and their number
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public InvertedIndex.Hits search(Query query, int personalityId, int offset, int limit, IntCounter personalityCounts) throws DaoException {
+      if (!search.isCurrent()) {
+          refreshSearch();
+      }
+      return search.search(query, personalityId, offset, limit, personalityCounts);
+  }
+
   /**
    * This method adds the specified Commentary record to the commentary
    * table stored in MySQL.
@@ -135,22 +271,17 @@ public class CommentaryDao implements BaseDao<Commentary> {
   @Override
   public int add(Commentary commentary) throws DaoException {
       int autoIncKey = -1;
-	  String sql = "INSERT INTO " + COMMENTARY_TABLE + "(" +
-	               COMMENTARY_PERSONALITY_ID + "," + 
-	               COMMENTARY_PASSAGE_ID + "," + 
-	               COMMENTARY_TEXT + ") " +  "VALUES" +  
-	               "(?,?,?)";
-                   	   	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setInt(1,commentary.getPersonalityId());   
-          pstmt.setInt(2,commentary.getPassageId());  
-          pstmt.setString(3,commentary.getText());    
+
+       try (PreparedStatement pstmt = connection.prepareStatement(COMMENTARY_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(COMMENTARY_TABLE);
+          setCommentaryParameters(pstmt, commentary);
           pstmt.executeUpdate();
              
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(COMMENTARY_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": addCommentary() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -162,10 +293,60 @@ public class CommentaryDao implements BaseDao<Commentary> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified Commentary records to the commentary table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    commentaries  the Commentary objects
+   * @return                the unique ids of the Commentaries added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<Commentary> commentaries) throws DaoException {
+      int[] autoIncKeys = new int[commentaries.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(COMMENTARY_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(COMMENTARY_TABLE);
+          for (Commentary commentary : commentaries) {
+              setCommentaryParameters(pstmt, commentary);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(COMMENTARY_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified Commentary record in the commentary table
    * stored in MySQL.
@@ -183,16 +364,20 @@ public class CommentaryDao implements BaseDao<Commentary> {
                    COMMENTARY_ID + "=?;";
          	               
        try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(COMMENTARY_TABLE);
           pstmt.setInt(1,commentary.getPersonalityId()); 
           pstmt.setInt(2,commentary.getPassageId());   
           pstmt.setString(3,commentary.getText());
           pstmt.setInt(4,commentary.getCommentaryId());
           pstmt.executeUpdate();
+          changeLog.recordWrite(COMMENTARY_TABLE, commentary.getCommentaryId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": updateCommentary() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -214,16 +399,81 @@ public class CommentaryDao implements BaseDao<Commentary> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE fROM " + COMMENTARY_TABLE + " WHERE " + COMMENTARY_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(COMMENTARY_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(COMMENTARY_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": deleteCommentary() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+   private List<Commentary> listBy(String column, int value, int afterId, int limit, String method) throws DaoException {
+       ArrayList<Commentary> commentaries = new ArrayList<Commentary>();
+       long stamp = cache.stamp();
+       String sql = "SELECT * FROM " + COMMENTARY_TABLE + " WHERE " + column + " = ? AND " + COMMENTARY_ID +
+                    " > ? ORDER BY " + COMMENTARY_ID + " LIMIT ?;";
+       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+           pstmt.setInt(1, value);
+           pstmt.setInt(2, afterId);
+           pstmt.setInt(3, limit);
+           try (ResultSet resultSet = pstmt.executeQuery();) {
+               while (resultSet.next()) {
+                   commentaries.add(getCommentaryFromResultSet(resultSet));
+               }
+           }
+       } catch (SQLException e) {
+           String errorMessage = this.getClass().getName() + ": " + method + "() - REASON-> " + e.getMessage();
+           logger.error(errorMessage);
+           throw new DaoException(e, errorMessage);
+       }
+       for (Commentary commentary : commentaries) {
+           cache.put(commentary.getCommentaryId(), commentary, stamp);
+       }
+       return commentaries;
+   }
+
+   private void refreshSearch() throws DaoException {
+       synchronized (searchLock) {
+           if (!search.isComplete()) {
+               search.clear();
+               try {
+                   export(new RowHandler<Commentary>() {
+                       @Override
+                       public void handle(Commentary commentary) {
+                           search.add(commentary.getCommentaryId(), commentary.getPersonalityId(), commentary.getText());
+                       }
+                   });
+               } catch (IOException e) {
+                   // the handler above writes nothing
+                   String errorMessage = this.getClass().getName() + ": refreshSearch() - REASON-> " + e.getMessage();
+                   logger.error(errorMessage);
+                   throw new DaoException(e, errorMessage);
+               }
+               search.markComplete();
+           }
+           for (int id : search.drainDirty()) {
+               Commentary commentary = get(id);
+               if (commentary == null) {
+                   search.remove(id);
+               } else {
+                   search.add(id, commentary.getPersonalityId(), commentary.getText());
+               }
+           }
+       }
+   }
+
+   private void setCommentaryParameters(PreparedStatement pstmt, Commentary commentary) throws SQLException {
+       pstmt.setInt(1,commentary.getPersonalityId());
+       pstmt.setInt(2,commentary.getPassageId());
+       pstmt.setString(3,commentary.getText());
+   }
+
    private Commentary getCommentaryFromResultSet(ResultSet resultSet) throws SQLException {
        Commentary commentary = new Commentary();
                
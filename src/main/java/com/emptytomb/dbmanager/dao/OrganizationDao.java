@@ -1,15 +1,25 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.EntityCache;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.RowLoader;
+import com.emptytomb.dbmanager.cache.SizeEstimator;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.domain.Organization;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
@@ -29,6 +39,8 @@ public class OrganizationDao implements BaseDao<Organization> {
   private Logger logger = LoggerFactory.getLogger(OrganizationDao.class);
   private static OrganizationDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private EntityCache<Organization> cache = null;
   
   private static final String ORGANIZATION_ID = "id";
   private static final String ORGANIZATION_TABLE = "organization";
@@ -44,9 +56,49 @@ public class OrganizationDao implements BaseDao<Organization> {
   private static final String ORGANIZATION_AFFILIATION = "affiliation";
   private static final String ORGANIZATION_WEB_SITE = "webSite";
   private static final String ORGANIZATION_MEMBERSHIP_SIZE = "membershipSize";
+  private static final String ORGANIZATION_INSERT = "INSERT INTO " + ORGANIZATION_TABLE + "(" +
+               ORGANIZATION_NAME + "," +
+               ORGANIZATION_SHORT_NAME + "," +
+               ORGANIZATION_ADDRESS_LINE_1 + "," +
+               ORGANIZATION_ADDRESS_LINE_2 + "," +
+               ORGANIZATION_CITY + "," +
+               ORGANIZATION_PROVIDENCE + "," +
+               ORGANIZATION_POSTAL_CODE + "," +
+               ORGANIZATION_COUNTRY + "," +
+               ORGANIZATION_YEAR_STARTED + "," +
+               ORGANIZATION_AFFILIATION + "," +
+               ORGANIZATION_WEB_SITE + "," +
+               ORGANIZATION_MEMBERSHIP_SIZE + ") " + "VALUES" +
+               "(?,?,?,?,?,?,?,?,?,?,?,?)";
+
+  private static final SizeEstimator<Organization> ORGANIZATION_SIZE = new SizeEstimator<Organization>() {
+      @Override
+      public long estimate(Organization organization) {
+          return 64 +
+                 MemoryGovernor.sizeOf(organization.getName()) +
+                 MemoryGovernor.sizeOf(organization.getShortName()) +
+                 MemoryGovernor.sizeOf(organization.getAddressLine1()) +
+                 MemoryGovernor.sizeOf(organization.getAddressLine2()) +
+                 MemoryGovernor.sizeOf(organization.getCity()) +
+                 MemoryGovernor.sizeOf(organization.getProvidence()) +
+                 MemoryGovernor.sizeOf(organization.getPostalCode()) +
+                 MemoryGovernor.sizeOf(organization.getCountry()) +
+                 MemoryGovernor.sizeOf(organization.getAffiliation()) +
+                 MemoryGovernor.sizeOf(organization.getWebSite());
+      }
+  };
+
      
    private OrganizationDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	cache = CacheManager.getInstance().register(new EntityCache<Organization>(ORGANIZATION_TABLE, ORGANIZATION_SIZE));
+	HotKeys.getInstance().registerLoader(ORGANIZATION_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			get(id);
+		}
+	});
   }
   
   /**
@@ -77,7 +129,11 @@ public class OrganizationDao implements BaseDao<Organization> {
    */
   @Override
   public Organization get(int id) throws DaoException {
-      Organization organization = null;
+      Organization organization = cache.get(id);
+      if (organization != null) {
+          return organization;
+      }
+      long stamp = cache.stamp();
       String sql = "SELECT * FROM " + ORGANIZATION_TABLE + " WHERE " + ORGANIZATION_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
@@ -92,9 +148,60 @@ public class OrganizationDao implements BaseDao<Organization> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (organization != null) {
+          cache.put(id, organization, stamp);
+      }
       return organization;
   }
 
+  /**
+   * This method returns the Organization objects of the specified ids, read from the cache where
+   * they are held and the rest from the organization table stored in MySQL in one query.
+   * 
+   * @param   ids  the unique ids of the organizations to return
+   * @return       the Organization objects by id; ids that do not exist are left out
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public Map<Integer, Organization> getAll(Set<Integer> ids) throws DaoException {
+      Map<Integer, Organization> organizations = new HashMap<Integer, Organization>();
+      List<Integer> missing = new ArrayList<Integer>();
+      for (Integer id : ids) {
+          Organization organization = cache.get(id);
+          if (organization != null) {
+              organizations.put(id, organization);
+          } else {
+              missing.add(id);
+          }
+      }
+      if (missing.isEmpty()) {
+          return organizations;
+      }
+      long stamp = cache.stamp();
+      StringBuilder sql = new StringBuilder("SELECT * FROM " + ORGANIZATION_TABLE + " WHERE " + ORGANIZATION_ID + " IN (");
+      for (int i = 0; i < missing.size(); i++) {
+          sql.append(i == 0 ? "?" : ",?");
+      }
+      sql.append(");");
+      try (PreparedStatement pstmt = connection.prepareStatement(sql.toString());) {
+          for (int i = 0; i < missing.size(); i++) {
+              pstmt.setInt(i + 1, missing.get(i));
+          }
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  Organization organization = getOrganizationFromResultSet(resultSet);
+                  organizations.put(organization.getOrganizationId(), organization);
+                  cache.put(organization.getOrganizationId(), organization, stamp);
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": getAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return organizations;
+  }
+
   /**
    * This method reads all the organization records from the organization table
    * stored in MySQL and returns a list of Organization objects.
@@ -124,6 +231,38 @@ public class OrganizationDao implements BaseDao<Organization> {
        }
       return organizations;
    }
+
+  /**
+   * This method reads all the organization records from the organization table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each Organization object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a Organization object
+   */
+  @Override
+  public void export(RowHandler<Organization> handler) throws DaoException, IOException {
+      String sql = "SELECT * FROM " + ORGANIZATION_TABLE + " ORDER BY " + ORGANIZATION_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(getOrganizationFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
   
   /**
    * This method adds the specified Organization record to the organization
@@ -142,40 +281,17 @@ public class OrganizationDao implements BaseDao<Organization> {
   @Override
   public int add(Organization organization) throws DaoException {
       int autoIncKey = -1;
-	  String sql = "INSERT INTO " + ORGANIZATION_TABLE + "(" +
-	               ORGANIZATION_NAME + "," + 
-		       ORGANIZATION_SHORT_NAME + "," + 
-	               ORGANIZATION_ADDRESS_LINE_1 + "," + 
-	               ORGANIZATION_ADDRESS_LINE_2 + "," + 
-	               ORGANIZATION_CITY + "," + 
-	               ORGANIZATION_PROVIDENCE + "," + 
-	               ORGANIZATION_POSTAL_CODE + "," + 
-	               ORGANIZATION_COUNTRY + "," + 
-	               ORGANIZATION_YEAR_STARTED + "," + 
-	               ORGANIZATION_AFFILIATION + "," + 
-	               ORGANIZATION_WEB_SITE + "," + 
-	               ORGANIZATION_MEMBERSHIP_SIZE + ") " +  "VALUES" +  
-	               "(?,?,?,?,?,?,?,?,?,?,?)";
-                   	   	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setString(1,organization.getName()); 
-	  pstmt.setString(2,organization.getShortName()); 
-          pstmt.setString(3,organization.getAddressLine1());   
-          pstmt.setString(4,organization.getAddressLine2());  
-          pstmt.setString(5,organization.getCity());    
-          pstmt.setString(6,organization.getProvidence());    
-          pstmt.setString(7,organization.getPostalCode());    
-          pstmt.setString(8,organization.getCountry());    
-          pstmt.setInt(9,organization.getYearStarted());    
-          pstmt.setString(10,organization.getAffiliation());   
-          pstmt.setString(11,organization.getWebSite());   
-          pstmt.setInt(12,organization.getMembershipSize());   
+
+       try (PreparedStatement pstmt = connection.prepareStatement(ORGANIZATION_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(ORGANIZATION_TABLE);
+          setOrganizationParameters(pstmt, organization);
           pstmt.executeUpdate();
           
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(ORGANIZATION_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": addOrganization() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -187,10 +303,60 @@ public class OrganizationDao implements BaseDao<Organization> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified Organization records to the organization table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    organizations  the Organization objects
+   * @return                the unique ids of the Organizations added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<Organization> organizations) throws DaoException {
+      int[] autoIncKeys = new int[organizations.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(ORGANIZATION_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(ORGANIZATION_TABLE);
+          for (Organization organization : organizations) {
+              setOrganizationParameters(pstmt, organization);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(ORGANIZATION_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified Organization record in the organization table
    * stored in MySQL.
@@ -217,6 +383,7 @@ public class OrganizationDao implements BaseDao<Organization> {
                    ORGANIZATION_ID + "=?;";
    	               
        try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(ORGANIZATION_TABLE);
           pstmt.setString(1,organization.getName()); 
 	  pstmt.setString(2,organization.getShortName()); 
           pstmt.setString(3,organization.getAddressLine1());   
@@ -232,11 +399,14 @@ public class OrganizationDao implements BaseDao<Organization> {
           pstmt.setInt(13,organization.getOrganizationId()); 
             
           pstmt.executeUpdate();
+          changeLog.recordWrite(ORGANIZATION_TABLE, organization.getOrganizationId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": updateOrganization() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -256,16 +426,35 @@ public class OrganizationDao implements BaseDao<Organization> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE FROM " + ORGANIZATION_TABLE + " WHERE " + ORGANIZATION_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(ORGANIZATION_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(ORGANIZATION_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": deleteOrganization() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+   private void setOrganizationParameters(PreparedStatement pstmt, Organization organization) throws SQLException {
+       pstmt.setString(1,organization.getName());
+       pstmt.setString(2,organization.getShortName());
+       pstmt.setString(3,organization.getAddressLine1());
+       pstmt.setString(4,organization.getAddressLine2());
+       pstmt.setString(5,organization.getCity());
+       pstmt.setString(6,organization.getProvidence());
+       pstmt.setString(7,organization.getPostalCode());
+       pstmt.setString(8,organization.getCountry());
+       pstmt.setInt(9,organization.getYearStarted());
+       pstmt.setString(10,organization.getAffiliation());
+       pstmt.setString(11,organization.getWebSite());
+       pstmt.setInt(12,organization.getMembershipSize());
+   }
+
    private Organization getOrganizationFromResultSet(ResultSet resultSet) throws SQLException {
        Organization organization = new Organization();
        
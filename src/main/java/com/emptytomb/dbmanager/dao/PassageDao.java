@@ -1,18 +1,31 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.PassageTextStore;
+import com.emptytomb.dbmanager.cache.RowLoader;
 import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.domain.ParallelPassage;
+import com.emptytomb.dbmanager.domain.ParallelVerse;
 import com.emptytomb.dbmanager.domain.Passage;
+import com.emptytomb.dbmanager.search.ConcordanceIndex;
+import com.emptytomb.dbmanager.search.InvertedIndex;
+import com.emptytomb.dbmanager.search.Query;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
+import com.emptytomb.dbmanager.utility.VerseReference;
 
 /**
  * The PassageDao class is a concrete JDBC implementation of the BaseDao interface.
@@ -29,16 +42,50 @@ public class PassageDao implements BaseDao<Passage> {
   private Logger logger = LoggerFactory.getLogger(PassageDao.class);
   private static PassageDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private PassageTextStore store = null;
+  private InvertedIndex search = null;
+  private final Object searchLock = new Object();
+  private ConcordanceIndex concordance = null;
+  private final Object concordanceLock = new Object();
 
   private static final String PASSAGE_TABLE = "passage";
+  private static final int SNAPSHOT_ATTEMPTS = 3;
   private static final String PASSAGE_ID = "id";
   private static final String PASSAGE_TRANSLATION_ID = "translationId";
   private static final String PASSAGE_SCRIPTURE_ID = "scriptureId";
   private static final String PASSAGE_TEXT = "text";
+  private static final String SCRIPTURE_TABLE = "scripture";
+  private static final String SCRIPTURE_ID = "id";
+  private static final String SCRIPTURE_ORDINAL = "ordinal";
+  private static final String TRANSLATION_TABLE = "translation";
+  private static final String TRANSLATION_ID = "id";
+  private static final String TRANSLATION_VERSION = "version";
+  // the id of the scripture row, which would clash with the passage id
+  private static final String PARALLEL_SCRIPTURE_ROW = "verseId";
+  private static final String PARALLEL_SELECT = "SELECT s." + SCRIPTURE_ID + " AS " + PARALLEL_SCRIPTURE_ROW + ", s." +
+               SCRIPTURE_ORDINAL + ", p.*, t." + TRANSLATION_VERSION + " FROM " + SCRIPTURE_TABLE + " s LEFT JOIN " +
+               PASSAGE_TABLE + " p ON p." + PASSAGE_SCRIPTURE_ID + " = s." + SCRIPTURE_ID + " LEFT JOIN " +
+               TRANSLATION_TABLE + " t ON t." + TRANSLATION_ID + " = p." + PASSAGE_TRANSLATION_ID;
+  private static final String PASSAGE_INSERT = "INSERT INTO " + PASSAGE_TABLE + "(" +
+               PASSAGE_TRANSLATION_ID + "," +
+               PASSAGE_SCRIPTURE_ID + "," +
+               PASSAGE_TEXT + ") " + "VALUES" +
+               "(?,?,?)";
    
          
   private PassageDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	store = CacheManager.getInstance().register(new PassageTextStore(PASSAGE_TABLE));
+	search = CacheManager.getInstance().register(new InvertedIndex(PASSAGE_TABLE));
+	concordance = CacheManager.getInstance().register(new ConcordanceIndex(PASSAGE_TABLE));
+	HotKeys.getInstance().registerLoader(PASSAGE_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			cache(id);
+		}
+	});
   }
   
   /**
@@ -70,6 +117,11 @@ public class PassageDao implements BaseDao<Passage> {
   @Override
   public Passage get(int id) throws DaoException {
       Passage passage = null;
+      PassageTextStore.Row row = new PassageTextStore.Row();
+      if (store.read(id, row)) {
+          return getPassageFromRow(row);
+      }
+      long stamp = store.stamp();
       String sql = "SELECT * FROM " + PASSAGE_TABLE + " WHERE " + PASSAGE_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
@@ -84,6 +136,9 @@ public class PassageDao implements BaseDao<Passage> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (passage != null) {
+          store.put(id, passage.getTranslationId(), passage.getScriptureId(), passage.getText(), stamp);
+      }
       return passage;
   }
 
@@ -116,6 +171,274 @@ public class PassageDao implements BaseDao<Passage> {
        }
       return passages;
    }
+
+  /**
+   * This method reads the passages of one translation for a range of verses, in canonical
+   * order, and keeps them in the text store.
+   * 
+   * <p><b>Note:</b> The range is one scan of the scripture ordinal index, joined to the
+   * passage table on scriptureId and translationId.</p>
+   * 
+   * @param   translationId  the unique id of the translation
+   * @param   firstOrdinal   the canonical ordinal of the first verse, see VerseReference
+   * @param   lastOrdinal    the canonical ordinal of the last verse
+   * @return                 List of Passage objects, in canonical order
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public List<Passage> listRange(int translationId, int firstOrdinal, int lastOrdinal) throws DaoException {
+      ArrayList<Passage> passages = new ArrayList<Passage>();
+      long stamp = store.stamp();
+      String sql = "SELECT p.* FROM " + SCRIPTURE_TABLE + " s JOIN " + PASSAGE_TABLE + " p ON p." +
+                   PASSAGE_SCRIPTURE_ID + " = s." + SCRIPTURE_ID + " AND p." + PASSAGE_TRANSLATION_ID +
+                   " = ? WHERE s." + SCRIPTURE_ORDINAL + " BETWEEN ? AND ? ORDER BY s." + SCRIPTURE_ORDINAL +
+                   ", p." + PASSAGE_ID + ";";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          pstmt.setInt(1, translationId);
+          pstmt.setInt(2, firstOrdinal);
+          pstmt.setInt(3, lastOrdinal);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  passages.add(getPassageFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": listRange() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      for (Passage passage : passages) {
+          store.put(passage.getPassageId(), passage.getTranslationId(), passage.getScriptureId(), passage.getText(), stamp);
+      }
+      return passages;
+  }
+
+  /**
+   * This method reads one verse and its passage in every translation.
+   * 
+   * <p><b>Note:</b> The verse and its passages are one query, joining the scripture row to
+   * the passage table on the scriptureId index and each passage to its translation.</p>
+   * 
+   * @param   scriptureId  the unique id of the scripture
+   * @return               the ParallelVerse, or null if there is no such scripture
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public ParallelVerse getParallel(int scriptureId) throws DaoException {
+      String sql = PARALLEL_SELECT + " WHERE s." + SCRIPTURE_ID + " = ? ORDER BY t." + TRANSLATION_ID +
+                   ", p." + PASSAGE_ID + ";";
+      List<ParallelVerse> verses = listParallel(sql, "getParallel", scriptureId);
+      return verses.isEmpty() ? null : verses.get(0);
+  }
+
+  /**
+   * This method reads a range of verses, in canonical order, each with its passage in
+   * every translation.
+   * 
+   * <p><b>Note:</b> The range is one scan of the scripture ordinal index, joined to the
+   * passage table on the scriptureId index and each passage to its translation.</p>
+   * 
+   * @param   firstOrdinal   the canonical ordinal of the first verse, see VerseReference
+   * @param   lastOrdinal    the canonical ordinal of the last verse
+   * @return                 List of ParallelVerse objects, in canonical order
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public List<ParallelVerse> listParallelRange(int firstOrdinal, int lastOrdinal) throws DaoException {
+      String sql = PARALLEL_SELECT + " WHERE s." + SCRIPTURE_ORDINAL + " BETWEEN ? AND ? ORDER BY s." +
+                   SCRIPTURE_ORDINAL + ", s." + SCRIPTURE_ID + ", t." + TRANSLATION_ID + ", p." + PASSAGE_ID + ";";
+      return listParallel(sql, "listParallelRange", firstOrdinal, lastOrdinal);
+  }
+
+  /**
+   * This method reads all the passage records from the passage table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each Passage object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a Passage object
+   */
+  @Override
+  public void export(RowHandler<Passage> handler) throws DaoException, IOException {
+      String sql = "SELECT * FROM " + PASSAGE_TABLE + " ORDER BY " + PASSAGE_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(getPassageFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
+  
+  /**
+   * This method returns the off-heap store that caches passages read by this DAO.
+   * 
+   * @return      the PassageTextStore
+   */
+  public PassageTextStore getTextStore() {
+      return store;
+  }
+
+  /**
+   * This method makes sure the specified passage id is held by the text store,
+   * reading it from the passage table stored in MySQL if necessary.
+   * 
+   * @param   id  the unique id of the passage to cache.
+   * @return      true if the passage exists
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public boolean cache(int id) throws DaoException {
+      return store.contains(id) || get(id) != null;
+  }
+
+  /**
+   * This method copies the specified passage into the holder, from the text store or,
+   * failing that, from the passage table stored in MySQL.
+   * 
+   * @param   id   the unique id of the passage
+   * @param   row  the holder to fill
+   * @return       true if the passage exists
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public boolean read(int id, PassageTextStore.Row row) throws DaoException {
+      if (store.read(id, row)) {
+          return true;
+      }
+      Passage passage = get(id);
+      if (passage == null) {
+          return false;
+      }
+      row.set(passage.getPassageId(), passage.getTranslationId(), passage.getScriptureId(), passage.getText());
+      return true;
+  }
+
+  /**
+   * This method returns every passage record as one consistent snapshot.
+   * 
+   * <p><b>Note:</b> The text store is brought up to date and then snapshotted under one
+   * lock. If writes keep invalidating rows in between, the snapshot is taken from a copy
+   * of the passage table read from MySQL instead, so it never has rows missing.</p>
+   * 
+   * @return      the Snapshot of every passage
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public PassageTextStore.Snapshot snapshot() throws DaoException {
+      for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+          cacheAll();
+          PassageTextStore.Snapshot snapshot = store.snapshot();
+          if (snapshot.isComplete()) {
+              return snapshot;
+          }
+      }
+      logger.warn(this.getClass().getName() + ": snapshot() - REASON-> passages kept changing, reading the table");
+      PassageTextStore copy = new PassageTextStore(PASSAGE_TABLE);
+      long stamp = copy.stamp();
+      for (Passage passage : list()) {
+          copy.put(passage.getPassageId(), passage.getTranslationId(), passage.getScriptureId(), passage.getText(), stamp);
+      }
+      copy.markComplete(stamp);
+      return copy.snapshot();
+  }
+
+  /**
+   * This method searches the text of the passages with the full-text index.
+   * 
+   * <p><b>Note:</b> The first search indexes every passage from one snapshot of the text
+   * store. After that, each passage written since the last search, here or on another
+   * instance, is reindexed on its own before searching.</p>
+   * 
+   * @param   query          the parsed query
+   * @param   translationId  the translation to search, or 0 to search every translation
+   * @param   offset         the number of best passages to skip
+   * @param   limit          the most passages to return
+   * @return                 the ids of the passages found, best first, and their number
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public InvertedIndex.Hits search(Query query, int translationId, int offset, int limit) throws DaoException {
+      if (!search.isCurrent()) {
+          refreshSearch();
+      }
+      return search.search(query, translationId, offset, limit);
+  }
+
+  /**
+   * This method returns every occurrence of a word in the passages of a translation.
+   * 
+   * <p><b>Note:</b> The first lookup in a translation indexes all of its passages from one
+   * snapshot of the text store in parallel. After that, each passage written since the last
+   * lookup, here or on another instance, is reindexed on its own before looking up.</p>
+   * 
+   * @param   translationId  the translation to look in
+   * @param   word           a term as produced by the Tokenizer, e.g. "lord"
+   * @return                 the scripture id of every verse the word occurs in, once per
+   *                         occurrence, in ascending order
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int[] getOccurrences(int translationId, String word) throws DaoException {
+      refreshConcordance(translationId);
+      return concordance.get(translationId, word);
+  }
+
+  /**
+   * This method makes sure every passage record is held by the text store. The first call
+   * reads the whole passage table; later calls only re-read the passages invalidated since.
+   * 
+   * <p><b>Note:</b> Rows are copied from the ResultSet straight into the store, so no list
+   * of Passage objects is built.</p>
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public void cacheAll() throws DaoException {
+      if (store.isComplete()) {
+          try {
+              for (int id : store.drainDirty()) {
+                  cache(id);
+              }
+          } catch (DaoException e) {
+              store.markIncomplete();
+              throw e;
+          }
+          return;
+      }
+      long stamp = store.stamp();
+      String sql = "SELECT * FROM " + PASSAGE_TABLE + ";";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);
+    	   ResultSet resultSet = pstmt.executeQuery();) {
+     	   while (resultSet.next()) {
+     		  store.put(resultSet.getInt(PASSAGE_ID),
+     				    resultSet.getInt(PASSAGE_TRANSLATION_ID),
+     				    resultSet.getInt(PASSAGE_SCRIPTURE_ID),
+     				    resultSet.getString(PASSAGE_TEXT),
+     				    stamp);
+           }
+       } catch (SQLException e) {
+    	   String errorMessage = this.getClass().getName() + ": cacheAll() - REASON-> " + e.getMessage();
+   	       logger.error(errorMessage);
+ 	       e.printStackTrace();
+           throw new DaoException(e, errorMessage);
+       }
+      store.markComplete(stamp);
+      for (int id : store.drainDirty()) {
+          cache(id);
+      }
+  }
   
   /**
    * This method adds the specified Passage record to the passage table stored in MySQL.
@@ -133,22 +456,17 @@ public class PassageDao implements BaseDao<Passage> {
   @Override
   public int add(Passage passage) throws DaoException {
       int autoIncKey = -1;
-	  String sql = "INSERT INTO " + PASSAGE_TABLE + "(" +
-	               PASSAGE_TRANSLATION_ID + "," + 
-	               PASSAGE_SCRIPTURE_ID + "," + 
-	               PASSAGE_TEXT + ") " +  "VALUES" +  
-	               "(?,?,?)";
-	  	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setInt(1,passage.getTranslationId());
-          pstmt.setInt(2,passage.getScriptureId());
-          pstmt.setString(3,passage.getText());
+
+       try (PreparedStatement pstmt = connection.prepareStatement(PASSAGE_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(PASSAGE_TABLE);
+          setPassageParameters(pstmt, passage);
           pstmt.executeUpdate();
           
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(PASSAGE_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": addPassage() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -160,10 +478,60 @@ public class PassageDao implements BaseDao<Passage> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified Passage records to the passage table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    passages  the Passage objects
+   * @return                the unique ids of the Passages added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<Passage> passages) throws DaoException {
+      int[] autoIncKeys = new int[passages.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(PASSAGE_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(PASSAGE_TABLE);
+          for (Passage passage : passages) {
+              setPassageParameters(pstmt, passage);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(PASSAGE_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified Passage record in the passage table stored in MySQL.
    * 
@@ -180,16 +548,20 @@ public class PassageDao implements BaseDao<Passage> {
                    PASSAGE_ID + "=?;";
        
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(PASSAGE_TABLE);
           pstmt.setInt(1,passage.getTranslationId());
           pstmt.setInt(2,passage.getScriptureId());
           pstmt.setString(3,passage.getText());
           pstmt.setInt(4,passage.getPassageId());
           pstmt.executeUpdate();
+          changeLog.recordWrite(PASSAGE_TABLE, passage.getPassageId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": updatePassage() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -210,16 +582,147 @@ public class PassageDao implements BaseDao<Passage> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE fROM " + PASSAGE_TABLE + " WHERE " + PASSAGE_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(PASSAGE_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(PASSAGE_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": deletePassage() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+   private Passage getPassageFromRow(PassageTextStore.Row row) {
+       Passage passage = new Passage();
+       
+       passage.setPassageId(row.getPassageId());
+       passage.setTranslationId(row.getTranslationId());
+       passage.setScriptureId(row.getScriptureId());
+       if (row.getTextLength() >= 0) {
+           passage.setText(new String(row.getText(), 0, row.getTextLength(), StandardCharsets.UTF_8));
+       }
+              
+       return passage;
+   }
+
+   private void refreshSearch() throws DaoException {
+       synchronized (searchLock) {
+           if (!search.isComplete()) {
+               // rows written after the clear are queued as dirty, so the snapshot may be older
+               search.clear();
+               PassageTextStore.Snapshot snapshot = snapshot();
+               PassageTextStore.Row row = new PassageTextStore.Row();
+               for (int i = 0; i < snapshot.size(); i++) {
+                   snapshot.read(i, row);
+                   Passage passage = getPassageFromRow(row);
+                   search.add(passage.getPassageId(), passage.getTranslationId(), passage.getText());
+               }
+               search.markComplete();
+           }
+           for (int id : search.drainDirty()) {
+               Passage passage = get(id);
+               if (passage == null) {
+                   search.remove(id);
+               } else {
+                   search.add(id, passage.getTranslationId(), passage.getText());
+               }
+           }
+       }
+   }
+
+   private List<ParallelVerse> listParallel(String sql, String method, int... parameters) throws DaoException {
+       ArrayList<ParallelVerse> verses = new ArrayList<ParallelVerse>();
+       ArrayList<Passage> passages = new ArrayList<Passage>();
+       long stamp = store.stamp();
+       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+           for (int i = 0; i < parameters.length; i++) {
+               pstmt.setInt(i + 1, parameters[i]);
+           }
+           try (ResultSet resultSet = pstmt.executeQuery();) {
+               ParallelVerse verse = null;
+               while (resultSet.next()) {
+                   int scriptureId = resultSet.getInt(PARALLEL_SCRIPTURE_ROW);
+                   if (verse == null || verse.getScriptureId() != scriptureId) {
+                       verse = new ParallelVerse();
+                       verse.setScriptureId(scriptureId);
+                       int ordinal = resultSet.getInt(SCRIPTURE_ORDINAL);
+                       verse.setReference(ordinal == 0 ? null : VerseReference.of(ordinal).toString());
+                       verses.add(verse);
+                   }
+                   resultSet.getInt(PASSAGE_ID);
+                   if (resultSet.wasNull()) {
+                       // a verse without passages
+                       continue;
+                   }
+                   Passage passage = getPassageFromResultSet(resultSet);
+                   passages.add(passage);
+                   ParallelPassage parallel = new ParallelPassage();
+                   parallel.setPassageId(passage.getPassageId());
+                   parallel.setTranslationId(passage.getTranslationId());
+                   parallel.setVersion(resultSet.getString(TRANSLATION_VERSION));
+                   parallel.setText(passage.getText());
+                   verse.getPassages().add(parallel);
+               }
+           }
+       } catch (SQLException e) {
+           String errorMessage = this.getClass().getName() + ": " + method + "() - REASON-> " + e.getMessage();
+           logger.error(errorMessage);
+           throw new DaoException(e, errorMessage);
+       }
+       for (Passage passage : passages) {
+           store.put(passage.getPassageId(), passage.getTranslationId(), passage.getScriptureId(), passage.getText(), stamp);
+       }
+       return verses;
+   }
+
+   private void refreshConcordance(int translationId) throws DaoException {
+       synchronized (concordanceLock) {
+           for (int id : concordance.drainDirty()) {
+               Passage passage = get(id);
+               if (passage == null) {
+                   concordance.remove(id);
+               } else {
+                   concordance.update(id, passage.getTranslationId(), passage.getScriptureId(), passage.getText());
+               }
+           }
+           if (concordance.isLoaded(translationId)) {
+               return;
+           }
+           long stamp = concordance.stamp();
+           PassageTextStore.Snapshot snapshot = snapshot();
+           PassageTextStore.Row row = new PassageTextStore.Row();
+           int[] ids = new int[1024];
+           int[] scriptureIds = new int[1024];
+           String[] texts = new String[1024];
+           int count = 0;
+           for (int i = 0; i < snapshot.size(); i++) {
+               snapshot.read(i, row);
+               if (row.getTranslationId() == translationId) {
+                   if (count == ids.length) {
+                       ids = Arrays.copyOf(ids, count * 2);
+                       scriptureIds = Arrays.copyOf(scriptureIds, count * 2);
+                       texts = Arrays.copyOf(texts, count * 2);
+                   }
+                   Passage passage = getPassageFromRow(row);
+                   ids[count] = passage.getPassageId();
+                   scriptureIds[count] = passage.getScriptureId();
+                   texts[count++] = passage.getText();
+               }
+           }
+           concordance.load(translationId, ids, scriptureIds, texts, count, stamp);
+       }
+   }
+
+   private void setPassageParameters(PreparedStatement pstmt, Passage passage) throws SQLException {
+       pstmt.setInt(1,passage.getTranslationId());
+       pstmt.setInt(2,passage.getScriptureId());
+       pstmt.setString(3,passage.getText());
+   }
+
    private Passage getPassageFromResultSet(ResultSet resultSet) throws SQLException {
        Passage passage = new Passage();
        
@@ -1,18 +1,35 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.EntityCache;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.IntColumn;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.RowLoader;
+import com.emptytomb.dbmanager.cache.SizeEstimator;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.domain.Personality;
+import com.emptytomb.dbmanager.domain.PictureInfo;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
+import com.emptytomb.dbmanager.utility.ImageTypes;
 
 
 /**
@@ -30,6 +47,10 @@ public class PersonalityDao implements BaseDao<Personality> {
   private Logger logger = LoggerFactory.getLogger(PersonalityDao.class);
   private static PersonalityDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private BlobStore blobs = null;
+  private EntityCache<Personality> cache = null;
+  private IntColumn organizations = null;
   
   private static final String PERSONALITY_TABLE = "personality";
   private static final String PERSONALITY_ID = "id";
@@ -38,9 +59,42 @@ public class PersonalityDao implements BaseDao<Personality> {
   private static final String PERSONALITY_TITLE = "title";
   private static final String PERSONALITY_BIO = "bio";
   private static final String PERSONALITY_PICTURE = "picture";  
+  private static final String PERSONALITY_PICTURE_HASH = "pictureHash";
+  // every column but the picture, which is read and written on its own
+  private static final String PERSONALITY_COLUMNS = PERSONALITY_ID + "," +
+               PERSONALITY_ORGANIZATION_ID + "," +
+               PERSONALITY_NAME + "," +
+               PERSONALITY_TITLE + "," +
+               PERSONALITY_BIO;
+  private static final String PERSONALITY_INSERT = "INSERT INTO " + PERSONALITY_TABLE + "(" +
+               PERSONALITY_ORGANIZATION_ID + "," +
+               PERSONALITY_NAME + "," +
+               PERSONALITY_TITLE + "," +
+               PERSONALITY_BIO + ") " + "VALUES" +
+               "(?,?,?,?)";
+  private static final SizeEstimator<Personality> PERSONALITY_SIZE = new SizeEstimator<Personality>() {
+      @Override
+      public long estimate(Personality personality) {
+          return 40 +
+                 MemoryGovernor.sizeOf(personality.getName()) +
+                 MemoryGovernor.sizeOf(personality.getTitle()) +
+                 MemoryGovernor.sizeOf(personality.getBio());
+      }
+  };
+
      
    private PersonalityDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	blobs = BlobStore.getInstance();
+	cache = CacheManager.getInstance().register(new EntityCache<Personality>(PERSONALITY_TABLE, PERSONALITY_SIZE));
+	organizations = CacheManager.getInstance().register(new IntColumn(PERSONALITY_TABLE));
+	HotKeys.getInstance().registerLoader(PERSONALITY_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			get(id);
+		}
+	});
   }
   
   /**
@@ -71,8 +125,12 @@ public class PersonalityDao implements BaseDao<Personality> {
    */
   @Override
   public Personality get(int id) throws DaoException {
-      Personality personality = null;
-      String sql = "SELECT * FROM " + PERSONALITY_TABLE + " WHERE " + PERSONALITY_ID + " = ?;";
+      Personality personality = cache.get(id);
+      if (personality != null) {
+          return personality;
+      }
+      long stamp = cache.stamp();
+      String sql = "SELECT " + PERSONALITY_COLUMNS + " FROM " + PERSONALITY_TABLE + " WHERE " + PERSONALITY_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
       	  try (ResultSet resultSet = pstmt.executeQuery();) {
@@ -86,9 +144,60 @@ public class PersonalityDao implements BaseDao<Personality> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (personality != null) {
+          cache.put(id, personality, stamp);
+      }
       return personality;
   }
 
+  /**
+   * This method returns the Personality objects of the specified ids, read from the cache where
+   * they are held and the rest from the personality table stored in MySQL in one query.
+   * 
+   * @param   ids  the unique ids of the personalities to return
+   * @return       the Personality objects by id; ids that do not exist are left out
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public Map<Integer, Personality> getAll(Set<Integer> ids) throws DaoException {
+      Map<Integer, Personality> personalities = new HashMap<Integer, Personality>();
+      List<Integer> missing = new ArrayList<Integer>();
+      for (Integer id : ids) {
+          Personality personality = cache.get(id);
+          if (personality != null) {
+              personalities.put(id, personality);
+          } else {
+              missing.add(id);
+          }
+      }
+      if (missing.isEmpty()) {
+          return personalities;
+      }
+      long stamp = cache.stamp();
+      StringBuilder sql = new StringBuilder("SELECT " + PERSONALITY_COLUMNS + " FROM " + PERSONALITY_TABLE + " WHERE " + PERSONALITY_ID + " IN (");
+      for (int i = 0; i < missing.size(); i++) {
+          sql.append(i == 0 ? "?" : ",?");
+      }
+      sql.append(");");
+      try (PreparedStatement pstmt = connection.prepareStatement(sql.toString());) {
+          for (int i = 0; i < missing.size(); i++) {
+              pstmt.setInt(i + 1, missing.get(i));
+          }
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  Personality personality = getPersonalityFromResultSet(resultSet);
+                  personalities.put(personality.getPersonalityId(), personality);
+                  cache.put(personality.getPersonalityId(), personality, stamp);
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": getAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return personalities;
+  }
+
   /**
    * This method reads all the personality records from the personality table
    * stored in MySQL and returns a list of Personality objects.
@@ -103,7 +212,7 @@ public class PersonalityDao implements BaseDao<Personality> {
   @Override
   public List<Personality> list() throws DaoException {
       ArrayList<Personality> personalities = new ArrayList<Personality>();
-      String sql = "SELECT * FROM " + PERSONALITY_TABLE + ";";
+      String sql = "SELECT " + PERSONALITY_COLUMNS + " FROM " + PERSONALITY_TABLE + ";";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);
     	   ResultSet resultSet = pstmt.executeQuery();) {
      	   while (resultSet.next()) {
@@ -118,6 +227,38 @@ public class PersonalityDao implements BaseDao<Personality> {
        }
       return personalities;
    }
+
+  /**
+   * This method reads all the personality records from the personality table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each Personality object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a Personality object
+   */
+  @Override
+  public void export(RowHandler<Personality> handler) throws DaoException, IOException {
+      String sql = "SELECT " + PERSONALITY_COLUMNS + " FROM " + PERSONALITY_TABLE + " ORDER BY " + PERSONALITY_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(getPersonalityFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
   
   /**
    * This method adds the specified Personality record to the personality
@@ -136,26 +277,17 @@ public class PersonalityDao implements BaseDao<Personality> {
   @Override
   public int add(Personality personality) throws DaoException {
       int autoIncKey = -1;
-	  String sql = "INSERT INTO " + PERSONALITY_TABLE + "(" +
-    		       PERSONALITY_ORGANIZATION_ID + "," +     
-    		       PERSONALITY_NAME + "," +
-    		       PERSONALITY_TITLE + "," +
- 	               PERSONALITY_BIO + "," +
-	               PERSONALITY_PICTURE + ") " +  "VALUES" +
- 	               "(?,?,?,?,?)";
-                   	   	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setInt(1,personality.getOrganizationId());
-          pstmt.setString(2,personality.getName());
-          pstmt.setString(3,personality.getTitle());
-          pstmt.setString(4,personality.getBio());
-          pstmt.setBytes(5,personality.getPicture());
+
+       try (PreparedStatement pstmt = connection.prepareStatement(PERSONALITY_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(PERSONALITY_TABLE);
+          setPersonalityParameters(pstmt, personality);
           pstmt.executeUpdate();
           
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(PERSONALITY_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": addPersonality() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -167,13 +299,63 @@ public class PersonalityDao implements BaseDao<Personality> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified Personality records to the personality table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    personalities  the Personality objects
+   * @return                the unique ids of the Personalities added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<Personality> personalities) throws DaoException {
+      int[] autoIncKeys = new int[personalities.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(PERSONALITY_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(PERSONALITY_TABLE);
+          for (Personality personality : personalities) {
+              setPersonalityParameters(pstmt, personality);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(PERSONALITY_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified Personality record in the personality
-   * table stored in MySQL.
+   * table stored in MySQL. The picture is left as it is.
    * 
    * @param    personality  the Personality object
    * 
@@ -185,23 +367,25 @@ public class PersonalityDao implements BaseDao<Personality> {
     		       PERSONALITY_ORGANIZATION_ID + "=?, " +     
     		       PERSONALITY_NAME + "=?, " +
     		       PERSONALITY_TITLE + "=?, " +
- 	               PERSONALITY_BIO + "=?, " +
-	               PERSONALITY_PICTURE + "=? " +  "WHERE " + 
+ 	               PERSONALITY_BIO + "=? " +  "WHERE " + 
 	               PERSONALITY_ID + "=?;";
  	               
        try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(PERSONALITY_TABLE);
           pstmt.setInt(1,personality.getOrganizationId());
           pstmt.setString(2,personality.getName());
           pstmt.setString(3,personality.getTitle());
           pstmt.setString(4,personality.getBio());
-          pstmt.setBytes(5,personality.getPicture());
-          pstmt.setInt(6,personality.getPersonalityId());
+          pstmt.setInt(5,personality.getPersonalityId());
           pstmt.executeUpdate();
+          changeLog.recordWrite(PERSONALITY_TABLE, personality.getPersonalityId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": updatePersonality() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -221,16 +405,291 @@ public class PersonalityDao implements BaseDao<Personality> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE fROM " + PERSONALITY_TABLE + " WHERE " + PERSONALITY_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(PERSONALITY_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(PERSONALITY_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": deletePersonality() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+  /**
+   * This method returns the organization of the specified personality id from an in-memory
+   * column of the organizationId of every personality.
+   * 
+   * <p><b>Note:</b> The column is read from the personality table in one query when first
+   * needed and again after any personality is written, so that mapping many personalities
+   * to their organizations costs no round trip per personality.</p>
+   * 
+   * @param   id  the unique id of the personality
+   * @return      the unique id of its organization, or 0 if the personality does not exist
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int getOrganizationId(int id) throws DaoException {
+      if (!organizations.isLoaded()) {
+          loadOrganizations();
+      }
+      return organizations.get(id, 0);
+  }
+  
+  /**
+   * This method reads the digest of the picture of the specified personality id from the
+   * personality table stored in MySQL, and the length and media type of the picture from
+   * the BlobStore.
+   * 
+   * <p><b>Note:</b> A picture moved to the BlobStore by {@link #migratePictures()} keeps
+   * its bytes in the picture column too. If this instance's BlobStore does not hold the
+   * picture, it is copied there from the column before it is served.</p>
+   * 
+   * @param   id  the unique id of the personality
+   * @return      the PictureInfo, or null if the personality does not exist or has no picture
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing, or the
+   *              picture is missing from the BlobStore
+   */
+  public PictureInfo getPictureInfo(int id) throws DaoException {
+      PictureInfo picture = null;
+      String hash = null;
+      boolean inline = false;
+      String sql = "SELECT " + PERSONALITY_PICTURE_HASH + ", " + PERSONALITY_PICTURE + " IS NOT NULL FROM " +
+                   PERSONALITY_TABLE + " WHERE " + PERSONALITY_ID + " = ? AND " + PERSONALITY_PICTURE_HASH + " IS NOT NULL;";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          pstmt.setInt(1, id);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              if (resultSet.next()) {
+                  hash = resultSet.getString(1);
+                  inline = resultSet.getBoolean(2);
+              }
+          }
+          if (hash == null) {
+              return null;
+          }
+          if (inline && blobs.length(hash) < 0) {
+              restorePicture(id, hash);
+          }
+          byte[] header = new byte[ImageTypes.HEADER_LENGTH];
+          int count = blobs.readHeader(hash, header);
+          String contentType = ImageTypes.detect(header, count);
+          picture = new PictureInfo();
+          picture.setLength(blobs.length(hash));
+          picture.setHash(hash);
+          picture.setContentType(contentType != null ? contentType : "application/octet-stream");
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": getPictureInfo() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } catch (IOException e) {
+          String errorMessage = this.getClass().getName() + ": getPictureInfo() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return picture;
+  }
+
+  /**
+   * This method copies part of the picture with the specified digest from the BlobStore
+   * to the specified stream. The picture is read by digest rather than by personality id,
+   * so the bytes always match the PictureInfo they were asked for even if the picture
+   * has been replaced since.
+   * 
+   * @param   hash    the digest of the picture, from {@link #getPictureInfo(int)}
+   * @param   offset  the index of the first byte to copy
+   * @param   length  the number of bytes to copy
+   * @param   out     the stream to copy to
+   * 
+   * @throws      IOException if the picture could not be read or the stream could not be written
+   */
+  public void writePicture(String hash, long offset, long length, OutputStream out) throws IOException {
+      blobs.copy(hash, offset, length, out);
+  }
+
+  /**
+   * This method stores the contents of the specified stream in the BlobStore and makes it
+   * the picture of the specified personality id in the personality table stored in MySQL.
+   * 
+   * @param   id      the unique id of the personality
+   * @param   in      the stream to read the picture from
+   * @param   length  the number of bytes in the stream, or -1 if it is not known
+   * @return          false if the personality does not exist
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing, or the
+   *              stream could not be read or stored
+   */
+  public boolean updatePicture(int id, InputStream in, long length) throws DaoException {
+      String hash = null;
+      try {
+          hash = blobs.put(in, length);
+      } catch (IOException e) {
+          String errorMessage = this.getClass().getName() + ": updatePicture() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      // a blob left without a row, because the personality is gone, is collected as garbage
+      String sql = "UPDATE " + PERSONALITY_TABLE + " SET " + PERSONALITY_PICTURE_HASH + "=?, " +
+                   PERSONALITY_PICTURE + "=NULL WHERE " + PERSONALITY_ID + "=?;";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(PERSONALITY_TABLE);
+          pstmt.setString(1, hash);
+          pstmt.setInt(2, id);
+          if (pstmt.executeUpdate() == 0) {
+              return false;
+          }
+          changeLog.recordWrite(PERSONALITY_TABLE, id);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": updatePicture() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return true;
+  }
+
+  /**
+   * This method copies the pictures still stored only in the picture column of the
+   * personality table into the BlobStore, one row at a time, and records their digests.
+   * Rows copied by another instance in the meantime are left alone.
+   * 
+   * <p><b>Note:</b> The column keeps its bytes, so an instance whose BlobStore does not
+   * hold a picture yet can still copy it from there; see {@link #getPictureInfo(int)}.
+   * It is only cleared when the picture is replaced.</p>
+   * 
+   * @return      the number of pictures copied
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing, or a
+   *              picture could not be stored
+   */
+  public int migratePictures() throws DaoException {
+      List<Integer> ids = new ArrayList<Integer>();
+      String sql = "SELECT " + PERSONALITY_ID + " FROM " + PERSONALITY_TABLE + " WHERE " +
+                   PERSONALITY_PICTURE + " IS NOT NULL AND " + PERSONALITY_PICTURE_HASH + " IS NULL;";
+      String selectSql = "SELECT " + PERSONALITY_PICTURE + " FROM " + PERSONALITY_TABLE + " WHERE " +
+                   PERSONALITY_ID + " = ? AND " + PERSONALITY_PICTURE_HASH + " IS NULL;";
+      String updateSql = "UPDATE " + PERSONALITY_TABLE + " SET " + PERSONALITY_PICTURE_HASH + "=? WHERE " +
+                   PERSONALITY_ID + "=? AND " + PERSONALITY_PICTURE_HASH + " IS NULL;";
+      int moved = 0;
+      try (Connection migration = ConnectionFactory.getInstance().openConnection();) {
+          try (PreparedStatement pstmt = migration.prepareStatement(sql);
+               ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  ids.add(resultSet.getInt(1));
+              }
+          }
+          try (PreparedStatement select = migration.prepareStatement(selectSql);
+               PreparedStatement update = migration.prepareStatement(updateSql);) {
+              for (int id : ids) {
+                  String hash = null;
+                  select.setInt(1, id);
+                  try (ResultSet resultSet = select.executeQuery();) {
+                      if (!resultSet.next()) {
+                          continue;
+                      }
+                      try (InputStream in = resultSet.getBinaryStream(1);) {
+                          hash = blobs.put(in, -1);
+                      }
+                  }
+                  update.setString(1, hash);
+                  update.setInt(2, id);
+                  moved += update.executeUpdate();
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": migratePictures() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } catch (IOException e) {
+          String errorMessage = this.getClass().getName() + ": migratePictures() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return moved;
+  }
+
+  /**
+   * This method deletes the pictures in the BlobStore that no personality refers to.
+   * 
+   * @return      the number of files deleted
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int collectPictureGarbage() throws DaoException {
+      Set<String> referenced = new HashSet<String>();
+      String sql = "SELECT DISTINCT " + PERSONALITY_PICTURE_HASH + " FROM " + PERSONALITY_TABLE + " WHERE " +
+                   PERSONALITY_PICTURE_HASH + " IS NOT NULL;";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);
+           ResultSet resultSet = pstmt.executeQuery();) {
+          while (resultSet.next()) {
+              referenced.add(resultSet.getString(1));
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": collectPictureGarbage() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return blobs.collectGarbage(referenced);
+  }
+  
+   // Copies a picture the migration left in the column into this instance's BlobStore
+   private void restorePicture(int id, String hash) throws SQLException, IOException {
+       String sql = "SELECT " + PERSONALITY_PICTURE + " FROM " + PERSONALITY_TABLE + " WHERE " +
+                    PERSONALITY_ID + " = ?;";
+       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+           pstmt.setInt(1, id);
+           try (ResultSet resultSet = pstmt.executeQuery();) {
+               if (resultSet.next()) {
+                   try (InputStream in = resultSet.getBinaryStream(1);) {
+                       if (in != null && !hash.equals(blobs.put(in, -1))) {
+                           logger.warn(this.getClass().getName() + ": restorePicture() - REASON-> picture of personality " +
+                                       id + " no longer matches " + hash);
+                       }
+                   }
+               }
+           }
+       }
+   }
+
+   private synchronized void loadOrganizations() throws DaoException {
+       if (organizations.isLoaded()) {
+           return;
+       }
+       long stamp = organizations.stamp();
+       int[] ids = new int[64];
+       int[] organizationIds = new int[64];
+       int count = 0;
+       String sql = "SELECT " + PERSONALITY_ID + "," + PERSONALITY_ORGANIZATION_ID + " FROM " + PERSONALITY_TABLE +
+                    " ORDER BY " + PERSONALITY_ID + ";";
+       try (PreparedStatement pstmt = connection.prepareStatement(sql);
+            ResultSet resultSet = pstmt.executeQuery();) {
+           while (resultSet.next()) {
+               if (count == ids.length) {
+                   ids = Arrays.copyOf(ids, count * 2);
+                   organizationIds = Arrays.copyOf(organizationIds, count * 2);
+               }
+               ids[count] = resultSet.getInt(PERSONALITY_ID);
+               organizationIds[count++] = resultSet.getInt(PERSONALITY_ORGANIZATION_ID);
+           }
+       } catch (SQLException e) {
+           String errorMessage = this.getClass().getName() + ": loadOrganizations() - REASON-> " + e.getMessage();
+           logger.error(errorMessage);
+           throw new DaoException(e, errorMessage);
+       }
+       organizations.load(ids, organizationIds, count, stamp);
+   }
+
+   private void setPersonalityParameters(PreparedStatement pstmt, Personality personality) throws SQLException {
+       pstmt.setInt(1,personality.getOrganizationId());
+       pstmt.setString(2,personality.getName());
+       pstmt.setString(3,personality.getTitle());
+       pstmt.setString(4,personality.getBio());
+   }
+
    private Personality getPersonalityFromResultSet(ResultSet resultSet) throws SQLException {
        Personality personality = new Personality();
        personality.setPersonalityId(resultSet.getInt(PERSONALITY_ID));
@@ -238,7 +697,6 @@ public class PersonalityDao implements BaseDao<Personality> {
        personality.setName(resultSet.getString(PERSONALITY_NAME));
        personality.setTitle(resultSet.getString(PERSONALITY_TITLE));
        personality.setBio(resultSet.getString(PERSONALITY_BIO));
-       personality.setPicture(resultSet.getBytes(PERSONALITY_PICTURE));
        return personality;
    }
 }
\ No newline at end of file
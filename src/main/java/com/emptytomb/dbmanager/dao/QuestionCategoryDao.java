@@ -1,5 +1,6 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -10,6 +11,12 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.EntityCache;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.RowLoader;
+import com.emptytomb.dbmanager.cache.SizeEstimator;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.domain.QuestionCategory;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
@@ -30,15 +37,38 @@ public class QuestionCategoryDao implements BaseDao<QuestionCategory> {
   private Logger logger = LoggerFactory.getLogger(QuestionCategoryDao.class);
   private static QuestionCategoryDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private EntityCache<QuestionCategory> cache = null;
 
   private static final String QUESTION_CATEGORY_TABLE = "question_category";
   private static final String QUESTION_CATEGORY_ID = "id";
   private static final String QUESTION_CATEGORY_NAME = "name";
   private static final String QUESTION_CATEGORY_DATE_CREATED = "dateCreated";
   private static final String QUESTION_CATEGORY_DATE_UPDATED = "dateUpdated";   
+  private static final String QUESTION_CATEGORY_INSERT = "INSERT INTO " + QUESTION_CATEGORY_TABLE + "(" +
+               QUESTION_CATEGORY_NAME + ") " + "VALUES" +
+               "(?)";
+  private static final SizeEstimator<QuestionCategory> QUESTION_CATEGORY_SIZE = new SizeEstimator<QuestionCategory>() {
+      @Override
+      public long estimate(QuestionCategory questionCategory) {
+          return 32 +
+                 MemoryGovernor.sizeOf(questionCategory.getName()) +
+                 MemoryGovernor.sizeOf(questionCategory.getDateCreated()) +
+                 MemoryGovernor.sizeOf(questionCategory.getDateUpdated());
+      }
+  };
+
          
   private QuestionCategoryDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	cache = CacheManager.getInstance().register(new EntityCache<QuestionCategory>(QUESTION_CATEGORY_TABLE, QUESTION_CATEGORY_SIZE));
+	HotKeys.getInstance().registerLoader(QUESTION_CATEGORY_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			get(id);
+		}
+	});
   }
   
   /**
@@ -69,7 +99,11 @@ public class QuestionCategoryDao implements BaseDao<QuestionCategory> {
    */
   @Override
   public QuestionCategory get(int id) throws DaoException {
-      QuestionCategory questionCategory = null;
+      QuestionCategory questionCategory = cache.get(id);
+      if (questionCategory != null) {
+          return questionCategory;
+      }
+      long stamp = cache.stamp();
       String sql = "SELECT * FROM " + QUESTION_CATEGORY_TABLE + " WHERE " + QUESTION_CATEGORY_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
@@ -84,6 +118,9 @@ public class QuestionCategoryDao implements BaseDao<QuestionCategory> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (questionCategory != null) {
+          cache.put(id, questionCategory, stamp);
+      }
       return questionCategory;
   }
 
@@ -116,6 +153,38 @@ public class QuestionCategoryDao implements BaseDao<QuestionCategory> {
        }
       return questionCategories;
    }
+
+  /**
+   * This method reads all the question category records from the question_category table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each QuestionCategory object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a QuestionCategory object
+   */
+  @Override
+  public void export(RowHandler<QuestionCategory> handler) throws DaoException, IOException {
+      String sql = "SELECT * FROM " + QUESTION_CATEGORY_TABLE + " ORDER BY " + QUESTION_CATEGORY_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(createQuestionCategoryFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
   
   /**
    * This method adds the specified QuestionCategory record to the question_category
@@ -129,18 +198,17 @@ public class QuestionCategoryDao implements BaseDao<QuestionCategory> {
   @Override
   public int add(QuestionCategory questionCategory) throws DaoException {
       int autoIncKey = -1;
- 	  String sql = "INSERT INTO " + QUESTION_CATEGORY_TABLE + "(" +
-	                QUESTION_CATEGORY_NAME + ") " +  "VALUES" +  
-	               "(?)";
-	  	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setString(1,questionCategory.getName());
+
+       try (PreparedStatement pstmt = connection.prepareStatement(QUESTION_CATEGORY_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(QUESTION_CATEGORY_TABLE);
+          setQuestionCategoryParameters(pstmt, questionCategory);
           pstmt.executeUpdate();
           
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(QUESTION_CATEGORY_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": add() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -152,10 +220,60 @@ public class QuestionCategoryDao implements BaseDao<QuestionCategory> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified QuestionCategory records to the question_category table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    questionCategorys  the QuestionCategory objects
+   * @return                the unique ids of the QuestionCategorys added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<QuestionCategory> questionCategorys) throws DaoException {
+      int[] autoIncKeys = new int[questionCategorys.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(QUESTION_CATEGORY_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(QUESTION_CATEGORY_TABLE);
+          for (QuestionCategory questionCategory : questionCategorys) {
+              setQuestionCategoryParameters(pstmt, questionCategory);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(QUESTION_CATEGORY_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified QuestionCategory record in the question_category
    * table stored in MySQL.
@@ -171,14 +289,18 @@ public class QuestionCategoryDao implements BaseDao<QuestionCategory> {
                    QUESTION_CATEGORY_ID + "=?;";
        
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(QUESTION_CATEGORY_TABLE);
           pstmt.setString(1,questionCategory.getName());
           pstmt.setInt(2,questionCategory.getId());
           pstmt.executeUpdate();
+          changeLog.recordWrite(QUESTION_CATEGORY_TABLE, questionCategory.getId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": update() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -200,16 +322,24 @@ public class QuestionCategoryDao implements BaseDao<QuestionCategory> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE FROM " + QUESTION_CATEGORY_TABLE + " WHERE " + QUESTION_CATEGORY_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(QUESTION_CATEGORY_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(QUESTION_CATEGORY_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": delete() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+   private void setQuestionCategoryParameters(PreparedStatement pstmt, QuestionCategory questionCategory) throws SQLException {
+       pstmt.setString(1,questionCategory.getName());
+   }
+
    private QuestionCategory createQuestionCategoryFromResultSet(ResultSet resultSet) throws SQLException {
        QuestionCategory questionCategory = new QuestionCategory();
        
@@ -1,15 +1,24 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.EntityCache;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.RowLoader;
+import com.emptytomb.dbmanager.cache.SizeEstimator;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.domain.QuestionChoice;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
@@ -29,14 +38,39 @@ public class QuestionChoiceDao implements BaseDao<QuestionChoice> {
   private Logger logger = LoggerFactory.getLogger(QuestionChoiceDao.class);
   private static QuestionChoiceDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private EntityCache<QuestionChoice> cache = null;
    
   private static final String QUESTION_CHOICE_TABLE = "question_choice";
   private static final String QUESTION_CHOICE_ID = "id";
   private static final String QUESTION_CHOICE_TEXT = "text";
   private static final String QUESTION_CHOICE_CORRECT_ANSWER = "correctAnswer";
+  private static final String QUESTION_CHOICE_QUESTION_ID = "questionId";
+  private static final String QUESTION_CHOICE_INSERT = "INSERT INTO " + QUESTION_CHOICE_TABLE + "(" +
+               QUESTION_CHOICE_TEXT + "," +
+               QUESTION_CHOICE_CORRECT_ANSWER + "," +
+               QUESTION_CHOICE_QUESTION_ID + ") " + "VALUES" +
+               "(?,?,?)";
+
+  private static final SizeEstimator<QuestionChoice> QUESTION_CHOICE_SIZE = new SizeEstimator<QuestionChoice>() {
+      @Override
+      public long estimate(QuestionChoice questionChoice) {
+          return 32 +
+                 MemoryGovernor.sizeOf(questionChoice.getText());
+      }
+  };
+
     
   private QuestionChoiceDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	cache = CacheManager.getInstance().register(new EntityCache<QuestionChoice>(QUESTION_CHOICE_TABLE, QUESTION_CHOICE_SIZE));
+	HotKeys.getInstance().registerLoader(QUESTION_CHOICE_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			get(id);
+		}
+	});
   }
   
   /**
@@ -67,7 +101,11 @@ public class QuestionChoiceDao implements BaseDao<QuestionChoice> {
    */
   @Override
   public QuestionChoice get(int id) throws DaoException {
-      QuestionChoice questionChoice = null;
+      QuestionChoice questionChoice = cache.get(id);
+      if (questionChoice != null) {
+          return questionChoice;
+      }
+      long stamp = cache.stamp();
       String sql = "SELECT * FROM " + QUESTION_CHOICE_TABLE + " WHERE " + QUESTION_CHOICE_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
@@ -82,6 +120,9 @@ public class QuestionChoiceDao implements BaseDao<QuestionChoice> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (questionChoice != null) {
+          cache.put(id, questionChoice, stamp);
+      }
       return questionChoice;
   }
 
@@ -111,6 +152,82 @@ public class QuestionChoiceDao implements BaseDao<QuestionChoice> {
        }
       return questionChoices;
    }
+
+  /**
+   * This method reads the question choice records of all the specified questions from the
+   * question_choice table stored in MySQL in one query, and keeps them in the question choice cache.
+   * 
+   * <p><b>Note:</b> Each question is one range of the (questionId, id) index, so the choices of
+   * a whole page of questions cost one round trip.</p>
+   * 
+   * @param   questionIds  the unique ids of the questions
+   * @return               List of QuestionChoice objects, by question id and then in id order
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public List<QuestionChoice> listByQuestions(Collection<Integer> questionIds) throws DaoException {
+      ArrayList<QuestionChoice> questionChoices = new ArrayList<QuestionChoice>();
+      if (questionIds.isEmpty()) {
+          return questionChoices;
+      }
+      long stamp = cache.stamp();
+      StringBuilder sql = new StringBuilder("SELECT * FROM " + QUESTION_CHOICE_TABLE + " WHERE " + QUESTION_CHOICE_QUESTION_ID + " IN (");
+      for (int i = 0; i < questionIds.size(); i++) {
+          sql.append(i == 0 ? "?" : ",?");
+      }
+      sql.append(") ORDER BY " + QUESTION_CHOICE_QUESTION_ID + "," + QUESTION_CHOICE_ID + ";");
+      try (PreparedStatement pstmt = connection.prepareStatement(sql.toString());) {
+          int parameter = 1;
+          for (Integer questionId : questionIds) {
+              pstmt.setInt(parameter++, questionId);
+          }
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  questionChoices.add(getQuestionChoiceFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": listByQuestions() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      for (QuestionChoice questionChoice : questionChoices) {
+          cache.put(questionChoice.getQuestionChoiceId(), questionChoice, stamp);
+      }
+      return questionChoices;
+  }
+
+  /**
+   * This method reads all the question choice records from the question_choice table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each QuestionChoice object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a QuestionChoice object
+   */
+  @Override
+  public void export(RowHandler<QuestionChoice> handler) throws DaoException, IOException {
+      String sql = "SELECT * FROM " + QUESTION_CHOICE_TABLE + " ORDER BY " + QUESTION_CHOICE_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(getQuestionChoiceFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
   
   /**
    * This method adds the specified QuestionChoice record to the question_choice table stored in MySQL.
@@ -128,20 +245,17 @@ public class QuestionChoiceDao implements BaseDao<QuestionChoice> {
   @Override
   public int add(QuestionChoice questionChoice) throws DaoException {
       int autoIncKey = -1;
-	  String sql = "INSERT INTO " + QUESTION_CHOICE_TABLE + "(" +
-	               QUESTION_CHOICE_TEXT + "," + 
-                   QUESTION_CHOICE_CORRECT_ANSWER + ") " +  "VALUES" +  
-                   "(?,?)";
-	  	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setString(1,questionChoice.getText());
-          pstmt.setBoolean(2,questionChoice.isCorrectAnswer());
+
+       try (PreparedStatement pstmt = connection.prepareStatement(QUESTION_CHOICE_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(QUESTION_CHOICE_TABLE);
+          setQuestionChoiceParameters(pstmt, questionChoice);
           pstmt.executeUpdate();
  
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(QUESTION_CHOICE_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": addQuestionChoice() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -153,10 +267,60 @@ public class QuestionChoiceDao implements BaseDao<QuestionChoice> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified QuestionChoice records to the question_choice table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    questionChoices  the QuestionChoice objects
+   * @return                the unique ids of the QuestionChoices added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<QuestionChoice> questionChoices) throws DaoException {
+      int[] autoIncKeys = new int[questionChoices.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(QUESTION_CHOICE_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(QUESTION_CHOICE_TABLE);
+          for (QuestionChoice questionChoice : questionChoices) {
+              setQuestionChoiceParameters(pstmt, questionChoice);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(QUESTION_CHOICE_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified QuestionChoice record in the question_choice table stored in MySQL.
    * 
@@ -168,19 +332,23 @@ public class QuestionChoiceDao implements BaseDao<QuestionChoice> {
   public void update(QuestionChoice questionChoice) throws DaoException {
       String sql = "UPDATE " + QUESTION_CHOICE_TABLE + " SET " +
                    QUESTION_CHOICE_TEXT + "=?, " + 
-                   QUESTION_CHOICE_CORRECT_ANSWER + "=? " +  "WHERE " +  
+                   QUESTION_CHOICE_CORRECT_ANSWER + "=?, " + 
+                   QUESTION_CHOICE_QUESTION_ID + "=? " +  "WHERE " +  
                    QUESTION_CHOICE_ID + "=?;"; 
          
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
-          pstmt.setString(1,questionChoice.getText()); 
-          pstmt.setBoolean(2,questionChoice.isCorrectAnswer()); 
-          pstmt.setInt(3,questionChoice.getQuestionChoiceId());
+          changeLog.beginWrite(QUESTION_CHOICE_TABLE);
+          setQuestionChoiceParameters(pstmt, questionChoice);
+          pstmt.setInt(4,questionChoice.getQuestionChoiceId());
           pstmt.executeUpdate();
+          changeLog.recordWrite(QUESTION_CHOICE_TABLE, questionChoice.getQuestionChoiceId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": updateQuestion() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -201,22 +369,38 @@ public class QuestionChoiceDao implements BaseDao<QuestionChoice> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE FROM " + QUESTION_CHOICE_TABLE + " WHERE " + QUESTION_CHOICE_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(QUESTION_CHOICE_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(QUESTION_CHOICE_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": deleteQuestionChoice() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+   private void setQuestionChoiceParameters(PreparedStatement pstmt, QuestionChoice questionChoice) throws SQLException {
+       pstmt.setString(1,questionChoice.getText());
+       pstmt.setBoolean(2,questionChoice.isCorrectAnswer());
+       // 0 is no question; the column is a foreign key, so it is stored as NULL
+       if (questionChoice.getQuestionId() == 0) {
+           pstmt.setNull(3, Types.INTEGER);
+       } else {
+           pstmt.setInt(3,questionChoice.getQuestionId());
+       }
+   }
+
    private QuestionChoice getQuestionChoiceFromResultSet(ResultSet resultSet) throws SQLException {
        QuestionChoice questionChoice = new QuestionChoice();
        
        questionChoice.setQuestionChoiceId(resultSet.getInt(QUESTION_CHOICE_ID));
        questionChoice.setText(resultSet.getString(QUESTION_CHOICE_TEXT));
        questionChoice.setCorrectAnswer(resultSet.getBoolean(QUESTION_CHOICE_CORRECT_ANSWER));
+       questionChoice.setQuestionId(resultSet.getInt(QUESTION_CHOICE_QUESTION_ID));
                  
        return questionChoice;
    }
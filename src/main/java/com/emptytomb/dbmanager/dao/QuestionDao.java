@@ -1,15 +1,28 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.EntityCache;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.QuestionBitmapIndex;
+import com.emptytomb.dbmanager.cache.QuizIndex;
+import com.emptytomb.dbmanager.cache.RowLoader;
+import com.emptytomb.dbmanager.cache.SizeEstimator;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.domain.Question;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
@@ -29,6 +42,12 @@ public class QuestionDao implements BaseDao<Question> {
   private Logger logger = LoggerFactory.getLogger(QuestionDao.class);
   private static QuestionDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private EntityCache<Question> cache = null;
+  private QuizIndex quiz = null;
+  private final Object quizLock = new Object();
+  private QuestionBitmapIndex filters = null;
+  private final Object filtersLock = new Object();
    
   private static final String QUESTION_TABLE = "question";
   private static final String QUESTION_ID = "id";
@@ -38,9 +57,39 @@ public class QuestionDao implements BaseDao<Question> {
   private static final String QUESTION_TESTAMENT = "testament";
   private static final String QUESTION_DIFFICULTY = "difficulty";
   private static final String QUESTION_SINCE_VERSION = "sinceVersion";
+  private static final String QUESTION_INSERT = "INSERT INTO " + QUESTION_TABLE + "(" +
+               QUESTION_CATEGORY_ID + "," +
+               QUESTION_TEXT + "," +
+               QUESTION_TYPE + "," +
+               QUESTION_TESTAMENT + "," +
+               QUESTION_DIFFICULTY + "," +
+               QUESTION_SINCE_VERSION + ") " + "VALUES" +
+               "(?,?,?,?,?,?)";
+
+  private static final SizeEstimator<Question> QUESTION_SIZE = new SizeEstimator<Question>() {
+      @Override
+      public long estimate(Question question) {
+          return 48 +
+                 MemoryGovernor.sizeOf(question.getText()) +
+                 MemoryGovernor.sizeOf(question.getType()) +
+                 MemoryGovernor.sizeOf(question.getTestament()) +
+                 MemoryGovernor.sizeOf(question.getDifficulty());
+      }
+  };
+
     
   private QuestionDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	cache = CacheManager.getInstance().register(new EntityCache<Question>(QUESTION_TABLE, QUESTION_SIZE));
+	quiz = CacheManager.getInstance().register(new QuizIndex(QUESTION_TABLE));
+	filters = CacheManager.getInstance().register(new QuestionBitmapIndex(QUESTION_TABLE));
+	HotKeys.getInstance().registerLoader(QUESTION_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			get(id);
+		}
+	});
   }
   
   /**
@@ -71,7 +120,11 @@ public class QuestionDao implements BaseDao<Question> {
    */
   @Override
   public Question get(int id) throws DaoException {
-      Question question = null;
+      Question question = cache.get(id);
+      if (question != null) {
+          return question;
+      }
+      long stamp = cache.stamp();
       String sql = "SELECT * FROM " + QUESTION_TABLE + " WHERE " + QUESTION_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
@@ -86,9 +139,113 @@ public class QuestionDao implements BaseDao<Question> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (question != null) {
+          cache.put(id, question, stamp);
+      }
       return question;
   }
 
+  /**
+   * This method returns the Question objects of the specified ids, read from the cache where
+   * they are held and the rest from the question table stored in MySQL in one query.
+   * 
+   * @param   ids  the unique ids of the questions to return
+   * @return       the Question objects by id; ids that do not exist are left out
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public Map<Integer, Question> getAll(Set<Integer> ids) throws DaoException {
+      Map<Integer, Question> questions = new HashMap<Integer, Question>();
+      List<Integer> missing = new ArrayList<Integer>();
+      for (Integer id : ids) {
+          Question question = cache.get(id);
+          if (question != null) {
+              questions.put(id, question);
+          } else {
+              missing.add(id);
+          }
+      }
+      if (missing.isEmpty()) {
+          return questions;
+      }
+      long stamp = cache.stamp();
+      StringBuilder sql = new StringBuilder("SELECT * FROM " + QUESTION_TABLE + " WHERE " + QUESTION_ID + " IN (");
+      for (int i = 0; i < missing.size(); i++) {
+          sql.append(i == 0 ? "?" : ",?");
+      }
+      sql.append(");");
+      try (PreparedStatement pstmt = connection.prepareStatement(sql.toString());) {
+          for (int i = 0; i < missing.size(); i++) {
+              pstmt.setInt(i + 1, missing.get(i));
+          }
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  Question question = getQuestionFromResultSet(resultSet);
+                  questions.put(question.getQuestionId(), question);
+                  cache.put(question.getQuestionId(), question, stamp);
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": getAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return questions;
+  }
+
+  /**
+   * This method draws up to count question ids at random without replacement from the
+   * questions that match every specified attribute.
+   * 
+   * <p><b>Note:</b> The first quiz indexes the attributes of every question, streamed as by
+   * export(). After that, each question written since the last quiz, here or on another
+   * instance, is reindexed on its own before drawing, so no quiz reads the table.</p>
+   * 
+   * @param   categoryId  the category to draw from, or 0 for every category
+   * @param   difficulty  the difficulty to draw from, or null for every difficulty
+   * @param   testament   the testament to draw from, or null for every testament
+   * @param   type        the type to draw from, or null for every type
+   * @param   stratum     the attribute to share the quiz evenly between the values of, or
+   *                      null to draw uniformly
+   * @param   count       the most questions to draw
+   * @param   random      the source of randomness
+   * @return              the unique ids of the questions drawn, in quiz order
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int[] sampleQuiz(int categoryId, String difficulty, String testament, String type,
+          QuizIndex.Stratum stratum, int count, Random random) throws DaoException {
+      if (!quiz.isCurrent()) {
+          refreshQuiz();
+      }
+      return quiz.sample(categoryId, difficulty, testament, type, stratum, count, random);
+  }
+
+  /**
+   * This method returns the ids of the questions that match every specified filter, and the
+   * number of questions per value of each attribute under the other filters.
+   * 
+   * <p><b>Note:</b> The first filter indexes the attributes of every question, streamed as by
+   * export(). After that, each question written since the last filter, here or on another
+   * instance, is reindexed on its own before filtering, so no filter reads the table.</p>
+   * 
+   * @param   categoryIds      the categories to match any of, or null for every category
+   * @param   difficulty       the difficulties to match any of, or null for every difficulty
+   * @param   testament        the testaments to match any of, or null for every testament
+   * @param   type             the types to match any of, or null for every type
+   * @param   minSinceVersion  the least since version to match, or NaN for every version
+   * @return                   the ids of the questions that match, in id order, and the counts
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public QuestionBitmapIndex.Result filter(Integer[] categoryIds, String[] difficulty, String[] testament,
+          String[] type, float minSinceVersion) throws DaoException {
+      if (!filters.isCurrent()) {
+          refreshFilters();
+      }
+      return filters.filter(categoryIds, difficulty, testament, type, minSinceVersion);
+  }
+
   /**
    * This method reads all the question records from the question table stored in MySQL and 
    * returns a list of Question objects.
@@ -115,6 +272,81 @@ public class QuestionDao implements BaseDao<Question> {
        }
       return questions;
    }
+
+  /**
+   * This method reads one page of the question records in the specified category, or in
+   * every category, in id order, and keeps them in the question cache.
+   * 
+   * <p><b>Note:</b> A page starts after the last id of the page before, so each page of a
+   * category is one range of the (categoryId, id) index however many pages precede it.</p>
+   * 
+   * @param   categoryId  the unique id of the question category, or 0 for every category
+   * @param   afterId     the id after which the page starts, 0 for the first page
+   * @param   limit       the most questions to return
+   * @return              List of Question objects, in id order
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public List<Question> listByCategory(int categoryId, int afterId, int limit) throws DaoException {
+      ArrayList<Question> questions = new ArrayList<Question>();
+      long stamp = cache.stamp();
+      String sql = "SELECT * FROM " + QUESTION_TABLE + " WHERE " +
+                   (categoryId == 0 ? "" : QUESTION_CATEGORY_ID + " = ? AND ") + QUESTION_ID +
+                   " > ? ORDER BY " + QUESTION_ID + " LIMIT ?;";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          int parameter = 1;
+          if (categoryId != 0) {
+              pstmt.setInt(parameter++, categoryId);
+          }
+          pstmt.setInt(parameter++, afterId);
+          pstmt.setInt(parameter, limit);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  questions.add(getQuestionFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": listByCategory() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      for (Question question : questions) {
+          cache.put(question.getQuestionId(), question, stamp);
+      }
+      return questions;
+  }
+
+  /**
+   * This method reads all the question records from the question table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each Question object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a Question object
+   */
+  @Override
+  public void export(RowHandler<Question> handler) throws DaoException, IOException {
+      String sql = "SELECT * FROM " + QUESTION_TABLE + " ORDER BY " + QUESTION_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(getQuestionFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
   
   /**
    * This method adds the specified Question record to the question table stored in MySQL.
@@ -132,28 +364,17 @@ public class QuestionDao implements BaseDao<Question> {
   @Override
   public int add(Question question) throws DaoException {
       int autoIncKey = -1;
-	  String sql = "INSERT INTO " + QUESTION_TABLE + "(" +
-	               QUESTION_CATEGORY_ID + "," +   
-                   QUESTION_TEXT + "," + 
-                   QUESTION_TYPE + "," + 
-                   QUESTION_TESTAMENT + "," +   
-                   QUESTION_DIFFICULTY + "," + 
-                   QUESTION_SINCE_VERSION + ") " +  "VALUES" +  
-                   "(?,?,?,?,?,?)";
-	  	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setInt(1,question.getCategoryId());
-          pstmt.setString(2,question.getText());
-          pstmt.setString(3,question.getType());
-          pstmt.setString(4,question.getTestament()); 
-          pstmt.setString(6,question.getDifficulty());
-          pstmt.setFloat(7,question.getSinceVersion());
+
+       try (PreparedStatement pstmt = connection.prepareStatement(QUESTION_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(QUESTION_TABLE);
+          setQuestionParameters(pstmt, question);
           pstmt.executeUpdate();
  
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(QUESTION_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": addQuestion() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -165,10 +386,60 @@ public class QuestionDao implements BaseDao<Question> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified Question records to the question table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    questions  the Question objects
+   * @return                the unique ids of the Questions added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<Question> questions) throws DaoException {
+      int[] autoIncKeys = new int[questions.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(QUESTION_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(QUESTION_TABLE);
+          for (Question question : questions) {
+              setQuestionParameters(pstmt, question);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(QUESTION_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified Question record in the question table stored in MySQL.
    * 
@@ -188,6 +459,7 @@ public class QuestionDao implements BaseDao<Question> {
                    QUESTION_ID + "=?;"; 
          
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(QUESTION_TABLE);
           pstmt.setInt(1,question.getCategoryId()); 
           pstmt.setString(2,question.getText()); 
           pstmt.setString(3,question.getType()); 
@@ -196,11 +468,14 @@ public class QuestionDao implements BaseDao<Question> {
           pstmt.setFloat(6,question.getSinceVersion()); 
           pstmt.setInt(7,question.getQuestionId());
           pstmt.executeUpdate();
+          changeLog.recordWrite(QUESTION_TABLE, question.getQuestionId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": updateQuestion() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -208,9 +483,9 @@ public class QuestionDao implements BaseDao<Question> {
    * This method deletes the specified question id from the question table stored in MySQL. 
    * 
    * <p><b>Note:</b>Referential integrity foreign key constraints will be checked
-   * prior to deleting the specified personality record from the personality table
-   * stored in MySQL. All commentary records in the commentary table stored in MySQL
-   * associated with the specified personality id must have been previously deleted
+   * prior to deleting the specified question record from the question table
+   * stored in MySQL. All question choice records in the question_choice table stored
+   * in MySQL associated with the specified question id must have been previously deleted
    * prior to calling this method.</p>
    * 
    * @param   id  the unique id of the question to delete.
@@ -221,16 +496,93 @@ public class QuestionDao implements BaseDao<Question> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE FROM " + QUESTION_TABLE + " WHERE " + QUESTION_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(QUESTION_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(QUESTION_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": deleteQuestion() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+   private void refreshQuiz() throws DaoException {
+       synchronized (quizLock) {
+           if (!quiz.isComplete()) {
+               quiz.clear();
+               try {
+                   export(new RowHandler<Question>() {
+                       @Override
+                       public void handle(Question question) {
+                           quiz.add(question.getQuestionId(), question.getCategoryId(), question.getDifficulty(),
+                                   question.getTestament(), question.getType());
+                       }
+                   });
+               } catch (IOException e) {
+                   // the handler above writes nothing
+                   String errorMessage = this.getClass().getName() + ": refreshQuiz() - REASON-> " + e.getMessage();
+                   logger.error(errorMessage);
+                   throw new DaoException(e, errorMessage);
+               }
+               quiz.markComplete();
+           }
+           for (int id : quiz.drainDirty()) {
+               Question question = get(id);
+               if (question == null) {
+                   quiz.remove(id);
+               } else {
+                   quiz.add(id, question.getCategoryId(), question.getDifficulty(),
+                           question.getTestament(), question.getType());
+               }
+           }
+       }
+   }
+
+   private void refreshFilters() throws DaoException {
+       synchronized (filtersLock) {
+           if (!filters.isComplete()) {
+               filters.clear();
+               try {
+                   export(new RowHandler<Question>() {
+                       @Override
+                       public void handle(Question question) {
+                           filters.add(question.getQuestionId(), question.getCategoryId(), question.getDifficulty(),
+                                   question.getTestament(), question.getType(), question.getSinceVersion());
+                       }
+                   });
+               } catch (IOException e) {
+                   // the handler above writes nothing
+                   String errorMessage = this.getClass().getName() + ": refreshFilters() - REASON-> " + e.getMessage();
+                   logger.error(errorMessage);
+                   throw new DaoException(e, errorMessage);
+               }
+               filters.markComplete();
+           }
+           for (int id : filters.drainDirty()) {
+               Question question = get(id);
+               if (question == null) {
+                   filters.remove(id);
+               } else {
+                   filters.add(id, question.getCategoryId(), question.getDifficulty(),
+                           question.getTestament(), question.getType(), question.getSinceVersion());
+               }
+           }
+       }
+   }
+
+   private void setQuestionParameters(PreparedStatement pstmt, Question question) throws SQLException {
+       pstmt.setInt(1,question.getCategoryId());
+       pstmt.setString(2,question.getText());
+       pstmt.setString(3,question.getType());
+       pstmt.setString(4,question.getTestament());
+       pstmt.setString(5,question.getDifficulty());
+       pstmt.setFloat(6,question.getSinceVersion());
+   }
+
    private Question getQuestionFromResultSet(ResultSet resultSet) throws SQLException {
        Question question = new Question();
        
@@ -0,0 +1,22 @@
+package com.emptytomb.dbmanager.dao;
+
+import java.io.IOException;
+
+/**
+* The RowHandler defines a callback that receives the <T> domain objects of an export
+* one at a time, as they are read from the underlying storage mechanism.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public interface RowHandler<T> {
+	/**
+	 * This method receives the next <T> object.
+	 * 
+	 * @param   t  the <T> object
+	 * 
+	 * @throws  IOException if the object could not be written; the export stops
+	*/
+    public void handle(T t) throws IOException;
+}
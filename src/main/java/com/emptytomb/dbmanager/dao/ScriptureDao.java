@@ -1,19 +1,32 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.EntityCache;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.IntColumn;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.ReferenceIndex;
+import com.emptytomb.dbmanager.cache.RowLoader;
+import com.emptytomb.dbmanager.cache.SizeEstimator;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.dao.ScriptureDao;
 import com.emptytomb.dbmanager.domain.Scripture;
+import com.emptytomb.dbmanager.utility.Books;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
+import com.emptytomb.dbmanager.utility.VerseReference;
+import com.emptytomb.dbmanager.utility.Versification;
 
 
 /**
@@ -31,6 +44,11 @@ public class ScriptureDao implements BaseDao<Scripture> {
   private Logger logger = LoggerFactory.getLogger(ScriptureDao.class);
   private static ScriptureDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private EntityCache<Scripture> cache = null;
+  private ReferenceIndex references = null;
+  private IntColumn ordinals = null;
+  private volatile Versification versification = Versification.KJV;
 
   private static final String SCRIPTURE_TABLE = "scripture";
   private static final String SCRIPTURE_ID = "id";
@@ -40,9 +58,40 @@ public class ScriptureDao implements BaseDao<Scripture> {
   private static final String SCRIPTURE_CHAPTER ="chapter";
   private static final String SCRIPTURE_VERSE = "verse";
   private static final String SCRIPTURE_PROPHECY ="prophecy";
+  private static final String SCRIPTURE_ORDINAL = "ordinal";  // BBCCCVVV, see VerseReference
+  private static final String SCRIPTURE_INSERT = "INSERT INTO " + SCRIPTURE_TABLE + "(" +
+               SCRIPTURE_TESTAMENT + "," +
+               SCRIPTURE_BOOK + "," +
+               SCRIPTURE_BOOK_AUTHOR + "," +
+               SCRIPTURE_CHAPTER + "," +
+               SCRIPTURE_VERSE + "," +
+               SCRIPTURE_PROPHECY + "," +
+               SCRIPTURE_ORDINAL + ") " + "VALUES" +
+               "(?,?,?,?,?,?,?)";
+
+  private static final SizeEstimator<Scripture> SCRIPTURE_SIZE = new SizeEstimator<Scripture>() {
+      @Override
+      public long estimate(Scripture scripture) {
+          return 40 +
+                 MemoryGovernor.sizeOf(scripture.getTestament()) +
+                 MemoryGovernor.sizeOf(scripture.getBook()) +
+                 MemoryGovernor.sizeOf(scripture.getAuthor());
+      }
+  };
+
        
    private ScriptureDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	cache = CacheManager.getInstance().register(new EntityCache<Scripture>(SCRIPTURE_TABLE, SCRIPTURE_SIZE));
+	references = CacheManager.getInstance().register(new ReferenceIndex(SCRIPTURE_TABLE));
+	ordinals = CacheManager.getInstance().register(new IntColumn(SCRIPTURE_TABLE));
+	HotKeys.getInstance().registerLoader(SCRIPTURE_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			get(id);
+		}
+	});
   }
   
   /**
@@ -73,7 +122,11 @@ public class ScriptureDao implements BaseDao<Scripture> {
    */
   @Override
   public Scripture get(int id) throws DaoException {
-      Scripture scripture = null;
+      Scripture scripture = cache.get(id);
+      if (scripture != null) {
+          return scripture;
+      }
+      long stamp = cache.stamp();
       String sql = "SELECT * FROM " + SCRIPTURE_TABLE + " WHERE " + SCRIPTURE_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
@@ -88,9 +141,79 @@ public class ScriptureDao implements BaseDao<Scripture> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (scripture != null) {
+          cache.put(id, scripture, stamp);
+      }
       return scripture;
   }
 
+  /**
+   * This method returns the id of the scripture record for the specified verse.
+   * 
+   * <p><b>Note:</b> The id is looked up in an in-memory index of the whole scripture
+   * table, so only the first lookup after a write to the table reads MySQL. Rows whose
+   * book is not recognized are left out of the index.</p>
+   * 
+   * @param   ordinal  the canonical ordinal of the verse, see VerseReference.ordinal()
+   * @return           the unique id of the scripture, or 0 if there is none
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int getIdByReference(int ordinal) throws DaoException {
+      if (!references.isLoaded()) {
+          loadReferences();
+      }
+      return references.get(ordinal);
+  }
+
+  /**
+   * This method returns the canonical ordinal of the verse of the specified scripture id.
+   * 
+   * <p><b>Note:</b> The ordinal is looked up in an in-memory column of the whole scripture
+   * table, loaded together with the index used by getIdByReference().</p>
+   * 
+   * @param   id  the unique id of the scripture
+   * @return      the canonical ordinal of its verse, see VerseReference.ordinal(), or 0 if
+   *              there is no such scripture or its book is not recognized
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int getOrdinalById(int id) throws DaoException {
+      if (!ordinals.isLoaded()) {
+          loadReferences();
+      }
+      return ordinals.get(id, 0);
+  }
+
+  /**
+   * This method returns the chapters and verses that scripture records may refer to.
+   * 
+   * @return      the Versification, KJV widened by loadVersification()
+   */
+  public Versification getVersification() {
+      return versification;
+  }
+
+  /**
+   * This method widens the versification that add() and update() check against with the
+   * chapters and verses of the scripture records already stored, so that records using
+   * another versification stay writable.
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public void loadVersification() throws DaoException {
+      List<Scripture> scriptures = list();
+      int[] ordinals = new int[scriptures.size()];
+      int count = 0;
+      for (Scripture scripture : scriptures) {
+          int ordinal = getOrdinal(scripture);
+          if (ordinal != 0) {
+              ordinals[count++] = ordinal;
+          }
+      }
+      versification = Versification.KJV.widen(ordinals, count);
+  }
+
   /**
    * This method reads all the scripture records from the scripture table
    * stored in MySQL and returns a list of Scripture objects.
@@ -120,6 +243,38 @@ public class ScriptureDao implements BaseDao<Scripture> {
        }
       return scriptures;
    }
+
+  /**
+   * This method reads all the scripture records from the scripture table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each Scripture object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a Scripture object
+   */
+  @Override
+  public void export(RowHandler<Scripture> handler) throws DaoException, IOException {
+      String sql = "SELECT * FROM " + SCRIPTURE_TABLE + " ORDER BY " + SCRIPTURE_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(getScriptureFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
   
   /**
    * This method adds the specified Scripture record to the scripture table
@@ -138,28 +293,18 @@ public class ScriptureDao implements BaseDao<Scripture> {
   @Override
   public int add(Scripture scripture) throws DaoException {
       int autoIncKey = -1;
-	  String sql = "INSERT INTO " + SCRIPTURE_TABLE + "(" +
-	               SCRIPTURE_TESTAMENT + "," + 
-	               SCRIPTURE_BOOK + "," + 
-	               SCRIPTURE_BOOK_AUTHOR + "," + 
-	               SCRIPTURE_CHAPTER + "," + 
-	               SCRIPTURE_VERSE + "," + 
-	               SCRIPTURE_PROPHECY + ") " +  "VALUES" +  
-	               "(?,?,?,?,?,?)";
-	  	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setString(1,scripture.getTestament());
-          pstmt.setString(2,scripture.getBook());
-          pstmt.setString(3,scripture.getAuthor());
-          pstmt.setInt(4,scripture.getChapter());
-          pstmt.setInt(5,scripture.getVerse());
-          pstmt.setBoolean(6,scripture.isProphecy());
+      validate(scripture, "addScripture");
+
+       try (PreparedStatement pstmt = connection.prepareStatement(SCRIPTURE_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(SCRIPTURE_TABLE);
+          setScriptureParameters(pstmt, scripture);
           pstmt.executeUpdate();
           
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(SCRIPTURE_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": addScripture() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -171,10 +316,63 @@ public class ScriptureDao implements BaseDao<Scripture> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified Scripture records to the scripture table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    scriptures  the Scripture objects
+   * @return                the unique ids of the Scriptures added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<Scripture> scriptures) throws DaoException {
+      int[] autoIncKeys = new int[scriptures.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      for (Scripture scripture : scriptures) {
+          validate(scripture, "addAll");
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(SCRIPTURE_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(SCRIPTURE_TABLE);
+          for (Scripture scripture : scriptures) {
+              setScriptureParameters(pstmt, scripture);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(SCRIPTURE_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified Scripture record in the scripture table
    * stored in MySQL.
@@ -191,23 +389,24 @@ public class ScriptureDao implements BaseDao<Scripture> {
                    SCRIPTURE_BOOK_AUTHOR + "=?, " + 
                    SCRIPTURE_CHAPTER + "=?, " + 
                    SCRIPTURE_VERSE + "=?, " + 
-                   SCRIPTURE_PROPHECY + "=? " +  "WHERE " + 
+                   SCRIPTURE_PROPHECY + "=?, " + 
+                   SCRIPTURE_ORDINAL + "=? " +  "WHERE " + 
                    SCRIPTURE_ID + "=?;";
+      validate(scripture, "updateScripture");
        
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
-          pstmt.setString(1,scripture.getTestament());
-          pstmt.setString(2,scripture.getBook());
-          pstmt.setString(3,scripture.getAuthor());
-          pstmt.setInt(4,scripture.getChapter());
-          pstmt.setInt(5,scripture.getVerse());
-          pstmt.setBoolean(6,scripture.isProphecy());
-          pstmt.setInt(7,scripture.getScriptureId());
+          changeLog.beginWrite(SCRIPTURE_TABLE);
+          setScriptureParameters(pstmt, scripture);
+          pstmt.setInt(8,scripture.getScriptureId());
           pstmt.executeUpdate();
+          changeLog.recordWrite(SCRIPTURE_TABLE, scripture.getScriptureId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": updateScripture() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -229,16 +428,133 @@ public class ScriptureDao implements BaseDao<Scripture> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE fROM " + SCRIPTURE_TABLE + " WHERE " + SCRIPTURE_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(SCRIPTURE_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(SCRIPTURE_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": deleteScripture() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+  /**
+   * This method fills in the canonical ordinal of every scripture record that does not have
+   * one yet, i.e. the records written before 003-scripture-ordinal.sql was applied or by an
+   * older build. It is safe to run on several instances at once.
+   * 
+   * <p><b>Note:</b> The ordinal is not part of the Scripture object, so the change is not
+   * written to the change log.</p>
+   * 
+   * @return      the number of records given an ordinal
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int migrateOrdinals() throws DaoException {
+      String sql = "SELECT * FROM " + SCRIPTURE_TABLE + " WHERE " + SCRIPTURE_ORDINAL + " IS NULL;";
+      String updateSql = "UPDATE " + SCRIPTURE_TABLE + " SET " + SCRIPTURE_ORDINAL + "=? WHERE " +
+                   SCRIPTURE_ID + "=? AND " + SCRIPTURE_ORDINAL + " IS NULL;";
+      List<Scripture> scriptures = new ArrayList<Scripture>();
+      int filled = 0;
+      try (Connection migration = ConnectionFactory.getInstance().openConnection();) {
+          try (PreparedStatement pstmt = migration.prepareStatement(sql);
+               ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  scriptures.add(getScriptureFromResultSet(resultSet));
+              }
+          }
+          try (PreparedStatement update = migration.prepareStatement(updateSql);) {
+              for (Scripture scripture : scriptures) {
+                  int ordinal = getOrdinal(scripture);
+                  if (ordinal == 0) {
+                      continue;
+                  }
+                  update.setInt(1, ordinal);
+                  update.setInt(2, scripture.getScriptureId());
+                  update.addBatch();
+                  filled++;
+              }
+              if (filled > 0) {
+                  update.executeBatch();
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": migrateOrdinals() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      if (filled < scriptures.size()) {
+          logger.warn(this.getClass().getName() + ": migrateOrdinals() - REASON-> " +
+              (scriptures.size() - filled) + " scripture rows have an unknown book, chapter or verse");
+      }
+      return filled;
+  }
+
+   private synchronized void loadReferences() throws DaoException {
+       if (references.isLoaded() && ordinals.isLoaded()) {
+           return;
+       }
+       long stamp = references.stamp();
+       long ordinalStamp = ordinals.stamp();
+       List<Scripture> scriptures = list();
+       int[] scriptureOrdinals = new int[scriptures.size()];
+       int[] ids = new int[scriptures.size()];
+       int count = 0;
+       for (Scripture scripture : scriptures) {
+           int ordinal = getOrdinal(scripture);
+           if (ordinal != 0) {
+               scriptureOrdinals[count] = ordinal;
+               ids[count++] = scripture.getScriptureId();
+           }
+       }
+       if (count < scriptures.size()) {
+           logger.warn(this.getClass().getName() + ": loadReferences() - REASON-> " +
+               (scriptures.size() - count) + " scripture rows have an unknown book, chapter or verse");
+       }
+       references.load(scriptureOrdinals, ids, count, stamp);
+       ordinals.load(ids, scriptureOrdinals, count, ordinalStamp);
+   }
+
+   private void setScriptureParameters(PreparedStatement pstmt, Scripture scripture) throws SQLException {
+       pstmt.setString(1,scripture.getTestament());
+       pstmt.setString(2,scripture.getBook());
+       pstmt.setString(3,scripture.getAuthor());
+       pstmt.setInt(4,scripture.getChapter());
+       pstmt.setInt(5,scripture.getVerse());
+       pstmt.setBoolean(6,scripture.isProphecy());
+       int ordinal = getOrdinal(scripture);
+       if (ordinal == 0) {
+           pstmt.setNull(7, Types.INTEGER);
+       } else {
+           pstmt.setInt(7, ordinal);
+       }
+   }
+
+   // rejects a verse of a recognized book that the versification does not have, before MySQL is asked
+   private void validate(Scripture scripture, String method) throws DaoException {
+       int book = Books.ordinal(scripture.getBook());
+       if (book != 0 && !versification.contains(book, scripture.getChapter(), scripture.getVerse())) {
+           String errorMessage = this.getClass().getName() + ": " + method + "() - REASON-> " +
+               Books.name(book) + " has no verse " + scripture.getChapter() + ":" + scripture.getVerse();
+           logger.error(errorMessage);
+           throw new DaoException(new IllegalArgumentException(errorMessage), errorMessage);
+       }
+   }
+
+   // the canonical ordinal of the verse, or 0 if its book, chapter or verse cannot be packed
+   private static int getOrdinal(Scripture scripture) {
+       int book = Books.ordinal(scripture.getBook());
+       if (book == 0 || scripture.getChapter() < 1 || scripture.getChapter() > VerseReference.MAX_NUMBER
+               || scripture.getVerse() < 1 || scripture.getVerse() > VerseReference.MAX_NUMBER) {
+           return 0;
+       }
+       return VerseReference.ordinal(book, scripture.getChapter(), scripture.getVerse());
+   }
+
    private Scripture getScriptureFromResultSet(ResultSet resultSet) throws SQLException {
        Scripture scripture = new Scripture();
        
@@ -1,5 +1,6 @@
 package com.emptytomb.dbmanager.dao;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -10,6 +11,12 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.EntityCache;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.RowLoader;
+import com.emptytomb.dbmanager.cache.SizeEstimator;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.domain.Translation;
 import com.emptytomb.dbmanager.utility.ConnectionFactory;
@@ -29,15 +36,40 @@ public class TranslationDao implements BaseDao<Translation> {
   private Logger logger = LoggerFactory.getLogger(TranslationDao.class);
   private static TranslationDao instance = null;
   private Connection connection = null;
+  private ChangeLogDao changeLog = null;
+  private EntityCache<Translation> cache = null;
   
   private static final String TRANSLATION_TABLE = "translation";
   private static final String TRANSLATION_ID = "id";
   private static final String TRANSLATION_NAME = "name";
   private static final String TRANSLATION_HISTORY = "history";
   private static final String TRANSLATION_VERSION = "version";  // niv
+  private static final String TRANSLATION_INSERT = "INSERT INTO " + TRANSLATION_TABLE + "(" +
+               TRANSLATION_NAME + "," +
+               TRANSLATION_HISTORY + "," +
+               TRANSLATION_VERSION + ") " + "VALUES" +
+               "(?,?,?)";
+  private static final SizeEstimator<Translation> TRANSLATION_SIZE = new SizeEstimator<Translation>() {
+      @Override
+      public long estimate(Translation translation) {
+          return 32 +
+                 MemoryGovernor.sizeOf(translation.getName()) +
+                 MemoryGovernor.sizeOf(translation.getHistory()) +
+                 MemoryGovernor.sizeOf(translation.getVersion());
+      }
+  };
+
        
    private TranslationDao() {
 	connection = ConnectionFactory.getInstance().getConnection();
+	changeLog = ChangeLogDao.getInstance();
+	cache = CacheManager.getInstance().register(new EntityCache<Translation>(TRANSLATION_TABLE, TRANSLATION_SIZE));
+	HotKeys.getInstance().registerLoader(TRANSLATION_TABLE, new RowLoader() {
+		@Override
+		public void load(int id) throws DaoException {
+			get(id);
+		}
+	});
   }
   
   /**
@@ -68,7 +100,11 @@ public class TranslationDao implements BaseDao<Translation> {
    */
   @Override
   public Translation get(int id) throws DaoException {
-      Translation translation = null;
+      Translation translation = cache.get(id);
+      if (translation != null) {
+          return translation;
+      }
+      long stamp = cache.stamp();
       String sql = "SELECT * FROM " + TRANSLATION_TABLE + " WHERE " + TRANSLATION_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
      	  pstmt.setInt(1, id);
@@ -83,9 +119,39 @@ public class TranslationDao implements BaseDao<Translation> {
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
       }
+      if (translation != null) {
+          cache.put(id, translation, stamp);
+      }
       return translation;
   }
 
+  /**
+   * This method returns the id of the translation record with the specified version.
+   * 
+   * @param   version  the version of the translation, e.g. KJV, in any case
+   * @return           the unique id of the translation, or 0 if there is none
+   * 
+   * @throws      DaoException if a SQL Exception was encountered during processing
+   */
+  public int getIdByVersion(String version) throws DaoException {
+      int id = 0;
+      String sql = "SELECT " + TRANSLATION_ID + " FROM " + TRANSLATION_TABLE + " WHERE " +
+                   TRANSLATION_VERSION + " = ? ORDER BY " + TRANSLATION_ID + " LIMIT 1;";
+      try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          pstmt.setString(1, version);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              if (resultSet.next()) {
+                  id = resultSet.getInt(1);
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": getIdByVersion() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+      return id;
+  }
+
   /**
    * This method reads all the translation records from the translation table
    * stored in MySQL and returns a list of Translation objects.
@@ -115,6 +181,38 @@ public class TranslationDao implements BaseDao<Translation> {
        }
       return translations;
    }
+
+  /**
+   * This method reads all the translation records from the translation table stored in
+   * MySQL and hands them to the specified handler one at a time, in id order.
+   * 
+   * <p><b>Note:</b> The rows are streamed over a connection of their own instead of
+   * being read into a list, so an export of any size neither holds the table in
+   * memory nor ties up the shared connection.</p>
+   * 
+   * @param    handler  the RowHandler that receives each Translation object
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing
+   * @throws   IOException if the handler failed to write a Translation object
+   */
+  @Override
+  public void export(RowHandler<Translation> handler) throws DaoException, IOException {
+      String sql = "SELECT * FROM " + TRANSLATION_TABLE + " ORDER BY " + TRANSLATION_ID + ";";
+      try (Connection exportConnection = ConnectionFactory.getInstance().openConnection();
+           PreparedStatement pstmt = exportConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+          // Connector/J streams a forward-only result row by row only at this fetch size
+          pstmt.setFetchSize(Integer.MIN_VALUE);
+          try (ResultSet resultSet = pstmt.executeQuery();) {
+              while (resultSet.next()) {
+                  handler.handle(getTranslationFromResultSet(resultSet));
+              }
+          }
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": export() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      }
+  }
   
   /**
    * This method adds the specified Translation record to the translation table
@@ -133,22 +231,17 @@ public class TranslationDao implements BaseDao<Translation> {
   @Override
   public int add(Translation translation) throws DaoException {
       int autoIncKey = -1;
-	  String sql = "INSERT INTO " + TRANSLATION_TABLE + "(" +
-	               TRANSLATION_NAME + "," + 
-	               TRANSLATION_HISTORY + "," + 
-	               TRANSLATION_VERSION + ") " +  "VALUES" +  
-	               "(?,?,?)";
-  	               
-       try (PreparedStatement pstmt = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);) {
-          pstmt.setString(1,translation.getName()); 
-          pstmt.setString(2,translation.getHistory());   
-          pstmt.setString(3,translation.getVersion());  
+
+       try (PreparedStatement pstmt = connection.prepareStatement(TRANSLATION_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(TRANSLATION_TABLE);
+          setTranslationParameters(pstmt, translation);
           pstmt.executeUpdate();
           
           // Get the auto-incremented key
           ResultSet rs = pstmt.getGeneratedKeys();
           if (rs.next()) {
               autoIncKey = rs.getInt(1);
+              changeLog.recordWrite(TRANSLATION_TABLE, autoIncKey);
           } else {
           	  String errorMessage = this.getClass().getName() + ": addTranslation() - REASON-> " +
         	      "error obtaining auto incremented key";
@@ -160,10 +253,60 @@ public class TranslationDao implements BaseDao<Translation> {
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+       } finally {
+           changeLog.endWrite();
        }
        return autoIncKey;
   }
   
+  /**
+   * This method adds the specified Translation records to the translation table stored in
+   * MySQL with one JDBC batch, in a single transaction.
+   * 
+   * @param    translations  the Translation objects
+   * @return                the unique ids of the Translations added, in order
+   * 
+   * @throws   DaoException if a SQL Exception was encountered during processing, in
+   *           which case none of the records were added
+   */
+  @Override
+  public int[] addAll(List<Translation> translations) throws DaoException {
+      int[] autoIncKeys = new int[translations.size()];
+      if (autoIncKeys.length == 0) {
+          return autoIncKeys;
+      }
+      try (PreparedStatement pstmt = connection.prepareStatement(TRANSLATION_INSERT, PreparedStatement.RETURN_GENERATED_KEYS);) {
+          changeLog.beginWrite(TRANSLATION_TABLE);
+          for (Translation translation : translations) {
+              setTranslationParameters(pstmt, translation);
+              pstmt.addBatch();
+          }
+          pstmt.executeBatch();
+          
+          // Get the auto-incremented keys, in the order the rows were added
+          int count = 0;
+          try (ResultSet rs = pstmt.getGeneratedKeys();) {
+              while (count < autoIncKeys.length && rs.next()) {
+                  autoIncKeys[count++] = rs.getInt(1);
+              }
+          }
+          if (count != autoIncKeys.length) {
+              String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " +
+                  "error obtaining auto incremented keys";
+              logger.error(errorMessage);
+              throw new DaoException(new Exception(), errorMessage);
+          }
+          changeLog.recordWrites(TRANSLATION_TABLE, autoIncKeys);
+      } catch (SQLException e) {
+          String errorMessage = this.getClass().getName() + ": addAll() - REASON-> " + e.getMessage();
+          logger.error(errorMessage);
+          throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
+      }
+      return autoIncKeys;
+  }
+  
   /**
    * This method updates the specified Translation record in the translation table
    * stored in MySQL.
@@ -181,16 +324,20 @@ public class TranslationDao implements BaseDao<Translation> {
                    TRANSLATION_ID + "=?;";
     	               
        try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(TRANSLATION_TABLE);
           pstmt.setString(1,translation.getName()); 
           pstmt.setString(2,translation.getHistory());   
           pstmt.setString(3,translation.getVersion());  
           pstmt.setInt(4,translation.getTranslationId());    
           pstmt.executeUpdate();
+          changeLog.recordWrite(TRANSLATION_TABLE, translation.getTranslationId());
       } catch (SQLException e) {
     	   String errorMessage = this.getClass().getName() + ": updateTranslation() - REASON-> " + e.getMessage();
    	       logger.error(errorMessage);
 	       e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
     }
   
@@ -212,16 +359,26 @@ public class TranslationDao implements BaseDao<Translation> {
    public void delete(int id) throws DaoException {
       String sql = "DELETE fROM " + TRANSLATION_TABLE + " WHERE " + TRANSLATION_ID + " = ?;";
       try (PreparedStatement pstmt = connection.prepareStatement(sql);) {
+          changeLog.beginWrite(TRANSLATION_TABLE);
      	  pstmt.setInt(1, id);
       	  pstmt.execute();
+          changeLog.recordWrite(TRANSLATION_TABLE, id);
       } catch (SQLException e) {
           String errorMessage = this.getClass().getName() + ": deleteTranslation() - REASON-> " + e.getMessage();
   	      logger.error(errorMessage);
           e.printStackTrace();
           throw new DaoException(e, errorMessage);
+      } finally {
+          changeLog.endWrite();
       }
    }
   
+   private void setTranslationParameters(PreparedStatement pstmt, Translation translation) throws SQLException {
+       pstmt.setString(1,translation.getName());
+       pstmt.setString(2,translation.getHistory());
+       pstmt.setString(3,translation.getVersion());
+   }
+
    private Translation getTranslationFromResultSet(ResultSet resultSet) throws SQLException {
        Translation translation = new Translation();
        
@@ -0,0 +1,63 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The Answer class is a simple POJO containing the getter/setter methods
+* for the choice a quiz client picked for a question.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class Answer implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int questionId;
+  private int questionChoiceId;
+  private boolean correctAnswer;
+
+  public Answer() {
+  }
+
+  /**
+   * @return ID of the Question answered
+  */
+  public int getQuestionId() {
+	return questionId;
+  }
+
+  /**
+   * @param questionId ID of the Question answered to set
+  */
+  public void setQuestionId(int questionId) {
+	this.questionId = questionId;
+  }
+
+  /**
+   * @return ID of the Question Choice picked
+  */
+  public int getQuestionChoiceId() {
+	return questionChoiceId;
+  }
+
+  /**
+   * @param questionChoiceId ID of the Question Choice picked to set
+  */
+  public void setQuestionChoiceId(int questionChoiceId) {
+	this.questionChoiceId = questionChoiceId;
+  }
+
+  /**
+   * @return true if the Question Choice picked is a correct answer
+  */
+  public boolean isCorrectAnswer() {
+	return correctAnswer;
+  }
+
+  /**
+   * @param correctAnswer correctAnswer to set
+  */
+  public void setCorrectAnswer(boolean correctAnswer) {
+	this.correctAnswer = correctAnswer;
+  }
+}
@@ -0,0 +1,78 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The BookStructure class is a simple POJO containing the getter/setter methods
+* for the chapters and verses of one book.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class BookStructure implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int book;
+  private String name;
+  private int chapters;
+  private int[] verses;
+
+  public BookStructure() {
+  }
+
+  /**
+   * @return ordinal of the book, Genesis is 1 and Revelation 66
+  */
+  public int getBook() {
+	return book;
+  }
+
+  /**
+   * @param book ordinal of the book to set
+  */
+  public void setBook(int book) {
+	this.book = book;
+  }
+
+  /**
+   * @return canonical name of the book
+  */
+  public String getName() {
+	return name;
+  }
+
+  /**
+   * @param name canonical name of the book to set
+  */
+  public void setName(String name) {
+	this.name = name;
+  }
+
+  /**
+   * @return number of chapters in the book
+  */
+  public int getChapters() {
+	return chapters;
+  }
+
+  /**
+   * @param chapters number of chapters to set
+  */
+  public void setChapters(int chapters) {
+	this.chapters = chapters;
+  }
+
+  /**
+   * @return number of verses in each chapter, chapter 1 first
+  */
+  public int[] getVerses() {
+	return verses;
+  }
+
+  /**
+   * @param verses number of verses in each chapter to set
+  */
+  public void setVerses(int[] verses) {
+	this.verses = verses;
+  }
+}
@@ -0,0 +1,93 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The CacheUsage class is a simple POJO containing the getter/setter methods
+* for the memory used by one in-process cache.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CacheUsage implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private String name;
+  private String type;
+  private int entries;
+  private long bytes;
+  private long offHeapBytes;
+
+  public CacheUsage() {
+  }
+
+  /**
+   * @return name of the table held by the cache
+  */
+  public String getName() {
+	return name;
+  }
+
+  /**
+   * @param name name of the table to set
+  */
+  public void setName(String name) {
+	this.name = name;
+  }
+
+  /**
+   * @return simple class name of the cache
+  */
+  public String getType() {
+	return type;
+  }
+
+  /**
+   * @param type simple class name of the cache to set
+  */
+  public void setType(String type) {
+	this.type = type;
+  }
+
+  /**
+   * @return number of entries held by the cache
+  */
+  public int getEntries() {
+	return entries;
+  }
+
+  /**
+   * @param entries number of entries to set
+  */
+  public void setEntries(int entries) {
+	this.entries = entries;
+  }
+
+  /**
+   * @return estimated heap bytes used by the cache
+  */
+  public long getBytes() {
+	return bytes;
+  }
+
+  /**
+   * @param bytes estimated heap bytes to set
+  */
+  public void setBytes(long bytes) {
+	this.bytes = bytes;
+  }
+
+  /**
+   * @return off-heap bytes allocated by the cache
+  */
+  public long getOffHeapBytes() {
+	return offHeapBytes;
+  }
+
+  /**
+   * @param offHeapBytes off-heap bytes to set
+  */
+  public void setOffHeapBytes(long offHeapBytes) {
+	this.offHeapBytes = offHeapBytes;
+  }
+}
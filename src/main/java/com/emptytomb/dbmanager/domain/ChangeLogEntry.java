@@ -0,0 +1,64 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The ChangeLogEntry class is a simple POJO containing the getter/setter methods
+* for one row of the change log: the table and row id that a DAO write touched,
+* and the monotonically increasing version assigned to that write.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ChangeLogEntry implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private long version;
+  private String tableName;
+  private int rowId;
+
+  public ChangeLogEntry() {
+  }
+
+  /**
+   * @return version assigned to the write
+  */
+  public long getVersion() {
+	return version;
+  }
+
+  /**
+   * @param version version value to set
+  */
+  public void setVersion(long version) {
+	this.version = version;
+  }
+
+  /**
+   * @return name of the table that was written
+  */
+  public String getTableName() {
+	return tableName;
+  }
+
+  /**
+   * @param tableName name of the table to set
+  */
+  public void setTableName(String tableName) {
+	this.tableName = tableName;
+  }
+
+  /**
+   * @return id of the row that was written
+  */
+  public int getRowId() {
+	return rowId;
+  }
+
+  /**
+   * @param rowId id of the row to set
+  */
+  public void setRowId(int rowId) {
+	this.rowId = rowId;
+  }
+}
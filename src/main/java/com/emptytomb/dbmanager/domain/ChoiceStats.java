@@ -0,0 +1,93 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The ChoiceStats class is a simple POJO containing the getter/setter methods
+* for how often one choice of a question has been picked.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ChoiceStats implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int questionChoiceId;
+  private String text;
+  private boolean correctAnswer;
+  private long picks;
+  private double percent;
+
+  public ChoiceStats() {
+  }
+
+  /**
+   * @return ID of the Question Choice
+  */
+  public int getQuestionChoiceId() {
+	return questionChoiceId;
+  }
+
+  /**
+   * @param questionChoiceId ID of the Question Choice to set
+  */
+  public void setQuestionChoiceId(int questionChoiceId) {
+	this.questionChoiceId = questionChoiceId;
+  }
+
+  /**
+   * @return text of the Question Choice
+  */
+  public String getText() {
+	return text;
+  }
+
+  /**
+   * @param text text to set
+  */
+  public void setText(String text) {
+	this.text = text;
+  }
+
+  /**
+   * @return true if the Question Choice is a correct answer
+  */
+  public boolean isCorrectAnswer() {
+	return correctAnswer;
+  }
+
+  /**
+   * @param correctAnswer correctAnswer to set
+  */
+  public void setCorrectAnswer(boolean correctAnswer) {
+	this.correctAnswer = correctAnswer;
+  }
+
+  /**
+   * @return number of times the Question Choice was picked
+  */
+  public long getPicks() {
+	return picks;
+  }
+
+  /**
+   * @param picks number of picks to set
+  */
+  public void setPicks(long picks) {
+	this.picks = picks;
+  }
+
+  /**
+   * @return percent of the answers to the Question that picked the Question Choice
+  */
+  public double getPercent() {
+	return percent;
+  }
+
+  /**
+   * @param percent percent of the answers to set
+  */
+  public void setPercent(double percent) {
+	this.percent = percent;
+  }
+}
@@ -0,0 +1,63 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The CommentaryDocument class is a simple POJO containing the getter/setter methods
+* for a commentary together with the personality who wrote it and their organization.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CommentaryDocument implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private Commentary commentary;
+  private Personality personality;
+  private Organization organization;
+
+  public CommentaryDocument() {
+  }
+
+  /**
+   * @return the commentary
+  */
+  public Commentary getCommentary() {
+	return commentary;
+  }
+
+  /**
+   * @param commentary commentary to set
+  */
+  public void setCommentary(Commentary commentary) {
+	this.commentary = commentary;
+  }
+
+  /**
+   * @return personality who wrote the commentary, or null if there is none
+  */
+  public Personality getPersonality() {
+	return personality;
+  }
+
+  /**
+   * @param personality personality to set
+  */
+  public void setPersonality(Personality personality) {
+	this.personality = personality;
+  }
+
+  /**
+   * @return organization of the personality, or null if there is none
+  */
+  public Organization getOrganization() {
+	return organization;
+  }
+
+  /**
+   * @param organization organization to set
+  */
+  public void setOrganization(Organization organization) {
+	this.organization = organization;
+  }
+}
@@ -0,0 +1,46 @@
+package com.emptytomb.dbmanager.domain;
+
+/**
+* The CommentaryHit class is a simple POJO containing the getter/setter methods
+* for one commentary found by a full-text search.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CommentaryHit extends SearchHit {
+  private static final long serialVersionUID = 1L;
+  private int personalityId;
+  private int passageId;
+
+  public CommentaryHit() {
+  }
+
+  /**
+   * @return personality id of the commentary
+  */
+  public int getPersonalityId() {
+	return personalityId;
+  }
+
+  /**
+   * @param personalityId personality id to set
+  */
+  public void setPersonalityId(int personalityId) {
+	this.personalityId = personalityId;
+  }
+
+  /**
+   * @return passage id of the commentary
+  */
+  public int getPassageId() {
+	return passageId;
+  }
+
+  /**
+   * @param passageId passage id to set
+  */
+  public void setPassageId(int passageId) {
+	this.passageId = passageId;
+  }
+}
@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The CommentaryPage class is a simple POJO containing the getter/setter methods
+* for one page of a list of commentaries in id order.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CommentaryPage implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private List<Commentary> commentaries = new ArrayList<Commentary>();
+  private int next;
+
+  public CommentaryPage() {
+  }
+
+  /**
+   * @return commentaries on this page, in id order
+  */
+  public List<Commentary> getCommentaries() {
+	return commentaries;
+  }
+
+  /**
+   * @param commentaries commentaries on this page to set
+  */
+  public void setCommentaries(List<Commentary> commentaries) {
+	this.commentaries = commentaries;
+  }
+
+  /**
+   * @return id to pass as after for the next page, or 0 if this is the last page
+  */
+  public int getNext() {
+	return next;
+  }
+
+  /**
+   * @param next id after which the next page starts to set
+  */
+  public void setNext(int next) {
+	this.next = next;
+  }
+}
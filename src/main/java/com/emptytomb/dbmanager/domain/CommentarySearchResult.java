@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The CommentarySearchResult class is a simple POJO containing the getter/setter methods
+* for one page of the commentaries found by a full-text search, with the number of
+* commentaries found by personality and by organization.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CommentarySearchResult extends SearchResult {
+  private static final long serialVersionUID = 1L;
+  private List<FacetCount> personalities = new ArrayList<FacetCount>();
+  private List<FacetCount> organizations = new ArrayList<FacetCount>();
+
+  public CommentarySearchResult() {
+  }
+
+  /**
+   * @return commentaries found by personality, on every page, highest count first
+  */
+  public List<FacetCount> getPersonalities() {
+	return personalities;
+  }
+
+  /**
+   * @param personalities personality counts to set
+  */
+  public void setPersonalities(List<FacetCount> personalities) {
+	this.personalities = personalities;
+  }
+
+  /**
+   * @return commentaries found by organization, on every page, highest count first
+  */
+  public List<FacetCount> getOrganizations() {
+	return organizations;
+  }
+
+  /**
+   * @param organizations organization counts to set
+  */
+  public void setOrganizations(List<FacetCount> organizations) {
+	this.organizations = organizations;
+  }
+}
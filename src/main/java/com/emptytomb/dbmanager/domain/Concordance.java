@@ -0,0 +1,95 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The Concordance class is a simple POJO containing the getter/setter methods
+* for every occurrence of one word in one translation, counted by book and chapter.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class Concordance implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private String word;
+  private String translation;
+  private int occurrences;
+  private List<ConcordanceBook> books = new ArrayList<ConcordanceBook>();
+  private List<ConcordanceVerse> verses = new ArrayList<ConcordanceVerse>();
+
+  public Concordance() {
+  }
+
+  /**
+   * @return word looked up, lower case
+  */
+  public String getWord() {
+	return word;
+  }
+
+  /**
+   * @param word word to set
+  */
+  public void setWord(String word) {
+	this.word = word;
+  }
+
+  /**
+   * @return version of the translation, e.g. KJV
+  */
+  public String getTranslation() {
+	return translation;
+  }
+
+  /**
+   * @param translation version of the translation to set
+  */
+  public void setTranslation(String translation) {
+	this.translation = translation;
+  }
+
+  /**
+   * @return number of times the word occurs in the translation
+  */
+  public int getOccurrences() {
+	return occurrences;
+  }
+
+  /**
+   * @param occurrences number of occurrences to set
+  */
+  public void setOccurrences(int occurrences) {
+	this.occurrences = occurrences;
+  }
+
+  /**
+   * @return occurrences by book, in canonical order
+  */
+  public List<ConcordanceBook> getBooks() {
+	return books;
+  }
+
+  /**
+   * @param books occurrences by book to set
+  */
+  public void setBooks(List<ConcordanceBook> books) {
+	this.books = books;
+  }
+
+  /**
+   * @return verses the word occurs in, in canonical order
+  */
+  public List<ConcordanceVerse> getVerses() {
+	return verses;
+  }
+
+  /**
+   * @param verses verses to set
+  */
+  public void setVerses(List<ConcordanceVerse> verses) {
+	this.verses = verses;
+  }
+}
@@ -0,0 +1,80 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The ConcordanceBook class is a simple POJO containing the getter/setter methods
+* for the occurrences of a word in one book, counted by chapter.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ConcordanceBook implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int book;
+  private String name;
+  private int occurrences;
+  private List<ConcordanceChapter> chapters = new ArrayList<ConcordanceChapter>();
+
+  public ConcordanceBook() {
+  }
+
+  /**
+   * @return canonical position of the book, Genesis is 1
+  */
+  public int getBook() {
+	return book;
+  }
+
+  /**
+   * @param book canonical position to set
+  */
+  public void setBook(int book) {
+	this.book = book;
+  }
+
+  /**
+   * @return canonical name of the book
+  */
+  public String getName() {
+	return name;
+  }
+
+  /**
+   * @param name name to set
+  */
+  public void setName(String name) {
+	this.name = name;
+  }
+
+  /**
+   * @return number of times the word occurs in the book
+  */
+  public int getOccurrences() {
+	return occurrences;
+  }
+
+  /**
+   * @param occurrences number of occurrences to set
+  */
+  public void setOccurrences(int occurrences) {
+	this.occurrences = occurrences;
+  }
+
+  /**
+   * @return occurrences by chapter, in order; chapters without the word are left out
+  */
+  public List<ConcordanceChapter> getChapters() {
+	return chapters;
+  }
+
+  /**
+   * @param chapters occurrences by chapter to set
+  */
+  public void setChapters(List<ConcordanceChapter> chapters) {
+	this.chapters = chapters;
+  }
+}
@@ -0,0 +1,48 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The ConcordanceChapter class is a simple POJO containing the getter/setter methods
+* for the occurrences of a word in one chapter.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ConcordanceChapter implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int chapter;
+  private int occurrences;
+
+  public ConcordanceChapter() {
+  }
+
+  /**
+   * @return chapter number
+  */
+  public int getChapter() {
+	return chapter;
+  }
+
+  /**
+   * @param chapter chapter number to set
+  */
+  public void setChapter(int chapter) {
+	this.chapter = chapter;
+  }
+
+  /**
+   * @return number of times the word occurs in the chapter
+  */
+  public int getOccurrences() {
+	return occurrences;
+  }
+
+  /**
+   * @param occurrences number of occurrences to set
+  */
+  public void setOccurrences(int occurrences) {
+	this.occurrences = occurrences;
+  }
+}
@@ -0,0 +1,63 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The ConcordanceVerse class is a simple POJO containing the getter/setter methods
+* for the occurrences of a word in one verse.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ConcordanceVerse implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int scriptureId;
+  private String reference;
+  private int occurrences;
+
+  public ConcordanceVerse() {
+  }
+
+  /**
+   * @return scripture id of the verse
+  */
+  public int getScriptureId() {
+	return scriptureId;
+  }
+
+  /**
+   * @param scriptureId scripture id to set
+  */
+  public void setScriptureId(int scriptureId) {
+	this.scriptureId = scriptureId;
+  }
+
+  /**
+   * @return reference of the verse, e.g. John 3:16, or null if its book is not recognized
+  */
+  public String getReference() {
+	return reference;
+  }
+
+  /**
+   * @param reference reference to set
+  */
+  public void setReference(String reference) {
+	this.reference = reference;
+  }
+
+  /**
+   * @return number of times the word occurs in the verse
+  */
+  public int getOccurrences() {
+	return occurrences;
+  }
+
+  /**
+   * @param occurrences number of occurrences to set
+  */
+  public void setOccurrences(int occurrences) {
+	this.occurrences = occurrences;
+  }
+}
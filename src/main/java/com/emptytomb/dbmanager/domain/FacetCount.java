@@ -0,0 +1,63 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The FacetCount class is a simple POJO containing the getter/setter methods
+* for the number of documents found by a search that share one value, e.g. one personality.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class FacetCount implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int id;
+  private String name;
+  private int count;
+
+  public FacetCount() {
+  }
+
+  /**
+   * @return unique id of the value
+  */
+  public int getId() {
+	return id;
+  }
+
+  /**
+   * @param id unique id of the value to set
+  */
+  public void setId(int id) {
+	this.id = id;
+  }
+
+  /**
+   * @return name of the value
+  */
+  public String getName() {
+	return name;
+  }
+
+  /**
+   * @param name name of the value to set
+  */
+  public void setName(String name) {
+	this.name = name;
+  }
+
+  /**
+   * @return number of documents found with the value
+  */
+  public int getCount() {
+	return count;
+  }
+
+  /**
+   * @param count number of documents to set
+  */
+  public void setCount(int count) {
+	this.count = count;
+  }
+}
@@ -0,0 +1,48 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The HotKey class is a simple POJO containing the getter/setter methods
+* for one frequently requested id and its estimated request count.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class HotKey implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int id;
+  private long count;
+
+  public HotKey() {
+  }
+
+  /**
+   * @return unique id of the requested row
+  */
+  public int getId() {
+	return id;
+  }
+
+  /**
+   * @param id unique id of the requested row to set
+  */
+  public void setId(int id) {
+	this.id = id;
+  }
+
+  /**
+   * @return estimated number of requests, halved at every decay
+  */
+  public long getCount() {
+	return count;
+  }
+
+  /**
+   * @param count estimated number of requests to set
+  */
+  public void setCount(long count) {
+	this.count = count;
+  }
+}
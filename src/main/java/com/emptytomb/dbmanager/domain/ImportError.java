@@ -0,0 +1,48 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The ImportError class is a simple POJO containing the getter/setter methods
+* for one line of a bulk import that could not be added.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ImportError implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int line;
+  private String reason;
+
+  public ImportError() {
+  }
+
+  /**
+   * @return line number of the rejected record, counting from 1
+  */
+  public int getLine() {
+	return line;
+  }
+
+  /**
+   * @param line line number of the rejected record to set
+  */
+  public void setLine(int line) {
+	this.line = line;
+  }
+
+  /**
+   * @return description of why the record was rejected
+  */
+  public String getReason() {
+	return reason;
+  }
+
+  /**
+   * @param reason description of why the record was rejected to set
+  */
+  public void setReason(String reason) {
+	this.reason = reason;
+  }
+}
@@ -0,0 +1,65 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The ImportResult class is a simple POJO containing the getter/setter methods
+* for the outcome of a bulk import.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ImportResult implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int imported;
+  private int failed;
+  private List<ImportError> errors = new ArrayList<ImportError>();
+
+  public ImportResult() {
+  }
+
+  /**
+   * @return number of records added
+  */
+  public int getImported() {
+	return imported;
+  }
+
+  /**
+   * @param imported number of records added to set
+  */
+  public void setImported(int imported) {
+	this.imported = imported;
+  }
+
+  /**
+   * @return number of records rejected
+  */
+  public int getFailed() {
+	return failed;
+  }
+
+  /**
+   * @param failed number of records rejected to set
+  */
+  public void setFailed(int failed) {
+	this.failed = failed;
+  }
+
+  /**
+   * @return the rejected records, possibly fewer than failed if there were many
+  */
+  public List<ImportError> getErrors() {
+	return errors;
+  }
+
+  /**
+   * @param errors the rejected records to set
+  */
+  public void setErrors(List<ImportError> errors) {
+	this.errors = errors;
+  }
+}
@@ -0,0 +1,78 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The ParallelPassage class is a simple POJO containing the getter/setter methods
+* for the text of one verse in one translation, side by side with the other translations.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ParallelPassage implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int passageId;
+  private int translationId;
+  private String version;
+  private String text;
+
+  public ParallelPassage() {
+  }
+
+  /**
+   * @return unique id of the passage
+  */
+  public int getPassageId() {
+	return passageId;
+  }
+
+  /**
+   * @param passageId unique id of the passage to set
+  */
+  public void setPassageId(int passageId) {
+	this.passageId = passageId;
+  }
+
+  /**
+   * @return translation id of the passage
+  */
+  public int getTranslationId() {
+	return translationId;
+  }
+
+  /**
+   * @param translationId translation id to set
+  */
+  public void setTranslationId(int translationId) {
+	this.translationId = translationId;
+  }
+
+  /**
+   * @return version of the translation, e.g. KJV
+  */
+  public String getVersion() {
+	return version;
+  }
+
+  /**
+   * @param version version of the translation to set
+  */
+  public void setVersion(String version) {
+	this.version = version;
+  }
+
+  /**
+   * @return text of the passage
+  */
+  public String getText() {
+	return text;
+  }
+
+  /**
+   * @param text text to set
+  */
+  public void setText(String text) {
+	this.text = text;
+  }
+}
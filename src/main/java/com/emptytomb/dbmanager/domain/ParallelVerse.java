@@ -0,0 +1,65 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The ParallelVerse class is a simple POJO containing the getter/setter methods
+* for one verse and its text in every translation.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ParallelVerse implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int scriptureId;
+  private String reference;
+  private List<ParallelPassage> passages = new ArrayList<ParallelPassage>();
+
+  public ParallelVerse() {
+  }
+
+  /**
+   * @return scripture id of the verse
+  */
+  public int getScriptureId() {
+	return scriptureId;
+  }
+
+  /**
+   * @param scriptureId scripture id to set
+  */
+  public void setScriptureId(int scriptureId) {
+	this.scriptureId = scriptureId;
+  }
+
+  /**
+   * @return reference of the verse, e.g. John 3:16, or null if its book is not recognized
+  */
+  public String getReference() {
+	return reference;
+  }
+
+  /**
+   * @param reference reference to set
+  */
+  public void setReference(String reference) {
+	this.reference = reference;
+  }
+
+  /**
+   * @return text of the verse in each translation, in translation id order
+  */
+  public List<ParallelPassage> getPassages() {
+	return passages;
+  }
+
+  /**
+   * @param passages texts to set
+  */
+  public void setPassages(List<ParallelPassage> passages) {
+	this.passages = passages;
+  }
+}
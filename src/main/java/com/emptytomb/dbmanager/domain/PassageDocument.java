@@ -0,0 +1,95 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The PassageDocument class is a simple POJO containing the getter/setter methods
+* for a passage with its verse, its translation and every commentary on it.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class PassageDocument implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private Passage passage;
+  private String reference;
+  private Scripture scripture;
+  private Translation translation;
+  private List<CommentaryDocument> commentaries = new ArrayList<CommentaryDocument>();
+
+  public PassageDocument() {
+  }
+
+  /**
+   * @return the passage
+  */
+  public Passage getPassage() {
+	return passage;
+  }
+
+  /**
+   * @param passage passage to set
+  */
+  public void setPassage(Passage passage) {
+	this.passage = passage;
+  }
+
+  /**
+   * @return reference of the verse, e.g. John 3:16, or null if its book is not recognized
+  */
+  public String getReference() {
+	return reference;
+  }
+
+  /**
+   * @param reference reference to set
+  */
+  public void setReference(String reference) {
+	this.reference = reference;
+  }
+
+  /**
+   * @return scripture of the passage, or null if there is none
+  */
+  public Scripture getScripture() {
+	return scripture;
+  }
+
+  /**
+   * @param scripture scripture to set
+  */
+  public void setScripture(Scripture scripture) {
+	this.scripture = scripture;
+  }
+
+  /**
+   * @return translation of the passage, or null if there is none
+  */
+  public Translation getTranslation() {
+	return translation;
+  }
+
+  /**
+   * @param translation translation to set
+  */
+  public void setTranslation(Translation translation) {
+	this.translation = translation;
+  }
+
+  /**
+   * @return commentaries on the passage, in id order
+  */
+  public List<CommentaryDocument> getCommentaries() {
+	return commentaries;
+  }
+
+  /**
+   * @param commentaries commentaries to set
+  */
+  public void setCommentaries(List<CommentaryDocument> commentaries) {
+	this.commentaries = commentaries;
+  }
+}
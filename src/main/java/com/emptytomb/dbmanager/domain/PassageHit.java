@@ -0,0 +1,46 @@
+package com.emptytomb.dbmanager.domain;
+
+/**
+* The PassageHit class is a simple POJO containing the getter/setter methods
+* for one passage found by a full-text search.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class PassageHit extends SearchHit {
+  private static final long serialVersionUID = 1L;
+  private int translationId;
+  private int scriptureId;
+
+  public PassageHit() {
+  }
+
+  /**
+   * @return translation id of the passage
+  */
+  public int getTranslationId() {
+	return translationId;
+  }
+
+  /**
+   * @param translationId translation id to set
+  */
+  public void setTranslationId(int translationId) {
+	this.translationId = translationId;
+  }
+
+  /**
+   * @return scripture id of the passage
+  */
+  public int getScriptureId() {
+	return scriptureId;
+  }
+
+  /**
+   * @param scriptureId scripture id to set
+  */
+  public void setScriptureId(int scriptureId) {
+	this.scriptureId = scriptureId;
+  }
+}
@@ -6,6 +6,9 @@ import java.io.Serializable;
 * The Personality class is a simple POJO containing the getter/setter methods
 * for the Personality domain model.
 * 
+* <p><b>Note:</b> The picture is not part of the model; it is read and written on its
+* own at /personality/{id}/picture.</p>
+* 
 * @author  Jim Zombek
 * @version 1.0
 * @since   2016-05-31
@@ -17,7 +20,6 @@ public class Personality implements Serializable {
   private String name; 
   private String title;
   private String bio;
-  private byte[] picture;
  
   /**
    * Constructs a Personality instance.
@@ -94,18 +96,4 @@ public class Personality implements Serializable {
   public void setBio(String bio) {
 	this.bio = bio;
   }
-
-  /**
-   * @return picture value associated with Personality
-  */
-  public byte[] getPicture() {
-	return picture;
-  }
-
-  /**
-   * @param picture picture value to set
-  */
-  public void setPicture(byte[] picture) {
-	this.picture = picture;
-  }
 }
\ No newline at end of file
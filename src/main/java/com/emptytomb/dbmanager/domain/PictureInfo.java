@@ -0,0 +1,63 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The PictureInfo class is a simple POJO containing the getter/setter methods
+* for what is known about a stored picture without reading its bytes.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class PictureInfo implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private long length;
+  private String contentType;
+  private String hash;
+
+  public PictureInfo() {
+  }
+
+  /**
+   * @return size of the picture in bytes
+  */
+  public long getLength() {
+	return length;
+  }
+
+  /**
+   * @param length size of the picture in bytes to set
+  */
+  public void setLength(long length) {
+	this.length = length;
+  }
+
+  /**
+   * @return media type of the picture, detected from its first bytes
+  */
+  public String getContentType() {
+	return contentType;
+  }
+
+  /**
+   * @param contentType media type of the picture to set
+  */
+  public void setContentType(String contentType) {
+	this.contentType = contentType;
+  }
+
+  /**
+   * @return hex digest of the picture bytes, which changes whenever they do
+  */
+  public String getHash() {
+	return hash;
+  }
+
+  /**
+   * @param hash hex digest of the picture bytes to set
+  */
+  public void setHash(String hash) {
+	this.hash = hash;
+  }
+}
@@ -13,6 +13,7 @@ import java.io.Serializable;
 public class QuestionChoice implements Serializable {
   private static final long serialVersionUID = 1L;
   private int questionChoiceId; 
+  private int questionId;
   private String text;
   private boolean correctAnswer;
   
@@ -34,6 +35,20 @@ public class QuestionChoice implements Serializable {
 	this.questionChoiceId = questionChoiceId;
   }
      
+  /**
+   * @return ID of the Question the Question Choice belongs to, or 0 if it belongs to none
+  */
+  public int getQuestionId() {
+	return questionId;
+  }
+
+  /**
+   * @param questionId ID of the Question to set
+  */
+  public void setQuestionId(int questionId) {
+	this.questionId = questionId;
+  }
+     
   /**
    * @return text associated with Question Choice
   */
@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The QuestionDocument class is a simple POJO containing the getter/setter methods
+* for a question together with its choices.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuestionDocument implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private Question question;
+  private List<QuestionChoice> choices = new ArrayList<QuestionChoice>();
+
+  public QuestionDocument() {
+  }
+
+  /**
+   * @return the question
+  */
+  public Question getQuestion() {
+	return question;
+  }
+
+  /**
+   * @param question question to set
+  */
+  public void setQuestion(Question question) {
+	this.question = question;
+  }
+
+  /**
+   * @return choices of the question, in id order
+  */
+  public List<QuestionChoice> getChoices() {
+	return choices;
+  }
+
+  /**
+   * @param choices choices of the question to set
+  */
+  public void setChoices(List<QuestionChoice> choices) {
+	this.choices = choices;
+  }
+}
@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The QuestionDocumentPage class is a simple POJO containing the getter/setter methods
+* for one page of a list of questions with their choices, in id order.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuestionDocumentPage implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private List<QuestionDocument> questions = new ArrayList<QuestionDocument>();
+  private int next;
+
+  public QuestionDocumentPage() {
+  }
+
+  /**
+   * @return questions on this page with their choices, in id order
+  */
+  public List<QuestionDocument> getQuestions() {
+	return questions;
+  }
+
+  /**
+   * @param questions questions on this page to set
+  */
+  public void setQuestions(List<QuestionDocument> questions) {
+	this.questions = questions;
+  }
+
+  /**
+   * @return id to pass as after for the next page, or 0 if this is the last page
+  */
+  public int getNext() {
+	return next;
+  }
+
+  /**
+   * @param next id after which the next page starts to set
+  */
+  public void setNext(int next) {
+	this.next = next;
+  }
+}
@@ -0,0 +1,141 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The QuestionFilterResult class is a simple POJO containing the getter/setter methods
+* for one page of the questions that match a filter, and the number of questions per value
+* of each attribute.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuestionFilterResult implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int total;
+  private List<Question> questions = new ArrayList<Question>();
+  private int next;
+  private List<FacetCount> categories = new ArrayList<FacetCount>();
+  private List<FacetCount> difficulties = new ArrayList<FacetCount>();
+  private List<FacetCount> testaments = new ArrayList<FacetCount>();
+  private List<FacetCount> types = new ArrayList<FacetCount>();
+  private List<FacetCount> sinceVersions = new ArrayList<FacetCount>();
+
+  public QuestionFilterResult() {
+  }
+
+  /**
+   * @return number of questions that match
+  */
+  public int getTotal() {
+	return total;
+  }
+
+  /**
+   * @param total number of questions that match to set
+  */
+  public void setTotal(int total) {
+	this.total = total;
+  }
+
+  /**
+   * @return questions on this page, in id order
+  */
+  public List<Question> getQuestions() {
+	return questions;
+  }
+
+  /**
+   * @param questions questions on this page to set
+  */
+  public void setQuestions(List<Question> questions) {
+	this.questions = questions;
+  }
+
+  /**
+   * @return id to pass as after for the next page, or 0 if this is the last page
+  */
+  public int getNext() {
+	return next;
+  }
+
+  /**
+   * @param next id after which the next page starts to set
+  */
+  public void setNext(int next) {
+	this.next = next;
+  }
+
+  /**
+   * @return number of questions by category id, under every filter but the category
+  */
+  public List<FacetCount> getCategories() {
+	return categories;
+  }
+
+  /**
+   * @param categories category counts to set
+  */
+  public void setCategories(List<FacetCount> categories) {
+	this.categories = categories;
+  }
+
+  /**
+   * @return number of questions by difficulty, under every filter but the difficulty
+  */
+  public List<FacetCount> getDifficulties() {
+	return difficulties;
+  }
+
+  /**
+   * @param difficulties difficulty counts to set
+  */
+  public void setDifficulties(List<FacetCount> difficulties) {
+	this.difficulties = difficulties;
+  }
+
+  /**
+   * @return number of questions by testament, under every filter but the testament
+  */
+  public List<FacetCount> getTestaments() {
+	return testaments;
+  }
+
+  /**
+   * @param testaments testament counts to set
+  */
+  public void setTestaments(List<FacetCount> testaments) {
+	this.testaments = testaments;
+  }
+
+  /**
+   * @return number of questions by type, under every filter but the type
+  */
+  public List<FacetCount> getTypes() {
+	return types;
+  }
+
+  /**
+   * @param types type counts to set
+  */
+  public void setTypes(List<FacetCount> types) {
+	this.types = types;
+  }
+
+  /**
+   * @return number of questions by since version, under every filter but the since version
+  */
+  public List<FacetCount> getSinceVersions() {
+	return sinceVersions;
+  }
+
+  /**
+   * @param sinceVersions since version counts to set
+  */
+  public void setSinceVersions(List<FacetCount> sinceVersions) {
+	this.sinceVersions = sinceVersions;
+  }
+}
@@ -0,0 +1,96 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The QuestionStats class is a simple POJO containing the getter/setter methods
+* for how often a question has been answered, how often correctly, and how often each of
+* its choices has been picked.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuestionStats implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int questionId;
+  private long answers;
+  private long correct;
+  private double percentCorrect;
+  private List<ChoiceStats> choices = new ArrayList<ChoiceStats>();
+
+  public QuestionStats() {
+  }
+
+  /**
+   * @return ID of the Question
+  */
+  public int getQuestionId() {
+	return questionId;
+  }
+
+  /**
+   * @param questionId ID of the Question to set
+  */
+  public void setQuestionId(int questionId) {
+	this.questionId = questionId;
+  }
+
+  /**
+   * @return number of times the Question was answered
+  */
+  public long getAnswers() {
+	return answers;
+  }
+
+  /**
+   * @param answers number of answers to set
+  */
+  public void setAnswers(long answers) {
+	this.answers = answers;
+  }
+
+  /**
+   * @return number of times the Question was answered correctly
+  */
+  public long getCorrect() {
+	return correct;
+  }
+
+  /**
+   * @param correct number of correct answers to set
+  */
+  public void setCorrect(long correct) {
+	this.correct = correct;
+  }
+
+  /**
+   * @return percent of the answers that were correct, the item difficulty; 0 if never answered
+  */
+  public double getPercentCorrect() {
+	return percentCorrect;
+  }
+
+  /**
+   * @param percentCorrect percent of correct answers to set
+  */
+  public void setPercentCorrect(double percentCorrect) {
+	this.percentCorrect = percentCorrect;
+  }
+
+  /**
+   * @return picks of each choice, in choice id order
+  */
+  public List<ChoiceStats> getChoices() {
+	return choices;
+  }
+
+  /**
+   * @param choices picks of each choice to set
+  */
+  public void setChoices(List<ChoiceStats> choices) {
+	this.choices = choices;
+  }
+}
@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The Quiz class is a simple POJO containing the getter/setter methods
+* for a quiz of questions drawn at random, each with its choices.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class Quiz implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private long seed;
+  private List<QuestionDocument> questions = new ArrayList<QuestionDocument>();
+
+  public Quiz() {
+  }
+
+  /**
+   * @return seed the quiz was drawn with; the same seed draws the same quiz again
+  */
+  public long getSeed() {
+	return seed;
+  }
+
+  /**
+   * @param seed seed to set
+  */
+  public void setSeed(long seed) {
+	this.seed = seed;
+  }
+
+  /**
+   * @return questions of the quiz with their choices, in quiz order
+  */
+  public List<QuestionDocument> getQuestions() {
+	return questions;
+  }
+
+  /**
+   * @param questions questions of the quiz to set
+  */
+  public void setQuestions(List<QuestionDocument> questions) {
+	this.questions = questions;
+  }
+}
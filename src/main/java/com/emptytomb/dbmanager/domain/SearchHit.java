@@ -0,0 +1,63 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+
+/**
+* The SearchHit class is a simple POJO containing the getter/setter methods
+* for one document found by a full-text search.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class SearchHit implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int id;
+  private double score;
+  private String snippet;
+
+  public SearchHit() {
+  }
+
+  /**
+   * @return unique id of the document found
+  */
+  public int getId() {
+	return id;
+  }
+
+  /**
+   * @param id unique id of the document to set
+  */
+  public void setId(int id) {
+	this.id = id;
+  }
+
+  /**
+   * @return BM25 relevance of the document, higher is better
+  */
+  public double getScore() {
+	return score;
+  }
+
+  /**
+   * @param score relevance to set
+  */
+  public void setScore(double score) {
+	this.score = score;
+  }
+
+  /**
+   * @return part of the text with the query terms wrapped in &lt;em&gt; tags
+  */
+  public String getSnippet() {
+	return snippet;
+  }
+
+  /**
+   * @param snippet highlighted text to set
+  */
+  public void setSnippet(String snippet) {
+	this.snippet = snippet;
+  }
+}
@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.domain;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+* The SearchResult class is a simple POJO containing the getter/setter methods
+* for one page of the documents found by a full-text search.
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class SearchResult implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private int total;
+  private List<SearchHit> hits = new ArrayList<SearchHit>();
+
+  public SearchResult() {
+  }
+
+  /**
+   * @return number of documents found, on every page
+  */
+  public int getTotal() {
+	return total;
+  }
+
+  /**
+   * @param total number of documents found to set
+  */
+  public void setTotal(int total) {
+	this.total = total;
+  }
+
+  /**
+   * @return documents on this page, best first
+  */
+  public List<SearchHit> getHits() {
+	return hits;
+  }
+
+  /**
+   * @param hits documents on this page to set
+  */
+  public void setHits(List<SearchHit> hits) {
+	this.hits = hits;
+  }
+}
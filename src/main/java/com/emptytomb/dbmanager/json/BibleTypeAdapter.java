@@ -0,0 +1,82 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+
+import com.emptytomb.dbmanager.domain.Bible;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The BibleTypeAdapter class reads and writes the Bible domain model without reflection.
+* The published date is delegated to the Timestamp adapter of the owning Gson so that its
+* format follows the Gson configuration, as it does for the reflective adapter.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class BibleTypeAdapter extends DomainTypeAdapter<Bible> {
+	public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+			if (type.getRawType() != Bible.class) {
+				return null;
+			}
+			return (TypeAdapter<T>) new BibleTypeAdapter(gson.getAdapter(Timestamp.class));
+		}
+	};
+
+	private final TypeAdapter<Timestamp> timestampAdapter;
+
+	private BibleTypeAdapter(TypeAdapter<Timestamp> timestampAdapter) {
+		this.timestampAdapter = timestampAdapter;
+	}
+
+	@Override
+	protected Bible newInstance() {
+		return new Bible();
+	}
+
+	@Override
+	protected void writeFields(JsonWriter out, Bible bible) throws IOException {
+		out.name("bibleId").value(bible.getBibleId());
+		out.name("publisher").value(bible.getPublisher());
+		out.name("datePublished");
+		timestampAdapter.write(out, bible.getDatePublished());
+		out.name("name").value(bible.getName());
+		out.name("shortName").value(bible.getShortName());
+		out.name("history").value(bible.getHistory());
+	}
+
+	@Override
+	protected boolean readField(JsonReader in, String name, Bible bible) throws IOException {
+		switch (name) {
+		case "bibleId":
+			bible.setBibleId(nextInt(in));
+			return true;
+		case "publisher":
+			bible.setPublisher(nextString(in));
+			return true;
+		case "datePublished":
+			bible.setDatePublished(timestampAdapter.read(in));
+			return true;
+		case "name":
+			bible.setName(nextString(in));
+			return true;
+		case "shortName":
+			bible.setShortName(nextString(in));
+			return true;
+		case "history":
+			bible.setHistory(nextString(in));
+			return true;
+		default:
+			return false;
+		}
+	}
+}
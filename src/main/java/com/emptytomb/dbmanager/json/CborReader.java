@@ -0,0 +1,469 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+* The CborReader class reads CBOR (RFC 7049) as the JSON data model, so that any Gson
+* TypeAdapter can consume the binary wire format. Maps, arrays and text strings may have
+* definite or indefinite lengths, tags are skipped, and integers, half, single and double
+* precision floats, booleans and null are supported. Byte strings have no JSON counterpart
+* and are rejected. Map keys must be text strings.
+*
+* <p><b>Note:</b> As with JsonReader, numbers may be read as strings and quoted numbers
+* as numbers.</p>
+*
+* <p>Text strings are read in 8 KB chunks and may be at most 16 MB long, or as set with
+* the {@code dbmanager.cbor.maxStringBytes} system property; a longer one is reported as
+* a MalformedJsonException.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CborReader extends JsonReader {
+	private static final long INDEFINITE = -1;
+	private static final int MAX_DEPTH = 255;
+	private static final int CHUNK_SIZE = 8192;
+	// the header of a text string may claim any length, so it never sizes an allocation
+	private static final int MAX_STRING_BYTES = Integer.getInteger("dbmanager.cbor.maxStringBytes", 16 * 1024 * 1024);
+
+	private static final Reader UNUSED = new Reader() {
+		@Override
+		public int read(char[] buffer, int offset, int length) {
+			throw new UnsupportedOperationException();
+		}
+		@Override
+		public void close() {
+		}
+	};
+
+	private final InputStream in;
+	private final byte[] chunk = new byte[CHUNK_SIZE];
+	private int nextByte = -1;
+	private JsonToken peeked;
+	// one frame per open array or map: remaining items (pairs for a map) or INDEFINITE
+	private final long[] remaining = new long[MAX_DEPTH + 1];
+	private final boolean[] map = new boolean[MAX_DEPTH + 1];
+	private final boolean[] expectName = new boolean[MAX_DEPTH + 1];
+	private int depth;
+	private boolean done;
+
+	public CborReader(InputStream in) {
+		super(UNUSED);
+		if (in == null) {
+			throw new NullPointerException("in == null");
+		}
+		this.in = in;
+	}
+
+	@Override
+	public JsonToken peek() throws IOException {
+		if (peeked != null) {
+			return peeked;
+		}
+		if (depth == 0 && done) {
+			return peeked = JsonToken.END_DOCUMENT;
+		}
+		if (depth > 0) {
+			if (remaining[depth] == 0 || (remaining[depth] == INDEFINITE && lookahead() == 0xff)) {
+				return peeked = map[depth] ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+			}
+		}
+		int initial = lookahead();
+		int major = initial >>> 5;
+		while (major == 6) {
+			// tags carry semantics JSON has no room for; read the tagged item as is
+			consume();
+			readArgument(initial & 31);
+			initial = lookahead();
+			major = initial >>> 5;
+		}
+		if (depth > 0 && map[depth] && expectName[depth]) {
+			if (major != CborWriter.MAJOR_TEXT) {
+				throw new MalformedJsonException("Map keys must be text strings");
+			}
+			return peeked = JsonToken.NAME;
+		}
+		switch (major) {
+		case CborWriter.MAJOR_UNSIGNED:
+		case CborWriter.MAJOR_NEGATIVE:
+			return peeked = JsonToken.NUMBER;
+		case CborWriter.MAJOR_TEXT:
+			return peeked = JsonToken.STRING;
+		case CborWriter.MAJOR_ARRAY:
+			return peeked = JsonToken.BEGIN_ARRAY;
+		case CborWriter.MAJOR_MAP:
+			return peeked = JsonToken.BEGIN_OBJECT;
+		case 7:
+			switch (initial & 31) {
+			case 20:
+			case 21:
+				return peeked = JsonToken.BOOLEAN;
+			case 22:
+			case 23:
+				return peeked = JsonToken.NULL;
+			case 25:
+			case 26:
+			case 27:
+				return peeked = JsonToken.NUMBER;
+			default:
+				throw new MalformedJsonException("Unsupported simple value " + (initial & 31));
+			}
+		default:
+			throw new MalformedJsonException("Unsupported major type " + major);
+		}
+	}
+
+	@Override
+	public void beginArray() throws IOException {
+		expect(JsonToken.BEGIN_ARRAY);
+		push(false, readArgument(consume() & 31));
+	}
+
+	@Override
+	public void endArray() throws IOException {
+		expect(JsonToken.END_ARRAY);
+		pop();
+	}
+
+	@Override
+	public void beginObject() throws IOException {
+		expect(JsonToken.BEGIN_OBJECT);
+		push(true, readArgument(consume() & 31));
+	}
+
+	@Override
+	public void endObject() throws IOException {
+		expect(JsonToken.END_OBJECT);
+		pop();
+	}
+
+	@Override
+	public boolean hasNext() throws IOException {
+		JsonToken token = peek();
+		return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY
+				&& token != JsonToken.END_DOCUMENT;
+	}
+
+	@Override
+	public String nextName() throws IOException {
+		expect(JsonToken.NAME);
+		String name = readText();
+		peeked = null;
+		expectName[depth] = false;
+		return name;
+	}
+
+	@Override
+	public String nextString() throws IOException {
+		JsonToken token = peek();
+		String result;
+		if (token == JsonToken.STRING) {
+			result = readText();
+		} else if (token == JsonToken.NUMBER) {
+			result = readNumber().toString();
+		} else {
+			throw new IllegalStateException("Expected a string but was " + token);
+		}
+		valueConsumed();
+		return result;
+	}
+
+	@Override
+	public boolean nextBoolean() throws IOException {
+		expect(JsonToken.BOOLEAN);
+		boolean result = (consume() & 31) == 21;
+		valueConsumed();
+		return result;
+	}
+
+	@Override
+	public void nextNull() throws IOException {
+		expect(JsonToken.NULL);
+		consume();
+		valueConsumed();
+	}
+
+	@Override
+	public double nextDouble() throws IOException {
+		JsonToken token = peek();
+		double result;
+		if (token == JsonToken.NUMBER) {
+			result = readNumber().doubleValue();
+		} else if (token == JsonToken.STRING) {
+			result = Double.parseDouble(readText());
+		} else {
+			throw new IllegalStateException("Expected a double but was " + token);
+		}
+		valueConsumed();
+		return result;
+	}
+
+	@Override
+	public long nextLong() throws IOException {
+		JsonToken token = peek();
+		Number number;
+		if (token == JsonToken.NUMBER) {
+			number = readNumber();
+		} else if (token == JsonToken.STRING) {
+			String text = readText();
+			try {
+				number = Long.valueOf(text);
+			} catch (NumberFormatException e) {
+				number = Double.valueOf(text);
+			}
+		} else {
+			throw new IllegalStateException("Expected a long but was " + token);
+		}
+		valueConsumed();
+		if (number instanceof Double) {
+			double value = number.doubleValue();
+			if ((long) value != value) {
+				throw new NumberFormatException("Expected a long but was " + value);
+			}
+			return (long) value;
+		}
+		return number.longValue();
+	}
+
+	@Override
+	public int nextInt() throws IOException {
+		long value = nextLong();
+		if ((int) value != value) {
+			throw new NumberFormatException("Expected an int but was " + value);
+		}
+		return (int) value;
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		switch (peek()) {
+		case BEGIN_ARRAY:
+			beginArray();
+			while (hasNext()) {
+				skipValue();
+			}
+			endArray();
+			break;
+		case BEGIN_OBJECT:
+			beginObject();
+			while (hasNext()) {
+				nextName();
+				skipValue();
+			}
+			endObject();
+			break;
+		case NAME:
+			nextName();
+			break;
+		case STRING:
+		case NUMBER:
+			nextString();
+			break;
+		case BOOLEAN:
+			nextBoolean();
+			break;
+		case NULL:
+			nextNull();
+			break;
+		default:
+			throw new IllegalStateException("Expected a value but was " + peek());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName();
+	}
+
+	private void expect(JsonToken expected) throws IOException {
+		JsonToken token = peek();
+		if (token != expected) {
+			throw new IllegalStateException("Expected " + expected + " but was " + token);
+		}
+	}
+
+	private void push(boolean isMap, long count) throws IOException {
+		if (depth == MAX_DEPTH) {
+			throw new MalformedJsonException("Nesting too deep");
+		}
+		depth++;
+		map[depth] = isMap;
+		remaining[depth] = count;
+		expectName[depth] = isMap;
+		peeked = null;
+	}
+
+	private void pop() throws IOException {
+		if (remaining[depth] == INDEFINITE) {
+			consume();
+		}
+		depth--;
+		valueConsumed();
+	}
+
+	private void valueConsumed() {
+		peeked = null;
+		if (depth == 0) {
+			done = true;
+			return;
+		}
+		if (map[depth]) {
+			expectName[depth] = true;
+		}
+		if (remaining[depth] != INDEFINITE) {
+			remaining[depth]--;
+		}
+	}
+
+	private int lookahead() throws IOException {
+		if (nextByte < 0) {
+			nextByte = in.read();
+			if (nextByte < 0) {
+				throw new EOFException("End of input");
+			}
+		}
+		return nextByte;
+	}
+
+	private int consume() throws IOException {
+		int result = lookahead();
+		nextByte = -1;
+		return result;
+	}
+
+	private int readByte() throws IOException {
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException("End of input");
+		}
+		return b;
+	}
+
+	private long readBigEndian(int bytes) throws IOException {
+		long value = 0;
+		for (int i = 0; i < bytes; i++) {
+			value = (value << 8) | readByte();
+		}
+		return value;
+	}
+
+	private long readArgument(int info) throws IOException {
+		switch (info) {
+		case 24:
+			return readBigEndian(1);
+		case 25:
+			return readBigEndian(2);
+		case 26:
+			return readBigEndian(4);
+		case 27:
+			long value = readBigEndian(8);
+			if (value < 0) {
+				throw new MalformedJsonException("Argument too large");
+			}
+			return value;
+		case 31:
+			return INDEFINITE;
+		default:
+			if (info < 24) {
+				return info;
+			}
+			throw new MalformedJsonException("Reserved additional information " + info);
+		}
+	}
+
+	// the current item is a text string; consumes it but leaves the frame to the caller
+	private String readText() throws IOException {
+		long length = readArgument(consume() & 31);
+		if (length != INDEFINITE && length <= Math.min(CHUNK_SIZE, MAX_STRING_BYTES)) {
+			readFully(chunk, (int) length);
+			return new String(chunk, 0, (int) length, StandardCharsets.UTF_8);
+		}
+		ByteArrayOutputStream text = new ByteArrayOutputStream(CHUNK_SIZE);
+		if (length != INDEFINITE) {
+			readBytes(length, text);
+			return new String(text.toByteArray(), StandardCharsets.UTF_8);
+		}
+		for (int initial = readByte(); initial != 0xff; initial = readByte()) {
+			long chunkLength = (initial >>> 5) == CborWriter.MAJOR_TEXT ? readArgument(initial & 31) : INDEFINITE;
+			if (chunkLength == INDEFINITE) {
+				throw new MalformedJsonException("Malformed text string chunk");
+			}
+			readBytes(chunkLength, text);
+		}
+		return new String(text.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	// appends the bytes a chunk at a time, so the buffer only grows as they actually arrive
+	private void readBytes(long length, ByteArrayOutputStream text) throws IOException {
+		if (length > MAX_STRING_BYTES - text.size()) {
+			throw new MalformedJsonException("String longer than " + MAX_STRING_BYTES + " bytes");
+		}
+		while (length > 0) {
+			int count = (int) Math.min(length, CHUNK_SIZE);
+			readFully(chunk, count);
+			text.write(chunk, 0, count);
+			length -= count;
+		}
+	}
+
+	private void readFully(byte[] bytes, int length) throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			int count = in.read(bytes, offset, length - offset);
+			if (count < 0) {
+				throw new EOFException("End of input");
+			}
+			offset += count;
+		}
+	}
+
+	// the current item is a number; returns a Long or a Double
+	private Number readNumber() throws IOException {
+		int initial = consume();
+		int major = initial >>> 5;
+		int info = initial & 31;
+		if (major == CborWriter.MAJOR_UNSIGNED) {
+			return Long.valueOf(readArgument(info));
+		}
+		if (major == CborWriter.MAJOR_NEGATIVE) {
+			return Long.valueOf(-1 - readArgument(info));
+		}
+		switch (info) {
+		case 25:
+			return Double.valueOf(halfToDouble((int) readBigEndian(2)));
+		case 26:
+			return Double.valueOf(Float.intBitsToFloat((int) readBigEndian(4)));
+		default:
+			return Double.valueOf(Double.longBitsToDouble(readBigEndian(8)));
+		}
+	}
+
+	private static double halfToDouble(int half) {
+		int exponent = (half >> 10) & 0x1f;
+		int mantissa = half & 0x3ff;
+		double value;
+		if (exponent == 0) {
+			value = mantissa * Math.pow(2, -24);
+		} else if (exponent != 31) {
+			value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+		} else {
+			value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+		}
+		return (half & 0x8000) != 0 ? -value : value;
+	}
+}
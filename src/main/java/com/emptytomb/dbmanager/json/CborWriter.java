@@ -0,0 +1,260 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The CborWriter class writes the JSON data model as CBOR (RFC 7049) instead of text, so
+* that any Gson TypeAdapter can produce the binary wire format. Objects and arrays are
+* written with indefinite lengths, since the number of members is not known up front,
+* integers in their shortest form and strings as UTF-8 without escaping.
+*
+* <p><b>Note:</b> Null members are dropped unless serializeNulls is set, as with JsonWriter.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CborWriter extends JsonWriter {
+	public static final int MAJOR_UNSIGNED = 0;
+	public static final int MAJOR_NEGATIVE = 1;
+	public static final int MAJOR_TEXT = 3;
+	public static final int MAJOR_ARRAY = 4;
+	public static final int MAJOR_MAP = 5;
+	public static final int INDEFINITE_ARRAY = 0x9f;
+	public static final int INDEFINITE_MAP = 0xbf;
+	public static final int FALSE = 0xf4;
+	public static final int TRUE = 0xf5;
+	public static final int NULL = 0xf6;
+	public static final int FLOAT = 0xfa;
+	public static final int DOUBLE = 0xfb;
+	public static final int BREAK = 0xff;
+
+	private static final Writer UNUSED = new Writer() {
+		@Override
+		public void write(char[] buffer, int offset, int length) {
+			throw new UnsupportedOperationException();
+		}
+		@Override
+		public void flush() {
+		}
+		@Override
+		public void close() {
+		}
+	};
+
+	private final OutputStream out;
+	private String deferredName;
+
+	public CborWriter(OutputStream out) {
+		super(UNUSED);
+		if (out == null) {
+			throw new NullPointerException("out == null");
+		}
+		this.out = out;
+	}
+
+	/**
+	 * Writes the initial byte and argument of a data item in its shortest form.
+	 *
+	 * @param   out    the stream to write to
+	 * @param   major  the major type
+	 * @param   value  the non-negative argument: a value, a length or a count
+	*/
+	public static void writeHead(OutputStream out, int major, long value) throws IOException {
+		int type = major << 5;
+		if (value < 24) {
+			out.write(type | (int) value);
+		} else if (value < 0x100) {
+			out.write(type | 24);
+			out.write((int) value);
+		} else if (value < 0x10000) {
+			out.write(type | 25);
+			writeBigEndian(out, value, 2);
+		} else if (value < 0x100000000L) {
+			out.write(type | 26);
+			writeBigEndian(out, value, 4);
+		} else {
+			out.write(type | 27);
+			writeBigEndian(out, value, 8);
+		}
+	}
+
+	/**
+	 * Writes an integer data item.
+	*/
+	public static void writeLong(OutputStream out, long value) throws IOException {
+		if (value >= 0) {
+			writeHead(out, MAJOR_UNSIGNED, value);
+		} else {
+			writeHead(out, MAJOR_NEGATIVE, -1 - value);
+		}
+	}
+
+	/**
+	 * Writes a text string data item from bytes that are already UTF-8.
+	*/
+	public static void writeText(OutputStream out, byte[] utf8, int offset, int length) throws IOException {
+		writeHead(out, MAJOR_TEXT, length);
+		out.write(utf8, offset, length);
+	}
+
+	private static void writeBigEndian(OutputStream out, long value, int bytes) throws IOException {
+		for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+			out.write((int) (value >>> shift));
+		}
+	}
+
+	private void writeDeferredName() throws IOException {
+		if (deferredName != null) {
+			byte[] utf8 = deferredName.getBytes(StandardCharsets.UTF_8);
+			writeText(out, utf8, 0, utf8.length);
+			deferredName = null;
+		}
+	}
+
+	@Override
+	public JsonWriter beginArray() throws IOException {
+		writeDeferredName();
+		out.write(INDEFINITE_ARRAY);
+		return this;
+	}
+
+	@Override
+	public JsonWriter endArray() throws IOException {
+		out.write(BREAK);
+		return this;
+	}
+
+	@Override
+	public JsonWriter beginObject() throws IOException {
+		writeDeferredName();
+		out.write(INDEFINITE_MAP);
+		return this;
+	}
+
+	@Override
+	public JsonWriter endObject() throws IOException {
+		if (deferredName != null) {
+			throw new IllegalStateException("Dangling name: " + deferredName);
+		}
+		out.write(BREAK);
+		return this;
+	}
+
+	@Override
+	public JsonWriter name(String name) throws IOException {
+		if (name == null) {
+			throw new NullPointerException("name == null");
+		}
+		if (deferredName != null) {
+			throw new IllegalStateException("Already wrote a name, expecting a value.");
+		}
+		deferredName = name;
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(String value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		writeDeferredName();
+		byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+		writeText(out, utf8, 0, utf8.length);
+		return this;
+	}
+
+	@Override
+	public JsonWriter jsonValue(String value) throws IOException {
+		throw new UnsupportedOperationException("Raw JSON cannot be written as CBOR");
+	}
+
+	@Override
+	public JsonWriter nullValue() throws IOException {
+		if (deferredName != null && !getSerializeNulls()) {
+			deferredName = null;
+			return this;
+		}
+		writeDeferredName();
+		out.write(NULL);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(boolean value) throws IOException {
+		writeDeferredName();
+		out.write(value ? TRUE : FALSE);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(Boolean value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		return value(value.booleanValue());
+	}
+
+	public JsonWriter value(float value) throws IOException {
+		writeDeferredName();
+		out.write(FLOAT);
+		writeBigEndian(out, Float.floatToIntBits(value), 4);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(double value) throws IOException {
+		writeDeferredName();
+		out.write(DOUBLE);
+		writeBigEndian(out, Double.doubleToLongBits(value), 8);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(long value) throws IOException {
+		writeDeferredName();
+		writeLong(out, value);
+		return this;
+	}
+
+	@Override
+	public JsonWriter value(Number value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		if (value instanceof Float) {
+			return value(value.floatValue());
+		}
+		if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte || value instanceof AtomicInteger || value instanceof AtomicLong) {
+			return value(value.longValue());
+		}
+		if (value instanceof Double) {
+			return value(value.doubleValue());
+		}
+		// BigInteger, BigDecimal and Gson's lazily parsed numbers
+		String text = value.toString();
+		try {
+			return value(Long.parseLong(text));
+		} catch (NumberFormatException e) {
+			return value(Double.parseDouble(text));
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.Commentary;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The CommentaryTypeAdapter class reads and writes the Commentary domain model without reflection.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class CommentaryTypeAdapter extends DomainTypeAdapter<Commentary> {
+
+	@Override
+	protected Commentary newInstance() {
+		return new Commentary();
+	}
+
+	@Override
+	protected void writeFields(JsonWriter out, Commentary commentary) throws IOException {
+		out.name("commentaryId").value(commentary.getCommentaryId());
+		out.name("personalityId").value(commentary.getPersonalityId());
+		out.name("passageId").value(commentary.getPassageId());
+		out.name("text").value(commentary.getText());
+	}
+
+	@Override
+	protected boolean readField(JsonReader in, String name, Commentary commentary) throws IOException {
+		switch (name) {
+		case "commentaryId":
+			commentary.setCommentaryId(nextInt(in));
+			return true;
+		case "personalityId":
+			commentary.setPersonalityId(nextInt(in));
+			return true;
+		case "passageId":
+			commentary.setPassageId(nextInt(in));
+			return true;
+		case "text":
+			commentary.setText(nextString(in));
+			return true;
+		default:
+			return false;
+		}
+	}
+}
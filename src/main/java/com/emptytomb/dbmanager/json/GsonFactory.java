@@ -0,0 +1,48 @@
+package com.emptytomb.dbmanager.json;
+
+import com.emptytomb.dbmanager.domain.Commentary;
+import com.emptytomb.dbmanager.domain.Organization;
+import com.emptytomb.dbmanager.domain.Passage;
+import com.emptytomb.dbmanager.domain.QuestionCategory;
+import com.emptytomb.dbmanager.domain.QuestionChoice;
+import com.emptytomb.dbmanager.domain.Scripture;
+import com.emptytomb.dbmanager.domain.Translation;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+* The GsonFactory class holds the single Gson instance shared by the service layer. The
+* domain model is bound to the streaming adapters in this package, so serialization of the
+* domain classes never goes through reflection, nor does deserialization except where an
+* adapter leaves it to reflection; any other type still falls back to Gson's defaults.
+*
+* <p><b>Note:</b> Gson is thread-safe, so one instance serves every request.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public final class GsonFactory {
+	private static final Gson gson = new GsonBuilder()
+		.registerTypeAdapterFactory(BibleTypeAdapter.FACTORY)
+		.registerTypeAdapterFactory(PersonalityTypeAdapter.FACTORY)
+		.registerTypeAdapterFactory(QuestionTypeAdapter.FACTORY)
+		.registerTypeAdapter(Commentary.class, new CommentaryTypeAdapter())
+		.registerTypeAdapter(Organization.class, new OrganizationTypeAdapter())
+		.registerTypeAdapter(Passage.class, new PassageTypeAdapter())
+		.registerTypeAdapter(QuestionCategory.class, new QuestionCategoryTypeAdapter())
+		.registerTypeAdapter(QuestionChoice.class, new QuestionChoiceTypeAdapter())
+		.registerTypeAdapter(Scripture.class, new ScriptureTypeAdapter())
+		.registerTypeAdapter(Translation.class, new TranslationTypeAdapter())
+		.create();
+
+	private GsonFactory() {
+	}
+
+	/**
+	 * @return  the shared Gson instance
+	*/
+	public static Gson getGson() {
+		return gson;
+	}
+}
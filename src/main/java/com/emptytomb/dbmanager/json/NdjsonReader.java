@@ -0,0 +1,187 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+* The NdjsonReader class reads newline-delimited JSON: one JSON object per line, decoded
+* by the shared Gson. The stream is read through a small buffer and each object is parsed
+* straight from it by a JsonReader that sees only its own line, so neither the stream nor
+* a line is ever held as a String. Blank lines are skipped.
+*
+* <p>A line that does not hold exactly one valid object fails on its own: the error is
+* reported as a JsonSyntaxException and the next call to {@link #nextLine()} carries on
+* with the following line. Only a failure to read the stream itself is an IOException.</p>
+*
+* <pre>{@code
+* while (reader.nextLine()) {
+*     try {
+*         Passage passage = reader.read(Passage.class);
+*         ...
+*     } catch (JsonSyntaxException e) {
+*         ... reader.getLineNumber() ...
+*     }
+* }
+* }</pre>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class NdjsonReader implements Closeable {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Gson gson = GsonFactory.getGson();
+	private final Reader in;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	private boolean endOfInput;
+	private IOException failure;
+	private int lineNumber;
+	private boolean endOfLine = true;
+	private final Reader line = new LineReader();
+
+	public NdjsonReader(InputStream in) {
+		this.in = new InputStreamReader(in, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Moves to the next line that is not blank, skipping whatever the previous record
+	 * left unread of its own line.
+	 *
+	 * @return  true if there is such a line, false at the end of the stream
+	 *
+	 * @throws  IOException if the stream could not be read
+	*/
+	public boolean nextLine() throws IOException {
+		while (!endOfLine) {
+			if (position == limit && !fill()) {
+				endOfLine = true;
+			} else if (buffer[position++] == '\n') {
+				endOfLine = true;
+			}
+		}
+		while (true) {
+			if (position == limit && !fill()) {
+				return false;
+			}
+			char c = buffer[position];
+			if (c == '\n') {
+				lineNumber++;
+				position++;
+			} else if (c == ' ' || c == '\t' || c == '\r' || c == '\uFEFF') {
+				position++;
+			} else {
+				lineNumber++;
+				endOfLine = false;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @return  the number of the current line, counting from 1
+	*/
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Reads the object on the current line.
+	 *
+	 * @param   type  the class whose adapter reads the object
+	 * @return        the object, never null
+	 *
+	 * @throws  JsonSyntaxException if the line does not hold exactly one valid object
+	 * @throws  IOException if the stream could not be read
+	*/
+	public <T> T read(Class<T> type) throws IOException {
+		JsonReader reader = gson.newJsonReader(line);
+		try {
+			JsonToken token = reader.peek();
+			if (token != JsonToken.BEGIN_OBJECT) {
+				throw new JsonSyntaxException("Expected an object but was " + token);
+			}
+			T value = gson.getAdapter(type).read(reader);
+			// so that anything after the object is reported as such, not as malformed
+			reader.setLenient(true);
+			if (reader.peek() != JsonToken.END_DOCUMENT) {
+				throw new JsonSyntaxException("Expected one object per line");
+			}
+			return value;
+		} catch (IOException e) {
+			if (e == failure) {
+				throw e;
+			}
+			// MalformedJsonException, or EOFException for a truncated line
+			throw new JsonSyntaxException(e.getMessage(), e);
+		} catch (IllegalStateException | NumberFormatException e) {
+			throw new JsonSyntaxException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private boolean fill() throws IOException {
+		while (!endOfInput) {
+			int count;
+			try {
+				count = in.read(buffer, 0, buffer.length);
+			} catch (IOException e) {
+				failure = e;
+				throw e;
+			}
+			if (count < 0) {
+				endOfInput = true;
+			} else if (count > 0) {
+				position = 0;
+				limit = count;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * The current line up to, but not including, its line feed.
+	 */
+	private final class LineReader extends Reader {
+		@Override
+		public int read(char[] chars, int offset, int length) throws IOException {
+			if (endOfLine || length == 0) {
+				return endOfLine ? -1 : 0;
+			}
+			if (position == limit && !fill()) {
+				endOfLine = true;
+				return -1;
+			}
+			int count = 0;
+			while (count < length && position < limit) {
+				char c = buffer[position++];
+				if (c == '\n') {
+					endOfLine = true;
+					break;
+				}
+				chars[offset + count++] = c;
+			}
+			return count == 0 ? -1 : count;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The NdjsonWriter class writes newline-delimited JSON: one compact JSON value per line,
+* encoded as UTF-8 by the shared Gson. Values are written as they are handed over, so a
+* stream of any length needs no more memory than its largest value.
+*
+* <p><b>Note:</b> JSON escapes line breaks inside strings, so a value never spans lines.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class NdjsonWriter implements Flushable {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Gson gson = GsonFactory.getGson();
+	private final Writer out;
+	private final JsonWriter writer;
+
+	public NdjsonWriter(OutputStream out) {
+		this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+		this.writer = new JsonWriter(this.out);
+		// the settings Gson would apply, and one top-level value per line
+		this.writer.setHtmlSafe(gson.htmlSafe());
+		this.writer.setSerializeNulls(gson.serializeNulls());
+		this.writer.setLenient(true);
+	}
+
+	/**
+	 * Writes the specified value followed by a line feed.
+	 *
+	 * @param   value  the value to write
+	 * @param   type   the class whose adapter writes the value
+	 *
+	 * @throws  IOException if the stream could not be written
+	*/
+	public <T> void write(T value, Class<T> type) throws IOException {
+		gson.getAdapter(type).write(writer, value);
+		out.write('\n');
+	}
+
+	/**
+	 * Writes any buffered lines to the underlying stream.
+	*/
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+}
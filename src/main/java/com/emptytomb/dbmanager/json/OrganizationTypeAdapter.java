@@ -0,0 +1,86 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.Organization;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The OrganizationTypeAdapter class reads and writes the Organization domain model without reflection.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class OrganizationTypeAdapter extends DomainTypeAdapter<Organization> {
+
+	@Override
+	protected Organization newInstance() {
+		return new Organization();
+	}
+
+	@Override
+	protected void writeFields(JsonWriter out, Organization organization) throws IOException {
+		out.name("organizationId").value(organization.getOrganizationId());
+		out.name("name").value(organization.getName());
+		out.name("shortName").value(organization.getShortName());
+		out.name("addressLine1").value(organization.getAddressLine1());
+		out.name("addressLine2").value(organization.getAddressLine2());
+		out.name("city").value(organization.getCity());
+		out.name("providence").value(organization.getProvidence());
+		out.name("postalCode").value(organization.getPostalCode());
+		out.name("country").value(organization.getCountry());
+		out.name("yearStarted").value(organization.getYearStarted());
+		out.name("affiliation").value(organization.getAffiliation());
+		out.name("webSite").value(organization.getWebSite());
+		out.name("membershipSize").value(organization.getMembershipSize());
+	}
+
+	@Override
+	protected boolean readField(JsonReader in, String name, Organization organization) throws IOException {
+		switch (name) {
+		case "organizationId":
+			organization.setOrganizationId(nextInt(in));
+			return true;
+		case "name":
+			organization.setName(nextString(in));
+			return true;
+		case "shortName":
+			organization.setShortName(nextString(in));
+			return true;
+		case "addressLine1":
+			organization.setAddressLine1(nextString(in));
+			return true;
+		case "addressLine2":
+			organization.setAddressLine2(nextString(in));
+			return true;
+		case "city":
+			organization.setCity(nextString(in));
+			return true;
+		case "providence":
+			organization.setProvidence(nextString(in));
+			return true;
+		case "postalCode":
+			organization.setPostalCode(nextString(in));
+			return true;
+		case "country":
+			organization.setCountry(nextString(in));
+			return true;
+		case "yearStarted":
+			organization.setYearStarted(nextInt(in));
+			return true;
+		case "affiliation":
+			organization.setAffiliation(nextString(in));
+			return true;
+		case "webSite":
+			organization.setWebSite(nextString(in));
+			return true;
+		case "membershipSize":
+			organization.setMembershipSize(nextInt(in));
+			return true;
+		default:
+			return false;
+		}
+	}
+}
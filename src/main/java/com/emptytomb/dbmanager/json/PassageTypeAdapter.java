@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.Passage;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The PassageTypeAdapter class reads and writes the Passage domain model without reflection.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class PassageTypeAdapter extends DomainTypeAdapter<Passage> {
+
+	@Override
+	protected Passage newInstance() {
+		return new Passage();
+	}
+
+	@Override
+	protected void writeFields(JsonWriter out, Passage passage) throws IOException {
+		out.name("passageId").value(passage.getPassageId());
+		out.name("translationId").value(passage.getTranslationId());
+		out.name("scriptureId").value(passage.getScriptureId());
+		out.name("text").value(passage.getText());
+	}
+
+	@Override
+	protected boolean readField(JsonReader in, String name, Passage passage) throws IOException {
+		switch (name) {
+		case "passageId":
+			passage.setPassageId(nextInt(in));
+			return true;
+		case "translationId":
+			passage.setTranslationId(nextInt(in));
+			return true;
+		case "scriptureId":
+			passage.setScriptureId(nextInt(in));
+			return true;
+		case "text":
+			passage.setText(nextString(in));
+			return true;
+		default:
+			return false;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.Personality;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The PersonalityTypeAdapter class writes the Personality domain model without reflection.
+* Reading is left to the reflective adapter of the owning Gson, which GsonFactoryBenchmark
+* measured no slower than a hand-written one for this class. The picture is not part of the
+* representation; a "picture" member in input is skipped.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class PersonalityTypeAdapter extends TypeAdapter<Personality> {
+	public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+			if (type.getRawType() != Personality.class) {
+				return null;
+			}
+			return (TypeAdapter<T>) new PersonalityTypeAdapter((TypeAdapter<Personality>) gson.getDelegateAdapter(this, type));
+		}
+	};
+
+	private final TypeAdapter<Personality> reflectiveAdapter;
+
+	private PersonalityTypeAdapter(TypeAdapter<Personality> reflectiveAdapter) {
+		this.reflectiveAdapter = reflectiveAdapter;
+	}
+
+	@Override
+	public void write(JsonWriter out, Personality personality) throws IOException {
+		if (personality == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		out.name("personalityId").value(personality.getPersonalityId());
+		out.name("organizationId").value(personality.getOrganizationId());
+		out.name("name").value(personality.getName());
+		out.name("title").value(personality.getTitle());
+		out.name("bio").value(personality.getBio());
+		out.endObject();
+	}
+
+	@Override
+	public Personality read(JsonReader in) throws IOException {
+		return reflectiveAdapter.read(in);
+	}
+}
@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.QuestionCategory;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The QuestionCategoryTypeAdapter class reads and writes the QuestionCategory domain model without reflection.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuestionCategoryTypeAdapter extends DomainTypeAdapter<QuestionCategory> {
+
+	@Override
+	protected QuestionCategory newInstance() {
+		return new QuestionCategory();
+	}
+
+	@Override
+	protected void writeFields(JsonWriter out, QuestionCategory questionCategory) throws IOException {
+		out.name("id").value(questionCategory.getId());
+		out.name("name").value(questionCategory.getName());
+		out.name("dateCreated").value(questionCategory.getDateCreated());
+		out.name("dateUpdated").value(questionCategory.getDateUpdated());
+	}
+
+	@Override
+	protected boolean readField(JsonReader in, String name, QuestionCategory questionCategory) throws IOException {
+		switch (name) {
+		case "id":
+			questionCategory.setId(nextInt(in));
+			return true;
+		case "name":
+			questionCategory.setName(nextString(in));
+			return true;
+		case "dateCreated":
+			questionCategory.setDateCreated(nextString(in));
+			return true;
+		case "dateUpdated":
+			questionCategory.setDateUpdated(nextString(in));
+			return true;
+		default:
+			return false;
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.QuestionChoice;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The QuestionChoiceTypeAdapter class reads and writes the QuestionChoice domain model without reflection.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuestionChoiceTypeAdapter extends DomainTypeAdapter<QuestionChoice> {
+
+	@Override
+	protected QuestionChoice newInstance() {
+		return new QuestionChoice();
+	}
+
+	@Override
+	protected void writeFields(JsonWriter out, QuestionChoice questionChoice) throws IOException {
+		out.name("questionChoiceId").value(questionChoice.getQuestionChoiceId());
+		out.name("questionId").value(questionChoice.getQuestionId());
+		out.name("text").value(questionChoice.getText());
+		out.name("correctAnswer").value(questionChoice.isCorrectAnswer());
+	}
+
+	@Override
+	protected boolean readField(JsonReader in, String name, QuestionChoice questionChoice) throws IOException {
+		switch (name) {
+		case "questionChoiceId":
+			questionChoice.setQuestionChoiceId(nextInt(in));
+			return true;
+		case "questionId":
+			questionChoice.setQuestionId(nextInt(in));
+			return true;
+		case "text":
+			questionChoice.setText(nextString(in));
+			return true;
+		case "correctAnswer":
+			questionChoice.setCorrectAnswer(nextBoolean(in));
+			return true;
+		default:
+			return false;
+		}
+	}
+}
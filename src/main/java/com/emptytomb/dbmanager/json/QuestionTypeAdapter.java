@@ -0,0 +1,61 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.Question;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The QuestionTypeAdapter class writes the Question domain model without reflection. Reading
+* is left to the reflective adapter of the owning Gson, which GsonFactoryBenchmark measured
+* no slower than a hand-written one for this class.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuestionTypeAdapter extends TypeAdapter<Question> {
+	public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+			if (type.getRawType() != Question.class) {
+				return null;
+			}
+			return (TypeAdapter<T>) new QuestionTypeAdapter((TypeAdapter<Question>) gson.getDelegateAdapter(this, type));
+		}
+	};
+
+	private final TypeAdapter<Question> reflectiveAdapter;
+
+	private QuestionTypeAdapter(TypeAdapter<Question> reflectiveAdapter) {
+		this.reflectiveAdapter = reflectiveAdapter;
+	}
+
+	@Override
+	public void write(JsonWriter out, Question question) throws IOException {
+		if (question == null) {
+			out.nullValue();
+			return;
+		}
+		out.beginObject();
+		out.name("questionId").value(question.getQuestionId());
+		out.name("categoryId").value(question.getCategoryId());
+		out.name("text").value(question.getText());
+		out.name("type").value(question.getType());
+		out.name("testament").value(question.getTestament());
+		out.name("difficulty").value(question.getDifficulty());
+		out.name("sinceVersion").value((Number) Float.valueOf(question.getSinceVersion()));
+		out.endObject();
+	}
+
+	@Override
+	public Question read(JsonReader in) throws IOException {
+		return reflectiveAdapter.read(in);
+	}
+}
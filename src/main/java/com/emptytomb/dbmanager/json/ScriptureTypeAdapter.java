@@ -0,0 +1,62 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.Scripture;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The ScriptureTypeAdapter class reads and writes the Scripture domain model without reflection.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ScriptureTypeAdapter extends DomainTypeAdapter<Scripture> {
+
+	@Override
+	protected Scripture newInstance() {
+		return new Scripture();
+	}
+
+	@Override
+	protected void writeFields(JsonWriter out, Scripture scripture) throws IOException {
+		out.name("scriptureId").value(scripture.getScriptureId());
+		out.name("testament").value(scripture.getTestament());
+		out.name("book").value(scripture.getBook());
+		out.name("author").value(scripture.getAuthor());
+		out.name("chapter").value(scripture.getChapter());
+		out.name("verse").value(scripture.getVerse());
+		out.name("prophecy").value(scripture.isProphecy());
+	}
+
+	@Override
+	protected boolean readField(JsonReader in, String name, Scripture scripture) throws IOException {
+		switch (name) {
+		case "scriptureId":
+			scripture.setScriptureId(nextInt(in));
+			return true;
+		case "testament":
+			scripture.setTestament(nextString(in));
+			return true;
+		case "book":
+			scripture.setBook(nextString(in));
+			return true;
+		case "author":
+			scripture.setAuthor(nextString(in));
+			return true;
+		case "chapter":
+			scripture.setChapter(nextInt(in));
+			return true;
+		case "verse":
+			scripture.setVerse(nextInt(in));
+			return true;
+		case "prophecy":
+			scripture.setProphecy(nextBoolean(in));
+			return true;
+		default:
+			return false;
+		}
+	}
+}
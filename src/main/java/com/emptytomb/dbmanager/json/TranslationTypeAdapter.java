@@ -0,0 +1,50 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.IOException;
+
+import com.emptytomb.dbmanager.domain.Translation;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The TranslationTypeAdapter class reads and writes the Translation domain model without reflection.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class TranslationTypeAdapter extends DomainTypeAdapter<Translation> {
+
+	@Override
+	protected Translation newInstance() {
+		return new Translation();
+	}
+
+	@Override
+	protected void writeFields(JsonWriter out, Translation translation) throws IOException {
+		out.name("translationId").value(translation.getTranslationId());
+		out.name("name").value(translation.getName());
+		out.name("history").value(translation.getHistory());
+		out.name("version").value(translation.getVersion());
+	}
+
+	@Override
+	protected boolean readField(JsonReader in, String name, Translation translation) throws IOException {
+		switch (name) {
+		case "translationId":
+			translation.setTranslationId(nextInt(in));
+			return true;
+		case "name":
+			translation.setName(nextString(in));
+			return true;
+		case "history":
+			translation.setHistory(nextString(in));
+			return true;
+		case "version":
+			translation.setVersion(nextString(in));
+			return true;
+		default:
+			return false;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.emptytomb.dbmanager.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
+
+/**
+* The WireFormat enum lists the encodings the resources can exchange. Both go through the
+* shared Gson and its streaming adapters; CBOR replaces the JSON text with its binary
+* equivalent, so the same object model is carried in fewer bytes and without escaping or
+* number formatting.
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public enum WireFormat {
+	JSON(WireFormat.APPLICATION_JSON),
+	CBOR(WireFormat.APPLICATION_CBOR);
+
+	public static final String APPLICATION_JSON = "application/json";
+	public static final String APPLICATION_CBOR = "application/cbor";
+
+	private final String mediaType;
+
+	private WireFormat(String mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	/**
+	 * @return  the media type of the encoding
+	*/
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * This method encodes the specified value with the shared Gson.
+	 *
+	 * @param   value  the value to encode, may be null
+	 * @return         the encoded value
+	 *
+	 * @throws  JsonIOException if the value could not be encoded
+	*/
+	public byte[] toBytes(Object value) {
+		Gson gson = GsonFactory.getGson();
+		Type type = value == null ? Object.class : value.getClass();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			JsonWriter writer = this == CBOR ? new CborWriter(out)
+					: new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			gson.toJson(value, type, writer);
+			writer.flush();
+		} catch (IOException e) {
+			throw new JsonIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * This method decodes a value of the specified type with the shared Gson.
+	 *
+	 * @param   data  the encoded value
+	 * @param   type  the class of the value
+	 * @return        the decoded value, or null if data is empty
+	 *
+	 * @throws  JsonSyntaxException if data is not a valid encoding of the type
+	*/
+	public <T> T fromBytes(byte[] data, Class<T> type) {
+		Gson gson = GsonFactory.getGson();
+		if (this == JSON) {
+			return gson.fromJson(new String(data, StandardCharsets.UTF_8), type);
+		}
+		ByteArrayInputStream in = new ByteArrayInputStream(data);
+		T result = gson.fromJson(new CborReader(in), type);
+		if (in.available() > 0) {
+			throw new JsonSyntaxException("CBOR document was not fully consumed.");
+		}
+		return result;
+	}
+
+	/**
+	 * @param   mediaType  a media type without parameters, e.g. application/cbor
+	 * @return             the matching WireFormat, or null if there is none
+	*/
+	public static WireFormat forMediaType(String mediaType) {
+		for (WireFormat format : values()) {
+			if (format.mediaType.equalsIgnoreCase(mediaType)) {
+				return format;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,94 @@
+package com.emptytomb.dbmanager.rest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.service.AdminService;
+import com.emptytomb.dbmanager.service.PersonalityService;
+import com.emptytomb.dbmanager.service.ServiceException;
+import com.sun.jersey.spi.container.ResourceFilters;
+
+/**
+ * The AdminResource class implements the administrative REST end points.
+ * 
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+@ResourceFilters(CompressionFilter.class)
+@Path("/admin")
+public class AdminResource {
+	/**
+	 * This method returns the cache memory budget and the bytes used by each cache.
+	 * 
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the cache memory usage
+	 */
+	@GET
+	@Path("/caches")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getCacheUsage(@Context HttpHeaders headers) {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		return Response.ok(AdminService.getInstance().getCacheUsage(format), format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns the most requested ids of every entity.
+	 * 
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the heavy hitters by table name
+	 */
+	@GET
+	@Path("/hotkeys")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getHotKeys(@Context HttpHeaders headers) {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		return Response.ok(AdminService.getInstance().getHotKeys(format), format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns the most requested ids of one entity.
+	 * 
+	 * @param   table    the table name of the entity, e.g. scripture or question_choice
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return           JSON or CBOR representation of the heavy hitters, highest count first
+	 */
+	@GET
+	@Path("/hotkeys/{table}")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getHotKeys(@PathParam("table") final String table, @Context HttpHeaders headers) {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		return Response.ok(AdminService.getInstance().getHotKeys(table, format), format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method deletes the stored personality pictures that no personality refers to any
+	 * more and that are older than an hour.
+	 * 
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return           JSON or CBOR representation of the number of pictures deleted
+	 * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */
+	@POST
+	@Path("/pictures/gc")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response collectPictureGarbage(@Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = PersonalityService.getInstance().collectPictureGarbage(format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+}
@@ -0,0 +1,88 @@
+package com.emptytomb.dbmanager.rest;
+
+/**
+ * The ByteRange class is the single byte range of a representation requested with an HTTP
+ * Range header (RFC 7233): {@code bytes=first-last}, {@code bytes=first-} or the suffix
+ * form {@code bytes=-count}. Requests for several ranges are answered with the whole
+ * representation, which the RFC allows.
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+final class ByteRange {
+	/** Returned by {@link #parse(String, long)} for a range that starts past the end. */
+	static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+	private static final String BYTES_UNIT = "bytes=";
+
+	private final long first;
+	private final long last;
+
+	private ByteRange(long first, long last) {
+		this.first = first;
+		this.last = last;
+	}
+
+	/**
+	 * This method parses the specified Range header against a representation of the specified
+	 * length.
+	 *
+	 * @param   header  the value of the Range header, may be null
+	 * @param   total   the length of the whole representation in bytes
+	 * @return          the range, clipped to the representation, {@link #UNSATISFIABLE}, or null
+	 *                  if the header is absent, malformed or asks for several ranges and is to
+	 *                  be ignored
+	 */
+	static ByteRange parse(String header, long total) {
+		if (header == null || !header.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+			return null;
+		}
+		String spec = header.substring(BYTES_UNIT.length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0 || spec.indexOf(',') >= 0) {
+			return null;
+		}
+		try {
+			String from = spec.substring(0, dash).trim();
+			String to = spec.substring(dash + 1).trim();
+			if (from.isEmpty()) {
+				long count = Long.parseLong(to);
+				if (count < 0) {
+					return null;
+				}
+				if (count == 0 || total == 0) {
+					return UNSATISFIABLE;
+				}
+				return new ByteRange(Math.max(0, total - count), total - 1);
+			}
+			long first = Long.parseLong(from);
+			long last = to.isEmpty() ? Long.MAX_VALUE : Long.parseLong(to);
+			if (first < 0 || last < first) {
+				return null;
+			}
+			if (first >= total) {
+				return UNSATISFIABLE;
+			}
+			return new ByteRange(first, Math.min(last, total - 1));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	long getFirst() {
+		return first;
+	}
+
+	long getLength() {
+		return last - first + 1;
+	}
+
+	/**
+	 * @param   total  the length of the whole representation in bytes
+	 * @return         the value of the Content-Range header for this range
+	 */
+	String toContentRange(long total) {
+		return "bytes " + first + "-" + last + "/" + total;
+	}
+}
@@ -1,17 +1,31 @@
 package com.emptytomb.dbmanager.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.search.Query;
 import com.emptytomb.dbmanager.service.CommentaryService;
 import com.emptytomb.dbmanager.service.ServiceException;
+import com.sun.jersey.spi.container.ResourceFilters;
 
 /**
  * The CommentaryResource class implements the CRUD REST end points for the Commentary resource.
@@ -20,53 +34,183 @@ import com.emptytomb.dbmanager.service.ServiceException;
  * @version 1.0
  * @since   2016-07-01
  */
+@ResourceFilters(CompressionFilter.class)
 @Path("/commentary")
 public class CommentaryResource {
+	private static final String COMMENTARY_TABLE = "commentary";
+	private static final int MAX_SEARCH_LIMIT = 100;
+	private static final int MAX_SEARCH_OFFSET = 10000;
+	private static final int MAX_PAGE_LIMIT = 500;
+	
 	/**
 	 * This method returns all Commentaries.
 	 * 
-	 * @return      JSON representation of all Commentaries
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of all Commentaries
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getCommentaries() throws WebException {
-		String result = null;
+	@Precompressible(COMMENTARY_TABLE)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getCommentaries(@Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = CommentaryService.getInstance().getCommentaries(format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns one page of the Commentaries on a passage, in id order. The first
+	 * page is requested without after; each page gives the after of the next in next.
+	 * 
+	 * @param   passageId  the unique id of the passage
+	 * @param   after      the id after which the page starts, 0 for the first page
+	 * @param   limit      the most commentaries to return, at most 500
+	 * @param   headers    the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the page
+	 * 
+	 * <pre>{@code
+     * {commentaries : [{commentaryId : 4, personalityId : 3, passageId : 17, text : "..."}, ...],
+     *  next : 57}
+     * }</pre>
+     * 
+	 * @throws      WebException if a parameter is out of range (400), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/passage/{passageId}")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getCommentariesByPassage(@PathParam("passageId") final int passageId,
+			@QueryParam("after") @DefaultValue("0") final int after, @QueryParam("limit") @DefaultValue("50") final int limit,
+			@Context HttpHeaders headers) throws WebException {
+		checkPage(after, limit);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = CommentaryService.getInstance().getCommentariesByPassage(passageId, after, limit, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns one page of the Commentaries by a personality, in id order. The
+	 * first page is requested without after; each page gives the after of the next in next.
+	 * 
+	 * @param   personalityId  the unique id of the personality
+	 * @param   after          the id after which the page starts, 0 for the first page
+	 * @param   limit          the most commentaries to return, at most 500
+	 * @param   headers        the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the page, as for a passage
+	 * 
+	 * @throws      WebException if a parameter is out of range (400), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/personality/{personalityId}")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getCommentariesByPersonality(@PathParam("personalityId") final int personalityId,
+			@QueryParam("after") @DefaultValue("0") final int after, @QueryParam("limit") @DefaultValue("50") final int limit,
+			@Context HttpHeaders headers) throws WebException {
+		checkPage(after, limit);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = CommentaryService.getInstance().getCommentaries();
+			result = CommentaryService.getInstance().getCommentariesByPersonality(personalityId, after, limit, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns one page of the Commentaries whose text matches the query, best
+	 * first, with the number of Commentaries found by personality and by organization. Words
+	 * must all appear; words in double quotes must appear together in that order.
+	 * 
+	 * @param   q              the query, e.g. {@code "born again"} or {@code grace works}
+	 * @param   personalityId  the personality whose commentaries to search; every personality
+	 *                         if absent or 0
+	 * @param   offset         the number of best commentaries to skip
+	 * @param   limit          the most commentaries to return, at most 100
+	 * @param   headers        the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the commentaries found and the counts
+	 * 
+	 * <pre>{@code
+     * {total : 9, hits : [{id : 4, score : 6.2, snippet : "...<em>born</em> <em>again</em>...",
+     *                      personalityId : 3, passageId : 17}, ...],
+     *  personalities : [{id : 3, name : "...", count : 5}, ...],
+     *  organizations : [{id : 1, name : "...", count : 7}, ...]}
+     * }</pre>
+     * 
+	 * @throws      WebException if the query has no terms or a parameter is out of range (400),
+	 *              or if an exception was encountered during processing
+	 */
+	@GET
+	@Path("/search")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response searchCommentaries(@QueryParam("q") final String q, @QueryParam("personalityId") @DefaultValue("0") final int personalityId,
+			@QueryParam("offset") @DefaultValue("0") final int offset, @QueryParam("limit") @DefaultValue("20") final int limit,
+			@Context HttpHeaders headers) throws WebException {
+		if (personalityId < 0 || offset < 0 || offset > MAX_SEARCH_OFFSET || limit < 1 || limit > MAX_SEARCH_LIMIT) {
+			throw new WebException(WebException.BAD_REQUEST, "personalityId must not be negative, offset must be 0 to " +
+					MAX_SEARCH_OFFSET + " and limit 1 to " + MAX_SEARCH_LIMIT);
+		}
+		Query query = null;
+		try {
+			query = Query.parse(q);
+		} catch (IllegalArgumentException e) {
+			throw new WebException(WebException.BAD_REQUEST, e.getMessage());
+		}
+		if (query.isEmpty()) {
+			throw new WebException(WebException.BAD_REQUEST, "q has no words to search for");
+		}
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = CommentaryService.getInstance().searchCommentaries(query, personalityId, offset, limit, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method returns a Commentary.
 	 * 
 	 * @param   id  the unique id of the commentary to return.
-	 * @return      JSON representation of Commentary
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of Commentary
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getCommentary(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getCommentary(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(COMMENTARY_TABLE, id);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = CommentaryService.getInstance().getCommentary(id);
+			result = CommentaryService.getInstance().getCommentary(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method adds a new Commentary
 	 * 
-	 * @param   commentary   JSON representation of commentary to add
-	 * @return               JSON representation of commentary id added
+	 * @param   commentary   JSON or CBOR representation of commentary to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of commentary id added
 	 * 
 	 * <pre>{@code
      * commentaryId : Integer;
@@ -75,57 +219,126 @@ public class CommentaryResource {
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@PUT
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String addCommentary(String commentary) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response addCommentary(byte[] commentary, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = CommentaryService.getInstance().addCommentary(commentary);
+			result = CommentaryService.getInstance().addCommentary(commentary, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method updates an existing Commentary
 	 * 
-	 * @param   commentary   JSON representation of commentary to update
-	 * @return               JSON representation of commentary id updated
+	 * @param   commentary   JSON or CBOR representation of commentary to update
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of commentary id updated
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@POST
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String updateCommentary(String commentary) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response updateCommentary(byte[] commentary, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = CommentaryService.getInstance().updateCommentary(commentary);
+			result = CommentaryService.getInstance().updateCommentary(commentary, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method deletes an existing Commentary
 	 * 
 	 * @param   id  the unique id of the commentary to delete.
-	 * @return      JSON representation of commentary id deleted
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of commentary id deleted
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */		
 	@DELETE
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String deleteCommentary(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response deleteCommentary(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = CommentaryService.getInstance().deleteCommentary(id);
+			result = CommentaryService.getInstance().deleteCommentary(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method exports all Commentaries as newline-delimited JSON, one per line, streamed
+	 * from the database as the rows are read.
+	 * 
+	 * @return      NDJSON representation of all Commentaries
+	 * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */
+	@GET
+	@Path("/export")
+	@Produces(ContentNegotiation.APPLICATION_NDJSON)
+	public Response exportCommentaries() throws WebException {
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				try {
+					CommentaryService.getInstance().exportCommentaries(out);
+				} catch (ServiceException e) {
+					throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+				}
+			}
+		};
+		return Response.ok(output, ContentNegotiation.APPLICATION_NDJSON).build();
+	}
+	
+	/**
+	 * This method adds the Commentaries in a newline-delimited JSON body, one per line. A line
+	 * that cannot be added is reported and does not fail the request.
+	 * 
+	 * @param   commentarys NDJSON stream of commentarys to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of the import result
+	 * 
+	 * <pre>{@code
+     * imported : Integer;
+     * failed : Integer;
+     * errors : [{ line : Integer; reason : String; }];
+     * }</pre>
+     * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */	
+	@POST
+	@Path("/import")
+	@Consumes(ContentNegotiation.APPLICATION_NDJSON)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response importCommentaries(InputStream commentarys, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = CommentaryService.getInstance().importCommentaries(commentarys, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	private static void checkPage(int after, int limit) throws WebException {
+		if (after < 0 || limit < 1 || limit > MAX_PAGE_LIMIT) {
+			throw new WebException(WebException.BAD_REQUEST, "after must not be negative and limit must be 1 to " + MAX_PAGE_LIMIT);
+		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,340 @@
+package com.emptytomb.dbmanager.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.emptytomb.dbmanager.cache.PrecompressedCache;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerRequestFilter;
+import com.sun.jersey.spi.container.ContainerResponse;
+import com.sun.jersey.spi.container.ContainerResponseFilter;
+import com.sun.jersey.spi.container.ContainerResponseWriter;
+import com.sun.jersey.spi.container.ResourceFilter;
+
+/**
+ * The CompressionFilter class compresses responses with gzip or deflate, whichever the
+ * Accept-Encoding header prefers, and is applied to a resource with
+ * {@code @ResourceFilters(CompressionFilter.class)}.
+ *
+ * <p>Compression happens while the entity is written, nothing is buffered except the
+ * first {@code dbmanager.compression.minBytes} bytes (default 1024) of a streamed entity
+ * whose length is unknown: a response that ends below that size is sent as is.</p>
+ *
+ * <p>The compressed body of a method marked {@link Precompressible} is also kept in the
+ * PrecompressedCache of its table; the next GET for the same path, wire format and
+ * encoding is answered from it before the resource method runs.</p>
+ *
+ * <p>Images, audio, video, partial content and responses that declare their own
+ * Content-Length are sent as they are.</p>
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public class CompressionFilter implements ResourceFilter, ContainerRequestFilter, ContainerResponseFilter {
+	private static final int MIN_BYTES = Integer.getInteger("dbmanager.compression.minBytes", 1024);
+	private static final int MAX_CACHED_BYTES = 32 * 1024 * 1024;
+	private static final int BUFFER_SIZE = 8192;
+	private static final String GZIP = "gzip";
+	private static final String DEFLATE = "deflate";
+	private static final String VARY = "Vary";
+	private static final String CONTENT_RANGE = "Content-Range";
+	private static final int PARTIAL_CONTENT = 206;
+	private static final String KEY_PROPERTY = CompressionFilter.class.getName() + ".key";
+	private static final String STAMP_PROPERTY = CompressionFilter.class.getName() + ".stamp";
+
+	@Override
+	public ContainerRequestFilter getRequestFilter() {
+		return this;
+	}
+
+	@Override
+	public ContainerResponseFilter getResponseFilter() {
+		return this;
+	}
+
+	@Override
+	public ContainerRequest filter(ContainerRequest request) {
+		String encoding = negotiate(request.getHeaderValue(HttpHeaders.ACCEPT_ENCODING));
+		if (encoding == null || !"GET".equals(request.getMethod())) {
+			return request;
+		}
+		WireFormat format = ContentNegotiation.responseFormat(request);
+		URI uri = request.getRequestUri();
+		String key = encoding + " " + format.getMediaType() + " " + uri.getRawPath()
+				+ (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+		byte[] body = PrecompressedCache.find(key);
+		if (body != null) {
+			throw new WebApplicationException(Response.ok(body, format.getMediaType())
+					.header(HttpHeaders.CONTENT_ENCODING, encoding)
+					.header(VARY, HttpHeaders.ACCEPT_ENCODING)
+					.build());
+		}
+		request.getProperties().put(KEY_PROPERTY, key);
+		request.getProperties().put(STAMP_PROPERTY, PrecompressedCache.stamp());
+		return request;
+	}
+
+	@Override
+	public ContainerResponse filter(ContainerRequest request, ContainerResponse response) {
+		int status = response.getStatus();
+		if (response.getEntity() == null || status < 200 || status >= 300
+				|| response.getHttpHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+			return response;
+		}
+		// ranges and a declared length refer to the identity bytes, and media is already compressed
+		if (status == PARTIAL_CONTENT || response.getHttpHeaders().containsKey(HttpHeaders.CONTENT_LENGTH)
+				|| response.getHttpHeaders().containsKey(CONTENT_RANGE) || isMedia(response.getMediaType())) {
+			return response;
+		}
+		response.getHttpHeaders().add(VARY, HttpHeaders.ACCEPT_ENCODING);
+		String encoding = negotiate(request.getHeaderValue(HttpHeaders.ACCEPT_ENCODING));
+		if (encoding == null) {
+			return response;
+		}
+		PrecompressedCache cache = null;
+		String key = (String) request.getProperties().get(KEY_PROPERTY);
+		Long stamp = (Long) request.getProperties().get(STAMP_PROPERTY);
+		Precompressible precompressible = precompressible(response.getAnnotations());
+		if (precompressible != null && key != null && stamp != null && status == 200) {
+			cache = PrecompressedCache.forTable(precompressible.value());
+		}
+		response.setContainerResponseWriter(new CompressingWriter(response.getContainerResponseWriter(),
+				encoding, cache, key, stamp == null ? 0 : stamp));
+		return response;
+	}
+
+	/*
+	 * Returns gzip or deflate, whichever has the higher quality, gzip on a tie,
+	 * or null if neither is acceptable.
+	 */
+	static String negotiate(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return null;
+		}
+		double gzip = -1;
+		double deflate = -1;
+		double any = -1;
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+			double quality = 1;
+			for (int i = 1; i < parameters.length; i++) {
+				String parameter = parameters[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						quality = Double.parseDouble(parameter.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0;
+					}
+				}
+			}
+			if (name.equals(GZIP) || name.equals("x-gzip")) {
+				gzip = Math.max(gzip, quality);
+			} else if (name.equals(DEFLATE)) {
+				deflate = Math.max(deflate, quality);
+			} else if (name.equals("*")) {
+				any = Math.max(any, quality);
+			}
+		}
+		if (gzip < 0) {
+			gzip = any;
+		}
+		if (deflate < 0) {
+			deflate = any;
+		}
+		if (gzip > 0 && gzip >= deflate) {
+			return GZIP;
+		}
+		return deflate > 0 ? DEFLATE : null;
+	}
+
+	private static boolean isMedia(MediaType mediaType) {
+		if (mediaType == null) {
+			return false;
+		}
+		String type = mediaType.getType();
+		return type.equalsIgnoreCase("image") || type.equalsIgnoreCase("audio") || type.equalsIgnoreCase("video");
+	}
+
+	private static Precompressible precompressible(Annotation[] annotations) {
+		if (annotations != null) {
+			for (Annotation annotation : annotations) {
+				if (annotation instanceof Precompressible) {
+					return (Precompressible) annotation;
+				}
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Commits the headers and starts compressing once the entity is known to reach
+	 * MIN_BYTES; until then a streamed entity is held in a buffer of that size.
+	 */
+	private static final class CompressingWriter implements ContainerResponseWriter {
+		private final ContainerResponseWriter writer;
+		private final String encoding;
+		private final PrecompressedCache cache;
+		private final String key;
+		private final long stamp;
+		private ContainerResponse response;
+		private ThresholdOutputStream pending;
+		private Deflater deflater;
+		private DeflaterOutputStream encoder;
+		private CopyingOutputStream copy;
+
+		CompressingWriter(ContainerResponseWriter writer, String encoding, PrecompressedCache cache,
+				String key, long stamp) {
+			this.writer = writer;
+			this.encoding = encoding;
+			this.cache = cache;
+			this.key = key;
+			this.stamp = stamp;
+		}
+
+		@Override
+		public OutputStream writeStatusAndHeaders(long contentLength, ContainerResponse response) throws IOException {
+			this.response = response;
+			if (contentLength >= MIN_BYTES) {
+				return startEncoding();
+			}
+			if (contentLength >= 0) {
+				return writer.writeStatusAndHeaders(contentLength, response);
+			}
+			return pending = new ThresholdOutputStream();
+		}
+
+		private OutputStream startEncoding() throws IOException {
+			response.getHttpHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+			OutputStream out = writer.writeStatusAndHeaders(-1, response);
+			if (cache != null) {
+				out = copy = new CopyingOutputStream(out);
+			}
+			// a cached body is compressed once and served many times
+			int level = cache != null ? Deflater.BEST_COMPRESSION : Deflater.DEFAULT_COMPRESSION;
+			if (encoding.equals(GZIP)) {
+				GzipOutputStream gzip = new GzipOutputStream(out, level);
+				deflater = gzip.getDeflater();
+				encoder = gzip;
+			} else {
+				deflater = new Deflater(level);
+				encoder = new DeflaterOutputStream(out, deflater, BUFFER_SIZE);
+			}
+			return encoder;
+		}
+
+		@Override
+		public void finish() throws IOException {
+			try {
+				if (pending != null && pending.delegate == null) {
+					// ended below the threshold, send it uncompressed
+					writer.writeStatusAndHeaders(pending.count, response).write(pending.buffer, 0, pending.count);
+				}
+				if (encoder != null) {
+					encoder.finish();
+					if (copy != null && copy.copy != null) {
+						cache.put(key, copy.copy.toByteArray(), stamp);
+					}
+				}
+			} finally {
+				if (deflater != null) {
+					deflater.end();
+				}
+			}
+			writer.finish();
+		}
+
+		private final class ThresholdOutputStream extends OutputStream {
+			private final byte[] buffer = new byte[MIN_BYTES];
+			private int count;
+			private OutputStream delegate;
+
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int offset, int length) throws IOException {
+				if (delegate == null && count + length < buffer.length) {
+					System.arraycopy(b, offset, buffer, count, length);
+					count += length;
+					return;
+				}
+				if (delegate == null) {
+					delegate = startEncoding();
+					delegate.write(buffer, 0, count);
+				}
+				delegate.write(b, offset, length);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				if (delegate != null) {
+					delegate.flush();
+				}
+			}
+		}
+	}
+
+	/*
+	 * Keeps a copy of the compressed bytes for the PrecompressedCache, giving up on
+	 * bodies too large to be worth caching.
+	 */
+	private static final class CopyingOutputStream extends FilterOutputStream {
+		private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+		CopyingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			if (copy != null) {
+				copy.write(b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int offset, int length) throws IOException {
+			out.write(b, offset, length);
+			if (copy != null) {
+				copy.write(b, offset, length);
+				if (copy.size() > MAX_CACHED_BYTES) {
+					copy = null;
+				}
+			}
+		}
+	}
+
+	/*
+	 * GZIPOutputStream with a compression level, exposing its Deflater so the native
+	 * memory can be released without closing the container's stream.
+	 */
+	private static final class GzipOutputStream extends GZIPOutputStream {
+		GzipOutputStream(OutputStream out, int level) throws IOException {
+			super(out, BUFFER_SIZE);
+			def.setLevel(level);
+		}
+
+		Deflater getDeflater() {
+			return def;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.emptytomb.dbmanager.rest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.search.Tokenizer;
+import com.emptytomb.dbmanager.service.ConcordanceService;
+import com.emptytomb.dbmanager.service.ServiceException;
+import com.sun.jersey.spi.container.ResourceFilters;
+
+/**
+ * The ConcordanceResource class implements the REST end points of the concordance of the
+ * passages.
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+@ResourceFilters(CompressionFilter.class)
+@Path("/concordance")
+public class ConcordanceResource {
+	/**
+	 * This method returns every occurrence of a word in the Passages of one translation,
+	 * counted by book and by chapter, and the verses it occurs in. Case does not matter.
+	 *
+	 * @param   word         the word, e.g. lord
+	 * @param   translation  the version of the translation, e.g. KJV
+	 * @param   headers      the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the Concordance
+	 *
+	 * <pre>{@code
+     * {word : "shepherd", translation : "KJV", occurrences : 98,
+     *  books : [{book : 1, name : "Genesis", occurrences : 6,
+     *            chapters : [{chapter : 46, occurrences : 2}, ...]}, ...],
+     *  verses : [{scriptureId : 1234, reference : "Genesis 46:32", occurrences : 1}, ...]}
+     * }</pre>
+     *
+	 * @throws      WebException if the translation is missing or the word is not a single
+	 *              word (400), if there is no such translation (404), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/{word}")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getConcordance(@PathParam("word") final String word, @QueryParam("translation") final String translation,
+			@Context HttpHeaders headers) throws WebException {
+		if (translation == null || translation.trim().isEmpty()) {
+			throw new WebException(WebException.BAD_REQUEST, "translation is required");
+		}
+		// the word is looked up as the tokenizer indexed it
+		Tokenizer tokenizer = new Tokenizer(word);
+		if (!tokenizer.next() || tokenizer.getStart() != 0 || tokenizer.getEnd() != word.length()) {
+			throw new WebException(WebException.BAD_REQUEST, "not a single word: " + word);
+		}
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = ConcordanceService.getInstance().getConcordance(tokenizer.getTerm(), translation.trim(), format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no translation " + translation);
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+}
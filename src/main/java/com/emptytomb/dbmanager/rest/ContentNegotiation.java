@@ -0,0 +1,56 @@
+package com.emptytomb.dbmanager.rest;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import com.emptytomb.dbmanager.json.WireFormat;
+
+/**
+ * The ContentNegotiation class picks the wire format of a request body and of the response
+ * from the request headers. JSON remains the default; CBOR is used only when the client
+ * names it, so existing clients sending no or a wildcard Accept header are unaffected.
+ * 
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public final class ContentNegotiation {
+	public static final String APPLICATION_NDJSON = "application/x-ndjson";
+	private static final MediaType APPLICATION_CBOR_TYPE = MediaType.valueOf(WireFormat.APPLICATION_CBOR);
+	
+	private ContentNegotiation() {
+	}
+	
+	/**
+	 * This method returns the most acceptable wire format for the response.
+	 * 
+	 * @param   headers  the request headers
+	 * @return           CBOR if it is named before JSON in the Accept header, JSON otherwise
+	 */
+	public static WireFormat responseFormat(HttpHeaders headers) {
+		// Jersey orders the acceptable media types by quality
+		for (MediaType type : headers.getAcceptableMediaTypes()) {
+			if (!type.isWildcardType() && !type.isWildcardSubtype() && type.isCompatible(APPLICATION_CBOR_TYPE)) {
+				return WireFormat.CBOR;
+			}
+			if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+				return WireFormat.JSON;
+			}
+		}
+		return WireFormat.JSON;
+	}
+	
+	/**
+	 * This method returns the wire format of the request body.
+	 * 
+	 * @param   headers  the request headers
+	 * @return           CBOR if the Content-Type is application/cbor, JSON otherwise
+	 */
+	public static WireFormat requestFormat(HttpHeaders headers) {
+		MediaType type = headers.getMediaType();
+		if (type != null && type.isCompatible(APPLICATION_CBOR_TYPE)) {
+			return WireFormat.CBOR;
+		}
+		return WireFormat.JSON;
+	}
+}
@@ -6,16 +6,106 @@ import javax.servlet.ServletContextListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.AnswerCounters;
+import com.emptytomb.dbmanager.cache.CacheSnapshot;
+import com.emptytomb.dbmanager.cache.ChangeLogPoller;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.cache.ThumbnailCache;
+import com.emptytomb.dbmanager.dao.BlobStore;
+import com.emptytomb.dbmanager.dao.CommentaryDao;
+import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.dao.OrganizationDao;
+import com.emptytomb.dbmanager.dao.PassageDao;
+import com.emptytomb.dbmanager.dao.PersonalityDao;
+import com.emptytomb.dbmanager.dao.QuestionCategoryDao;
+import com.emptytomb.dbmanager.dao.QuestionChoiceDao;
+import com.emptytomb.dbmanager.dao.QuestionDao;
+import com.emptytomb.dbmanager.dao.ScriptureDao;
+import com.emptytomb.dbmanager.dao.TranslationDao;
+
 public class LifecycleManager implements ServletContextListener {
 	private static final Logger logger = LoggerFactory.getLogger(LifecycleManager.class);
 	
 	@Override
 	public void contextInitialized(ServletContextEvent servletContextEvent) {
+		registerCaches();
+		migratePictures();
+		migrateOrdinals();
+		loadVersification();
+		// Resume from the snapshot's version, or from now if the caches start empty
+		long version = new CacheSnapshot().restore();
+		ChangeLogPoller.getInstance().start(version);
+		MemoryGovernor.getInstance().start();
+		HotKeys.getInstance().start();
+		ThumbnailCache.getInstance().start();
+		AnswerCounters.getInstance().start();
 		logger.info("Empty Tomb Database Manager REST Service Initialized");
 	}
 	
 	@Override
 	public void contextDestroyed(ServletContextEvent servletContextEvent) {
+		// Answers counted since the last flush are added before the connection goes away
+		AnswerCounters.getInstance().stop();
+		ThumbnailCache.getInstance().stop();
+		HotKeys.getInstance().stop();
+		MemoryGovernor.getInstance().stop();
+		ChangeLogPoller.getInstance().stop();
+		new CacheSnapshot().save();
 		logger.info("Empty Tomb Database Manager REST Service Shutting Down!");
 	}
-}
\ No newline at end of file
+	
+	// Each DAO registers its cache when created, which must happen before a snapshot is restored
+	private static void registerCaches() {
+		CommentaryDao.getInstance();
+		OrganizationDao.getInstance();
+		PassageDao.getInstance();
+		PersonalityDao.getInstance();
+		QuestionCategoryDao.getInstance();
+		QuestionChoiceDao.getInstance();
+		QuestionDao.getInstance();
+		ScriptureDao.getInstance();
+		TranslationDao.getInstance();
+	}
+	
+	// Pictures stored inline by earlier builds are copied to the BlobStore, only when asked to
+	// and only into a directory set explicitly, which every instance is expected to share
+	private static void migratePictures() {
+		if (!Boolean.getBoolean("dbmanager.picture.migrate")) {
+			return;
+		}
+		if (!BlobStore.getInstance().isDirectorySet()) {
+			logger.warn("Personality pictures not copied to the blob store: set -Ddbmanager.blob.dir to the shared directory");
+			return;
+		}
+		try {
+			int moved = PersonalityDao.getInstance().migratePictures();
+			if (moved > 0) {
+				logger.info("Copied " + moved + " personality pictures to the blob store");
+			}
+		} catch (DaoException e) {
+			logger.error("Personality pictures not copied to the blob store: " + e.getReason());
+		}
+	}
+	
+	// Chapters and verses already stored beyond KJV stay writable
+	private static void loadVersification() {
+		try {
+			ScriptureDao.getInstance().loadVersification();
+		} catch (DaoException e) {
+			logger.error("Scripture versification not loaded, KJV is used: " + e.getReason());
+		}
+	}
+	
+	// Scripture written before the ordinal column existed is not found by verse ranges until filled in
+	private static void migrateOrdinals() {
+		try {
+			int filled = ScriptureDao.getInstance().migrateOrdinals();
+			if (filled > 0) {
+				logger.info("Filled in the canonical ordinal of " + filled + " scripture rows");
+			}
+		} catch (DaoException e) {
+			logger.error("Scripture ordinals not filled in: " + e.getReason());
+		}
+	}
+}
@@ -1,5 +1,9 @@
 package com.emptytomb.dbmanager.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -8,10 +12,17 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.json.WireFormat;
 import com.emptytomb.dbmanager.service.OrganizationService;
 import com.emptytomb.dbmanager.service.ServiceException;
+import com.sun.jersey.spi.container.ResourceFilters;
 
 /**
  * The OrganizationResource class implements the CRUD REST end points for the Organization resource.
@@ -20,53 +31,63 @@ import com.emptytomb.dbmanager.service.ServiceException;
  * @version 1.0
  * @since   2016-05-31
  */
+@ResourceFilters(CompressionFilter.class)
 @Path("/organization")
 public class OrganizationResource {
+	private static final String ORGANIZATION_TABLE = "organization";
+	
 	/**
 	 * This method returns all Organizations.
 	 * 
-	 * @return      JSON representation of all Organizations
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of all Organizations
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getOrganizations() throws WebException {
-		String result = null;
+	@Precompressible(ORGANIZATION_TABLE)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getOrganizations(@Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = OrganizationService.getInstance().getOrganizations();
+			result = OrganizationService.getInstance().getOrganizations(format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method returns an Organization.
 	 * 
 	 * @param   id  the unique id of the organization to return.
-	 * @return      JSON representation of Organization
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of Organization
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getOrganization(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getOrganization(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(ORGANIZATION_TABLE, id);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = OrganizationService.getInstance().getOrganization(id);
+			result = OrganizationService.getInstance().getOrganization(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method adds a new Organization
 	 * 
-	 * @param   organization JSON representation of organization to add
-	 * @return               JSON representation of organization id added
+	 * @param   organization JSON or CBOR representation of organization to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of organization id added
 	 * 
 	 * <pre>{@code
      * organizationId : Integer;
@@ -75,57 +96,120 @@ public class OrganizationResource {
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@PUT
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String addOrganization(String organization) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response addOrganization(byte[] organization, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = OrganizationService.getInstance().addOrganization(organization);
+			result = OrganizationService.getInstance().addOrganization(organization, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method updates an existing Organization
 	 * 
-	 * @param   organization JSON representation of organization to update
-	 * @return               JSON representation of organization id updated
+	 * @param   organization JSON or CBOR representation of organization to update
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of organization id updated
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@POST
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String updateOrganization(String organization) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response updateOrganization(byte[] organization, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = OrganizationService.getInstance().updateOrganization(organization);
+			result = OrganizationService.getInstance().updateOrganization(organization, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method deletes an existing Organization
 	 * 
 	 * @param   id  the unique id of the organization to delete.
-	 * @return      JSON representation of organization id deleted
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of organization id deleted
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */		
 	@DELETE
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String deleteOrganization(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response deleteOrganization(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = OrganizationService.getInstance().deleteOrganization(id, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method exports all Organizations as newline-delimited JSON, one per line, streamed
+	 * from the database as the rows are read.
+	 * 
+	 * @return      NDJSON representation of all Organizations
+	 * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */
+	@GET
+	@Path("/export")
+	@Produces(ContentNegotiation.APPLICATION_NDJSON)
+	public Response exportOrganizations() throws WebException {
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				try {
+					OrganizationService.getInstance().exportOrganizations(out);
+				} catch (ServiceException e) {
+					throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+				}
+			}
+		};
+		return Response.ok(output, ContentNegotiation.APPLICATION_NDJSON).build();
+	}
+	
+	/**
+	 * This method adds the Organizations in a newline-delimited JSON body, one per line. A line
+	 * that cannot be added is reported and does not fail the request.
+	 * 
+	 * @param   organizations NDJSON stream of organizations to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of the import result
+	 * 
+	 * <pre>{@code
+     * imported : Integer;
+     * failed : Integer;
+     * errors : [{ line : Integer; reason : String; }];
+     * }</pre>
+     * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */	
+	@POST
+	@Path("/import")
+	@Consumes(ContentNegotiation.APPLICATION_NDJSON)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response importOrganizations(InputStream organizations, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = OrganizationService.getInstance().deleteOrganization(id);
+			result = OrganizationService.getInstance().importOrganizations(organizations, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 }
\ No newline at end of file
@@ -1,17 +1,33 @@
 package com.emptytomb.dbmanager.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.PassageTextStore;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.search.Query;
 import com.emptytomb.dbmanager.service.PassageService;
 import com.emptytomb.dbmanager.service.ServiceException;
+import com.emptytomb.dbmanager.utility.VerseReference;
+import com.sun.jersey.spi.container.ResourceFilters;
 
 /**
  * The PassageResource class implements the CRUD REST end points for the Passage resource.
@@ -20,53 +36,207 @@ import com.emptytomb.dbmanager.service.ServiceException;
  * @version 1.0
  * @since   2016-08-01
  */
+@ResourceFilters(CompressionFilter.class)
 @Path("/passage")
 public class PassageResource {
+	private static final String PASSAGE_TABLE = "passage";
+	private static final int MAX_SEARCH_LIMIT = 100;
+	private static final int MAX_SEARCH_OFFSET = 10000;
+	
 	/**
-	 * This method returns all Passages.
+	 * This method returns all Passages. The response is streamed from a snapshot of the
+	 * passage cache rather than built as one String.
 	 * 
-	 * @return      JSON representation of all Passages
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of all Passages
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getPassages() throws WebException {
-		String result = null;
+	@Precompressible(PASSAGE_TABLE)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getPassages(@Context HttpHeaders headers) throws WebException {
+		final WireFormat format = ContentNegotiation.responseFormat(headers);
+		final PassageTextStore.Snapshot snapshot;
 		try {
-			result = PassageService.getInstance().getPassages();
+			snapshot = PassageService.getInstance().loadPassages();
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				PassageService.getInstance().writePassages(snapshot, format, out);
+			}
+		};
+		return Response.ok(output, format.getMediaType()).build();
 	}
 	
 	/**
-	 * This method returns a Passage.
+	 * This method returns a Passage. The response is streamed from the passage cache.
 	 * 
 	 * @param   id  the unique id of the passage to return.
-	 * @return      JSON representation of Passage
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of Passage
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getPassage(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getPassage(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(PASSAGE_TABLE, id);
+		final WireFormat format = ContentNegotiation.responseFormat(headers);
+		final PassageTextStore.Row row;
+		try {
+			row = PassageService.getInstance().loadPassage(id);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				PassageService.getInstance().writePassage(row, format, out);
+			}
+		};
+		return Response.ok(output, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns a Passage with its verse, its translation and every Commentary on
+	 * it, each with its Personality and that personality's Organization, in one response
+	 * read with a fixed number of queries.
+	 * 
+	 * @param   id  the unique id of the passage
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the document
+	 * 
+	 * <pre>{@code
+     * {passage : {...}, reference : "John 3:16", scripture : {...}, translation : {...},
+     *  commentaries : [{commentary : {...}, personality : {...}, organization : {...}}, ...]}
+     * }</pre>
+     * 
+	 * @throws      WebException if there is no such passage (404), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/{id}/document")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getPassageDocument(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(PASSAGE_TABLE, id);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = PassageService.getInstance().getPassageDocument(id, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no passage " + id);
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns the Passages of one translation for a range of verses, in
+	 * canonical order, so that a chapter or a run of verses is read with one request.
+	 * 
+	 * @param   translation  the version of the translation, e.g. KJV
+	 * @param   reference    the verses, e.g. "Genesis 1:1-2:3", "John 3:16-18" or "Psalm 23"
+	 * @param   headers      the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the Passages, in canonical order
+	 * 
+	 * @throws      WebException if a parameter is missing or the reference is malformed (400),
+	 *              if there is no such translation (404), or if an exception was encountered
+	 *              during processing
+	 */
+	@GET
+	@Path("/range")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getPassageRange(@QueryParam("translation") final String translation,
+			@QueryParam("ref") final String reference, @Context HttpHeaders headers) throws WebException {
+		if (translation == null || translation.trim().isEmpty() || reference == null) {
+			throw new WebException(WebException.BAD_REQUEST, "translation and ref are required");
+		}
+		VerseReference verses = null;
+		try {
+			verses = VerseReference.parse(reference);
+		} catch (IllegalArgumentException e) {
+			throw new WebException(WebException.BAD_REQUEST, e.getMessage());
+		}
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = PassageService.getInstance().getPassageRange(translation.trim(), verses, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no translation " + translation);
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method searches the text of the Passages. Every term of the query must occur,
+	 * and the terms of a quoted phrase in order; passages are ranked by BM25.
+	 * 
+	 * @param   q            the query, e.g. {@code "living water"} or {@code faith hope love}
+	 * @param   translation  the version of the translation to search, e.g. KJV; every
+	 *                       translation if absent
+	 * @param   offset       the number of best passages to skip
+	 * @param   limit        the most passages to return, at most 100
+	 * @param   headers      the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the passages found
+	 * 
+	 * <pre>{@code
+     * {total : 12, hits : [{id : 1, score : 7.9, snippet : "...<em>living</em> <em>water</em>...",
+     *                       translationId : 1, scriptureId : 2}, ...]}
+     * }</pre>
+     * 
+	 * @throws      WebException if the query has no terms or a parameter is out of range (400),
+	 *              if there is no such translation (404), or if an exception was encountered
+	 *              during processing
+	 */
+	@GET
+	@Path("/search")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response searchPassages(@QueryParam("q") final String q, @QueryParam("translation") final String translation,
+			@QueryParam("offset") @DefaultValue("0") final int offset, @QueryParam("limit") @DefaultValue("20") final int limit,
+			@Context HttpHeaders headers) throws WebException {
+		if (offset < 0 || offset > MAX_SEARCH_OFFSET || limit < 1 || limit > MAX_SEARCH_LIMIT) {
+			throw new WebException(WebException.BAD_REQUEST, "offset must be 0 to " + MAX_SEARCH_OFFSET +
+					" and limit 1 to " + MAX_SEARCH_LIMIT);
+		}
+		Query query = null;
 		try {
-			result = PassageService.getInstance().getPassage(id);
+			query = Query.parse(q);
+		} catch (IllegalArgumentException e) {
+			throw new WebException(WebException.BAD_REQUEST, e.getMessage());
+		}
+		if (query.isEmpty()) {
+			throw new WebException(WebException.BAD_REQUEST, "q has no words to search for");
+		}
+		String version = translation == null || translation.trim().isEmpty() ? null : translation.trim();
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = PassageService.getInstance().searchPassages(query, version, offset, limit, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no translation " + translation);
+		}
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method adds a new Passage
 	 * 
-	 * @param   passage JSON representation of passage to add
-	 * @return               JSON representation of passage id added
+	 * @param   passage JSON or CBOR representation of passage to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of passage id added
 	 * 
 	 * <pre>{@code
      * passageId : Integer;
@@ -75,57 +245,120 @@ public class PassageResource {
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@PUT
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String addPassage(String scripture) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response addPassage(byte[] scripture, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = PassageService.getInstance().addPassage(scripture);
+			result = PassageService.getInstance().addPassage(scripture, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method updates an existing Passage
 	 * 
-	 * @param   passage JSON representation of passage to update
-	 * @return               JSON representation of passage id updated
+	 * @param   passage JSON or CBOR representation of passage to update
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of passage id updated
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@POST
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String updatePassage(String passage) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response updatePassage(byte[] passage, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = PassageService.getInstance().updatePassage(passage);
+			result = PassageService.getInstance().updatePassage(passage, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method deletes an existing Passage
 	 * 
 	 * @param   id  the unique id of the passage to delete.
-	 * @return      JSON representation of passage id deleted
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of passage id deleted
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */		
 	@DELETE
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String deletePassage(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response deletePassage(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = PassageService.getInstance().deletePassage(id, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method exports all Passages as newline-delimited JSON, one per line, streamed
+	 * from the database as the rows are read.
+	 * 
+	 * @return      NDJSON representation of all Passages
+	 * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */
+	@GET
+	@Path("/export")
+	@Produces(ContentNegotiation.APPLICATION_NDJSON)
+	public Response exportPassages() throws WebException {
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				try {
+					PassageService.getInstance().exportPassages(out);
+				} catch (ServiceException e) {
+					throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+				}
+			}
+		};
+		return Response.ok(output, ContentNegotiation.APPLICATION_NDJSON).build();
+	}
+	
+	/**
+	 * This method adds the Passages in a newline-delimited JSON body, one per line. A line
+	 * that cannot be added is reported and does not fail the request.
+	 * 
+	 * @param   passages NDJSON stream of passages to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of the import result
+	 * 
+	 * <pre>{@code
+     * imported : Integer;
+     * failed : Integer;
+     * errors : [{ line : Integer; reason : String; }];
+     * }</pre>
+     * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */	
+	@POST
+	@Path("/import")
+	@Consumes(ContentNegotiation.APPLICATION_NDJSON)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response importPassages(InputStream passages, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = PassageService.getInstance().deletePassage(id);
+			result = PassageService.getInstance().importPassages(passages, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 }
\ No newline at end of file
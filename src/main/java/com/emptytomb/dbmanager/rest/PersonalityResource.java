@@ -1,17 +1,40 @@
 package com.emptytomb.dbmanager.rest;
 
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.ThumbnailCache;
+import com.emptytomb.dbmanager.domain.PictureInfo;
+import com.emptytomb.dbmanager.json.WireFormat;
 import com.emptytomb.dbmanager.service.PersonalityService;
 import com.emptytomb.dbmanager.service.ServiceException;
+import com.emptytomb.dbmanager.utility.ImageTypes;
+import com.sun.jersey.spi.container.ResourceFilters;
 
 /**
  * The PersonalityResource class implements the CRUD REST end points for the Personality resource.
@@ -20,53 +43,71 @@ import com.emptytomb.dbmanager.service.ServiceException;
  * @version 1.0
  * @since   2016-05-31
  */
+@ResourceFilters(CompressionFilter.class)
 @Path("/personality")
 public class PersonalityResource {
+	private static final String PERSONALITY_TABLE = "personality";
+	private static final int MAX_PICTURE_BYTES = Integer.getInteger("dbmanager.picture.maxBytes", 16 * 1024 * 1024);
+	private static final int PICTURE_MAX_AGE = Integer.getInteger("dbmanager.picture.maxAge", 3600);
+	private static final int PARTIAL_CONTENT = 206;
+	private static final int RANGE_NOT_SATISFIABLE = 416;
+	private static final String RANGE = "Range";
+	private static final String IF_RANGE = "If-Range";
+	private static final String CONTENT_RANGE = "Content-Range";
+	private static final String ACCEPT_RANGES = "Accept-Ranges";
+	
 	/**
 	 * This method returns all Personalities.
 	 * 
-	 * @return      JSON representation of all Personalities
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of all Personalities
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getPersonalities() throws WebException {
-		String result = null;
+	@Precompressible(PERSONALITY_TABLE)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getPersonalities(@Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = PersonalityService.getInstance().getPersonalities();
+			result = PersonalityService.getInstance().getPersonalities(format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method returns a Personality.
 	 * 
 	 * @param   id  the unique id of the personality to return.
-	 * @return      JSON representation of Personality
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of Personality
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getPersonality(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getPersonality(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(PERSONALITY_TABLE, id);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = PersonalityService.getInstance().getPersonality(id);
+			result = PersonalityService.getInstance().getPersonality(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method adds a new Personality
 	 * 
-	 * @param   personality  JSON representation of personality to add
-	 * @return               JSON representation of personality id added
+	 * @param   personality  JSON or CBOR representation of personality to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of personality id added
 	 * 
 	 * <pre>{@code
      * personalityId : Integer;
@@ -75,57 +116,336 @@ public class PersonalityResource {
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@PUT
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String addPersonality(String personality) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response addPersonality(byte[] personality, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = PersonalityService.getInstance().addPersonality(personality);
+			result = PersonalityService.getInstance().addPersonality(personality, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method updates an existing Personality
 	 * 
-	 * @param   personality  JSON representation of personality to update
-	 * @return               JSON representation of personality id updated
+	 * @param   personality  JSON or CBOR representation of personality to update
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of personality id updated
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@POST
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String updatePersonality(String personality) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response updatePersonality(byte[] personality, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = PersonalityService.getInstance().updatePersonality(personality);
+			result = PersonalityService.getInstance().updatePersonality(personality, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method deletes an existing Personality
 	 * 
 	 * @param   id  the unique id of the personality to delete.
-	 * @return      JSON representation of personality id deleted
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of personality id deleted
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */		
 	@DELETE
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String deletePersonaality(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response deletePersonaality(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = PersonalityService.getInstance().deletePersonality(id);
+			result = PersonalityService.getInstance().deletePersonality(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method exports all Personalities as newline-delimited JSON, one per line, streamed
+	 * from the database as the rows are read.
+	 * 
+	 * @return      NDJSON representation of all Personalities
+	 * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */
+	@GET
+	@Path("/export")
+	@Produces(ContentNegotiation.APPLICATION_NDJSON)
+	public Response exportPersonalities() throws WebException {
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				try {
+					PersonalityService.getInstance().exportPersonalities(out);
+				} catch (ServiceException e) {
+					throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+				}
+			}
+		};
+		return Response.ok(output, ContentNegotiation.APPLICATION_NDJSON).build();
+	}
+	
+	/**
+	 * This method adds the Personalities in a newline-delimited JSON body, one per line. A line
+	 * that cannot be added is reported and does not fail the request.
+	 * 
+	 * @param   personalitys NDJSON stream of personalitys to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of the import result
+	 * 
+	 * <pre>{@code
+     * imported : Integer;
+     * failed : Integer;
+     * errors : [{ line : Integer; reason : String; }];
+     * }</pre>
+     * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */	
+	@POST
+	@Path("/import")
+	@Consumes(ContentNegotiation.APPLICATION_NDJSON)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response importPersonalities(InputStream personalitys, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = PersonalityService.getInstance().importPersonalities(personalitys, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns the picture of a Personality as raw bytes, streamed from the blob store,
+	 * in the media type detected from its first bytes, or a thumbnail of it from the disk cache
+	 * if a size is given. A single byte range may be requested with a Range header, and the
+	 * ETag revalidates a cached copy with If-None-Match.
+	 * 
+	 * @param   id  the unique id of the personality whose picture to return.
+	 * @param   size  the longer side of the thumbnail in pixels, one of {@code dbmanager.thumbnail.sizes};
+	 *                0 or absent for the picture itself
+	 * @param   headers  the request headers, for Range, If-Range and If-None-Match
+	 * @return      the picture, the requested range of it, or 304 if the cached copy is current
+	 * 
+	 * @throws      WebException if the size is not configured, the personality has no picture or an
+	 *              exception was encountered during processing
+	 */
+	@GET
+	@Path("/{id}/picture")
+	public Response getPicture(@PathParam("id") final int id, @QueryParam("size") @DefaultValue("0") int size,
+			@Context HttpHeaders headers) throws WebException {
+		ThumbnailCache thumbnails = ThumbnailCache.getInstance();
+		if (size != 0 && !thumbnails.isSize(size)) {
+			throw new WebException(WebException.BAD_REQUEST, "size must be one of " + Arrays.toString(thumbnails.getSizes()));
+		}
+		PictureInfo picture = null;
+		PictureInfo thumbnail = null;
+		try {
+			picture = PersonalityService.getInstance().getPictureInfo(id);
+			if (picture != null && size != 0) {
+				thumbnail = PersonalityService.getInstance().getThumbnailInfo(picture, size);
+			}
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (picture == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no picture for personality " + id);
+		}
+		final String hash = picture.getHash();
+		final String thumbnailKey = thumbnail == null ? null : thumbnail.getHash();
+		if (thumbnail != null) {
+			picture = thumbnail;
+		}
+		EntityTag tag = new EntityTag(picture.getHash());
+		String quotedTag = "\"" + picture.getHash() + "\"";
+		CacheControl cacheControl = new CacheControl();
+		cacheControl.setMaxAge(PICTURE_MAX_AGE);
+		if (matches(headerValue(headers, HttpHeaders.IF_NONE_MATCH), quotedTag)) {
+			return Response.notModified(tag).cacheControl(cacheControl).build();
+		}
+		long total = picture.getLength();
+		ByteRange range = null;
+		String ifRange = headerValue(headers, IF_RANGE);
+		// an If-Range date never matches, there is no Last-Modified to compare it with
+		if (ifRange == null || ifRange.trim().equals(quotedTag)) {
+			range = ByteRange.parse(headerValue(headers, RANGE), total);
+		}
+		if (range == ByteRange.UNSATISFIABLE) {
+			return Response.status(RANGE_NOT_SATISFIABLE).header(CONTENT_RANGE, "bytes */" + total).build();
+		}
+		final long offset = range == null ? 0 : range.getFirst();
+		final long length = range == null ? total : range.getLength();
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				if (thumbnailKey != null) {
+					PersonalityService.getInstance().writeThumbnail(thumbnailKey, offset, length, out);
+				} else {
+					PersonalityService.getInstance().writePicture(hash, offset, length, out);
+				}
+			}
+		};
+		ResponseBuilder builder = range == null ? Response.ok()
+				: Response.status(PARTIAL_CONTENT).header(CONTENT_RANGE, range.toContentRange(total));
+		return builder.entity(output).type(picture.getContentType())
+				.header(HttpHeaders.CONTENT_LENGTH, length)
+				.header(ACCEPT_RANGES, "bytes")
+				.tag(tag)
+				.cacheControl(cacheControl)
+				.build();
+	}
+	
+	/**
+	 * This method replaces the picture of a Personality with the raw bytes of the request body,
+	 * which are streamed to the blob store. The body must be a JPEG, PNG, GIF, WebP or BMP image
+	 * of at most {@code dbmanager.picture.maxBytes} bytes (default 16 MB).
+	 * 
+	 * @param   id  the unique id of the personality whose picture to replace.
+	 * @param   picture  the image
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the result
+	 * 
+	 * @throws      WebException if the personality does not exist, the body is too large or not
+	 *              a supported image, or an exception was encountered during processing
+	 */
+	@PUT
+	@Path("/{id}/picture")
+	@Consumes({"image/*", MediaType.APPLICATION_OCTET_STREAM})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response updatePicture(@PathParam("id") final int id, InputStream picture, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		long length = contentLength(headers);
+		if (length > MAX_PICTURE_BYTES) {
+			throw new WebException(WebException.PAYLOAD_TOO_LARGE, "picture larger than " + MAX_PICTURE_BYTES + " bytes");
+		}
+		BufferedInputStream buffered = new BufferedInputStream(picture);
+		byte[] header = new byte[ImageTypes.HEADER_LENGTH];
+		int count = 0;
+		try {
+			buffered.mark(header.length);
+			for (int n; count < header.length && (n = buffered.read(header, count, header.length - count)) > 0; ) {
+				count += n;
+			}
+			buffered.reset();
+		} catch (IOException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getMessage());
+		}
+		if (ImageTypes.detect(header, count) == null) {
+			throw new WebException(WebException.UNSUPPORTED_MEDIA_TYPE, "picture must be a JPEG, PNG, GIF, WebP or BMP image");
+		}
+		LimitedInputStream in = new LimitedInputStream(buffered, MAX_PICTURE_BYTES);
+		byte[] result = null;
+		try {
+			result = PersonalityService.getInstance().updatePicture(id, in, length, format);
+		} catch (ServiceException e) {
+			if (in.exceeded) {
+				throw new WebException(WebException.PAYLOAD_TOO_LARGE, "picture larger than " + MAX_PICTURE_BYTES + " bytes");
+			}
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no personality " + id);
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	private static String headerValue(HttpHeaders headers, String name) {
+		List<String> values = headers.getRequestHeader(name);
+		return values == null || values.isEmpty() ? null : values.get(0);
+	}
+	
+	// -1 when the body is chunked or the header is not a number
+	private static long contentLength(HttpHeaders headers) {
+		String value = headerValue(headers, HttpHeaders.CONTENT_LENGTH);
+		try {
+			return value == null ? -1 : Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	/*
+	 * True if any entity tag in the If-None-Match header matches, weak comparison as RFC 7232
+	 * requires for GET.
+	 */
+	private static boolean matches(String ifNoneMatch, String quotedTag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+			if (candidate.equals("*") || candidate.equals(quotedTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/*
+	 * Fails the upload as soon as it passes the limit, whether or not a Content-Length was sent.
+	 */
+	private static final class LimitedInputStream extends FilterInputStream {
+		private final long limit;
+		private long count;
+		private boolean exceeded;
+		
+		LimitedInputStream(InputStream in, long limit) {
+			super(in);
+			this.limit = limit;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				counted(1);
+			}
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int offset, int length) throws IOException {
+			int n = super.read(b, offset, length);
+			if (n > 0) {
+				counted(n);
+			}
+			return n;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			counted(skipped);
+			return skipped;
+		}
+		
+		private void counted(long n) throws IOException {
+			count += n;
+			if (count > limit) {
+				exceeded = true;
+				throw new IOException("picture larger than " + limit + " bytes");
+			}
+		}
 	}
 }
\ No newline at end of file
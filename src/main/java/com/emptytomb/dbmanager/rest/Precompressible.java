@@ -0,0 +1,24 @@
+package com.emptytomb.dbmanager.rest;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The Precompressible annotation marks a GET method whose response depends only on the
+ * rows of one table, so that the CompressionFilter may keep its compressed body until the
+ * table changes.
+ * 
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Precompressible {
+	/**
+	 * @return  the name of the table the response is derived from
+	 */
+	String value();
+}
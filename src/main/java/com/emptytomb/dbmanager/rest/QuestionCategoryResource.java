@@ -1,5 +1,9 @@
 package com.emptytomb.dbmanager.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -8,10 +12,17 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.json.WireFormat;
 import com.emptytomb.dbmanager.service.QuestionCategoryService;
 import com.emptytomb.dbmanager.service.ServiceException;
+import com.sun.jersey.spi.container.ResourceFilters;
 
 /**
  * The QuestionCategoryResource class implements the CRUD REST end points for the 
@@ -21,53 +32,63 @@ import com.emptytomb.dbmanager.service.ServiceException;
  * @version 1.0
  * @since   2016-08-01
  */
+@ResourceFilters(CompressionFilter.class)
 @Path("/questioncategory")
 public class QuestionCategoryResource {
+	private static final String QUESTION_CATEGORY_TABLE = "question_category";
+	
 	/**
 	 * This method returns all Question Categories.
 	 * 
-	 * @return      JSON representation of all Question Categories
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of all Question Categories
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getQuestionCategories() throws WebException {
-		String result = null;
+	@Precompressible(QUESTION_CATEGORY_TABLE)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getQuestionCategories(@Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionCategoryService.getInstance().list();
+			result = QuestionCategoryService.getInstance().list(format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method returns a Question Category.
 	 * 
 	 * @param   id  the unique id of the question category to return.
-	 * @return      JSON representation of Category
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of Category
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getQuestionCategory(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getQuestionCategory(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(QUESTION_CATEGORY_TABLE, id);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionCategoryService.getInstance().get(id);
+			result = QuestionCategoryService.getInstance().get(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method adds a new Question Category
 	 * 
-	 * @param   category JSON representation of question category to add
-	 * @return           JSON representation of question category id added
+	 * @param   category JSON or CBOR representation of question category to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return           JSON or CBOR representation of question category id added
 	 * 
 	 * <pre>{@code
      * questionCategoryId : Integer;
@@ -76,57 +97,120 @@ public class QuestionCategoryResource {
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@PUT
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String addQuestionCategory(String category) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response addQuestionCategory(byte[] category, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionCategoryService.getInstance().add(category);
+			result = QuestionCategoryService.getInstance().add(category, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method updates an existing Question Category
 	 * 
-	 * @param   category JSON representation of question category to update
-	 * @return           JSON representation of question category id updated
+	 * @param   category JSON or CBOR representation of question category to update
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return           JSON or CBOR representation of question category id updated
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@POST
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String updateQuestionCategory(String questionCategory) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response updateQuestionCategory(byte[] questionCategory, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionCategoryService.getInstance().update(questionCategory);
+			result = QuestionCategoryService.getInstance().update(questionCategory, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method deletes an existing Question Category
 	 * 
 	 * @param   id  the unique id of the question category to delete.
-	 * @return      JSON representation of question category id deleted
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of question category id deleted
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */		
 	@DELETE
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String deleteQuestionCategory(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response deleteQuestionCategory(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = QuestionCategoryService.getInstance().delete(id, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method exports all QuestionCategories as newline-delimited JSON, one per line, streamed
+	 * from the database as the rows are read.
+	 * 
+	 * @return      NDJSON representation of all QuestionCategories
+	 * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */
+	@GET
+	@Path("/export")
+	@Produces(ContentNegotiation.APPLICATION_NDJSON)
+	public Response exportQuestionCategories() throws WebException {
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				try {
+					QuestionCategoryService.getInstance().exportAll(out);
+				} catch (ServiceException e) {
+					throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+				}
+			}
+		};
+		return Response.ok(output, ContentNegotiation.APPLICATION_NDJSON).build();
+	}
+	
+	/**
+	 * This method adds the QuestionCategories in a newline-delimited JSON body, one per line. A line
+	 * that cannot be added is reported and does not fail the request.
+	 * 
+	 * @param   questionCategorys NDJSON stream of question categorys to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of the import result
+	 * 
+	 * <pre>{@code
+     * imported : Integer;
+     * failed : Integer;
+     * errors : [{ line : Integer; reason : String; }];
+     * }</pre>
+     * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */	
+	@POST
+	@Path("/import")
+	@Consumes(ContentNegotiation.APPLICATION_NDJSON)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response importQuestionCategories(InputStream questionCategorys, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionCategoryService.getInstance().delete(id);
+			result = QuestionCategoryService.getInstance().importAll(questionCategorys, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 }
\ No newline at end of file
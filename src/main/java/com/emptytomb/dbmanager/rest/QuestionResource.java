@@ -1,17 +1,31 @@
 package com.emptytomb.dbmanager.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.json.WireFormat;
 import com.emptytomb.dbmanager.service.QuestionService;
 import com.emptytomb.dbmanager.service.ServiceException;
+import com.sun.jersey.spi.container.ResourceFilters;
 
 /**
  * The QuestionResource class implements the CRUD REST end points for the Question resource.
@@ -20,53 +34,252 @@ import com.emptytomb.dbmanager.service.ServiceException;
  * @version 1.0
  * @since   2016-08-01
  */
+@ResourceFilters(CompressionFilter.class)
 @Path("/question")
 public class QuestionResource {
+	private static final String QUESTION_TABLE = "question";
+	private static final int MAX_PAGE_LIMIT = 500;
+	private static final int DEFAULT_FILTER_LIMIT = 100;
+	
 	/**
-	 * This method returns all Questions.
+	 * This method returns all Questions or, given any parameter, one page of the Questions that
+	 * match every filter given, in id order, with the number of Questions per value of each
+	 * attribute. A filter given more than once matches any of its values. The counts of an
+	 * attribute apply every filter but its own.
 	 * 
-	 * @return      JSON representation of all Questions
+	 * @param   categoryIds      the categories to match
+	 * @param   difficulties     the difficulties to match
+	 * @param   testaments       the testaments to match
+	 * @param   types            the types to match
+	 * @param   minSinceVersion  the least since version to match
+	 * @param   after            the id after which the page starts, 0 for the first page
+	 * @param   limit            the most questions to return, 100 by default and at most 500
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of all Questions, or of the page
 	 * 
-	 * @throws      WebException if an exception was encountered during processing
+	 * <pre>{@code
+     * {total : 131, questions : [{questionId : 7, ...}, ...], next : 212,
+     *  categories : [{id : 2, count : 40}, ...], difficulties : [{name : "Hard", count : 52}, ...],
+     *  testaments : [...], types : [...], sinceVersions : [{name : "1.0", count : 97}, ...]}
+     * }</pre>
+     * 
+	 * @throws      WebException if a parameter is out of range (400), or if an exception was
+	 *              encountered during processing
 	 */
 	@GET
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getQuestions() throws WebException {
-		String result = null;
+	@Precompressible(QUESTION_TABLE)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getQuestions(@QueryParam("categoryId") final List<Integer> categoryIds,
+			@QueryParam("difficulty") final List<String> difficulties, @QueryParam("testament") final List<String> testaments,
+			@QueryParam("type") final List<String> types, @QueryParam("minSinceVersion") final String minSinceVersion,
+			@QueryParam("after") final Integer after, @QueryParam("limit") final Integer limit,
+			@Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		if (categoryIds.isEmpty() && difficulties.isEmpty() && testaments.isEmpty() && types.isEmpty()
+				&& minSinceVersion == null && after == null && limit == null) {
+			try {
+				result = QuestionService.getInstance().getQuestions(format);
+			} catch (ServiceException e) {
+				throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+			}
+			return Response.ok(result, format.getMediaType()).build();
+		}
+		int afterId = after == null ? 0 : after;
+		int pageLimit = limit == null ? DEFAULT_FILTER_LIMIT : limit;
+		if (afterId < 0 || pageLimit < 1 || pageLimit > MAX_PAGE_LIMIT) {
+			throw new WebException(WebException.BAD_REQUEST, "after must not be negative and limit must be 1 to " + MAX_PAGE_LIMIT);
+		}
+		float minVersion = Float.NaN;
+		if (minSinceVersion != null) {
+			try {
+				minVersion = Float.parseFloat(minSinceVersion.trim());
+			} catch (NumberFormatException e) {
+				throw new WebException(WebException.BAD_REQUEST, "minSinceVersion must be a number: " + minSinceVersion);
+			}
+		}
 		try {
-			result = QuestionService.getInstance().getQuestions();
+			result = QuestionService.getInstance().filterQuestions(
+					categoryIds.isEmpty() ? null : categoryIds.toArray(new Integer[categoryIds.size()]),
+					toArray(difficulties), toArray(testaments), toArray(types), minVersion, afterId, pageLimit, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method returns a Question.
 	 * 
 	 * @param   id  the unique id of the question to return.
-	 * @return      JSON representation of Question
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of Question
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getQuestion(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getQuestion(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(QUESTION_TABLE, id);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = QuestionService.getInstance().getQuestion(id, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns a Question together with its choices.
+	 * 
+	 * @param   id  the unique id of the question to return.
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the Question and its choices
+	 * 
+	 * <pre>{@code
+     * {question : {questionId : 7, categoryId : 2, text : "...", ...},
+     *  choices : [{questionChoiceId : 31, questionId : 7, text : "...", correctAnswer : true}, ...]}
+     * }</pre>
+     * 
+	 * @throws      WebException if there is no such question (404), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/{id}/full")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getFullQuestion(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(QUESTION_TABLE, id);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionService.getInstance().getQuestion(id);
+			result = QuestionService.getInstance().getFullQuestion(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no question " + id);
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns one page of the Questions in a category, or in every category, in
+	 * id order, each together with its choices. The first page is requested without after;
+	 * each page gives the after of the next in next.
+	 * 
+	 * @param   categoryId  the unique id of the question category, 0 or none for every category
+	 * @param   after       the id after which the page starts, 0 for the first page
+	 * @param   limit       the most questions to return, at most 500
+	 * @param   headers     the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the page
+	 * 
+	 * <pre>{@code
+     * {questions : [{question : {...}, choices : [{...}, ...]}, ...], next : 57}
+     * }</pre>
+     * 
+	 * @throws      WebException if a parameter is out of range (400), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/full")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getFullQuestions(@QueryParam("categoryId") @DefaultValue("0") final int categoryId,
+			@QueryParam("after") @DefaultValue("0") final int after, @QueryParam("limit") @DefaultValue("50") final int limit,
+			@Context HttpHeaders headers) throws WebException {
+		if (categoryId < 0 || after < 0 || limit < 1 || limit > MAX_PAGE_LIMIT) {
+			throw new WebException(WebException.BAD_REQUEST, "categoryId and after must not be negative and limit must be 1 to " + MAX_PAGE_LIMIT);
+		}
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = QuestionService.getInstance().getFullQuestions(categoryId, after, limit, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method counts the choice a quiz client picked for a Question, and tells whether it
+	 * is a correct answer. Answers are counted in memory and added to the statistics every few
+	 * seconds, so they show in the statistics of other instances after a short delay.
+	 * 
+	 * @param   id      the unique id of the question answered
+	 * @param   answer  JSON or CBOR representation of the answer
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the answer
+	 * 
+	 * <pre>{@code
+     * request:  {questionChoiceId : 31}
+     * response: {questionId : 7, questionChoiceId : 31, correctAnswer : true}
+     * }</pre>
+     * 
+	 * @throws      WebException if the choice is not one of the question's (400), if there is
+	 *              no such question (404), or if an exception was encountered during processing
+	 */	
+	@POST
+	@Path("/{id}/answer")
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response answerQuestion(@PathParam("id") final int id, byte[] answer, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = QuestionService.getInstance().answerQuestion(id, answer, requestFormat, responseFormat);
+		} catch (IllegalArgumentException e) {
+			throw new WebException(WebException.BAD_REQUEST, e.getMessage());
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no question " + id);
+		}
+		return Response.ok(result, responseFormat.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns the answer statistics of a Question: the number of answers, the
+	 * percent answered correctly (its item difficulty), and the picks of each choice.
+	 * 
+	 * @param   id  the unique id of the question
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the statistics
+	 * 
+	 * <pre>{@code
+     * {questionId : 7, answers : 1520, correct : 988, percentCorrect : 65.0,
+     *  choices : [{questionChoiceId : 31, text : "...", correctAnswer : true, picks : 988, percent : 65.0}, ...]}
+     * }</pre>
+     * 
+	 * @throws      WebException if there is no such question (404), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/{id}/stats")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getQuestionStats(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = QuestionService.getInstance().getQuestionStats(id, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no question " + id);
+		}
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method adds a new Question
 	 * 
-	 * @param   question JSON representation of question to add
-	 * @return               JSON representation of question id added
+	 * @param   question JSON or CBOR representation of question to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of question id added
 	 * 
 	 * <pre>{@code
      * passageId : Integer;
@@ -75,57 +288,124 @@ public class QuestionResource {
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@PUT
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String addQuestion(String question) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response addQuestion(byte[] question, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionService.getInstance().addQuestion(question);
+			result = QuestionService.getInstance().addQuestion(question, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method updates an existing Question
 	 * 
-	 * @param   question JSON representation of question to update
-	 * @return               JSON representation of question id updated
+	 * @param   question JSON or CBOR representation of question to update
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of question id updated
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@POST
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String updateQuestion(String question) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response updateQuestion(byte[] question, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionService.getInstance().updateQuestion(question);
+			result = QuestionService.getInstance().updateQuestion(question, requestFormat, responseFormat);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method deletes an existing Question
 	 * 
 	 * @param   id  the unique id of the question to delete.
-	 * @return      JSON representation of question id deleted
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of question id deleted
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */		
 	@DELETE
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String deleteQuestion(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response deleteQuestion(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = QuestionService.getInstance().deleteQuestion(id);
+			result = QuestionService.getInstance().deleteQuestion(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method exports all Questions as newline-delimited JSON, one per line, streamed
+	 * from the database as the rows are read.
+	 * 
+	 * @return      NDJSON representation of all Questions
+	 * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */
+	@GET
+	@Path("/export")
+	@Produces(ContentNegotiation.APPLICATION_NDJSON)
+	public Response exportQuestions() throws WebException {
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				try {
+					QuestionService.getInstance().exportQuestions(out);
+				} catch (ServiceException e) {
+					throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+				}
+			}
+		};
+		return Response.ok(output, ContentNegotiation.APPLICATION_NDJSON).build();
+	}
+	
+	/**
+	 * This method adds the Questions in a newline-delimited JSON body, one per line. A line
+	 * that cannot be added is reported and does not fail the request.
+	 * 
+	 * @param   questions NDJSON stream of questions to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of the import result
+	 * 
+	 * <pre>{@code
+     * imported : Integer;
+     * failed : Integer;
+     * errors : [{ line : Integer; reason : String; }];
+     * }</pre>
+     * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */	
+	@POST
+	@Path("/import")
+	@Consumes(ContentNegotiation.APPLICATION_NDJSON)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response importQuestions(InputStream questions, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = QuestionService.getInstance().importQuestions(questions, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+
+	private static String[] toArray(List<String> values) {
+		return values.isEmpty() ? null : values.toArray(new String[values.size()]);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.emptytomb.dbmanager.rest;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.emptytomb.dbmanager.cache.QuizIndex;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.service.QuizService;
+import com.emptytomb.dbmanager.service.ServiceException;
+import com.sun.jersey.spi.container.ResourceFilters;
+
+/**
+ * The QuizResource class implements the REST end point that draws quizzes from the Questions.
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+@ResourceFilters(CompressionFilter.class)
+@Path("/quiz")
+public class QuizResource {
+	private static final int MAX_QUIZ_COUNT = 100;
+	// new seeds keep to 53 bits, so that a JavaScript client reads them back exactly
+	private static final int SEED_SHIFT = 64 - 53;
+
+	/**
+	 * This method returns a quiz of Questions drawn at random without replacement, each with
+	 * its choices. Every attribute given must match; stratify shares the quiz as evenly as
+	 * possible between the values of one attribute. The quiz gives the seed it was drawn with,
+	 * and the same seed draws the same quiz again as long as the Questions are unchanged. New
+	 * seeds are below 2^53, so they survive a JavaScript client's numbers.
+	 *
+	 * @param   count       the number of questions, at most 100
+	 * @param   categoryId  the category to draw from, 0 or none for every category
+	 * @param   difficulty  the difficulty to draw from, none for every difficulty
+	 * @param   testament   the testament to draw from, none for every testament
+	 * @param   type        the type to draw from, none for every type
+	 * @param   stratify    category, difficulty, testament or type, or none to draw uniformly
+	 * @param   seed        the seed to draw with, none for a new quiz
+	 * @param   headers     the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the Quiz
+	 *
+	 * <pre>{@code
+     * {seed : 4830170362912657,
+     *  questions : [{question : {questionId : 7, ...}, choices : [{...}, ...]}, ...]}
+     * }</pre>
+     *
+	 * @throws      WebException if a parameter is out of range (400), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getQuiz(@QueryParam("count") @DefaultValue("10") final int count,
+			@QueryParam("categoryId") @DefaultValue("0") final int categoryId, @QueryParam("difficulty") final String difficulty,
+			@QueryParam("testament") final String testament, @QueryParam("type") final String type,
+			@QueryParam("stratify") final String stratify, @QueryParam("seed") final String seed,
+			@Context HttpHeaders headers) throws WebException {
+		if (count < 1 || count > MAX_QUIZ_COUNT || categoryId < 0) {
+			throw new WebException(WebException.BAD_REQUEST, "count must be 1 to " + MAX_QUIZ_COUNT + " and categoryId must not be negative");
+		}
+		QuizIndex.Stratum stratum = null;
+		if (!isBlank(stratify)) {
+			try {
+				stratum = QuizIndex.Stratum.valueOf(stratify.trim().toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				throw new WebException(WebException.BAD_REQUEST, "stratify must be category, difficulty, testament or type");
+			}
+		}
+		long quizSeed;
+		try {
+			quizSeed = isBlank(seed) ? ThreadLocalRandom.current().nextLong() >>> SEED_SHIFT : Long.parseLong(seed.trim());
+		} catch (NumberFormatException e) {
+			throw new WebException(WebException.BAD_REQUEST, "seed must be a long: " + seed);
+		}
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = QuizService.getInstance().getQuiz(categoryId, isBlank(difficulty) ? null : difficulty,
+					isBlank(testament) ? null : testament, isBlank(type) ? null : type, stratum, count, quizSeed, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.trim().isEmpty();
+	}
+}
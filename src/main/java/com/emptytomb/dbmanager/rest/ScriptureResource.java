@@ -1,5 +1,9 @@
 package com.emptytomb.dbmanager.rest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -8,10 +12,18 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.json.WireFormat;
 import com.emptytomb.dbmanager.service.ScriptureService;
 import com.emptytomb.dbmanager.service.ServiceException;
+import com.emptytomb.dbmanager.utility.VerseReference;
+import com.sun.jersey.spi.container.ResourceFilters;
 
 /**
  * The ScriptureResource class implements the CRUD REST end points for the Scripture resource.
@@ -20,53 +32,185 @@ import com.emptytomb.dbmanager.service.ServiceException;
  * @version 1.0
  * @since   2016-07-01
  */
+@ResourceFilters(CompressionFilter.class)
 @Path("/scripture")
 public class ScriptureResource {
+	private static final String SCRIPTURE_TABLE = "scripture";
+	
 	/**
 	 * This method returns all Scriptures.
 	 * 
-	 * @return      JSON representation of all Scriptures
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of all Scriptures
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getScriptures() throws WebException {
-		String result = null;
+	@Precompressible(SCRIPTURE_TABLE)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getScriptures(@Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = ScriptureService.getInstance().getScriptures();
+			result = ScriptureService.getInstance().getScriptures(format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method returns a Scripture.
 	 * 
 	 * @param   id  the unique id of the scripture to return.
-	 * @return      JSON representation of Scripture
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of Scripture
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */
 	@GET
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String getScripture(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getScripture(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		HotKeys.getInstance().record(SCRIPTURE_TABLE, id);
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = ScriptureService.getInstance().getScripture(id);
+			result = ScriptureService.getInstance().getScripture(id, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns a verse with its Passage in every translation, for reading
+	 * translations side by side.
+	 * 
+	 * @param   id  the unique id of the scripture
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the verse and its passages
+	 * 
+	 * <pre>{@code
+     * {scriptureId : 26137, reference : "John 3:16",
+     *  passages : [{passageId : 1, translationId : 1, version : "KJV", text : "For God so loved..."}, ...]}
+     * }</pre>
+     * 
+	 * @throws      WebException if there is no such scripture (404), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/{id}/passages")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getParallelPassages(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = ScriptureService.getInstance().getParallelPassages(id, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no scripture " + id);
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns the number of chapters of every book and the number of verses of
+	 * every chapter, in canonical order.
+	 * 
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the structure of each book
+	 * 
+	 * <pre>{@code
+     * [{book : 1, name : "Genesis", chapters : 50, verses : [31, 25, ...]}, ...]
+     * }</pre>
+	 */
+	@GET
+	@Path("/structure")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getStructure(@Context HttpHeaders headers) {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		return Response.ok(ScriptureService.getInstance().getStructure(format), format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns the Scripture of a single verse, found without a database read
+	 * once the reference index is loaded.
+	 * 
+	 * @param   reference  the verse, e.g. "John 3:16", "Jn 3.16" or "Jude 5"
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of Scripture
+	 * 
+	 * @throws      WebException if the reference is malformed or not a single verse (400), if
+	 *              there is no scripture for the verse (404), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/ref/{reference}")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getScriptureByReference(@PathParam("reference") final String reference, @Context HttpHeaders headers) throws WebException {
+		VerseReference verse = null;
+		try {
+			verse = VerseReference.parse(reference);
+		} catch (IllegalArgumentException e) {
+			throw new WebException(WebException.BAD_REQUEST, e.getMessage());
+		}
+		if (!verse.isSingleVerse()) {
+			throw new WebException(WebException.BAD_REQUEST, "not a single verse: " + verse);
+		}
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = ScriptureService.getInstance().getScriptureByReference(verse, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		if (result == null) {
+			throw new WebException(WebException.RESOURCE_NOT_FOUND, "no scripture for " + verse);
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method returns the verses of a reference, in canonical order, each with its
+	 * Passage in every translation.
+	 * 
+	 * @param   reference  the verses, e.g. "John 3:16", "Genesis 1:1-2:3" or "Psalm 23"
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of the verses and their passages, in canonical
+	 *              order; verses without a scripture row are left out
+	 * 
+	 * @throws      WebException if the reference is malformed (400), or if an exception was
+	 *              encountered during processing
+	 */
+	@GET
+	@Path("/ref/{reference}/passages")
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response getParallelRange(@PathParam("reference") final String reference, @Context HttpHeaders headers) throws WebException {
+		VerseReference verses = null;
+		try {
+			verses = VerseReference.parse(reference);
+		} catch (IllegalArgumentException e) {
+			throw new WebException(WebException.BAD_REQUEST, e.getMessage());
+		}
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = ScriptureService.getInstance().getParallelRange(verses, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
 	}
 	
 	/**
 	 * This method adds a new Scripture
 	 * 
-	 * @param   scripture JSON representation of scripture to add
-	 * @return               JSON representation of scripture id added
+	 * @param   scripture JSON or CBOR representation of scripture to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of scripture id added
 	 * 
 	 * <pre>{@code
      * scriptureId : Integer;
@@ -75,57 +219,126 @@ public class ScriptureResource {
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@PUT
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String addScripture(String scripture) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response addScripture(byte[] scripture, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = ScriptureService.getInstance().addScripture(scripture);
+			result = ScriptureService.getInstance().addScripture(scripture, requestFormat, responseFormat);
 		} catch (ServiceException e) {
-			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+			throw new WebException(writeStatus(e), e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method updates an existing Scripture
 	 * 
-	 * @param   scripture JSON representation of scripture to update
-	 * @return               JSON representation of scripture id updated
+	 * @param   scripture JSON or CBOR representation of scripture to update
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of scripture id updated
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */	
 	@POST
-	@Consumes(MediaType.APPLICATION_JSON)
-	@Produces(MediaType.APPLICATION_JSON)
-	public String updateScripture(String scripture) throws WebException {
-		String result = null;
+	@Consumes({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response updateScripture(byte[] scripture, @Context HttpHeaders headers) throws WebException {
+		WireFormat requestFormat = ContentNegotiation.requestFormat(headers);
+		WireFormat responseFormat = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = ScriptureService.getInstance().updateScripture(scripture);
+			result = ScriptureService.getInstance().updateScripture(scripture, requestFormat, responseFormat);
 		} catch (ServiceException e) {
-			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+			throw new WebException(writeStatus(e), e.getReason());
 		}
-		return result;
+		return Response.ok(result, responseFormat.getMediaType()).build();
 	}
 	
 	/**
 	 * This method deletes an existing Scripture
 	 * 
 	 * @param   id  the unique id of the scripture to delete.
-	 * @return      JSON representation of scripture id deleted
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return      JSON or CBOR representation of scripture id deleted
 	 * 
 	 * @throws      WebException if an exception was encountered during processing
 	 */		
 	@DELETE
 	@Path("/{id}")
-	@Produces(MediaType.APPLICATION_JSON)
-	public String deleteScripture(@PathParam("id") final int id) throws WebException {
-		String result = null;
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response deleteScripture(@PathParam("id") final int id, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
+		try {
+			result = ScriptureService.getInstance().deleteScripture(id, format);
+		} catch (ServiceException e) {
+			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+		}
+		return Response.ok(result, format.getMediaType()).build();
+	}
+	
+	/**
+	 * This method exports all Scriptures as newline-delimited JSON, one per line, streamed
+	 * from the database as the rows are read.
+	 * 
+	 * @return      NDJSON representation of all Scriptures
+	 * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */
+	@GET
+	@Path("/export")
+	@Produces(ContentNegotiation.APPLICATION_NDJSON)
+	public Response exportScriptures() throws WebException {
+		StreamingOutput output = new StreamingOutput() {
+			@Override
+			public void write(OutputStream out) throws IOException {
+				try {
+					ScriptureService.getInstance().exportScriptures(out);
+				} catch (ServiceException e) {
+					throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
+				}
+			}
+		};
+		return Response.ok(output, ContentNegotiation.APPLICATION_NDJSON).build();
+	}
+	
+	/**
+	 * This method adds the Scriptures in a newline-delimited JSON body, one per line. A line
+	 * that cannot be added is reported and does not fail the request.
+	 * 
+	 * @param   scriptures NDJSON stream of scriptures to add
+	 * @param   headers  the request headers, used to negotiate JSON or CBOR
+	 * @return               JSON or CBOR representation of the import result
+	 * 
+	 * <pre>{@code
+     * imported : Integer;
+     * failed : Integer;
+     * errors : [{ line : Integer; reason : String; }];
+     * }</pre>
+     * 
+	 * @throws      WebException if an exception was encountered during processing
+	 */	
+	@POST
+	@Path("/import")
+	@Consumes(ContentNegotiation.APPLICATION_NDJSON)
+	@Produces({MediaType.APPLICATION_JSON, WireFormat.APPLICATION_CBOR})
+	public Response importScriptures(InputStream scriptures, @Context HttpHeaders headers) throws WebException {
+		WireFormat format = ContentNegotiation.responseFormat(headers);
+		byte[] result = null;
 		try {
-			result = ScriptureService.getInstance().deleteScripture(id);
+			result = ScriptureService.getInstance().importScriptures(scriptures, format);
 		} catch (ServiceException e) {
 			throw new WebException(WebException.INTERNAL_SERVER_ERROR, e.getReason());
 		}
-		return result;
+		return Response.ok(result, format.getMediaType()).build();
+	}
+
+	// a verse the versification does not have is the client's error
+	private static int writeStatus(ServiceException e) {
+		return e.getException() instanceof IllegalArgumentException
+				? WebException.BAD_REQUEST : WebException.INTERNAL_SERVER_ERROR;
 	}
 }
\ No newline at end of file
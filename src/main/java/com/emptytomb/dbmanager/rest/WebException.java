@@ -6,7 +6,10 @@ import javax.ws.rs.core.Response;
 
 public class WebException extends WebApplicationException {
   private static final long serialVersionUID = 1L;
+  public static final int BAD_REQUEST = 400;
   public static final int RESOURCE_NOT_FOUND = 404;
+  public static final int PAYLOAD_TOO_LARGE = 413;
+  public static final int UNSUPPORTED_MEDIA_TYPE = 415;
   public static final int INTERNAL_SERVER_ERROR = 500;
   
   public WebException(int statusCode, String msg) {
@@ -0,0 +1,510 @@
+package com.emptytomb.dbmanager.search;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.emptytomb.dbmanager.cache.ManagedCache;
+
+/**
+* The ConcordanceIndex class is an in-process concordance of the passages of each
+* translation: for every word, the scripture id of every verse it occurs in, once per
+* occurrence, in ascending order.
+*
+* <p>A translation is indexed as a whole on first use by a fork/join pass over its passages,
+* each task tokenizing a run of passages into a local word list, the lists merged as the
+* tasks join. The postings are then one exact-size int array per word, about 4 bytes per
+* word of text, and a small open-addressing int table maps each passage to its scripture id
+* so that a changed passage can be taken out again.</p>
+*
+* <p>The index is registered with the CacheManager under the passage table so that writes
+* seen in the change log mark passages dirty. The owner reindexes dirty passages one by one
+* before each lookup; a translation in which two passages share a verse, or after too many
+* writes to replay, is indexed again as a whole. It is not written to snapshots.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ConcordanceIndex implements ManagedCache {
+  private static final int MAX_DIRTY = 4096;
+  // passages tokenized by one fork/join task before it stops splitting
+  private static final int LEAF_PASSAGES = 512;
+  private static final int DELETED = -1;
+  private static final long STALE = -1;
+
+  private final String name;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Integer, Translation> translations = new HashMap<Integer, Translation>();
+  private long generation = 0;
+  private int[] dirty = new int[64];
+  private int dirtyCount = 0;
+
+  // the concordance of one translation
+  private static final class Translation {
+	  private final Map<String, int[]> postings;
+	  private int[] passageIds;  // 0 when empty
+	  private int[] scriptureIds;  // DELETED once the passage is taken out
+	  private int passageCount = 0;
+	  private long generation;
+
+	  Translation(Map<String, int[]> postings, int passages, long generation) {
+		  this.postings = postings;
+		  int capacity = Integer.highestOneBit(Math.max(passages, 8) * 2 - 1) << 1;
+		  passageIds = new int[capacity];
+		  scriptureIds = new int[capacity];
+		  this.generation = generation;
+	  }
+
+	  int getScriptureId(int passageId) {
+		  int mask = passageIds.length - 1;
+		  for (int i = slot(passageId, passageIds.length); passageIds[i] != 0; i = (i + 1) & mask) {
+			  if (passageIds[i] == passageId) {
+				  return scriptureIds[i];
+			  }
+		  }
+		  return DELETED;
+	  }
+
+	  void setScriptureId(int passageId, int scriptureId) {
+		  if ((passageCount + 1) * 2 > passageIds.length) {
+			  int[] oldPassageIds = passageIds;
+			  int[] oldScriptureIds = scriptureIds;
+			  passageIds = new int[oldPassageIds.length * 2];
+			  scriptureIds = new int[oldPassageIds.length * 2];
+			  passageCount = 0;
+			  for (int i = 0; i < oldPassageIds.length; i++) {
+				  if (oldPassageIds[i] != 0 && oldScriptureIds[i] != DELETED) {
+					  setScriptureId(oldPassageIds[i], oldScriptureIds[i]);
+				  }
+			  }
+		  }
+		  int mask = passageIds.length - 1;
+		  int i = slot(passageId, passageIds.length);
+		  while (passageIds[i] != 0 && passageIds[i] != passageId) {
+			  i = (i + 1) & mask;
+		  }
+		  if (passageIds[i] == 0) {
+			  passageIds[i] = passageId;
+			  passageCount++;
+		  }
+		  scriptureIds[i] = scriptureId;
+	  }
+
+	  boolean hasScripture(int scriptureId) {
+		  for (int i = 0; i < passageIds.length; i++) {
+			  if (passageIds[i] != 0 && scriptureIds[i] == scriptureId) {
+				  return true;
+			  }
+		  }
+		  return false;
+	  }
+
+	  long estimatedBytes() {
+		  long bytes = 8L * passageIds.length;
+		  for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+			  // map entry, key and array headers
+			  bytes += 96 + 2L * entry.getKey().length() + 4L * entry.getValue().length;
+		  }
+		  return bytes;
+	  }
+
+	  private static int slot(int passageId, int capacity) {
+		  return (passageId * 0x9E3779B9 >>> 7) & (capacity - 1);
+	  }
+  }
+
+  // a growable int array, the word list of a fork/join task
+  private static final class IntList {
+	  private int[] values = new int[4];
+	  private int size = 0;
+
+	  void add(int value) {
+		  if (size == values.length) {
+			  values = Arrays.copyOf(values, size * 2);
+		  }
+		  values[size++] = value;
+	  }
+
+	  void addAll(IntList other) {
+		  if (size + other.size > values.length) {
+			  values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+		  }
+		  System.arraycopy(other.values, 0, values, size, other.size);
+		  size += other.size;
+	  }
+
+	  int[] toSortedArray() {
+		  int[] result = Arrays.copyOf(values, size);
+		  Arrays.sort(result);
+		  return result;
+	  }
+  }
+
+  // tokenizes passages from..to into a map of word to scripture ids, splitting in halves
+  private static final class BuildTask extends RecursiveTask<Map<String, IntList>> {
+	  private static final long serialVersionUID = 1L;
+	  private final int[] scriptureIds;
+	  private final String[] texts;
+	  private final int from;
+	  private final int to;
+
+	  BuildTask(int[] scriptureIds, String[] texts, int from, int to) {
+		  this.scriptureIds = scriptureIds;
+		  this.texts = texts;
+		  this.from = from;
+		  this.to = to;
+	  }
+
+	  @Override
+	  protected Map<String, IntList> compute() {
+		  if (to - from <= LEAF_PASSAGES) {
+			  Map<String, IntList> words = new HashMap<String, IntList>();
+			  for (int i = from; i < to; i++) {
+				  Tokenizer tokenizer = new Tokenizer(texts[i]);
+				  while (tokenizer.next()) {
+					  IntList list = words.get(tokenizer.getTerm());
+					  if (list == null) {
+						  list = new IntList();
+						  words.put(tokenizer.getTerm(), list);
+					  }
+					  list.add(scriptureIds[i]);
+				  }
+			  }
+			  return words;
+		  }
+		  int middle = (from + to) >>> 1;
+		  BuildTask left = new BuildTask(scriptureIds, texts, from, middle);
+		  left.fork();
+		  Map<String, IntList> right = new BuildTask(scriptureIds, texts, middle, to).compute();
+		  Map<String, IntList> merged = left.join();
+		  // merge the smaller map into the larger
+		  if (merged.size() < right.size()) {
+			  Map<String, IntList> swap = merged;
+			  merged = right;
+			  right = swap;
+		  }
+		  for (Map.Entry<String, IntList> entry : right.entrySet()) {
+			  IntList list = merged.get(entry.getKey());
+			  if (list == null) {
+				  merged.put(entry.getKey(), entry.getValue());
+			  } else {
+				  list.addAll(entry.getValue());
+			  }
+		  }
+		  return merged;
+	  }
+  }
+
+  public ConcordanceIndex(String name) {
+	  this.name = name;
+  }
+
+  @Override
+  public String getName() {
+	  return name;
+  }
+
+  /**
+   * @return  the current invalidation stamp, to be passed to {@link #load(int, int[], int[], String[], int, long)}
+  */
+  public long stamp() {
+	  lock.readLock().lock();
+	  try {
+		  return generation;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @param   translationId  the unique id of a translation
+   * @return                 true if the translation is indexed and can be kept current by
+   *                         reindexing its dirty passages
+  */
+  public boolean isLoaded(int translationId) {
+	  lock.readLock().lock();
+	  try {
+		  Translation translation = translations.get(translationId);
+		  return translation != null && translation.generation == generation;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * This method indexes every passage of a translation, replacing what was indexed before.
+   * If the index was invalidated after the specified stamp was taken, the passages are still
+   * used but the translation stays stale.
+   *
+   * @param   translationId  the unique id of the translation
+   * @param   passageIds     the unique id of each passage
+   * @param   scriptureIds   the scripture id of each passage
+   * @param   texts          the text of each passage
+   * @param   count          the number of passages
+   * @param   stamp          the value returned by {@link #stamp()} before the passages were read
+  */
+  public void load(int translationId, int[] passageIds, int[] scriptureIds, String[] texts, int count, long stamp) {
+	  // the common pool belongs to the JVM, so no thread of this webapp outlives a redeploy
+	  Map<String, IntList> words = ForkJoinPool.commonPool().invoke(new BuildTask(scriptureIds, texts, 0, count));
+	  Map<String, int[]> postings = new HashMap<String, int[]>(words.size() * 4 / 3 + 1);
+	  for (Map.Entry<String, IntList> entry : words.entrySet()) {
+		  postings.put(entry.getKey(), entry.getValue().toSortedArray());
+	  }
+	  Translation translation = new Translation(postings, count, stamp);
+	  for (int i = 0; i < count; i++) {
+		  translation.setScriptureId(passageIds[i], scriptureIds[i]);
+	  }
+	  int[] verses = Arrays.copyOf(scriptureIds, count);
+	  Arrays.sort(verses);
+	  for (int i = 1; i < count; i++) {
+		  if (verses[i] == verses[i - 1]) {
+			  // taking either passage out would take out both; never reindex one by one
+			  translation.generation = STALE;
+			  break;
+		  }
+	  }
+	  lock.writeLock().lock();
+	  try {
+		  translations.put(translationId, translation);
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method reindexes a passage, in whichever translation it was indexed before and
+   * the one it belongs to now.
+   *
+   * @param   passageId      the unique id of the passage
+   * @param   translationId  the translation id of the passage
+   * @param   scriptureId    the scripture id of the passage
+   * @param   text           the text of the passage
+  */
+  public void update(int passageId, int translationId, int scriptureId, String text) {
+	  lock.writeLock().lock();
+	  try {
+		  removePassage(passageId);
+		  Translation translation = translations.get(translationId);
+		  if (translation == null) {
+			  return;
+		  }
+		  if (translation.hasScripture(scriptureId)) {
+			  translation.generation = STALE;
+		  }
+		  translation.setScriptureId(passageId, scriptureId);
+		  Map<String, Integer> counts = new HashMap<String, Integer>();
+		  Tokenizer tokenizer = new Tokenizer(text);
+		  while (tokenizer.next()) {
+			  Integer count = counts.get(tokenizer.getTerm());
+			  counts.put(tokenizer.getTerm(), count == null ? 1 : count + 1);
+		  }
+		  for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+			  int[] posting = translation.postings.get(entry.getKey());
+			  if (posting == null) {
+				  posting = new int[0];
+			  }
+			  int at = upperBound(posting, scriptureId);
+			  int[] grown = new int[posting.length + entry.getValue()];
+			  System.arraycopy(posting, 0, grown, 0, at);
+			  Arrays.fill(grown, at, at + entry.getValue(), scriptureId);
+			  System.arraycopy(posting, at, grown, at + entry.getValue(), posting.length - at);
+			  translation.postings.put(entry.getKey(), grown);
+		  }
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method takes a deleted passage out of the index.
+   *
+   * @param   passageId  the unique id of the passage
+  */
+  public void remove(int passageId) {
+	  lock.writeLock().lock();
+	  try {
+		  removePassage(passageId);
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * @param   translationId  the unique id of an indexed translation
+   * @param   word           a term as produced by the Tokenizer
+   * @return                 the scripture id of every verse the word occurs in, once per
+   *                         occurrence, in ascending order; empty if there are none
+  */
+  public int[] get(int translationId, String word) {
+	  lock.readLock().lock();
+	  try {
+		  Translation translation = translations.get(translationId);
+		  int[] posting = translation == null ? null : translation.postings.get(word);
+		  return posting == null ? new int[0] : posting;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * This method returns, and forgets, the ids of the passages changed since they were indexed.
+   *
+   * @return  the dirty ids
+  */
+  public int[] drainDirty() {
+	  lock.writeLock().lock();
+	  try {
+		  int[] result = Arrays.copyOf(dirty, dirtyCount);
+		  dirtyCount = 0;
+		  return result;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidate(int id) {
+	  lock.writeLock().lock();
+	  try {
+		  if (dirtyCount == MAX_DIRTY) {
+			  // too many to replay; every translation is indexed again on its next use
+			  generation++;
+			  dirtyCount = 0;
+			  return;
+		  }
+		  if (dirtyCount == dirty.length) {
+			  dirty = Arrays.copyOf(dirty, dirty.length * 2);
+		  }
+		  dirty[dirtyCount++] = id;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidateAll() {
+	  lock.writeLock().lock();
+	  try {
+		  generation++;
+		  dirtyCount = 0;
+		  translations.clear();
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public int size() {
+	  lock.readLock().lock();
+	  try {
+		  int words = 0;
+		  for (Translation translation : translations.values()) {
+			  words += translation.postings.size();
+		  }
+		  return words;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long estimatedBytes() {
+	  lock.readLock().lock();
+	  try {
+		  long bytes = 4L * dirty.length;
+		  for (Translation translation : translations.values()) {
+			  bytes += translation.estimatedBytes();
+		  }
+		  return bytes;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long offHeapBytes() {
+	  return 0;
+  }
+
+  @Override
+  public int sampleAccessTimes(long[] accessTimes, long[] sizes) {
+	  // a partial concordance would miss verses; it is never shed
+	  return 0;
+  }
+
+  @Override
+  public long evictColderThan(long accessTime) {
+	  return 0;
+  }
+
+  @Override
+  public void pin(int[] ids) {
+	  // Never shed, so nothing to pin
+  }
+
+  @Override
+  public void save(DataOutputStream out) throws IOException {
+	  // rebuilt on first use instead
+  }
+
+  @Override
+  public void restore(ByteBuffer in) throws IOException {
+	  // nothing saved
+  }
+
+  // takes the verse of the passage out of every word of its translation; the write lock is held
+  private void removePassage(int passageId) {
+	  for (Translation translation : translations.values()) {
+		  int scriptureId = translation.getScriptureId(passageId);
+		  if (scriptureId == DELETED) {
+			  continue;
+		  }
+		  translation.setScriptureId(passageId, DELETED);
+		  if (translation.hasScripture(scriptureId)) {
+			  // the other passage of the verse lost its words too
+			  translation.generation = STALE;
+		  }
+		  Iterator<Map.Entry<String, int[]>> entries = translation.postings.entrySet().iterator();
+		  while (entries.hasNext()) {
+			  Map.Entry<String, int[]> entry = entries.next();
+			  int[] posting = entry.getValue();
+			  int from = upperBound(posting, scriptureId - 1);
+			  int to = upperBound(posting, scriptureId);
+			  if (from == to) {
+				  continue;
+			  }
+			  if (to - from == posting.length) {
+				  entries.remove();
+			  } else {
+				  int[] shrunk = new int[posting.length - (to - from)];
+				  System.arraycopy(posting, 0, shrunk, 0, from);
+				  System.arraycopy(posting, to, shrunk, from, posting.length - to);
+				  entry.setValue(shrunk);
+			  }
+		  }
+	  }
+  }
+
+  // the index of the first value greater than the specified value
+  private static int upperBound(int[] values, int value) {
+	  int low = 0;
+	  int high = values.length;
+	  while (low < high) {
+		  int middle = (low + high) >>> 1;
+		  if (values[middle] <= value) {
+			  low = middle + 1;
+		  } else {
+			  high = middle;
+		  }
+	  }
+	  return low;
+  }
+}
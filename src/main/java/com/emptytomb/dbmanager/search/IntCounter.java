@@ -0,0 +1,104 @@
+package com.emptytomb.dbmanager.search;
+
+import java.util.Arrays;
+
+/**
+ * The IntCounter class counts occurrences of int keys, e.g. the hits of a search by
+ * personality id, in an open-addressing table of two int arrays instead of a map of boxed
+ * Integers.
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public final class IntCounter {
+	private int[] keys = new int[32];
+	private int[] counts = new int[32];  // 0 when the slot is empty
+	private int size = 0;
+
+	/**
+	 * This method adds to the count of the specified key.
+	 *
+	 * @param   key     the key
+	 * @param   amount  the amount to add, at least 1
+	 */
+	public void add(int key, int amount) {
+		if ((size + 1) * 2 > keys.length) {
+			grow();
+		}
+		int mask = keys.length - 1;
+		int i = mix(key) & mask;
+		while (counts[i] != 0 && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		if (counts[i] == 0) {
+			keys[i] = key;
+			size++;
+		}
+		counts[i] += amount;
+	}
+
+	/**
+	 * @param   key  the key
+	 * @return       the count of the key, 0 if it was never added
+	 */
+	public int get(int key) {
+		int mask = keys.length - 1;
+		for (int i = mix(key) & mask; counts[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				return counts[i];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return  the number of distinct keys
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return  the distinct keys, highest count first and lowest key first among equal counts
+	 */
+	public int[] keysByCount() {
+		long[] sorted = new long[size];
+		int n = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (counts[i] != 0) {
+				// count descending in the high half, key ascending in the low half
+				sorted[n++] = ((long) (Integer.MAX_VALUE - counts[i]) << 32) | (keys[i] - (long) Integer.MIN_VALUE);
+			}
+		}
+		Arrays.sort(sorted);
+		int[] result = new int[size];
+		for (int i = 0; i < size; i++) {
+			result[i] = (int) ((sorted[i] & 0xFFFFFFFFL) + Integer.MIN_VALUE);
+		}
+		return result;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldCounts = counts;
+		keys = new int[oldKeys.length * 2];
+		counts = new int[oldKeys.length * 2];
+		int mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldCounts[j] != 0) {
+				int i = mix(oldKeys[j]) & mask;
+				while (counts[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				counts[i] = oldCounts[j];
+			}
+		}
+	}
+
+	private static int mix(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
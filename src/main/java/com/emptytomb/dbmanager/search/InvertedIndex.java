@@ -0,0 +1,773 @@
+package com.emptytomb.dbmanager.search;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.emptytomb.dbmanager.cache.ManagedCache;
+
+/**
+* The InvertedIndex class is an in-process full-text index over the text column of one
+* table, ranked with BM25. Each document also belongs to a partition, e.g. the translation
+* of a passage, so that a search can be limited to one partition and ranked with that
+* partition's statistics.
+*
+* <p>Documents live in parallel primitive arrays indexed by slot, with an open-addressing
+* int table from document id to slot. A document gets a new slot every time it is
+* indexed, so slots only increase along a posting list: each term's postings are one
+* growing byte array of varint-coded slot deltas, term frequencies and position deltas.
+* Replacing or removing a document only marks its old slot dead; once dead slots
+* outnumber live ones the postings are rewritten without them.</p>
+*
+* <p>The index is registered with the CacheManager under its table so that writes seen in
+* the change log mark documents dirty. The owner reindexes dirty documents, and rebuilds
+* the whole index when it is not complete, before searching. It is not written to
+* snapshots; it is rebuilt from the table, or from a cache of it, on first use.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class InvertedIndex implements ManagedCache {
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final int DEAD = -1;
+  private static final int MAX_DIRTY = 4096;
+  private static final int MIN_COMPACTION = 4096;
+
+  private final String name;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private int slotCount = 0;
+  private int liveCount = 0;
+  private int[] docIds = new int[1024];
+  private int[] partitions = new int[1024];
+  private int[] lengths = new int[1024];  // terms in the document, DEAD once replaced or removed
+  private int[] index = new int[2048];  // slot + 1 of the document's latest slot, 0 when empty
+  private final Map<Integer, long[]> partitionStats = new HashMap<Integer, long[]>();  // documents, terms
+  private long totalLength = 0;
+
+  private final Map<String, Integer> termIds = new HashMap<String, Integer>();
+  private int termCount = 0;
+  private byte[][] postings = new byte[1024][];
+  private int[] postingLengths = new int[1024];
+  private int[] lastSlots = new int[1024];
+  private long postingBytes = 0;
+  private long termBytes = 0;
+
+  private boolean complete = false;
+  private boolean overflowed = false;
+  private int[] dirty = new int[64];
+  private int dirtyCount = 0;
+
+  /**
+   * The Hits class holds one page of the documents matching a search, best first.
+   */
+  public static final class Hits {
+	  private final int total;
+	  private final int[] docIds;
+	  private final double[] scores;
+
+	  Hits(int total, int[] docIds, double[] scores) {
+		  this.total = total;
+		  this.docIds = docIds;
+		  this.scores = scores;
+	  }
+
+	  /**
+	   * @return  the number of documents matching the search
+	  */
+	  public int getTotal() {
+		  return total;
+	  }
+
+	  /**
+	   * @return  the number of documents on this page
+	  */
+	  public int size() {
+		  return docIds.length;
+	  }
+
+	  public int getDocId(int i) {
+		  return docIds[i];
+	  }
+
+	  public double getScore(int i) {
+		  return scores[i];
+	  }
+  }
+
+  // the postings of one query term, decoded for the documents of one partition
+  private static final class TermMatches {
+	  private int count = 0;
+	  private int[] slots = new int[64];
+	  private int[] frequencies = new int[64];
+	  private int[] firstPositions = new int[64];
+	  private int positionCount = 0;
+	  private int[] positions = new int[256];
+	  private int cursor = 0;
+
+	  void add(int slot, int frequency) {
+		  if (count == slots.length) {
+			  slots = Arrays.copyOf(slots, count * 2);
+			  frequencies = Arrays.copyOf(frequencies, count * 2);
+			  firstPositions = Arrays.copyOf(firstPositions, count * 2);
+		  }
+		  slots[count] = slot;
+		  frequencies[count] = frequency;
+		  firstPositions[count] = positionCount;
+		  count++;
+	  }
+
+	  void addPosition(int position) {
+		  if (positionCount == positions.length) {
+			  positions = Arrays.copyOf(positions, positionCount * 2);
+		  }
+		  positions[positionCount++] = position;
+	  }
+
+	  boolean hasPosition(int i, int position) {
+		  for (int p = firstPositions[i]; p < firstPositions[i] + frequencies[i]; p++) {
+			  if (positions[p] == position) {
+				  return true;
+			  }
+		  }
+		  return false;
+	  }
+  }
+
+  // a reader over one posting list
+  private static final class Cursor {
+	  private final byte[] bytes;
+	  private final int end;
+	  private int offset = 0;
+
+	  Cursor(byte[] bytes, int end) {
+		  this.bytes = bytes;
+		  this.end = end;
+	  }
+
+	  boolean hasNext() {
+		  return offset < end;
+	  }
+
+	  int next() {
+		  int value = 0;
+		  for (int shift = 0; ; shift += 7) {
+			  byte b = bytes[offset++];
+			  value |= (b & 0x7F) << shift;
+			  if (b >= 0) {
+				  return value;
+			  }
+		  }
+	  }
+  }
+
+  private static final class Scored {
+	  private final double score;
+	  private final int docId;
+
+	  Scored(double score, int docId) {
+		  this.score = score;
+		  this.docId = docId;
+	  }
+  }
+
+  // lowest score, then highest id, first: the head is the hit to drop
+  private static final Comparator<Scored> WORST_FIRST = new Comparator<Scored>() {
+	  @Override
+	  public int compare(Scored a, Scored b) {
+		  int order = Double.compare(a.score, b.score);
+		  return order != 0 ? order : Integer.compare(b.docId, a.docId);
+	  }
+  };
+
+  public InvertedIndex(String name) {
+	  this.name = name;
+  }
+
+  @Override
+  public String getName() {
+	  return name;
+  }
+
+  /**
+   * This method indexes the specified document, replacing it if it is already indexed.
+   *
+   * @param   docId      the unique id of the document
+   * @param   partition  the partition of the document, e.g. its translation id
+   * @param   text       the text of the document, may be null
+  */
+  public void add(int docId, int partition, String text) {
+	  Map<String, int[]> terms = new LinkedHashMap<String, int[]>();  // count, then positions
+	  Tokenizer tokenizer = new Tokenizer(text);
+	  int length = 0;
+	  while (tokenizer.next()) {
+		  int[] positions = terms.get(tokenizer.getTerm());
+		  if (positions == null) {
+			  positions = new int[4];
+		  } else if (positions[0] + 1 == positions.length) {
+			  positions = Arrays.copyOf(positions, positions.length * 2);
+		  }
+		  positions[++positions[0]] = tokenizer.getPosition();
+		  terms.put(tokenizer.getTerm(), positions);
+		  length++;
+	  }
+	  lock.writeLock().lock();
+	  try {
+		  removeSlot(find(docId));
+		  int slot = newSlot(docId, partition, length);
+		  for (Map.Entry<String, int[]> term : terms.entrySet()) {
+			  append(termId(term.getKey()), slot, term.getValue());
+		  }
+		  compactIfWasteful();
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method removes the specified document from the index.
+   *
+   * @param   docId  the unique id of the document
+  */
+  public void remove(int docId) {
+	  lock.writeLock().lock();
+	  try {
+		  removeSlot(find(docId));
+		  compactIfWasteful();
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method finds the documents that have every term of the query, and every phrase
+   * in order, ranked by BM25.
+   *
+   * @param   query      the query
+   * @param   partition  the partition to search, or 0 to search every partition
+   * @param   offset     the number of best documents to skip
+   * @param   limit      the most documents to return
+   * @return             the documents on the requested page and the total number found
+  */
+  public Hits search(Query query, int partition, int offset, int limit) {
+	  return search(query, partition, offset, limit, null);
+  }
+
+  /**
+   * This method finds the documents that have every term of the query, and every phrase
+   * in order, ranked by BM25, and counts every document found by its partition.
+   *
+   * @param   query            the query
+   * @param   partition        the partition to search, or 0 to search every partition
+   * @param   offset           the number of best documents to skip
+   * @param   limit            the most documents to return
+   * @param   partitionCounts  the counter to add each document found to, by partition, or null
+   * @return                   the documents on the requested page and the total number found
+  */
+  public Hits search(Query query, int partition, int offset, int limit, IntCounter partitionCounts) {
+	  String[] terms = query.getTerms();
+	  int[][] phrases = query.getPhrases();
+	  lock.readLock().lock();
+	  try {
+		  if (terms.length == 0) {
+			  return new Hits(0, new int[0], new double[0]);
+		  }
+		  TermMatches[] matches = new TermMatches[terms.length];
+		  for (int t = 0; t < terms.length; t++) {
+			  Integer termId = termIds.get(terms[t]);
+			  if (termId == null) {
+				  return new Hits(0, new int[0], new double[0]);
+			  }
+			  matches[t] = decode(termId, partition);
+			  if (matches[t].count == 0) {
+				  return new Hits(0, new int[0], new double[0]);
+			  }
+		  }
+		  long[] stats = partition == 0 ? new long[] { liveCount, totalLength } : partitionStats.get(partition);
+		  double documents = stats == null ? 0 : stats[0];
+		  double averageLength = stats == null || stats[0] == 0 ? 1 : (double) stats[1] / stats[0];
+		  double[] idf = new double[terms.length];
+		  int rarest = 0;
+		  for (int t = 0; t < terms.length; t++) {
+			  idf[t] = Math.log(1 + (documents - matches[t].count + 0.5) / (matches[t].count + 0.5));
+			  if (matches[t].count < matches[rarest].count) {
+				  rarest = t;
+			  }
+		  }
+
+		  int wanted = offset + limit;
+		  PriorityQueue<Scored> best = new PriorityQueue<Scored>(Math.max(1, wanted + 1), WORST_FIRST);
+		  int total = 0;
+		  int[] current = new int[terms.length];  // index into each term's matches at the candidate slot
+		  candidates:
+		  for (int i = 0; i < matches[rarest].count; i++) {
+			  int slot = matches[rarest].slots[i];
+			  for (int t = 0; t < terms.length; t++) {
+				  TermMatches m = matches[t];
+				  while (m.cursor < m.count && m.slots[m.cursor] < slot) {
+					  m.cursor++;
+				  }
+				  if (m.cursor == m.count) {
+					  break candidates;
+				  }
+				  if (m.slots[m.cursor] != slot) {
+					  continue candidates;
+				  }
+				  current[t] = m.cursor;
+			  }
+			  if (!hasPhrases(phrases, matches, current)) {
+				  continue;
+			  }
+			  total++;
+			  if (partitionCounts != null) {
+				  partitionCounts.add(partitions[slot], 1);
+			  }
+			  if (wanted == 0) {
+				  continue;
+			  }
+			  double norm = K1 * (1 - B + B * lengths[slot] / averageLength);
+			  double score = 0;
+			  for (int t = 0; t < terms.length; t++) {
+				  int frequency = matches[t].frequencies[current[t]];
+				  score += idf[t] * frequency * (K1 + 1) / (frequency + norm);
+			  }
+			  best.add(new Scored(score, docIds[slot]));
+			  if (best.size() > wanted) {
+				  best.poll();
+			  }
+		  }
+
+		  int count = Math.max(0, best.size() - offset);
+		  int[] ids = new int[count];
+		  double[] scores = new double[count];
+		  // polled worst first, so rank runs down to 0 for the best
+		  for (int rank = best.size() - 1; rank >= 0; rank--) {
+			  Scored scored = best.poll();
+			  if (rank >= offset) {
+				  ids[rank - offset] = scored.docId;
+				  scores[rank - offset] = scored.score;
+			  }
+		  }
+		  return new Hits(total, ids, scores);
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @return  true if every row of the table is indexed and none has changed since
+  */
+  public boolean isCurrent() {
+	  lock.readLock().lock();
+	  try {
+		  return complete && dirtyCount == 0;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * @return  true if every row of the table has been indexed, though some may be dirty
+  */
+  public boolean isComplete() {
+	  lock.readLock().lock();
+	  try {
+		  return complete;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  /**
+   * This method empties the index before every row of the table is indexed again. Rows
+   * changed from now on are queued as dirty.
+  */
+  public void clear() {
+	  lock.writeLock().lock();
+	  try {
+		  slotCount = 0;
+		  liveCount = 0;
+		  Arrays.fill(index, 0);
+		  partitionStats.clear();
+		  totalLength = 0;
+		  termIds.clear();
+		  termCount = 0;
+		  Arrays.fill(postings, null);
+		  postingBytes = 0;
+		  termBytes = 0;
+		  complete = false;
+		  overflowed = false;
+		  dirtyCount = 0;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method records that every row of the table has been indexed since clear(),
+   * unless too many rows changed meanwhile to be reindexed one by one.
+  */
+  public void markComplete() {
+	  lock.writeLock().lock();
+	  try {
+		  complete = !overflowed;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  /**
+   * This method returns, and forgets, the ids of the rows changed since they were indexed.
+   *
+   * @return  the dirty ids
+  */
+  public int[] drainDirty() {
+	  lock.writeLock().lock();
+	  try {
+		  int[] result = Arrays.copyOf(dirty, dirtyCount);
+		  dirtyCount = 0;
+		  return result;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidate(int id) {
+	  lock.writeLock().lock();
+	  try {
+		  if (overflowed) {
+			  return;
+		  }
+		  if (dirtyCount == MAX_DIRTY) {
+			  overflowed = true;
+			  complete = false;
+			  dirtyCount = 0;
+			  return;
+		  }
+		  if (dirtyCount == dirty.length) {
+			  dirty = Arrays.copyOf(dirty, dirty.length * 2);
+		  }
+		  dirty[dirtyCount++] = id;
+	  } finally {
+		  lock.writeLock().unlock();
+	  }
+  }
+
+  @Override
+  public void invalidateAll() {
+	  clear();
+  }
+
+  @Override
+  public int size() {
+	  lock.readLock().lock();
+	  try {
+		  return liveCount;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long estimatedBytes() {
+	  lock.readLock().lock();
+	  try {
+		  return 4L * (docIds.length * 3 + index.length + postingLengths.length * 2 + dirty.length) +
+				 8L * postings.length + postingBytes + termBytes;
+	  } finally {
+		  lock.readLock().unlock();
+	  }
+  }
+
+  @Override
+  public long offHeapBytes() {
+	  return 0;
+  }
+
+  @Override
+  public int sampleAccessTimes(long[] accessTimes, long[] sizes) {
+	  // a partial index would miss documents; it is never shed
+	  return 0;
+  }
+
+  @Override
+  public long evictColderThan(long accessTime) {
+	  return 0;
+  }
+
+  @Override
+  public void pin(int[] ids) {
+	  // Never shed, so nothing to pin
+  }
+
+  @Override
+  public void save(DataOutputStream out) throws IOException {
+	  // rebuilt on first use instead
+  }
+
+  @Override
+  public void restore(ByteBuffer in) throws IOException {
+	  // nothing saved
+  }
+
+  private static boolean hasPhrases(int[][] phrases, TermMatches[] matches, int[] current) {
+	  for (int[] phrase : phrases) {
+		  TermMatches first = matches[phrase[0]];
+		  int i = current[phrase[0]];
+		  boolean found = false;
+		  for (int p = first.firstPositions[i]; p < first.firstPositions[i] + first.frequencies[i] && !found; p++) {
+			  int start = first.positions[p];
+			  found = true;
+			  for (int k = 1; k < phrase.length && found; k++) {
+				  found = matches[phrase[k]].hasPosition(current[phrase[k]], start + k);
+			  }
+		  }
+		  if (!found) {
+			  return false;
+		  }
+	  }
+	  return true;
+  }
+
+  private TermMatches decode(int termId, int partition) {
+	  TermMatches matches = new TermMatches();
+	  Cursor cursor = new Cursor(postings[termId], postingLengths[termId]);
+	  int slot = -1;
+	  while (cursor.hasNext()) {
+		  slot += cursor.next();
+		  int frequency = cursor.next();
+		  boolean wanted = lengths[slot] != DEAD && (partition == 0 || partitions[slot] == partition);
+		  if (wanted) {
+			  matches.add(slot, frequency);
+		  }
+		  int position = 0;
+		  for (int i = 0; i < frequency; i++) {
+			  position += cursor.next();
+			  if (wanted) {
+				  matches.addPosition(position);
+			  }
+		  }
+	  }
+	  return matches;
+  }
+
+  private int termId(String term) {
+	  Integer termId = termIds.get(term);
+	  if (termId != null) {
+		  return termId;
+	  }
+	  if (termCount == postings.length) {
+		  int capacity = termCount * 2;
+		  postings = Arrays.copyOf(postings, capacity);
+		  postingLengths = Arrays.copyOf(postingLengths, capacity);
+		  lastSlots = Arrays.copyOf(lastSlots, capacity);
+	  }
+	  postings[termCount] = null;
+	  postingLengths[termCount] = 0;
+	  lastSlots[termCount] = -1;
+	  termIds.put(term, termCount);
+	  // map entry, String and its chars
+	  termBytes += 80 + 2L * term.length();
+	  return termCount++;
+  }
+
+  // positions[0] is the number of positions that follow
+  private void append(int termId, int slot, int[] positions) {
+	  byte[] bytes = postings[termId];
+	  int length = postingLengths[termId];
+	  int needed = length + 5 * (positions[0] + 2);
+	  if (bytes == null || bytes.length < needed) {
+		  int capacity = Math.max(16, Math.max(needed, bytes == null ? 0 : bytes.length * 2));
+		  postingBytes += capacity - (bytes == null ? 0 : bytes.length);
+		  bytes = bytes == null ? new byte[capacity] : Arrays.copyOf(bytes, capacity);
+		  postings[termId] = bytes;
+	  }
+	  length = writeVarint(bytes, length, slot - lastSlots[termId]);
+	  length = writeVarint(bytes, length, positions[0]);
+	  int previous = 0;
+	  for (int i = 1; i <= positions[0]; i++) {
+		  length = writeVarint(bytes, length, positions[i] - previous);
+		  previous = positions[i];
+	  }
+	  postingLengths[termId] = length;
+	  lastSlots[termId] = slot;
+  }
+
+  private static int writeVarint(byte[] bytes, int offset, int value) {
+	  while ((value & ~0x7F) != 0) {
+		  bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+		  value >>>= 7;
+	  }
+	  bytes[offset++] = (byte) value;
+	  return offset;
+  }
+
+  private int newSlot(int docId, int partition, int length) {
+	  if (slotCount == docIds.length) {
+		  int capacity = slotCount * 2;
+		  docIds = Arrays.copyOf(docIds, capacity);
+		  partitions = Arrays.copyOf(partitions, capacity);
+		  lengths = Arrays.copyOf(lengths, capacity);
+	  }
+	  int slot = slotCount++;
+	  docIds[slot] = docId;
+	  partitions[slot] = partition;
+	  lengths[slot] = length;
+	  liveCount++;
+	  totalLength += length;
+	  long[] stats = partitionStats.get(partition);
+	  if (stats == null) {
+		  stats = new long[2];
+		  partitionStats.put(partition, stats);
+	  }
+	  stats[0]++;
+	  stats[1] += length;
+	  point(docId, slot);
+	  return slot;
+  }
+
+  private void removeSlot(int slot) {
+	  if (slot < 0 || lengths[slot] == DEAD) {
+		  return;
+	  }
+	  long[] stats = partitionStats.get(partitions[slot]);
+	  stats[0]--;
+	  stats[1] -= lengths[slot];
+	  liveCount--;
+	  totalLength -= lengths[slot];
+	  lengths[slot] = DEAD;
+  }
+
+  private void compactIfWasteful() {
+	  int dead = slotCount - liveCount;
+	  if (dead > MIN_COMPACTION && dead > liveCount) {
+		  compact();
+	  }
+  }
+
+  // rewrites the documents and postings without the dead slots, keeping slot order
+  private void compact() {
+	  int[] newSlots = new int[slotCount];
+	  int count = 0;
+	  for (int slot = 0; slot < slotCount; slot++) {
+		  newSlots[slot] = lengths[slot] == DEAD ? -1 : count++;
+	  }
+	  int capacity = Math.max(1024, count);
+	  int[] newDocIds = new int[capacity];
+	  int[] newPartitions = new int[capacity];
+	  int[] newLengths = new int[capacity];
+	  for (int slot = 0; slot < slotCount; slot++) {
+		  if (newSlots[slot] >= 0) {
+			  newDocIds[newSlots[slot]] = docIds[slot];
+			  newPartitions[newSlots[slot]] = partitions[slot];
+			  newLengths[newSlots[slot]] = lengths[slot];
+		  }
+	  }
+
+	  postingBytes = 0;
+	  for (int termId = 0; termId < termCount; termId++) {
+		  if (postings[termId] == null) {
+			  continue;
+		  }
+		  byte[] bytes = new byte[postingLengths[termId]];
+		  int length = 0;
+		  int lastSlot = -1;
+		  Cursor cursor = new Cursor(postings[termId], postingLengths[termId]);
+		  int slot = -1;
+		  while (cursor.hasNext()) {
+			  slot += cursor.next();
+			  int frequency = cursor.next();
+			  boolean live = newSlots[slot] >= 0;
+			  if (live) {
+				  length = writeVarint(bytes, length, newSlots[slot] - lastSlot);
+				  length = writeVarint(bytes, length, frequency);
+				  lastSlot = newSlots[slot];
+			  }
+			  for (int i = 0; i < frequency; i++) {
+				  int delta = cursor.next();
+				  if (live) {
+					  length = writeVarint(bytes, length, delta);
+				  }
+			  }
+		  }
+		  // a smaller slot delta never takes more bytes, so the rewrite fits
+		  postings[termId] = length == 0 ? null : Arrays.copyOf(bytes, length);
+		  postingLengths[termId] = length;
+		  lastSlots[termId] = lastSlot;
+		  postingBytes += length;
+	  }
+
+	  docIds = newDocIds;
+	  partitions = newPartitions;
+	  lengths = newLengths;
+	  slotCount = count;
+	  index = new int[tableSize(capacity)];
+	  for (int slot = 0; slot < slotCount; slot++) {
+		  point(docIds[slot], slot);
+	  }
+  }
+
+  private int find(int docId) {
+	  int mask = index.length - 1;
+	  for (int i = mix(docId) & mask; ; i = (i + 1) & mask) {
+		  int entry = index[i];
+		  if (entry == 0) {
+			  return -1;
+		  }
+		  if (docIds[entry - 1] == docId) {
+			  return entry - 1;
+		  }
+	  }
+  }
+
+  // makes the entry of docId refer to slot, adding the entry if there is none
+  private void point(int docId, int slot) {
+	  if ((slotCount + 1) * 2 > index.length) {
+		  rehash(index.length * 2);
+	  }
+	  int mask = index.length - 1;
+	  int i = mix(docId) & mask;
+	  while (index[i] != 0 && docIds[index[i] - 1] != docId) {
+		  i = (i + 1) & mask;
+	  }
+	  index[i] = slot + 1;
+  }
+
+  private void rehash(int size) {
+	  int[] old = index;
+	  index = new int[size];
+	  int mask = size - 1;
+	  for (int entry : old) {
+		  if (entry != 0) {
+			  int i = mix(docIds[entry - 1]) & mask;
+			  while (index[i] != 0) {
+				  i = (i + 1) & mask;
+			  }
+			  index[i] = entry;
+		  }
+	  }
+  }
+
+  private static int tableSize(int capacity) {
+	  int size = 2048;
+	  while (size < capacity * 2) {
+		  size <<= 1;
+	  }
+	  return size;
+  }
+
+  private static int mix(int id) {
+	  int h = id * 0x9E3779B9;
+	  return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,103 @@
+package com.emptytomb.dbmanager.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Query class is a parsed search query: every term must occur in a matching document,
+ * and the terms of a quoted phrase must occur one after another, e.g.
+ * {@code "in the beginning" god}.
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public final class Query {
+	/** The most distinct terms a query may have. */
+	public static final int MAX_TERMS = 32;
+
+	private final String[] terms;
+	private final int[][] phrases;
+
+	private Query(String[] terms, int[][] phrases) {
+		this.terms = terms;
+		this.phrases = phrases;
+	}
+
+	/**
+	 * This method parses the specified query text. An unbalanced quote runs to the end of
+	 * the text.
+	 *
+	 * @param   text  the query, e.g. {@code "living water" jesus}
+	 * @return        the Query, with no terms if the text has none
+	 *
+	 * @throws  IllegalArgumentException if the query has more than MAX_TERMS distinct terms
+	 */
+	public static Query parse(String text) {
+		List<String> terms = new ArrayList<String>();
+		List<int[]> phrases = new ArrayList<int[]>();
+		String[] segments = (text == null ? "" : text).split("\"", -1);
+		for (int i = 0; i < segments.length; i++) {
+			List<Integer> phrase = new ArrayList<Integer>();
+			Tokenizer tokenizer = new Tokenizer(segments[i]);
+			while (tokenizer.next()) {
+				int term = terms.indexOf(tokenizer.getTerm());
+				if (term < 0) {
+					if (terms.size() == MAX_TERMS) {
+						throw new IllegalArgumentException("more than " + MAX_TERMS + " terms in query");
+					}
+					term = terms.size();
+					terms.add(tokenizer.getTerm());
+				}
+				phrase.add(term);
+			}
+			// odd segments are inside quotes
+			if (i % 2 == 1 && phrase.size() > 1) {
+				int[] indexes = new int[phrase.size()];
+				for (int j = 0; j < indexes.length; j++) {
+					indexes[j] = phrase.get(j);
+				}
+				phrases.add(indexes);
+			}
+		}
+		return new Query(terms.toArray(new String[terms.size()]), phrases.toArray(new int[phrases.size()][]));
+	}
+
+	/**
+	 * @return  true if the query has no terms
+	 */
+	public boolean isEmpty() {
+		return terms.length == 0;
+	}
+
+	/**
+	 * @return  the distinct terms of the query
+	 */
+	public String[] getTerms() {
+		return terms.clone();
+	}
+
+	/**
+	 * @return  the phrases of the query, each as the indexes into getTerms() of its terms
+	 */
+	public int[][] getPhrases() {
+		int[][] copy = new int[phrases.length][];
+		for (int i = 0; i < phrases.length; i++) {
+			copy[i] = phrases[i].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * @param   term  a term, lower case
+	 * @return        true if the query has the term
+	 */
+	public boolean contains(String term) {
+		for (String t : terms) {
+			if (t.equals(term)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,120 @@
+package com.emptytomb.dbmanager.search;
+
+import java.util.Arrays;
+
+/**
+ * The Snippets class cuts the part of a document that best shows why it matched a query,
+ * with the query terms wrapped in {@code <em>} and {@code </em>}. The text around the tags
+ * is HTML-escaped, so the tags are the only markup in a snippet.
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public final class Snippets {
+	/** Inserted before each matching term. */
+	public static final String START = "<em>";
+	/** Inserted after each matching term. */
+	public static final String END = "</em>";
+	private static final String ELLIPSIS = "\u2026";
+
+	private Snippets() {
+	}
+
+	/**
+	 * This method returns the window of the specified text holding the most query terms.
+	 *
+	 * @param   text       the document text, may be null
+	 * @param   query      the query the document matched
+	 * @param   maxTerms   the most terms in the window; longer text is cut, with an
+	 *                     ellipsis where it was cut
+	 * @return             the highlighted, HTML-escaped window, or null if the text is null
+	 */
+	public static String highlight(String text, Query query, int maxTerms) {
+		if (text == null) {
+			return null;
+		}
+		int count = 0;
+		int[] starts = new int[64];
+		int[] ends = new int[64];
+		boolean[] matched = new boolean[64];
+		Tokenizer tokenizer = new Tokenizer(text);
+		while (tokenizer.next()) {
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+				matched = Arrays.copyOf(matched, count * 2);
+			}
+			starts[count] = tokenizer.getStart();
+			ends[count] = tokenizer.getEnd();
+			matched[count] = query.contains(tokenizer.getTerm());
+			count++;
+		}
+
+		// slide a window of maxTerms terms and keep the first one with the most matches
+		int first = 0;
+		int last = count;
+		if (count > maxTerms) {
+			int inWindow = 0;
+			for (int i = 0; i < maxTerms; i++) {
+				inWindow += matched[i] ? 1 : 0;
+			}
+			int best = inWindow;
+			for (int i = maxTerms; i < count; i++) {
+				inWindow += (matched[i] ? 1 : 0) - (matched[i - maxTerms] ? 1 : 0);
+				if (inWindow > best) {
+					best = inWindow;
+					first = i - maxTerms + 1;
+				}
+			}
+			last = first + maxTerms;
+		}
+
+		int from = first == 0 ? 0 : starts[first];
+		int to = last == count ? text.length() : ends[last - 1];
+		StringBuilder snippet = new StringBuilder(to - from + 32);
+		if (from > 0) {
+			snippet.append(ELLIPSIS);
+		}
+		int copied = from;
+		for (int i = first; i < last; i++) {
+			if (matched[i]) {
+				escape(snippet, text, copied, starts[i]);
+				snippet.append(START);
+				escape(snippet, text, starts[i], ends[i]);
+				snippet.append(END);
+				copied = ends[i];
+			}
+		}
+		escape(snippet, text, copied, to);
+		if (to < text.length()) {
+			snippet.append(ELLIPSIS);
+		}
+		return snippet.toString();
+	}
+
+	private static void escape(StringBuilder snippet, String text, int from, int to) {
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '&':
+				snippet.append("&amp;");
+				break;
+			case '<':
+				snippet.append("&lt;");
+				break;
+			case '>':
+				snippet.append("&gt;");
+				break;
+			case '"':
+				snippet.append("&quot;");
+				break;
+			case '\'':
+				snippet.append("&#39;");
+				break;
+			default:
+				snippet.append(c);
+			}
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.emptytomb.dbmanager.search;
+
+import java.util.Locale;
+
+/**
+ * The Tokenizer class splits text into terms: runs of letters and digits, lower-cased, so
+ * that "LORD's" is the terms "lord" and "s". The same tokenizer is used for documents and
+ * queries, so a query matches exactly what was indexed.
+ *
+ * <p>Usage: {@code while (tokenizer.next()) { tokenizer.getTerm(); ... }}</p>
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public final class Tokenizer {
+	private final String text;
+	private int offset = 0;
+	private int position = -1;
+	private int start = 0;
+	private int end = 0;
+	private String term = null;
+
+	public Tokenizer(String text) {
+		this.text = text == null ? "" : text;
+	}
+
+	/**
+	 * This method moves to the next term.
+	 *
+	 * @return  false if there are no more terms
+	 */
+	public boolean next() {
+		int length = text.length();
+		int i = offset;
+		while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+			i++;
+		}
+		if (i == length) {
+			offset = length;
+			return false;
+		}
+		start = i;
+		while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+			i++;
+		}
+		end = i;
+		offset = i;
+		position++;
+		term = text.substring(start, end).toLowerCase(Locale.ROOT);
+		return true;
+	}
+
+	/**
+	 * @return  the current term, lower case
+	 */
+	public String getTerm() {
+		return term;
+	}
+
+	/**
+	 * @return  the position of the current term in the text, 0 for the first term
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return  the index of the first character of the current term in the text
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return  the index after the last character of the current term in the text
+	 */
+	public int getEnd() {
+		return end;
+	}
+}
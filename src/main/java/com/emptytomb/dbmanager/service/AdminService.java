@@ -0,0 +1,111 @@
+package com.emptytomb.dbmanager.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.emptytomb.dbmanager.cache.CacheManager;
+import com.emptytomb.dbmanager.cache.HotKeys;
+import com.emptytomb.dbmanager.cache.ManagedCache;
+import com.emptytomb.dbmanager.cache.MemoryGovernor;
+import com.emptytomb.dbmanager.domain.CacheUsage;
+import com.emptytomb.dbmanager.domain.HotKey;
+import com.emptytomb.dbmanager.json.WireFormat;
+
+/**
+* The AdminService class implements the service layer for the administrative resources.
+* 
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class AdminService {
+  private static AdminService instance = null;
+
+  private AdminService() {
+  }
+
+  /**
+   * This method returns the single instance of the AdminService object.
+   * 
+   * @return  the AdminService object
+   * 
+  */
+  public static AdminService getInstance() {
+      if (instance == null) {      
+          synchronized (AdminService.class) {
+              if (instance == null) {
+                  instance = new AdminService();
+              } 
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method returns the encoded representation of the cache memory budget and the
+   * bytes used by each registered cache.
+   * 
+   * <pre>{@code
+   * budgetBytes : Long;
+   * usedBytes : Long;
+   * caches : [ { name, type, entries, bytes, offHeapBytes } ];
+   * }</pre>
+   * 
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the cache memory usage
+  */
+  public byte[] getCacheUsage(WireFormat format) {
+	  MemoryGovernor governor = MemoryGovernor.getInstance();
+	  List<CacheUsage> caches = new ArrayList<CacheUsage>();
+	  long used = 0;
+	  for (ManagedCache cache : CacheManager.getInstance().getCaches()) {
+		  CacheUsage usage = new CacheUsage();
+		  usage.setName(cache.getName());
+		  usage.setType(cache.getClass().getSimpleName());
+		  usage.setEntries(cache.size());
+		  usage.setBytes(cache.estimatedBytes());
+		  usage.setOffHeapBytes(cache.offHeapBytes());
+		  used += usage.getBytes();
+		  caches.add(usage);
+	  }
+	  Map<String, Object> result = new LinkedHashMap<String, Object>();
+	  result.put("budgetBytes", governor.getBudgetBytes());
+	  result.put("usedBytes", used);
+	  result.put("caches", caches);
+      return format.toBytes(result);
+  }
+
+  /**
+   * This method returns the encoded representation of the most requested ids of every
+   * table that has been read, by table name.
+   * 
+   * <pre>{@code
+   * table : [ { id, count } ];
+   * }</pre>
+   * 
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the heavy hitters of every table
+  */
+  public byte[] getHotKeys(WireFormat format) {
+      return format.toBytes(HotKeys.getInstance().getHeavyHitters());
+  }
+
+  /**
+   * This method returns the encoded representation of the most requested ids of the
+   * specified table, highest estimated count first.
+   * 
+   * @param   table   the name of the table
+   * @param   format  the wire format of the result
+   * @return         the encoded representation of the heavy hitters, an empty list if the
+   *                 table has not been read
+  */
+  public byte[] getHotKeys(String table, WireFormat format) {
+	  List<HotKey> hotKeys = HotKeys.getInstance().getHeavyHitters(table);
+      return format.toBytes(hotKeys == null ? new ArrayList<HotKey>() : hotKeys);
+  }
+}
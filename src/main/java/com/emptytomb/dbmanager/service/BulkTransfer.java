@@ -0,0 +1,137 @@
+package com.emptytomb.dbmanager.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.emptytomb.dbmanager.dao.BaseDao;
+import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.dao.RowHandler;
+import com.emptytomb.dbmanager.domain.ImportError;
+import com.emptytomb.dbmanager.domain.ImportResult;
+import com.emptytomb.dbmanager.json.NdjsonReader;
+import com.emptytomb.dbmanager.json.NdjsonWriter;
+import com.google.gson.JsonSyntaxException;
+
+/**
+* The BulkTransfer class implements the bulk export and import of one domain model as
+* newline-delimited JSON for the service layer.
+* 
+* <p>An export writes each row as the DAO reads it from the ResultSet. An import parses
+* the body one line at a time and adds the objects in batches of
+* {@code dbmanager.import.batchSize} (default 500), each batch in one JDBC batch and
+* transaction. A line that is not a valid object is reported and skipped; a batch the
+* database rejects is retried one row at a time, so that the error names the line at
+* fault and the other rows of the batch are still added.</p>
+* 
+* <p><b>Note:</b> As with add, any id in an imported object is ignored and a new one is
+* assigned.</p>
+* 
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+final class BulkTransfer<T> {
+  private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("dbmanager.import.batchSize", 500));
+  // enough to fix a bad file by; the rest are only counted
+  private static final int MAX_ERRORS = 1000;
+
+  private final BaseDao<T> dao;
+  private final Class<T> type;
+
+  BulkTransfer(BaseDao<T> dao, Class<T> type) {
+      this.dao = dao;
+      this.type = type;
+  }
+
+  /**
+   * This method writes every row of the table to the specified stream, one object per line.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws  DaoException if the rows could not be read
+   * @throws  IOException if the stream could not be written
+  */
+  void export(OutputStream out) throws DaoException, IOException {
+      final NdjsonWriter writer = new NdjsonWriter(out);
+      dao.export(new RowHandler<T>() {
+          @Override
+          public void handle(T t) throws IOException {
+              writer.write(t, type);
+          }
+      });
+      writer.flush();
+  }
+
+  /**
+   * This method adds the object on every line of the specified stream.
+   * 
+   * @param   in  the stream to read from
+   * @return      the number of objects added and the lines that were rejected
+   * 
+   * @throws  IOException if the stream could not be read
+  */
+  ImportResult importAll(InputStream in) throws IOException {
+      ImportResult result = new ImportResult();
+      NdjsonReader reader = new NdjsonReader(in);
+      List<T> batch = new ArrayList<T>(BATCH_SIZE);
+      int[] lines = new int[BATCH_SIZE];
+      while (reader.nextLine()) {
+          try {
+              lines[batch.size()] = reader.getLineNumber();
+              batch.add(reader.read(type));
+          } catch (JsonSyntaxException e) {
+              reject(result, reader.getLineNumber(), e.getMessage());
+              continue;
+          }
+          if (batch.size() == BATCH_SIZE) {
+              addBatch(batch, lines, result);
+              batch.clear();
+          }
+      }
+      addBatch(batch, lines, result);
+      // rows rejected by the database are only found when their batch is added
+      Collections.sort(result.getErrors(), new Comparator<ImportError>() {
+          @Override
+          public int compare(ImportError a, ImportError b) {
+              return Integer.compare(a.getLine(), b.getLine());
+          }
+      });
+      return result;
+  }
+
+  private void addBatch(List<T> batch, int[] lines, ImportResult result) {
+      if (batch.isEmpty()) {
+          return;
+      }
+      try {
+          dao.addAll(batch);
+          result.setImported(result.getImported() + batch.size());
+          return;
+      } catch (DaoException e) {
+          // nothing was added; find the rows at fault
+      }
+      for (int i = 0; i < batch.size(); i++) {
+          try {
+              dao.add(batch.get(i));
+              result.setImported(result.getImported() + 1);
+          } catch (DaoException e) {
+              reject(result, lines[i], e.getReason());
+          }
+      }
+  }
+
+  private static void reject(ImportResult result, int line, String reason) {
+      result.setFailed(result.getFailed() + 1);
+      if (result.getErrors().size() < MAX_ERRORS) {
+          ImportError error = new ImportError();
+          error.setLine(line);
+          error.setReason(reason);
+          result.getErrors().add(error);
+      }
+  }
+}
@@ -1,5 +1,9 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -7,8 +11,21 @@ import org.slf4j.LoggerFactory;
 
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.dao.CommentaryDao;
+import com.emptytomb.dbmanager.dao.OrganizationDao;
+import com.emptytomb.dbmanager.dao.PersonalityDao;
 import com.emptytomb.dbmanager.domain.Commentary;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.domain.CommentaryHit;
+import com.emptytomb.dbmanager.domain.CommentaryPage;
+import com.emptytomb.dbmanager.domain.CommentarySearchResult;
+import com.emptytomb.dbmanager.domain.FacetCount;
+import com.emptytomb.dbmanager.domain.ImportResult;
+import com.emptytomb.dbmanager.domain.Organization;
+import com.emptytomb.dbmanager.domain.Personality;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.search.IntCounter;
+import com.emptytomb.dbmanager.search.InvertedIndex;
+import com.emptytomb.dbmanager.search.Query;
+import com.emptytomb.dbmanager.search.Snippets;
 
 /**
 * The CommentaryService class implements the CRUD service layer for the Commentary resource.
@@ -24,10 +41,17 @@ public class CommentaryService {
   private Logger logger = LoggerFactory.getLogger(Commentary.class);
   private static CommentaryService instance = null;
   private static CommentaryDao commentaryDAO = null;
-  private static Gson gson = new Gson();
+  private static PersonalityDao personalityDAO = null;
+  private static OrganizationDao organizationDAO = null;
+  private static BulkTransfer<Commentary> commentaryTransfer = null;
+  // terms of context around the best match in a search snippet
+  private static final int SNIPPET_TERMS = 30;
    
   private CommentaryService() {
       commentaryDAO = CommentaryDao.getInstance();
+      personalityDAO = PersonalityDao.getInstance();
+      organizationDAO = OrganizationDao.getInstance();
+      commentaryTransfer = new BulkTransfer<Commentary>(commentaryDAO, Commentary.class);
   }
 
   /**
@@ -48,19 +72,20 @@ public class CommentaryService {
   }
   
   /**
-   * This method returns the JSON representation of the Commentary object associated with the
+   * This method returns the encoded representation of the Commentary object associated with the
    * specified commentary identifier.
    * 
    * @param   id  the unique id of the organization to return.
-   * @return      the JSON representation of the Organization object
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the Organization object
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getCommentary(int id) throws ServiceException {
-	  String result = null;
+  public byte[] getCommentary(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 	      Commentary commentary = commentaryDAO.get(id);
-	      result = gson.toJson(commentary);
+	      result = format.toBytes(commentary);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getCommentary() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -70,17 +95,18 @@ public class CommentaryService {
   }
   
   /**
-   * This method returns the JSON representation of all the Commentary objects.
+   * This method returns the encoded representation of all the Commentary objects.
    * 
-   * @return      the JSON representation of all the Commentary objects
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of all the Commentary objects
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getCommentaries() throws ServiceException {
-	  String result = null;
+  public byte[] getCommentaries(WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  List<Commentary> commentaries = commentaryDAO.list();
-	      result = gson.toJson(commentaries);
+	      result = format.toBytes(commentaries);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getCommentaries() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -89,20 +115,133 @@ public class CommentaryService {
       return result;
   }
   
+  /**
+   * This method returns the encoded representation of one page of the Commentary objects on
+   * the specified passage, in id order.
+   * 
+   * @param   passageId  the unique id of the passage
+   * @param   afterId    the id after which the page starts, 0 for the first page
+   * @param   limit      the most commentaries to return
+   * @param   format     the wire format of the result
+   * @return      the encoded representation of the CommentaryPage
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getCommentariesByPassage(int passageId, int afterId, int limit, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  // one more than the page tells whether there is a next page
+		  List<Commentary> commentaries = commentaryDAO.listByPassage(passageId, afterId, limit + 1);
+		  result = format.toBytes(getPage(commentaries, limit));
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getCommentariesByPassage() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of one page of the Commentary objects by
+   * the specified personality, in id order.
+   * 
+   * @param   personalityId  the unique id of the personality
+   * @param   afterId        the id after which the page starts, 0 for the first page
+   * @param   limit          the most commentaries to return
+   * @param   format         the wire format of the result
+   * @return      the encoded representation of the CommentaryPage
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getCommentariesByPersonality(int personalityId, int afterId, int limit, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  List<Commentary> commentaries = commentaryDAO.listByPersonality(personalityId, afterId, limit + 1);
+		  result = format.toBytes(getPage(commentaries, limit));
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getCommentariesByPersonality() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of one page of the commentaries matching
+   * the specified query, best first, each with a highlighted snippet of its text, and the
+   * number of commentaries found by personality and by the organization of the personality.
+   * 
+   * <p><b>Note:</b> The counts are gathered by the index while it matches, and personalities
+   * are mapped to organizations through an in-memory column, so only one name is looked up
+   * per personality and organization counted, never one row per commentary found.</p>
+   * 
+   * @param   query          the parsed query
+   * @param   personalityId  the personality to search, or 0 to search every personality
+   * @param   offset         the number of best commentaries to skip
+   * @param   limit          the most commentaries to return
+   * @param   format         the wire format of the result
+   * @return      the encoded representation of the CommentarySearchResult
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] searchCommentaries(Query query, int personalityId, int offset, int limit, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  IntCounter personalityCounts = new IntCounter();
+		  InvertedIndex.Hits hits = commentaryDAO.search(query, personalityId, offset, limit, personalityCounts);
+		  CommentarySearchResult page = new CommentarySearchResult();
+		  page.setTotal(hits.getTotal());
+		  for (int i = 0; i < hits.size(); i++) {
+			  Commentary commentary = commentaryDAO.get(hits.getDocId(i));
+			  if (commentary == null) {
+				  continue;
+			  }
+			  CommentaryHit hit = new CommentaryHit();
+			  hit.setId(commentary.getCommentaryId());
+			  hit.setPersonalityId(commentary.getPersonalityId());
+			  hit.setPassageId(commentary.getPassageId());
+			  hit.setScore(hits.getScore(i));
+			  hit.setSnippet(Snippets.highlight(commentary.getText(), query, SNIPPET_TERMS));
+			  page.getHits().add(hit);
+		  }
+		  IntCounter organizationCounts = new IntCounter();
+		  for (int id : personalityCounts.keysByCount()) {
+			  Personality personality = personalityDAO.get(id);
+			  page.getPersonalities().add(getFacetCount(id, personality == null ? null : personality.getName(), personalityCounts.get(id)));
+			  int organizationId = personalityDAO.getOrganizationId(id);
+			  if (organizationId != 0) {
+				  organizationCounts.add(organizationId, personalityCounts.get(id));
+			  }
+		  }
+		  for (int id : organizationCounts.keysByCount()) {
+			  Organization organization = organizationDAO.get(id);
+			  page.getOrganizations().add(getFacetCount(id, organization == null ? null : organization.getName(), organizationCounts.get(id)));
+		  }
+		  result = format.toBytes(page);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": searchCommentaries() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
   /**
    * This method adds the Commentary object.
    * 
-   * @param   commentaryJson the JSON representation of the Commentary object.
+   * @param   commentaryData the Commentary object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of commentaryData
+   * @param   responseFormat the wire format of the result
    * @return      commentaryId of Commentary added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String addCommentary(String commentaryJson) throws ServiceException {
-	  String result = null;
+  public byte[] addCommentary(byte[] commentaryData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Commentary commentary = gson.fromJson(commentaryJson, Commentary.class);
+		  Commentary commentary = requestFormat.fromBytes(commentaryData, Commentary.class);
 		  int commentaryId = commentaryDAO.add(commentary);
-	      result = gson.toJson("commentaryId : " + commentaryId);
+	      result = responseFormat.toBytes("commentaryId : " + commentaryId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": addCommentary() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -114,17 +253,19 @@ public class CommentaryService {
   /**
    * This method updates the Commentary object.
    * 
-   * @param   commentaryJson the JSON representation of the Commentary object.
+   * @param   commentaryData the Commentary object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of commentaryData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String updateCommentary(String commentaryJson) throws ServiceException {
-	  String result = null;
+  public byte[] updateCommentary(byte[] commentaryData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Commentary commentary = gson.fromJson(commentaryJson, Commentary.class);
+		  Commentary commentary = requestFormat.fromBytes(commentaryData, Commentary.class);
 		  commentaryDAO.update(commentary);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": updateCommentary() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -138,15 +279,16 @@ public class CommentaryService {
    * commentary identifier.
    * 
    * @param   id  commentary id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String deleteCommentary(int id) throws ServiceException {
-	  String result = null;
+  public byte[] deleteCommentary(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  commentaryDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": deleteCommentary() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -154,4 +296,65 @@ public class CommentaryService {
 	  }
       return result;
   }
+  
+  /**
+   * This method writes all the Commentary objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportCommentaries(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  commentaryTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportCommentaries() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the Commentary objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of Commentary objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importCommentaries(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = commentaryTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importCommentaries() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
+
+  private static CommentaryPage getPage(List<Commentary> commentaries, int limit) {
+	  CommentaryPage page = new CommentaryPage();
+	  if (commentaries.size() > limit) {
+		  commentaries = commentaries.subList(0, limit);
+		  page.setNext(commentaries.get(limit - 1).getCommentaryId());
+	  }
+	  page.setCommentaries(new ArrayList<Commentary>(commentaries));
+	  return page;
+  }
+
+  private static FacetCount getFacetCount(int id, String name, int count) {
+	  FacetCount facet = new FacetCount();
+	  facet.setId(id);
+	  facet.setName(name);
+	  facet.setCount(count);
+	  return facet;
+  }
 }
\ No newline at end of file
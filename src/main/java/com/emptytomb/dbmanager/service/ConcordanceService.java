@@ -0,0 +1,145 @@
+package com.emptytomb.dbmanager.service;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.dao.PassageDao;
+import com.emptytomb.dbmanager.dao.ScriptureDao;
+import com.emptytomb.dbmanager.dao.TranslationDao;
+import com.emptytomb.dbmanager.domain.Concordance;
+import com.emptytomb.dbmanager.domain.ConcordanceBook;
+import com.emptytomb.dbmanager.domain.ConcordanceChapter;
+import com.emptytomb.dbmanager.domain.ConcordanceVerse;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.utility.Books;
+import com.emptytomb.dbmanager.utility.VerseReference;
+
+/**
+* The ConcordanceService class implements the service layer for the Concordance resource.
+*
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class ConcordanceService {
+  private Logger logger = LoggerFactory.getLogger(ConcordanceService.class);
+  private static ConcordanceService instance = null;
+  private static PassageDao passageDAO = null;
+  private static ScriptureDao scriptureDAO = null;
+  private static TranslationDao translationDAO = null;
+  private static final int SCALE = VerseReference.MAX_NUMBER + 1;
+
+  private ConcordanceService() {
+      passageDAO = PassageDao.getInstance();
+      scriptureDAO = ScriptureDao.getInstance();
+      translationDAO = TranslationDao.getInstance();
+  }
+
+  /**
+   * This method returns the single instance of the ConcordanceService object.
+   *
+   * @return  the ConcordanceService object
+   *
+  */
+  public static ConcordanceService getInstance() {
+      if (instance == null) {
+          synchronized (ConcordanceService.class) {
+              if (instance == null) {
+                  instance = new ConcordanceService();
+              }
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method returns the encoded representation of every occurrence of a word in a
+   * translation, counted by book and chapter, with the verses in canonical order.
+   *
+   * <p><b>Note:</b> The occurrences come from the in-memory concordance of the translation
+   * and the verses are put in order through the in-memory ordinal of each scripture, so
+   * no row is read per occurrence.</p>
+   *
+   * @param   word     a term as produced by the Tokenizer, e.g. "lord"
+   * @param   version  the version of the translation, e.g. KJV
+   * @param   format   the wire format of the result
+   * @return      the encoded representation of the Concordance, or null if there is no such
+   *              translation
+   *
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getConcordance(String word, String version, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  int translationId = translationDAO.getIdByVersion(version);
+		  if (translationId == 0) {
+			  return null;
+		  }
+		  int[] occurrences = passageDAO.getOccurrences(translationId, word);
+		  // occurrences are sorted by scripture id, so each verse is one run
+		  int[] scriptureIds = new int[occurrences.length];
+		  int[] counts = new int[occurrences.length];
+		  int verses = 0;
+		  for (int i = 0; i < occurrences.length; i++) {
+			  if (i == 0 || occurrences[i] != occurrences[i - 1]) {
+				  scriptureIds[verses++] = occurrences[i];
+			  }
+			  counts[verses - 1]++;
+		  }
+		  // canonical order, ordinal in the high half and verse index in the low; unknown verses last
+		  long[] order = new long[verses];
+		  for (int i = 0; i < verses; i++) {
+			  int ordinal = scriptureDAO.getOrdinalById(scriptureIds[i]);
+			  order[i] = ((long) (ordinal == 0 ? Integer.MAX_VALUE : ordinal) << 32) | i;
+		  }
+		  Arrays.sort(order);
+
+		  Concordance concordance = new Concordance();
+		  concordance.setWord(word);
+		  concordance.setTranslation(version);
+		  concordance.setOccurrences(occurrences.length);
+		  ConcordanceBook book = null;
+		  ConcordanceChapter chapter = null;
+		  for (long entry : order) {
+			  int ordinal = (int) (entry >>> 32);
+			  int i = (int) entry;
+			  ConcordanceVerse verse = new ConcordanceVerse();
+			  verse.setScriptureId(scriptureIds[i]);
+			  verse.setOccurrences(counts[i]);
+			  concordance.getVerses().add(verse);
+			  if (ordinal == Integer.MAX_VALUE) {
+				  continue;
+			  }
+			  int bookNumber = ordinal / SCALE / SCALE;
+			  int chapterNumber = ordinal / SCALE % SCALE;
+			  verse.setReference(Books.name(bookNumber) + " " + chapterNumber + ":" + ordinal % SCALE);
+			  if (book == null || book.getBook() != bookNumber) {
+				  book = new ConcordanceBook();
+				  book.setBook(bookNumber);
+				  book.setName(Books.name(bookNumber));
+				  concordance.getBooks().add(book);
+				  chapter = null;
+			  }
+			  if (chapter == null || chapter.getChapter() != chapterNumber) {
+				  chapter = new ConcordanceChapter();
+				  chapter.setChapter(chapterNumber);
+				  book.getChapters().add(chapter);
+			  }
+			  book.setOccurrences(book.getOccurrences() + counts[i]);
+			  chapter.setOccurrences(chapter.getOccurrences() + counts[i]);
+		  }
+		  result = format.toBytes(concordance);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getConcordance() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+}
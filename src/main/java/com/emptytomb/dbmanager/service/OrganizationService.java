@@ -1,5 +1,8 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -7,8 +10,9 @@ import org.slf4j.LoggerFactory;
 
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.dao.OrganizationDao;
+import com.emptytomb.dbmanager.domain.ImportResult;
 import com.emptytomb.dbmanager.domain.Organization;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.json.WireFormat;
 
 /**
 * The OrganizationService class implements the CRUD service layer for the Organization resource.
@@ -24,10 +28,11 @@ public class OrganizationService {
   private Logger logger = LoggerFactory.getLogger(OrganizationService.class);
   private static OrganizationService instance = null;
   private static OrganizationDao organizationDAO = null;
-  private static Gson gson = new Gson();
+  private static BulkTransfer<Organization> organizationTransfer = null;
    
   private OrganizationService() {
       organizationDAO = OrganizationDao.getInstance();
+      organizationTransfer = new BulkTransfer<Organization>(organizationDAO, Organization.class);
   }
 
   /**
@@ -48,19 +53,20 @@ public class OrganizationService {
   }
   
   /**
-   * This method returns the JSON representation of the Organization object associated with the
+   * This method returns the encoded representation of the Organization object associated with the
    * specified organization identifier.
    * 
    * @param   id  the unique id of the organization to return.
-   * @return      the JSON representation of the Organization object
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the Organization object
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getOrganization(int id) throws ServiceException {
-	  String result = null;
+  public byte[] getOrganization(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 	      Organization organization = organizationDAO.get(id);
-	      result = gson.toJson(organization);
+	      result = format.toBytes(organization);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getOrganization() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -70,17 +76,18 @@ public class OrganizationService {
   }
   
   /**
-   * This method returns the JSON representation of all the Organization objects.
+   * This method returns the encoded representation of all the Organization objects.
    * 
-   * @return      the JSON representation of all the Organization objects
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of all the Organization objects
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getOrganizations() throws ServiceException {
-	  String result = null;
+  public byte[] getOrganizations(WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  List<Organization> organizations = organizationDAO.list();
-	      result = gson.toJson(organizations);
+	      result = format.toBytes(organizations);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getOrganizations() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -92,17 +99,19 @@ public class OrganizationService {
   /**
    * This method adds the Organization object.
    * 
-   * @param   organizationJson the JSON representation of the Organization object.
+   * @param   organizationData the Organization object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of organizationData
+   * @param   responseFormat the wire format of the result
    * @return      organizationId of Organization added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String addOrganization(String organizationJson) throws ServiceException {
-	  String result = null;
+  public byte[] addOrganization(byte[] organizationData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Organization organization = gson.fromJson(organizationJson, Organization.class);
+		  Organization organization = requestFormat.fromBytes(organizationData, Organization.class);
 		  int organizationId = organizationDAO.add(organization);
-	      result = gson.toJson("organizationId : " + organizationId);
+	      result = responseFormat.toBytes("organizationId : " + organizationId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": addOrganization() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -114,17 +123,19 @@ public class OrganizationService {
   /**
    * This method updates the Organization object.
    * 
-   * @param   organizationJson the JSON representation of the Organization object.
+   * @param   organizationData the Organization object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of organizationData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String updateOrganization(String organizationJson) throws ServiceException {
-	  String result = null;
+  public byte[] updateOrganization(byte[] organizationData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Organization organization = gson.fromJson(organizationJson, Organization.class);
+		  Organization organization = requestFormat.fromBytes(organizationData, Organization.class);
 		  organizationDAO.update(organization);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": updateOrganization() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -138,15 +149,16 @@ public class OrganizationService {
    * organization identifier.
    * 
    * @param   id  organization id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String deleteOrganization(int id) throws ServiceException {
-	  String result = null;
+  public byte[] deleteOrganization(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  organizationDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": deleteOrganization() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -154,4 +166,47 @@ public class OrganizationService {
 	  }
       return result;
   }
+  
+  /**
+   * This method writes all the Organization objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportOrganizations(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  organizationTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportOrganizations() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the Organization objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of Organization objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importOrganizations(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = organizationTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importOrganizations() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
 }
\ No newline at end of file
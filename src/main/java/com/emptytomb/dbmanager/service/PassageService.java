@@ -1,14 +1,43 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.PassageTextStore;
+import com.emptytomb.dbmanager.dao.CommentaryDao;
 import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.dao.OrganizationDao;
 import com.emptytomb.dbmanager.dao.PassageDao;
+import com.emptytomb.dbmanager.dao.PersonalityDao;
+import com.emptytomb.dbmanager.dao.ScriptureDao;
+import com.emptytomb.dbmanager.dao.TranslationDao;
+import com.emptytomb.dbmanager.domain.Commentary;
+import com.emptytomb.dbmanager.domain.CommentaryDocument;
+import com.emptytomb.dbmanager.domain.ImportResult;
+import com.emptytomb.dbmanager.domain.Organization;
 import com.emptytomb.dbmanager.domain.Passage;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.domain.PassageDocument;
+import com.emptytomb.dbmanager.domain.PassageHit;
+import com.emptytomb.dbmanager.domain.Personality;
+import com.emptytomb.dbmanager.domain.Scripture;
+import com.emptytomb.dbmanager.domain.SearchResult;
+import com.emptytomb.dbmanager.json.CborWriter;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.search.InvertedIndex;
+import com.emptytomb.dbmanager.search.Query;
+import com.emptytomb.dbmanager.search.Snippets;
+import com.emptytomb.dbmanager.utility.VerseReference;
 
 /**
 * The PassageService class implements the CRUD service layer for the Passage resource.
@@ -24,10 +53,28 @@ public class PassageService {
   private Logger logger = LoggerFactory.getLogger(PassageService.class);
   private static PassageService instance = null;
   private static PassageDao passageDAO = null;
-  private static Gson gson = new Gson();
+  private static TranslationDao translationDAO = null;
+  private static ScriptureDao scriptureDAO = null;
+  private static CommentaryDao commentaryDAO = null;
+  private static PersonalityDao personalityDAO = null;
+  private static OrganizationDao organizationDAO = null;
+  private static BulkTransfer<Passage> passageTransfer = null;
+  private static final int BUFFER_SIZE = 8192;
+  private static final int SNIPPET_TERMS = 30;
+  private static final byte[] HEX = "0123456789abcdef".getBytes();
+  private static final byte[] PASSAGE_ID_KEY = cborKey("passageId");
+  private static final byte[] TRANSLATION_ID_KEY = cborKey("translationId");
+  private static final byte[] SCRIPTURE_ID_KEY = cborKey("scriptureId");
+  private static final byte[] TEXT_KEY = cborKey("text");
    
   private PassageService() {
       passageDAO = PassageDao.getInstance();
+      translationDAO = TranslationDao.getInstance();
+      scriptureDAO = ScriptureDao.getInstance();
+      commentaryDAO = CommentaryDao.getInstance();
+      personalityDAO = PersonalityDao.getInstance();
+      organizationDAO = OrganizationDao.getInstance();
+      passageTransfer = new BulkTransfer<Passage>(passageDAO, Passage.class);
   }
 
   /**
@@ -48,21 +95,173 @@ public class PassageService {
   }
   
   /**
-   * This method returns the JSON representation of the Passage object associated with the
-   * specified passage identifier.
+   * This method reads the Passage object associated with the specified passage identifier,
+   * so that writePassage() can stream it without looking it up again.
    * 
    * @param   id  the unique id of the passage to return.
-   * @return      the JSON representation of the passage object
+   * @return      the passage, or null if there is no such passage
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getPassage(int id) throws ServiceException {
-	  String result = null;
+  public PassageTextStore.Row loadPassage(int id) throws ServiceException {
 	  try {
-	      Passage passage = passageDAO.get(id);
-	      result = gson.toJson(passage);
+		  PassageTextStore.Row row = new PassageTextStore.Row();
+	      return passageDAO.read(id, row) ? row : null;
 	  } catch (DaoException e) {
-		  String errorMessage = this.getClass().getName() + ": getPassage() - REASON-> " + e.getReason();
+		  String errorMessage = this.getClass().getName() + ": loadPassage() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method writes the encoded representation of a passage returned by loadPassage().
+   * The passage text is copied as UTF-8 bytes, no String is created.
+   * 
+   * @param   row     the passage, or null to write a null
+   * @param   format  the wire format to write
+   * @param   out     the stream to write the encoded representation to
+   * 
+   * @throws      IOException if the stream could not be written
+  */
+  public void writePassage(PassageTextStore.Row row, WireFormat format, OutputStream out) throws IOException {
+	  OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+	  if (row != null) {
+		  writeRow(row, format, buffered);
+	  } else if (format == WireFormat.CBOR) {
+		  buffered.write(CborWriter.NULL);
+	  } else {
+		  writeAscii("null", buffered);
+	  }
+	  buffered.flush();
+  }
+  
+  /**
+   * This method takes a consistent snapshot of all the Passage objects, so that
+   * writePassages() can stream them without a database hit.
+   * 
+   * @return      the Snapshot of every passage
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public PassageTextStore.Snapshot loadPassages() throws ServiceException {
+	  try {
+		  return passageDAO.snapshot();
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": loadPassages() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method writes the encoded representation of the Passage objects of a snapshot
+   * returned by loadPassages(), copying each passage text as UTF-8 bytes from the off-heap
+   * text store.
+   * 
+   * @param   snapshot  the passages to write
+   * @param   format    the wire format to write
+   * @param   out       the stream to write the encoded representation to
+   * 
+   * @throws      IOException if the stream could not be written
+  */
+  public void writePassages(PassageTextStore.Snapshot snapshot, WireFormat format, OutputStream out) throws IOException {
+	  OutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+	  PassageTextStore.Row row = new PassageTextStore.Row();
+	  boolean cbor = format == WireFormat.CBOR;
+	  buffered.write(cbor ? CborWriter.INDEFINITE_ARRAY : '[');
+	  for (int i = 0; i < snapshot.size(); i++) {
+		  if (i > 0 && !cbor) {
+			  buffered.write(',');
+		  }
+		  snapshot.read(i, row);
+		  writeRow(row, format, buffered);
+	  }
+	  buffered.write(cbor ? CborWriter.BREAK : ']');
+	  buffered.flush();
+  }
+  
+  /**
+   * This method returns the encoded representation of the Passage objects of one translation
+   * for a range of verses, in canonical order.
+   * 
+   * @param   version    the version of the translation, e.g. KJV
+   * @param   reference  the verses, e.g. Genesis 1:1-2:3
+   * @param   format     the wire format of the result
+   * @return      the encoded representation of the Passage objects, or null if there is no
+   *              such translation
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getPassageRange(String version, VerseReference reference, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  int translationId = translationDAO.getIdByVersion(version);
+		  if (translationId != 0) {
+			  List<Passage> passages = passageDAO.listRange(translationId, reference.getFirstOrdinal(), reference.getLastOrdinal());
+			  result = format.toBytes(passages);
+		  }
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getPassageRange() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of a passage with its verse, its
+   * translation and every commentary on it, each with its personality and organization.
+   * 
+   * <p><b>Note:</b> Each kind of record is read once, the personalities and organizations
+   * of all the commentaries in one batch each, so the document costs at most six queries
+   * however many commentaries the passage has, and fewer for records already cached.</p>
+   * 
+   * @param   id      the unique id of the passage
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the PassageDocument, or null if there is no
+   *              such passage
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getPassageDocument(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  Passage passage = passageDAO.get(id);
+		  if (passage == null) {
+			  return null;
+		  }
+		  PassageDocument document = new PassageDocument();
+		  document.setPassage(passage);
+		  Scripture scripture = scriptureDAO.get(passage.getScriptureId());
+		  document.setScripture(scripture);
+		  document.setReference(getReference(scripture));
+		  document.setTranslation(translationDAO.get(passage.getTranslationId()));
+
+		  List<Commentary> commentaries = commentaryDAO.listByPassage(id, 0, Integer.MAX_VALUE);
+		  Set<Integer> personalityIds = new HashSet<Integer>();
+		  for (Commentary commentary : commentaries) {
+			  personalityIds.add(commentary.getPersonalityId());
+		  }
+		  Map<Integer, Personality> personalities = personalityDAO.getAll(personalityIds);
+		  Set<Integer> organizationIds = new HashSet<Integer>();
+		  for (Personality personality : personalities.values()) {
+			  organizationIds.add(personality.getOrganizationId());
+		  }
+		  Map<Integer, Organization> organizations = organizationDAO.getAll(organizationIds);
+		  for (Commentary commentary : commentaries) {
+			  CommentaryDocument entry = new CommentaryDocument();
+			  entry.setCommentary(commentary);
+			  Personality personality = personalities.get(commentary.getPersonalityId());
+			  entry.setPersonality(personality);
+			  if (personality != null) {
+				  entry.setOrganization(organizations.get(personality.getOrganizationId()));
+			  }
+			  document.getCommentaries().add(entry);
+		  }
+		  result = format.toBytes(document);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getPassageDocument() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
 		  throw new ServiceException(e, e.getReason());
 	  }
@@ -70,19 +269,46 @@ public class PassageService {
   }
   
   /**
-   * This method returns the JSON representation of all the Passage objects.
+   * This method returns the encoded representation of one page of the passages matching
+   * the specified query, best first, each with a highlighted snippet of its text.
    * 
-   * @return      the JSON representation of all the Passage objects
+   * @param   query    the parsed query
+   * @param   version  the version of the translation to search, e.g. KJV, or null to search
+   *                   every translation
+   * @param   offset   the number of best passages to skip
+   * @param   limit    the most passages to return
+   * @param   format   the wire format of the result
+   * @return      the encoded representation of the SearchResult, or null if there is no such
+   *              translation
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getPassages() throws ServiceException {
-	  String result = null;
+  public byte[] searchPassages(Query query, String version, int offset, int limit, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  List<Passage> passages = passageDAO.list();
-	      result = gson.toJson(passages);
+		  int translationId = version == null ? 0 : translationDAO.getIdByVersion(version);
+		  if (version != null && translationId == 0) {
+			  return null;
+		  }
+		  InvertedIndex.Hits hits = passageDAO.search(query, translationId, offset, limit);
+		  SearchResult page = new SearchResult();
+		  page.setTotal(hits.getTotal());
+		  for (int i = 0; i < hits.size(); i++) {
+			  Passage passage = passageDAO.get(hits.getDocId(i));
+			  if (passage == null) {
+				  continue;
+			  }
+			  PassageHit hit = new PassageHit();
+			  hit.setId(passage.getPassageId());
+			  hit.setTranslationId(passage.getTranslationId());
+			  hit.setScriptureId(passage.getScriptureId());
+			  hit.setScore(hits.getScore(i));
+			  hit.setSnippet(Snippets.highlight(passage.getText(), query, SNIPPET_TERMS));
+			  page.getHits().add(hit);
+		  }
+		  result = format.toBytes(page);
 	  } catch (DaoException e) {
-		  String errorMessage = this.getClass().getName() + ": getPassages() - REASON-> " + e.getReason();
+		  String errorMessage = this.getClass().getName() + ": searchPassages() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
 		  throw new ServiceException(e, e.getReason());
 	  }
@@ -92,17 +318,19 @@ public class PassageService {
   /**
    * This method adds the Passage object.
    * 
-   * @param   passageJson the JSON representation of the Passage object.
+   * @param   passageData the Passage object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of passageData
+   * @param   responseFormat the wire format of the result
    * @return      passageId of Passage added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String addPassage(String passageJson) throws ServiceException {
-	  String result = null;
+  public byte[] addPassage(byte[] passageData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Passage passage = gson.fromJson(passageJson, Passage.class);
+		  Passage passage = requestFormat.fromBytes(passageData, Passage.class);
 		  int passageId = passageDAO.add(passage);
-	      result = gson.toJson("passageId : " + passageId);
+	      result = responseFormat.toBytes("passageId : " + passageId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": addPassage() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -114,17 +342,19 @@ public class PassageService {
   /**
    * This method updates the Passage object.
    * 
-   * @param   passageJson the JSON representation of the Passage object.
+   * @param   passageData the Passage object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of passageData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String updatePassage(String passageJson) throws ServiceException {
-	  String result = null;
+  public byte[] updatePassage(byte[] passageData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Passage passage = gson.fromJson(passageJson, Passage.class);
+		  Passage passage = requestFormat.fromBytes(passageData, Passage.class);
 		  passageDAO.update(passage);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": updatePassage() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -138,15 +368,16 @@ public class PassageService {
    * passage identifier.
    * 
    * @param   id  passage id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String deletePassage(int id) throws ServiceException {
-	  String result = null;
+  public byte[] deletePassage(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  passageDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": deletePassage() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -154,4 +385,171 @@ public class PassageService {
 	  }
       return result;
   }
+
+  private static void writeRow(PassageTextStore.Row row, WireFormat format, OutputStream out) throws IOException {
+	  if (format == WireFormat.CBOR) {
+		  writeCborPassage(row, out);
+	  } else {
+		  writeJsonPassage(row, out);
+	  }
+  }
+
+  // Same layout and escaping as Gson's default (HTML safe) output for Passage
+  private static void writeJsonPassage(PassageTextStore.Row row, OutputStream out) throws IOException {
+	  writeAscii("{\"passageId\":", out);
+	  writeInt(row.getPassageId(), out);
+	  writeAscii(",\"translationId\":", out);
+	  writeInt(row.getTranslationId(), out);
+	  writeAscii(",\"scriptureId\":", out);
+	  writeInt(row.getScriptureId(), out);
+	  if (row.getTextLength() >= 0) {
+		  writeAscii(",\"text\":\"", out);
+		  writeEscaped(row.getText(), row.getTextLength(), out);
+		  out.write('"');
+	  }
+	  out.write('}');
+  }
+  
+  // Same layout as CborWriter's output for Passage; the text needs no escaping in CBOR
+  private static void writeCborPassage(PassageTextStore.Row row, OutputStream out) throws IOException {
+	  out.write(CborWriter.INDEFINITE_MAP);
+	  out.write(PASSAGE_ID_KEY);
+	  CborWriter.writeLong(out, row.getPassageId());
+	  out.write(TRANSLATION_ID_KEY);
+	  CborWriter.writeLong(out, row.getTranslationId());
+	  out.write(SCRIPTURE_ID_KEY);
+	  CborWriter.writeLong(out, row.getScriptureId());
+	  if (row.getTextLength() >= 0) {
+		  out.write(TEXT_KEY);
+		  CborWriter.writeText(out, row.getText(), 0, row.getTextLength());
+	  }
+	  out.write(CborWriter.BREAK);
+  }
+  
+  private static byte[] cborKey(String key) {
+	  ByteArrayOutputStream out = new ByteArrayOutputStream();
+	  try {
+		  byte[] utf8 = key.getBytes(StandardCharsets.UTF_8);
+		  CborWriter.writeText(out, utf8, 0, utf8.length);
+	  } catch (IOException e) {
+		  throw new IllegalStateException(e);
+	  }
+	  return out.toByteArray();
+  }
+  
+  private static void writeEscaped(byte[] utf8, int length, OutputStream out) throws IOException {
+	  for (int i = 0; i < length; i++) {
+		  int b = utf8[i] & 0xFF;
+		  if (b >= 0x80) {
+			  // U+2028 and U+2029 (E2 80 A8/A9) are escaped by Gson
+			  if (b == 0xE2 && i + 2 < length && (utf8[i + 1] & 0xFF) == 0x80
+					  && ((utf8[i + 2] & 0xFF) == 0xA8 || (utf8[i + 2] & 0xFF) == 0xA9)) {
+				  writeAscii((utf8[i + 2] & 0xFF) == 0xA8 ? "\\u2028" : "\\u2029", out);
+				  i += 2;
+			  } else {
+				  out.write(b);
+			  }
+			  continue;
+		  }
+		  switch (b) {
+		  case '"':  writeAscii("\\\"", out); break;
+		  case '\\': writeAscii("\\\\", out); break;
+		  case '\t': writeAscii("\\t", out); break;
+		  case '\b': writeAscii("\\b", out); break;
+		  case '\n': writeAscii("\\n", out); break;
+		  case '\r': writeAscii("\\r", out); break;
+		  case '\f': writeAscii("\\f", out); break;
+		  case '<': case '>': case '&': case '=': case '\'':
+			  writeUnicodeEscape(b, out);
+			  break;
+		  default:
+			  if (b < 0x20) {
+				  writeUnicodeEscape(b, out);
+			  } else {
+				  out.write(b);
+			  }
+		  }
+	  }
+  }
+  
+  private static void writeUnicodeEscape(int c, OutputStream out) throws IOException {
+	  writeAscii("\\u00", out);
+	  out.write(HEX[c >> 4]);
+	  out.write(HEX[c & 0xF]);
+  }
+  
+  private static void writeInt(int value, OutputStream out) throws IOException {
+	  if (value < 0) {
+		  writeAscii(Integer.toString(value), out);
+		  return;
+	  }
+	  byte[] digits = new byte[10];
+	  int position = digits.length;
+	  do {
+		  digits[--position] = (byte) ('0' + value % 10);
+		  value /= 10;
+	  } while (value != 0);
+	  out.write(digits, position, digits.length - position);
+  }
+  
+  private static void writeAscii(String s, OutputStream out) throws IOException {
+	  for (int i = 0; i < s.length(); i++) {
+		  out.write(s.charAt(i));
+	  }
+  }
+  
+  /**
+   * This method writes all the Passage objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportPassages(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  passageTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportPassages() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the Passage objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of Passage objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importPassages(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = passageTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importPassages() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
+
+  // the canonical reference of the verse, or null if its book, chapter or verse is not usable
+  private static String getReference(Scripture scripture) {
+	  if (scripture == null) {
+		  return null;
+	  }
+	  try {
+		  return VerseReference.parse(scripture.getBook() + " " + scripture.getChapter() + ":" + scripture.getVerse()).toString();
+	  } catch (IllegalArgumentException e) {
+		  return null;
+	  }
+  }
 }
\ No newline at end of file
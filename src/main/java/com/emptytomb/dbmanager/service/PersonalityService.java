@@ -1,14 +1,23 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.ThumbnailCache;
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.dao.PersonalityDao;
+import com.emptytomb.dbmanager.domain.ImportResult;
 import com.emptytomb.dbmanager.domain.Personality;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.domain.PictureInfo;
+import com.emptytomb.dbmanager.json.WireFormat;
 
 /**
 * The PersonalityService class implements the CRUD service layer for the Personality resource.
@@ -24,10 +33,11 @@ public class PersonalityService {
   private Logger logger = LoggerFactory.getLogger(PersonalityService.class);
   private static PersonalityService instance = null;
   private static PersonalityDao personalityDAO = null;
-  private static Gson gson = new Gson();
+  private static BulkTransfer<Personality> personalityTransfer = null;
    
   private PersonalityService() {
       personalityDAO = PersonalityDao.getInstance();
+      personalityTransfer = new BulkTransfer<Personality>(personalityDAO, Personality.class);
   }
 
   /**
@@ -48,19 +58,20 @@ public class PersonalityService {
   }
   
   /**
-   * This method returns the JSON representation of the Personality object associated with the
+   * This method returns the encoded representation of the Personality object associated with the
    * specified personality identifier.
    * 
    * @param   id  the unique id of the personality to return.
-   * @return      the JSON representation of the Personality object
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the Personality object
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getPersonality(int id) throws ServiceException {
-	  String result = null;
+  public byte[] getPersonality(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 	      Personality personality = personalityDAO.get(id);
-	      result = gson.toJson(personality);
+	      result = format.toBytes(personality);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getPersonality() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -70,17 +81,18 @@ public class PersonalityService {
   }
   
   /**
-   * This method returns the JSON representation of all the Personality objects.
+   * This method returns the encoded representation of all the Personality objects.
    * 
-   * @return      the JSON representation of all the Personality objects
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of all the Personality objects
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getPersonalities() throws ServiceException {
-	  String result = null;
+  public byte[] getPersonalities(WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  List<Personality> personalities = personalityDAO.list();
-	      result = gson.toJson(personalities);
+	      result = format.toBytes(personalities);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getPersonalities() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -92,17 +104,19 @@ public class PersonalityService {
   /**
    * This method adds the Personality object.
    * 
-   * @param   personalityJson the JSON representation of the Personality object.
+   * @param   personalityData the Personality object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of personalityData
+   * @param   responseFormat the wire format of the result
    * @return      personalityId of Personality added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String addPersonality(String personalityJson) throws ServiceException {
-	  String result = null;
+  public byte[] addPersonality(byte[] personalityData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Personality personality = gson.fromJson(personalityJson, Personality.class);
+		  Personality personality = requestFormat.fromBytes(personalityData, Personality.class);
 		  int personalityId = personalityDAO.add(personality);
-	      result = gson.toJson("personalityId : " + personalityId);
+	      result = responseFormat.toBytes("personalityId : " + personalityId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": addPersonality() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -114,17 +128,19 @@ public class PersonalityService {
   /**
    * This method updates the Personality object.
    * 
-   * @param   personalityJson the JSON representation of the Personality object.
+   * @param   personalityData the Personality object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of personalityData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String updatePersonality(String personalityJson) throws ServiceException {
-	  String result = null;
+  public byte[] updatePersonality(byte[] personalityData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Personality personality = gson.fromJson(personalityJson, Personality.class);
+		  Personality personality = requestFormat.fromBytes(personalityData, Personality.class);
 		  personalityDAO.update(personality);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": updatePersonality() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -138,15 +154,16 @@ public class PersonalityService {
    * Personality identifier.
    * 
    * @param   id  personality id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String deletePersonality(int id) throws ServiceException {
-	  String result = null;
+  public byte[] deletePersonality(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  personalityDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": deletePersonality() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -154,4 +171,193 @@ public class PersonalityService {
 	  }
       return result;
   }
+  
+  /**
+   * This method returns the length, digest and media type of the picture of the
+   * specified Personality.
+   * 
+   * @param   id  the unique id of the personality
+   * @return      the PictureInfo, or null if the personality does not exist or has no picture
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public PictureInfo getPictureInfo(int id) throws ServiceException {
+	  PictureInfo result = null;
+	  try {
+		  result = personalityDAO.getPictureInfo(id);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getPictureInfo() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method writes the specified byte range of a picture to the specified stream.
+   * 
+   * @param   hash    the digest of the picture, from {@link #getPictureInfo(int)}
+   * @param   offset  the index of the first byte to write
+   * @param   length  the number of bytes to write
+   * @param   out     the stream to write to
+   * 
+   * @throws      IOException if the picture could not be read or the stream could not be written
+  */
+  public void writePicture(String hash, long offset, long length, OutputStream out) throws IOException {
+	  personalityDAO.writePicture(hash, offset, length, out);
+  }
+  
+  /**
+   * This method returns the length, key and media type of a thumbnail of the picture of the
+   * specified Personality, making the thumbnails of the picture first if they are missing.
+   * 
+   * @param   picture  the PictureInfo of the personality's picture
+   * @param   size     one of the configured thumbnail sizes
+   * @return      the PictureInfo of the thumbnail, whose hash is its key, or null if the
+   *              picture cannot be scaled and is to be served as it is
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public PictureInfo getThumbnailInfo(PictureInfo picture, int size) throws ServiceException {
+	  PictureInfo result = null;
+	  try {
+		  ThumbnailCache thumbnails = ThumbnailCache.getInstance();
+		  String key = ThumbnailCache.key(picture.getHash(), size);
+		  File file = thumbnails.find(key);
+		  if (file == null && !thumbnails.isUnsupported(picture.getHash())) {
+			  thumbnails.store(readPicture(picture));
+			  file = thumbnails.find(key);
+		  }
+		  if (file != null) {
+			  result = new PictureInfo();
+			  result.setLength(file.length());
+			  result.setContentType(ThumbnailCache.contentType(file));
+			  result.setHash(key);
+		  }
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": getThumbnailInfo() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
+
+  
+  /**
+   * This method writes the specified byte range of a thumbnail to the specified stream.
+   * 
+   * @param   key     the key of the thumbnail, from {@link #getThumbnailInfo(PictureInfo, int)}
+   * @param   offset  the index of the first byte to write
+   * @param   length  the number of bytes to write
+   * @param   out     the stream to write to
+   * 
+   * @throws      IOException if the thumbnail could not be read or the stream could not be written
+  */
+  public void writeThumbnail(String key, long offset, long length, OutputStream out) throws IOException {
+	  ThumbnailCache.getInstance().copy(key, offset, length, out);
+  }
+  
+  /**
+   * This method replaces the picture of the specified Personality.
+   * 
+   * @param   id      the unique id of the personality
+   * @param   in      the stream to read the picture from
+   * @param   length  the number of bytes in the stream, or -1 if it is not known
+   * @param   format  the wire format of the result
+   * @return      SUCCESS:200 if successful, null if the personality does not exist; the
+   *              thumbnails of the new picture are made in the background
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] updatePicture(final int id, InputStream in, long length, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  if (personalityDAO.updatePicture(id, in, length)) {
+		      result = format.toBytes("SUCCESS : 200");
+		      ThumbnailCache.getInstance().storeLater(new Callable<byte[]>() {
+		    	  @Override
+		    	  public byte[] call() throws Exception {
+		    		  PictureInfo picture = personalityDAO.getPictureInfo(id);
+		    		  return picture == null ? null : readPicture(picture);
+		    	  }
+		      });
+		  }
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": updatePicture() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
+  
+  /**
+   * This method deletes the stored pictures that no Personality refers to any more.
+   * 
+   * @param   format  the wire format of the result
+   * @return      the encoded number of pictures deleted
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] collectPictureGarbage(WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  int deleted = personalityDAO.collectPictureGarbage();
+	      result = format.toBytes("deleted : " + deleted);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": collectPictureGarbage() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
+  
+  /**
+   * This method writes all the Personality objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportPersonalities(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  personalityTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportPersonalities() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the Personality objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of Personality objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importPersonalities(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = personalityTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importPersonalities() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
+  
+  // pictures are small enough to scale in memory
+  private byte[] readPicture(PictureInfo picture) throws IOException {
+	  ByteArrayOutputStream out = new ByteArrayOutputStream((int) picture.getLength());
+	  personalityDAO.writePicture(picture.getHash(), 0, picture.getLength(), out);
+	  return out.toByteArray();
+  }
 }
\ No newline at end of file
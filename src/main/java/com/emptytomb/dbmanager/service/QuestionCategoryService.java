@@ -1,5 +1,8 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -7,8 +10,9 @@ import org.slf4j.LoggerFactory;
 
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.dao.QuestionCategoryDao;
+import com.emptytomb.dbmanager.domain.ImportResult;
 import com.emptytomb.dbmanager.domain.QuestionCategory;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.json.WireFormat;
 
 /**
 * The QuestionCategoryService class implements the CRUD service layer for the QuestionCategoryService
@@ -25,10 +29,11 @@ public class QuestionCategoryService {
   private Logger logger = LoggerFactory.getLogger(QuestionCategoryService.class);
   private static QuestionCategoryService instance = null;
   private static QuestionCategoryDao questionCategoryDAO = null;
-  private static Gson gson = new Gson();
+  private static BulkTransfer<QuestionCategory> questionCategoryTransfer = null;
    
   private QuestionCategoryService() {
       questionCategoryDAO = QuestionCategoryDao.getInstance();
+      questionCategoryTransfer = new BulkTransfer<QuestionCategory>(questionCategoryDAO, QuestionCategory.class);
   }
 
   /**
@@ -49,19 +54,20 @@ public class QuestionCategoryService {
   }
   
   /**
-   * This method returns the JSON representation of the QuestionCategory object associated with the
+   * This method returns the encoded representation of the QuestionCategory object associated with the
    * specified question category identifier.
    * 
    * @param   id  the unique id of the question category to return.
-   * @return      the JSON representation of the question category object
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the question category object
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String get(int id) throws ServiceException {
-	  String result = null;
+  public byte[] get(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 	      QuestionCategory questionCategory = questionCategoryDAO.get(id);
-	      result = gson.toJson(questionCategory);
+	      result = format.toBytes(questionCategory);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": get() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -71,17 +77,18 @@ public class QuestionCategoryService {
   }
   
   /**
-   * This method returns the JSON representation of all the QuestionCategory objects.
+   * This method returns the encoded representation of all the QuestionCategory objects.
    * 
-   * @return      the JSON representation of all the QuestionCategory objects
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of all the QuestionCategory objects
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String list() throws ServiceException {
-	  String result = null;
+  public byte[] list(WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  List<QuestionCategory> questionCategories = questionCategoryDAO.list();
-	      result = gson.toJson(questionCategories);
+	      result = format.toBytes(questionCategories);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": list() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -93,17 +100,19 @@ public class QuestionCategoryService {
   /**
    * This method adds the QuestionCategory object.
    * 
-   * @param   questionCategoryJson the JSON representation of the QuestionCategory object.
+   * @param   questionCategoryData the QuestionCategory object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of questionCategoryData
+   * @param   responseFormat the wire format of the result
    * @return      id of the QuestionCategory added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String add(String questionCategoryJson) throws ServiceException {
-	  String result = null;
+  public byte[] add(byte[] questionCategoryData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  QuestionCategory questionCategory = gson.fromJson(questionCategoryJson, QuestionCategory.class);
+		  QuestionCategory questionCategory = requestFormat.fromBytes(questionCategoryData, QuestionCategory.class);
 		  int questionCategoryId = questionCategoryDAO.add(questionCategory);
-	      result = gson.toJson("questionCategoryId : " + questionCategoryId);
+	      result = responseFormat.toBytes("questionCategoryId : " + questionCategoryId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": add() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -115,17 +124,19 @@ public class QuestionCategoryService {
   /**
    * This method updates the QuestionCategory object.
    * 
-   * @param   questionCategoryJson the JSON representation of the QuestionCategory object.
+   * @param   questionCategoryData the QuestionCategory object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of questionCategoryData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String update(String questionCategoryJson) throws ServiceException {
-	  String result = null;
+  public byte[] update(byte[] questionCategoryData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  QuestionCategory questionCategory = gson.fromJson(questionCategoryJson, QuestionCategory.class);
+		  QuestionCategory questionCategory = requestFormat.fromBytes(questionCategoryData, QuestionCategory.class);
 		  questionCategoryDAO.update(questionCategory);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": update() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -139,15 +150,16 @@ public class QuestionCategoryService {
    * question category identifier.
    * 
    * @param   id  question category id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String delete(int id) throws ServiceException {
-	  String result = null;
+  public byte[] delete(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  questionCategoryDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": delete() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -155,4 +167,47 @@ public class QuestionCategoryService {
 	  }
       return result;
   }
+  
+  /**
+   * This method writes all the QuestionCategory objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportAll(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  questionCategoryTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportAll() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the QuestionCategory objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of QuestionCategory objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importAll(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = questionCategoryTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importAll() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
 }
\ No newline at end of file
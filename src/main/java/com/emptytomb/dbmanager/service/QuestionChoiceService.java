@@ -1,5 +1,8 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -7,8 +10,9 @@ import org.slf4j.LoggerFactory;
 
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.dao.QuestionChoiceDao;
+import com.emptytomb.dbmanager.domain.ImportResult;
 import com.emptytomb.dbmanager.domain.QuestionChoice;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.json.WireFormat;
 
 /**
 * The QuestionChoiceService class implements the CRUD service layer for the QuestionChoice resource.
@@ -24,10 +28,11 @@ public class QuestionChoiceService {
   private Logger logger = LoggerFactory.getLogger(QuestionChoiceService.class);
   private static QuestionChoiceService instance = null;
   private static QuestionChoiceDao questionChoiceDAO = null;
-  private static Gson gson = new Gson();
+  private static BulkTransfer<QuestionChoice> questionChoiceTransfer = null;
    
   private QuestionChoiceService() {
       questionChoiceDAO = QuestionChoiceDao.getInstance();
+      questionChoiceTransfer = new BulkTransfer<QuestionChoice>(questionChoiceDAO, QuestionChoice.class);
   }
 
   /**
@@ -48,19 +53,20 @@ public class QuestionChoiceService {
   }
   
   /**
-   * This method returns the JSON representation of the QuestionChoice object associated with
+   * This method returns the encoded representation of the QuestionChoice object associated with
    * the specified question choice identifier.
    * 
    * @param   id  the unique id of the question choice to return.
-   * @return      the JSON representation of the question choice object
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the question choice object
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getQuestionChoice(int id) throws ServiceException {
-	  String result = null;
+  public byte[] getQuestionChoice(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 	      QuestionChoice questionChoice = questionChoiceDAO.get(id);
-	      result = gson.toJson(questionChoice);
+	      result = format.toBytes(questionChoice);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getQuestionChoice() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -70,17 +76,18 @@ public class QuestionChoiceService {
   }
   
   /**
-   * This method returns the JSON representation of all the QuestionChoice objects.
+   * This method returns the encoded representation of all the QuestionChoice objects.
    * 
-   * @return      the JSON representation of all the QuestionChoice objects
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of all the QuestionChoice objects
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getQuestionChoices() throws ServiceException {
-	  String result = null;
+  public byte[] getQuestionChoices(WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  List<QuestionChoice> questionChoices = questionChoiceDAO.list();
-	      result = gson.toJson(questionChoices);
+	      result = format.toBytes(questionChoices);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getQuestionChoices() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -92,17 +99,19 @@ public class QuestionChoiceService {
   /**
    * This method adds the QuestionChoice object.
    * 
-   * @param   questionChoiceJson the JSON representation of the QuestionChoice object.
+   * @param   questionChoiceData the QuestionChoice object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of questionChoiceData
+   * @param   responseFormat the wire format of the result
    * @return      questionChoiceId of QuestionChoice added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String addQuestionChoice(String questionChoiceJson) throws ServiceException {
-	  String result = null;
+  public byte[] addQuestionChoice(byte[] questionChoiceData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  QuestionChoice questionChoice = gson.fromJson(questionChoiceJson, QuestionChoice.class);
+		  QuestionChoice questionChoice = requestFormat.fromBytes(questionChoiceData, QuestionChoice.class);
 		  int questionChoiceId = questionChoiceDAO.add(questionChoice);
-	      result = gson.toJson("questionChoiceId : " + questionChoiceId);
+	      result = responseFormat.toBytes("questionChoiceId : " + questionChoiceId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": addQuestionChoice() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -114,17 +123,19 @@ public class QuestionChoiceService {
   /**
    * This method updates the QuestionChoice object.
    * 
-   * @param   questionChoiceJson the JSON representation of the QuestionChoice object.
+   * @param   questionChoiceData the QuestionChoice object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of questionChoiceData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String updateQuestionChoice(String questionChoiceJson) throws ServiceException {
-	  String result = null;
+  public byte[] updateQuestionChoice(byte[] questionChoiceData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  QuestionChoice questionChoice = gson.fromJson(questionChoiceJson, QuestionChoice.class);
+		  QuestionChoice questionChoice = requestFormat.fromBytes(questionChoiceData, QuestionChoice.class);
 		  questionChoiceDAO.update(questionChoice);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": updateQuestionChoice() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -138,15 +149,16 @@ public class QuestionChoiceService {
    * questionChoice identifier.
    * 
    * @param   id  questionChoice id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String deleteQuestionChoice(int id) throws ServiceException {
-	  String result = null;
+  public byte[] deleteQuestionChoice(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  questionChoiceDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": deleteQuestionChoice() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -154,4 +166,47 @@ public class QuestionChoiceService {
 	  }
       return result;
   }
+  
+  /**
+   * This method writes all the QuestionChoice objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportQuestionChoices(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  questionChoiceTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportQuestionChoices() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the QuestionChoice objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of QuestionChoice objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importQuestionChoices(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = questionChoiceTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importQuestionChoices() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
 }
\ No newline at end of file
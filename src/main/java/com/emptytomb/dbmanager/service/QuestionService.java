@@ -1,14 +1,39 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.emptytomb.dbmanager.cache.AnswerCounters;
+import com.emptytomb.dbmanager.cache.QuestionBitmapIndex;
+import com.emptytomb.dbmanager.dao.AnswerStatsDao;
 import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.dao.QuestionChoiceDao;
 import com.emptytomb.dbmanager.dao.QuestionDao;
+import com.emptytomb.dbmanager.domain.Answer;
+import com.emptytomb.dbmanager.domain.ChoiceStats;
+import com.emptytomb.dbmanager.domain.FacetCount;
+import com.emptytomb.dbmanager.domain.ImportResult;
 import com.emptytomb.dbmanager.domain.Question;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.domain.QuestionChoice;
+import com.emptytomb.dbmanager.domain.QuestionDocument;
+import com.emptytomb.dbmanager.domain.QuestionDocumentPage;
+import com.emptytomb.dbmanager.domain.QuestionFilterResult;
+import com.emptytomb.dbmanager.domain.QuestionStats;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.google.gson.JsonSyntaxException;
 
 /**
 * The QuestionService class implements the CRUD service layer for the Question resource.
@@ -24,10 +49,15 @@ public class QuestionService {
   private Logger logger = LoggerFactory.getLogger(QuestionService.class);
   private static QuestionService instance = null;
   private static QuestionDao questionDAO = null;
-  private static Gson gson = new Gson();
+  private static QuestionChoiceDao questionChoiceDAO = null;
+  private static AnswerStatsDao answerStatsDAO = null;
+  private static BulkTransfer<Question> questionTransfer = null;
    
   private QuestionService() {
       questionDAO = QuestionDao.getInstance();
+      questionChoiceDAO = QuestionChoiceDao.getInstance();
+      answerStatsDAO = AnswerStatsDao.getInstance();
+      questionTransfer = new BulkTransfer<Question>(questionDAO, Question.class);
   }
 
   /**
@@ -48,19 +78,20 @@ public class QuestionService {
   }
   
   /**
-   * This method returns the JSON representation of the Question object associated with the
+   * This method returns the encoded representation of the Question object associated with the
    * specified question identifier.
    * 
    * @param   id  the unique id of the question to return.
-   * @return      the JSON representation of the question object
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the question object
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getQuestion(int id) throws ServiceException {
-	  String result = null;
+  public byte[] getQuestion(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 	      Question question = questionDAO.get(id);
-	      result = gson.toJson(question);
+	      result = format.toBytes(question);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getQuestion() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -70,17 +101,92 @@ public class QuestionService {
   }
   
   /**
-   * This method returns the JSON representation of all the Question objects.
+   * This method returns the encoded representation of the Question object associated with the
+   * specified question identifier together with its choices.
    * 
-   * @return      the JSON representation of all the Question objects
+   * @param   id  the unique id of the question to return.
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the QuestionDocument, or null if there is no
+   *              such question
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getFullQuestion(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  Question question = questionDAO.get(id);
+		  if (question == null) {
+			  return null;
+		  }
+		  QuestionDocument document = new QuestionDocument();
+		  document.setQuestion(question);
+		  document.setChoices(questionChoiceDAO.listByQuestions(Collections.singletonList(id)));
+	      result = format.toBytes(document);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getFullQuestion() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of one page of the Question objects in the
+   * specified category, in id order, each together with its choices.
+   * 
+   * <p><b>Note:</b> The choices of every question on the page are read in one query, however
+   * many questions the page holds.</p>
+   * 
+   * @param   categoryId  the unique id of the question category, or 0 for every category
+   * @param   afterId     the id after which the page starts, 0 for the first page
+   * @param   limit       the most questions to return
+   * @param   format      the wire format of the result
+   * @return      the encoded representation of the QuestionDocumentPage
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getFullQuestions(int categoryId, int afterId, int limit, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  // one more than the page tells whether there is a next page
+		  List<Question> questions = questionDAO.listByCategory(categoryId, afterId, limit + 1);
+		  QuestionDocumentPage page = new QuestionDocumentPage();
+		  if (questions.size() > limit) {
+			  questions = questions.subList(0, limit);
+			  page.setNext(questions.get(limit - 1).getQuestionId());
+		  }
+		  Map<Integer, QuestionDocument> documents = new LinkedHashMap<Integer, QuestionDocument>();
+		  for (Question question : questions) {
+			  QuestionDocument document = new QuestionDocument();
+			  document.setQuestion(question);
+			  documents.put(question.getQuestionId(), document);
+		  }
+		  for (QuestionChoice choice : questionChoiceDAO.listByQuestions(documents.keySet())) {
+			  documents.get(choice.getQuestionId()).getChoices().add(choice);
+		  }
+		  page.getQuestions().addAll(documents.values());
+	      result = format.toBytes(page);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getFullQuestions() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of all the Question objects.
+   * 
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of all the Question objects
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getQuestions() throws ServiceException {
-	  String result = null;
+  public byte[] getQuestions(WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  List<Question> questions = questionDAO.list();
-	      result = gson.toJson(questions);
+	      result = format.toBytes(questions);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getQuestions() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -89,20 +195,202 @@ public class QuestionService {
       return result;
   }
   
+  /**
+   * This method returns the encoded representation of one page of the Question objects that
+   * match every specified filter, in id order, and the number of questions per value of each
+   * attribute under the other filters.
+   * 
+   * <p><b>Note:</b> The filters and counts are answered from the in-memory bitmaps of the
+   * attributes; only the questions on the page are read, in one query less any already cached.</p>
+   * 
+   * @param   categoryIds      the categories to match any of, or null for every category
+   * @param   difficulty       the difficulties to match any of, or null for every difficulty
+   * @param   testament        the testaments to match any of, or null for every testament
+   * @param   type             the types to match any of, or null for every type
+   * @param   minSinceVersion  the least since version to match, or NaN for every version
+   * @param   afterId          the id after which the page starts, 0 for the first page
+   * @param   limit            the most questions to return
+   * @param   format           the wire format of the result
+   * @return      the encoded representation of the QuestionFilterResult
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] filterQuestions(Integer[] categoryIds, String[] difficulty, String[] testament, String[] type,
+		  float minSinceVersion, int afterId, int limit, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  QuestionBitmapIndex.Result matches = questionDAO.filter(categoryIds, difficulty, testament, type, minSinceVersion);
+		  int[] ids = matches.getIds();
+		  int first = Arrays.binarySearch(ids, afterId);
+		  first = first < 0 ? -first - 1 : first + 1;
+		  int last = (int) Math.min(ids.length, (long) first + limit);
+		  Set<Integer> pageIds = new HashSet<Integer>();
+		  for (int i = first; i < last; i++) {
+			  pageIds.add(ids[i]);
+		  }
+		  Map<Integer, Question> questions = questionDAO.getAll(pageIds);
+
+		  QuestionFilterResult filterResult = new QuestionFilterResult();
+		  filterResult.setTotal(ids.length);
+		  for (int i = first; i < last; i++) {
+			  // a question deleted since it was indexed is left out
+			  Question question = questions.get(ids[i]);
+			  if (question != null) {
+				  filterResult.getQuestions().add(question);
+			  }
+		  }
+		  if (last < ids.length) {
+			  filterResult.setNext(ids[last - 1]);
+		  }
+		  for (Map.Entry<Integer, Integer> entry : matches.getCategoryCounts().entrySet()) {
+			  filterResult.getCategories().add(getFacetCount(entry.getKey(), null, entry.getValue()));
+		  }
+		  addFacetCounts(filterResult.getDifficulties(), matches.getDifficultyCounts());
+		  addFacetCounts(filterResult.getTestaments(), matches.getTestamentCounts());
+		  addFacetCounts(filterResult.getTypes(), matches.getTypeCounts());
+		  addFacetCounts(filterResult.getSinceVersions(), matches.getSinceVersionCounts());
+	      result = format.toBytes(filterResult);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": filterQuestions() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method counts the choice a quiz client picked for the specified question.
+   * 
+   * <p><b>Note:</b> The answer is only counted in memory; the counts are added to the
+   * statistics tables every few seconds by AnswerCounters. The question and the choice are
+   * usually read from their caches, so an answer costs no database round trip.</p>
+   * 
+   * @param   id              the unique id of the question answered
+   * @param   answerData      the Answer object with the questionChoiceId picked, encoded in
+   *                          requestFormat
+   * @param   requestFormat   the wire format of answerData
+   * @param   responseFormat  the wire format of the result
+   * @return      the encoded Answer, telling whether the choice is a correct answer, or null
+   *              if there is no such question
+   * 
+   * @throws      IllegalArgumentException if answerData is not an Answer or the choice is not
+   *              one of the question's
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] answerQuestion(int id, byte[] answerData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  if (questionDAO.get(id) == null) {
+			  return null;
+		  }
+		  Answer answer = null;
+		  try {
+			  answer = requestFormat.fromBytes(answerData, Answer.class);
+		  } catch (JsonSyntaxException e) {
+			  throw new IllegalArgumentException("not an answer: " + e.getMessage());
+		  }
+		  QuestionChoice choice = answer == null ? null : questionChoiceDAO.get(answer.getQuestionChoiceId());
+		  if (choice == null || choice.getQuestionId() != id) {
+			  throw new IllegalArgumentException("not a choice of question " + id);
+		  }
+		  AnswerCounters.getInstance().record(id, choice.getQuestionChoiceId(), choice.isCorrectAnswer());
+		  answer.setQuestionId(id);
+		  answer.setCorrectAnswer(choice.isCorrectAnswer());
+	      result = responseFormat.toBytes(answer);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": answerQuestion() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of the answer statistics of the specified
+   * question: how often it was answered, the percent answered correctly, its item difficulty,
+   * and how often each of its choices was picked.
+   * 
+   * <p><b>Note:</b> The statistics are those in the statistics tables, from every instance,
+   * plus the answers counted here since the last flush. Both are read with flushes held off,
+   * so no answer counted here is left out or counted twice.</p>
+   * 
+   * @param   id      the unique id of the question
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the QuestionStats, or null if there is no such
+   *              question
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getQuestionStats(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  if (questionDAO.get(id) == null) {
+			  return null;
+		  }
+		  List<QuestionChoice> questionChoices = questionChoiceDAO.listByQuestions(Collections.singletonList(id));
+		  AnswerCounters counters = AnswerCounters.getInstance();
+		  QuestionStats stats = null;
+		  long[] counted = new long[questionChoices.size()];
+		  // a flush in between would take counts out of memory before they reach the tables
+		  counters.beginRead();
+		  try {
+			  stats = answerStatsDAO.get(id);
+			  stats.setAnswers(stats.getAnswers() + counters.getAnswers(id));
+			  stats.setCorrect(stats.getCorrect() + counters.getCorrect(id));
+			  for (int i = 0; i < counted.length; i++) {
+				  counted[i] = counters.getPicks(questionChoices.get(i).getQuestionChoiceId());
+			  }
+		  } finally {
+			  counters.endRead();
+		  }
+		  if (stats.getAnswers() > 0) {
+			  stats.setPercentCorrect(100.0 * stats.getCorrect() / stats.getAnswers());
+		  }
+		  Map<Integer, Long> picks = new HashMap<Integer, Long>();
+		  for (ChoiceStats choice : stats.getChoices()) {
+			  picks.put(choice.getQuestionChoiceId(), choice.getPicks());
+		  }
+		  // every current choice, picked or not; choices since deleted are left out
+		  List<ChoiceStats> choices = new ArrayList<ChoiceStats>();
+		  for (int i = 0; i < counted.length; i++) {
+			  QuestionChoice questionChoice = questionChoices.get(i);
+			  ChoiceStats choice = new ChoiceStats();
+			  choice.setQuestionChoiceId(questionChoice.getQuestionChoiceId());
+			  choice.setText(questionChoice.getText());
+			  choice.setCorrectAnswer(questionChoice.isCorrectAnswer());
+			  Long stored = picks.get(questionChoice.getQuestionChoiceId());
+			  choice.setPicks((stored == null ? 0 : stored) + counted[i]);
+			  if (stats.getAnswers() > 0) {
+				  choice.setPercent(100.0 * choice.getPicks() / stats.getAnswers());
+			  }
+			  choices.add(choice);
+		  }
+		  stats.setChoices(choices);
+	      result = format.toBytes(stats);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getQuestionStats() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
   /**
    * This method adds the Question object.
    * 
-   * @param   questionJson the JSON representation of the Question object.
+   * @param   questionData the Question object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of questionData
+   * @param   responseFormat the wire format of the result
    * @return      questionId of Question added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String addQuestion(String questionJson) throws ServiceException {
-	  String result = null;
+  public byte[] addQuestion(byte[] questionData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Question question = gson.fromJson(questionJson, Question.class);
+		  Question question = requestFormat.fromBytes(questionData, Question.class);
 		  int questionId = questionDAO.add(question);
-	      result = gson.toJson("questionId : " + questionId);
+	      result = responseFormat.toBytes("questionId : " + questionId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": addQuestion() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -114,17 +402,19 @@ public class QuestionService {
   /**
    * This method updates the Question object.
    * 
-   * @param   questionJson the JSON representation of the Question object.
+   * @param   questionData the Question object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of questionData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String updateQuestion(String questionJson) throws ServiceException {
-	  String result = null;
+  public byte[] updateQuestion(byte[] questionData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Question question = gson.fromJson(questionJson, Question.class);
+		  Question question = requestFormat.fromBytes(questionData, Question.class);
 		  questionDAO.update(question);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": updateQuestion() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -138,15 +428,16 @@ public class QuestionService {
    * question identifier.
    * 
    * @param   id  question id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String deleteQuestion(int id) throws ServiceException {
-	  String result = null;
+  public byte[] deleteQuestion(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  questionDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": deleteQuestion() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -154,4 +445,61 @@ public class QuestionService {
 	  }
       return result;
   }
+  
+  /**
+   * This method writes all the Question objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportQuestions(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  questionTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportQuestions() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the Question objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of Question objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importQuestions(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = questionTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importQuestions() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
+
+  private static void addFacetCounts(List<FacetCount> facets, Map<?, Integer> counts) {
+	  for (Map.Entry<?, Integer> entry : counts.entrySet()) {
+		  facets.add(getFacetCount(0, String.valueOf(entry.getKey()), entry.getValue()));
+	  }
+  }
+
+  private static FacetCount getFacetCount(int id, String name, int count) {
+	  FacetCount facet = new FacetCount();
+	  facet.setId(id);
+	  facet.setName(name);
+	  facet.setCount(count);
+	  return facet;
+  }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.emptytomb.dbmanager.service;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emptytomb.dbmanager.cache.QuizIndex;
+import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.dao.QuestionChoiceDao;
+import com.emptytomb.dbmanager.dao.QuestionDao;
+import com.emptytomb.dbmanager.domain.Question;
+import com.emptytomb.dbmanager.domain.QuestionChoice;
+import com.emptytomb.dbmanager.domain.QuestionDocument;
+import com.emptytomb.dbmanager.domain.Quiz;
+import com.emptytomb.dbmanager.json.WireFormat;
+
+/**
+* The QuizService class implements the service layer for the Quiz resource.
+*
+* <p><b>Note:</b> This class is implemented as a Singleton. Only one instance of this class
+* can exist at a time.</p>
+*
+* @author  Jim Zombek
+* @version 1.0
+* @since   2026-10-19
+*/
+public class QuizService {
+  private Logger logger = LoggerFactory.getLogger(QuizService.class);
+  private static QuizService instance = null;
+  private static QuestionDao questionDAO = null;
+  private static QuestionChoiceDao questionChoiceDAO = null;
+
+  private QuizService() {
+      questionDAO = QuestionDao.getInstance();
+      questionChoiceDAO = QuestionChoiceDao.getInstance();
+  }
+
+  /**
+   * This method returns the single instance of the QuizService object.
+   *
+   * @return  the QuizService object
+   *
+  */
+  public static QuizService getInstance() {
+      if (instance == null) {
+          synchronized (QuizService.class) {
+              if (instance == null) {
+                  instance = new QuizService();
+              }
+          }
+      }
+      return instance;
+  }
+
+  /**
+   * This method returns the encoded representation of a quiz of questions drawn at random
+   * without replacement from the questions that match every specified attribute, each with
+   * its choices.
+   *
+   * <p><b>Note:</b> The questions are drawn from the in-memory quiz index; the questions
+   * drawn and their choices are then read in one query each, less any already cached.</p>
+   *
+   * @param   categoryId  the category to draw from, or 0 for every category
+   * @param   difficulty  the difficulty to draw from, or null for every difficulty
+   * @param   testament   the testament to draw from, or null for every testament
+   * @param   type        the type to draw from, or null for every type
+   * @param   stratum     the attribute to share the quiz evenly between the values of, or
+   *                      null to draw uniformly
+   * @param   count       the most questions to draw
+   * @param   seed        the seed to draw with
+   * @param   format      the wire format of the result
+   * @return      the encoded representation of the Quiz
+   *
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getQuiz(int categoryId, String difficulty, String testament, String type, QuizIndex.Stratum stratum,
+		  int count, long seed, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  int[] questionIds = questionDAO.sampleQuiz(categoryId, difficulty, testament, type, stratum, count, new Random(seed));
+		  Set<Integer> ids = new HashSet<Integer>();
+		  for (int id : questionIds) {
+			  ids.add(id);
+		  }
+		  Map<Integer, Question> questions = questionDAO.getAll(ids);
+		  Map<Integer, QuestionDocument> documents = new LinkedHashMap<Integer, QuestionDocument>();
+		  for (int id : questionIds) {
+			  // a question deleted since it was indexed is left out
+			  Question question = questions.get(id);
+			  if (question != null) {
+				  QuestionDocument document = new QuestionDocument();
+				  document.setQuestion(question);
+				  documents.put(id, document);
+			  }
+		  }
+		  for (QuestionChoice choice : questionChoiceDAO.listByQuestions(documents.keySet())) {
+			  documents.get(choice.getQuestionId()).getChoices().add(choice);
+		  }
+		  Quiz quiz = new Quiz();
+		  quiz.setSeed(seed);
+		  quiz.getQuestions().addAll(documents.values());
+		  result = format.toBytes(quiz);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getQuiz() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+}
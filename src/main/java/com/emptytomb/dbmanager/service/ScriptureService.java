@@ -1,14 +1,25 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.emptytomb.dbmanager.dao.DaoException;
+import com.emptytomb.dbmanager.dao.PassageDao;
 import com.emptytomb.dbmanager.dao.ScriptureDao;
+import com.emptytomb.dbmanager.domain.BookStructure;
+import com.emptytomb.dbmanager.domain.ImportResult;
+import com.emptytomb.dbmanager.domain.ParallelVerse;
 import com.emptytomb.dbmanager.domain.Scripture;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.json.WireFormat;
+import com.emptytomb.dbmanager.utility.Books;
+import com.emptytomb.dbmanager.utility.VerseReference;
+import com.emptytomb.dbmanager.utility.Versification;
 
 /**
 * The ScriptureService class implements the CRUD service layer for the Scripture resource.
@@ -24,10 +35,13 @@ public class ScriptureService {
   private Logger logger = LoggerFactory.getLogger(ScriptureService.class);
   private static ScriptureService instance = null;
   private static ScriptureDao scriptureDAO = null;
-  private static Gson gson = new Gson();
+  private static PassageDao passageDAO = null;
+  private static BulkTransfer<Scripture> scriptureTransfer = null;
    
   private ScriptureService() {
       scriptureDAO = ScriptureDao.getInstance();
+      passageDAO = PassageDao.getInstance();
+      scriptureTransfer = new BulkTransfer<Scripture>(scriptureDAO, Scripture.class);
   }
 
   /**
@@ -48,19 +62,20 @@ public class ScriptureService {
   }
   
   /**
-   * This method returns the JSON representation of the Scripture object associated with the
+   * This method returns the encoded representation of the Scripture object associated with the
    * specified scripture identifier.
    * 
    * @param   id  the unique id of the scripture to return.
-   * @return      the JSON representation of the Scripture object
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the Scripture object
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getScripture(int id) throws ServiceException {
-	  String result = null;
+  public byte[] getScripture(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 	      Scripture scripture = scriptureDAO.get(id);
-	      result = gson.toJson(scripture);
+	      result = format.toBytes(scripture);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getScripture() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -70,17 +85,93 @@ public class ScriptureService {
   }
   
   /**
-   * This method returns the JSON representation of all the Scripture objects.
+   * This method returns the encoded representation of the Scripture object for the specified
+   * verse.
    * 
-   * @return      the JSON representation of all the Scripture objects
+   * @param   reference  the reference to a single verse
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the Scripture object, or null if there is no
+   *              scripture for the verse
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getScriptures() throws ServiceException {
-	  String result = null;
+  public byte[] getScriptureByReference(VerseReference reference, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+	      int id = scriptureDAO.getIdByReference(reference.getFirstOrdinal());
+	      if (id != 0) {
+	          result = format.toBytes(scriptureDAO.get(id));
+	      }
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getScriptureByReference() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of the specified verse with its text in
+   * every translation.
+   * 
+   * @param   id      the unique id of the scripture
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the ParallelVerse object, or null if there is
+   *              no such scripture
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getParallelPassages(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+	      ParallelVerse verse = passageDAO.getParallel(id);
+	      if (verse != null) {
+	          result = format.toBytes(verse);
+	      }
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getParallelPassages() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of the verses of the specified reference,
+   * in canonical order, each with its text in every translation.
+   * 
+   * @param   reference  the reference to a verse, a range of verses or whole chapters
+   * @param   format     the wire format of the result
+   * @return      the encoded representation of the ParallelVerse objects
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getParallelRange(VerseReference reference, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+	      List<ParallelVerse> verses = passageDAO.listParallelRange(reference.getFirstOrdinal(), reference.getLastOrdinal());
+	      result = format.toBytes(verses);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": getParallelRange() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+      return result;
+  }
+  
+  /**
+   * This method returns the encoded representation of all the Scripture objects.
+   * 
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of all the Scripture objects
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+  */
+  public byte[] getScriptures(WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  List<Scripture> scriptures = scriptureDAO.list();
-	      result = gson.toJson(scriptures);
+	      result = format.toBytes(scriptures);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getScriptures() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -89,24 +180,47 @@ public class ScriptureService {
       return result;
   }
   
+  /**
+   * This method returns the encoded representation of the number of chapters of every book
+   * and the number of verses of every chapter, in canonical order.
+   * 
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the BookStructure objects
+  */
+  public byte[] getStructure(WireFormat format) {
+	  Versification versification = scriptureDAO.getVersification();
+	  List<BookStructure> books = new ArrayList<BookStructure>(Books.COUNT);
+	  for (int book = 1; book <= Books.COUNT; book++) {
+		  BookStructure structure = new BookStructure();
+		  structure.setBook(book);
+		  structure.setName(Books.name(book));
+		  structure.setChapters(versification.getChapterCount(book));
+		  structure.setVerses(versification.getVerseCounts(book));
+		  books.add(structure);
+	  }
+      return format.toBytes(books);
+  }
+  
   /**
    * This method adds the Scripture object.
    * 
-   * @param   scriptureJson the JSON representation of the Scripture object.
+   * @param   scriptureData the Scripture object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of scriptureData
+   * @param   responseFormat the wire format of the result
    * @return      scriptureId of Scripture added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String addScripture(String scriptureJson) throws ServiceException {
-	  String result = null;
+  public byte[] addScripture(byte[] scriptureData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Scripture scripture = gson.fromJson(scriptureJson, Scripture.class);
+		  Scripture scripture = requestFormat.fromBytes(scriptureData, Scripture.class);
 		  int scriptureId = scriptureDAO.add(scripture);
-	      result = gson.toJson("scriptureId : " + scriptureId);
+	      result = responseFormat.toBytes("scriptureId : " + scriptureId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": addScripture() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
-		  throw new ServiceException(e, errorMessage);
+		  throw new ServiceException(e.getException() instanceof IllegalArgumentException ? e.getException() : e, errorMessage);
 	  }
       return result;
   }
@@ -114,21 +228,23 @@ public class ScriptureService {
   /**
    * This method updates the Scripture object.
    * 
-   * @param   scriptureJson the JSON representation of the Scripture object.
+   * @param   scriptureData the Scripture object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of scriptureData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String updateScripture(String scriptureJson) throws ServiceException {
-	  String result = null;
+  public byte[] updateScripture(byte[] scriptureData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Scripture scripture = gson.fromJson(scriptureJson, Scripture.class);
+		  Scripture scripture = requestFormat.fromBytes(scriptureData, Scripture.class);
 		  scriptureDAO.update(scripture);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": updateScripture() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
-		  throw new ServiceException(e, errorMessage);
+		  throw new ServiceException(e.getException() instanceof IllegalArgumentException ? e.getException() : e, errorMessage);
 	  }
       return result;
   }
@@ -138,15 +254,16 @@ public class ScriptureService {
    * scripture identifier.
    * 
    * @param   id  scripture id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String deleteScripture(int id) throws ServiceException {
-	  String result = null;
+  public byte[] deleteScripture(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  scriptureDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": deleteScripture() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -154,4 +271,47 @@ public class ScriptureService {
 	  }
       return result;
   }
+  
+  /**
+   * This method writes all the Scripture objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportScriptures(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  scriptureTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportScriptures() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the Scripture objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of Scripture objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importScriptures(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = scriptureTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importScriptures() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
 }
\ No newline at end of file
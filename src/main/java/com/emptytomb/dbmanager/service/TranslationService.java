@@ -1,5 +1,8 @@
 package com.emptytomb.dbmanager.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -7,8 +10,9 @@ import org.slf4j.LoggerFactory;
 
 import com.emptytomb.dbmanager.dao.DaoException;
 import com.emptytomb.dbmanager.dao.TranslationDao;
+import com.emptytomb.dbmanager.domain.ImportResult;
 import com.emptytomb.dbmanager.domain.Translation;
-import com.google.gson.Gson;
+import com.emptytomb.dbmanager.json.WireFormat;
 
 /**
 * The TranslationService class implements the CRUD service layer for the Translation resource.
@@ -24,10 +28,11 @@ public class TranslationService {
   private Logger logger = LoggerFactory.getLogger(TranslationService.class);
   private static TranslationService instance = null;
   private static TranslationDao translationDAO = null;
-  private static Gson gson = new Gson();
+  private static BulkTransfer<Translation> translationTransfer = null;
    
   private TranslationService() {
       translationDAO = TranslationDao.getInstance();
+      translationTransfer = new BulkTransfer<Translation>(translationDAO, Translation.class);
   }
 
   /**
@@ -48,19 +53,20 @@ public class TranslationService {
   }
   
   /**
-   * This method returns the JSON representation of the Translation object associated with the
+   * This method returns the encoded representation of the Translation object associated with the
    * specified translation identifier.
    * 
    * @param   id  the unique id of the translation to return.
-   * @return      the JSON representation of the Translation object
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of the Translation object
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getTranslation(int id) throws ServiceException {
-	  String result = null;
+  public byte[] getTranslation(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 	      Translation translation = translationDAO.get(id);
-	      result = gson.toJson(translation);
+	      result = format.toBytes(translation);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getTranslation() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -70,17 +76,18 @@ public class TranslationService {
   }
   
   /**
-   * This method returns the JSON representation of all the Translation objects.
+   * This method returns the encoded representation of all the Translation objects.
    * 
-   * @return      the JSON representation of all the Translation objects
+   * @param   format  the wire format of the result
+   * @return      the encoded representation of all the Translation objects
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String getTranslations() throws ServiceException {
-	  String result = null;
+  public byte[] getTranslations(WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  List<Translation> translations = translationDAO.list();
-	      result = gson.toJson(translations);
+	      result = format.toBytes(translations);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": getTranslations() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -92,17 +99,19 @@ public class TranslationService {
   /**
    * This method adds the Translation object.
    * 
-   * @param   translationJson the JSON representation of the Translation object.
+   * @param   translationData the Translation object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of translationData
+   * @param   responseFormat the wire format of the result
    * @return      translationId of Translation added if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String addTranslation(String translationJson) throws ServiceException {
-	  String result = null;
+  public byte[] addTranslation(byte[] translationData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Translation translation = gson.fromJson(translationJson, Translation.class);
+		  Translation translation = requestFormat.fromBytes(translationData, Translation.class);
 		  int translationId = translationDAO.add(translation);
-	      result = gson.toJson("translationId : " + translationId);
+	      result = responseFormat.toBytes("translationId : " + translationId);
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": addTranslation() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -114,17 +123,19 @@ public class TranslationService {
   /**
    * This method updates the Translation object.
    * 
-   * @param   translationJson the JSON representation of the Translation object.
+   * @param   translationData the Translation object, encoded in requestFormat.
+   * @param   requestFormat  the wire format of translationData
+   * @param   responseFormat the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String updateTranslation(String translationJson) throws ServiceException {
-	  String result = null;
+  public byte[] updateTranslation(byte[] translationData, WireFormat requestFormat, WireFormat responseFormat) throws ServiceException {
+	  byte[] result = null;
 	  try {
-		  Translation translation = gson.fromJson(translationJson, Translation.class);
+		  Translation translation = requestFormat.fromBytes(translationData, Translation.class);
 		  translationDAO.update(translation);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = responseFormat.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": updateTranslation() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -138,15 +149,16 @@ public class TranslationService {
    * translation identifier.
    * 
    * @param   id  translation id to delete.
+   * @param   format  the wire format of the result
    * @return      SUCCESS:200 if successful.
    * 
    * @throws      ServiceException if an error was encountered during processing
   */
-  public String deleteTranslation(int id) throws ServiceException {
-	  String result = null;
+  public byte[] deleteTranslation(int id, WireFormat format) throws ServiceException {
+	  byte[] result = null;
 	  try {
 		  translationDAO.delete(id);
-	      result = gson.toJson("SUCCESS : 200");
+	      result = format.toBytes("SUCCESS : 200");
 	  } catch (DaoException e) {
 		  String errorMessage = this.getClass().getName() + ": deleteTranslation() - REASON-> " + e.getReason();
   	      logger.error(errorMessage);
@@ -154,4 +166,47 @@ public class TranslationService {
 	  }
       return result;
   }
+  
+  /**
+   * This method writes all the Translation objects to the specified stream as newline-delimited
+   * JSON, one object per line, as they are read from the database.
+   * 
+   * @param   out  the stream to write to
+   * 
+   * @throws      ServiceException if an error was encountered during processing
+   * @throws      IOException if the stream could not be written
+  */
+  public void exportTranslations(OutputStream out) throws ServiceException, IOException {
+	  try {
+		  translationTransfer.export(out);
+	  } catch (DaoException e) {
+		  String errorMessage = this.getClass().getName() + ": exportTranslations() - REASON-> " + e.getReason();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, e.getReason());
+	  }
+  }
+  
+  /**
+   * This method adds the Translation objects read from the specified stream of newline-delimited
+   * JSON, one object per line.
+   * 
+   * @param   in  the stream to read from
+   * @param   format  the wire format of the result
+   * @return      the encoded ImportResult: the number of Translation objects added and the lines rejected
+   * 
+   * @throws      ServiceException if the stream could not be read; the batches added before
+   *              the failure are kept
+  */
+  public byte[] importTranslations(InputStream in, WireFormat format) throws ServiceException {
+	  byte[] result = null;
+	  try {
+		  ImportResult importResult = translationTransfer.importAll(in);
+	      result = format.toBytes(importResult);
+	  } catch (IOException e) {
+		  String errorMessage = this.getClass().getName() + ": importTranslations() - REASON-> " + e.getMessage();
+  	      logger.error(errorMessage);
+		  throw new ServiceException(e, errorMessage);
+	  }
+      return result;
+  }
 }
\ No newline at end of file
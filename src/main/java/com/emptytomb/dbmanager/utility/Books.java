@@ -0,0 +1,156 @@
+package com.emptytomb.dbmanager.utility;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The Books class knows the 66 books of the Protestant canon in canonical order, so that a
+ * book can be turned into its ordinal (Genesis is 1, Revelation 66) whichever way it is
+ * written: full name, common abbreviation, with or without periods and spaces, and with the
+ * number of 1 John or 2 Samuel as a digit, a Roman numeral or a word.
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public final class Books {
+	/** The number of books; ordinals run from 1 to COUNT. */
+	public static final int COUNT = 66;
+
+	// canonical name, then abbreviations, of each book in order
+	private static final String[][] BOOKS = {
+		{ "Genesis", "gen", "ge", "gn" },
+		{ "Exodus", "exod", "exo", "ex" },
+		{ "Leviticus", "lev", "le", "lv" },
+		{ "Numbers", "num", "nu", "nm", "nb" },
+		{ "Deuteronomy", "deut", "de", "dt" },
+		{ "Joshua", "josh", "jos", "jsh" },
+		{ "Judges", "judg", "jdg", "jg", "jdgs" },
+		{ "Ruth", "rth", "ru" },
+		{ "1 Samuel", "1sam", "1sa", "1sm" },
+		{ "2 Samuel", "2sam", "2sa", "2sm" },
+		{ "1 Kings", "1kgs", "1ki", "1kg" },
+		{ "2 Kings", "2kgs", "2ki", "2kg" },
+		{ "1 Chronicles", "1chron", "1chr", "1ch" },
+		{ "2 Chronicles", "2chron", "2chr", "2ch" },
+		{ "Ezra", "ezr" },
+		{ "Nehemiah", "neh", "ne" },
+		{ "Esther", "esth", "est", "es" },
+		{ "Job", "jb" },
+		{ "Psalms", "psalm", "ps", "psa", "pss", "psm" },
+		{ "Proverbs", "prov", "pro", "prv", "pr" },
+		{ "Ecclesiastes", "eccles", "eccl", "ecc", "ec", "qoh" },
+		{ "Song of Solomon", "songofsongs", "song", "sos", "sng", "canticles", "cant" },
+		{ "Isaiah", "isa", "is" },
+		{ "Jeremiah", "jer", "je", "jr" },
+		{ "Lamentations", "lam", "la" },
+		{ "Ezekiel", "ezek", "eze", "ezk" },
+		{ "Daniel", "dan", "da", "dn" },
+		{ "Hosea", "hos", "ho" },
+		{ "Joel", "jl" },
+		{ "Amos", "am" },
+		{ "Obadiah", "obad", "ob" },
+		{ "Jonah", "jnh", "jon" },
+		{ "Micah", "mic", "mc" },
+		{ "Nahum", "nah", "na" },
+		{ "Habakkuk", "hab", "hb" },
+		{ "Zephaniah", "zeph", "zep", "zp" },
+		{ "Haggai", "hag", "hg" },
+		{ "Zechariah", "zech", "zec", "zc" },
+		{ "Malachi", "mal", "ml" },
+		{ "Matthew", "matt", "mat", "mt" },
+		{ "Mark", "mrk", "mar", "mk", "mr" },
+		{ "Luke", "luk", "lk" },
+		{ "John", "joh", "jhn", "jn" },
+		{ "Acts", "act", "ac" },
+		{ "Romans", "rom", "ro", "rm" },
+		{ "1 Corinthians", "1cor", "1co" },
+		{ "2 Corinthians", "2cor", "2co" },
+		{ "Galatians", "gal", "ga" },
+		{ "Ephesians", "eph", "ephes" },
+		{ "Philippians", "phil", "php" },
+		{ "Colossians", "col" },
+		{ "1 Thessalonians", "1thess", "1thes", "1th" },
+		{ "2 Thessalonians", "2thess", "2thes", "2th" },
+		{ "1 Timothy", "1tim", "1ti" },
+		{ "2 Timothy", "2tim", "2ti" },
+		{ "Titus", "tit" },
+		{ "Philemon", "philem", "phm" },
+		{ "Hebrews", "heb" },
+		{ "James", "jas", "jm" },
+		{ "1 Peter", "1pet", "1pe", "1pt" },
+		{ "2 Peter", "2pet", "2pe", "2pt" },
+		{ "1 John", "1jn", "1jhn", "1jo" },
+		{ "2 John", "2jn", "2jhn", "2jo" },
+		{ "3 John", "3jn", "3jhn", "3jo" },
+		{ "Jude", "jud", "jd" },
+		{ "Revelation", "rev", "re", "revelations", "apocalypse" }
+	};
+
+	private static final Map<String, Integer> ORDINALS = new HashMap<String, Integer>();
+
+	static {
+		for (int i = 0; i < BOOKS.length; i++) {
+			for (String name : BOOKS[i]) {
+				ORDINALS.put(normalize(name), i + 1);
+			}
+		}
+	}
+
+	private Books() {
+	}
+
+	/**
+	 * This method returns the canonical position of the specified book.
+	 *
+	 * @param   book  the name or abbreviation of a book, e.g. "1 John", "I Jn." or "Psalm"
+	 * @return        the ordinal of the book, from 1 to COUNT, or 0 if it is not recognized
+	 */
+	public static int ordinal(String book) {
+		if (book == null) {
+			return 0;
+		}
+		Integer ordinal = ORDINALS.get(normalize(book));
+		return ordinal == null ? 0 : ordinal;
+	}
+
+	/**
+	 * @param   ordinal  the ordinal of a book, from 1 to COUNT
+	 * @return           the canonical name of the book
+	 */
+	public static String name(int ordinal) {
+		return BOOKS[ordinal - 1][0];
+	}
+
+	/**
+	 * @param   ordinal  the ordinal of a book, from 1 to COUNT
+	 * @return           true if the book has a single chapter, so that "Jude 5" is a verse
+	 */
+	public static boolean isSingleChapter(int ordinal) {
+		String name = name(ordinal);
+		return name.equals("Obadiah") || name.equals("Philemon") || name.equals("2 John")
+				|| name.equals("3 John") || name.equals("Jude");
+	}
+
+	// lower case without periods or spaces, and a leading number as a digit: "I Jn." -> "1jn"
+	private static String normalize(String book) {
+		String text = book.trim().toLowerCase(Locale.ROOT).replace(".", " ").trim();
+		String[][] numbers = { { "iii ", "3" }, { "ii ", "2" }, { "i ", "1" },
+				{ "third ", "3" }, { "second ", "2" }, { "first ", "1" } };
+		for (String[] number : numbers) {
+			if (text.startsWith(number[0])) {
+				text = number[1] + text.substring(number[0].length());
+				break;
+			}
+		}
+		StringBuilder result = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (!Character.isWhitespace(c)) {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+}
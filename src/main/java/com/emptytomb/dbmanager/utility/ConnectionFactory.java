@@ -12,9 +12,10 @@ public class ConnectionFactory {
   private static ConnectionFactory instance = null;
   private static Connection connection = null;
 
-  private static final String URL = "jdbc:mysql://localhost:3306/emptytomb";
-  private static final String USER = "root";
-  private static final String PASSWORD = "Tsa6tsbc!";
+  // Overridable so several local instances can be pointed at one shared database
+  private static final String URL = System.getProperty("dbmanager.jdbc.url", "jdbc:mysql://localhost:3306/emptytomb");
+  private static final String USER = System.getProperty("dbmanager.jdbc.user", "root");
+  private static final String PASSWORD = System.getProperty("dbmanager.jdbc.password", "Tsa6tsbc!");
   private static final String DRIVER_CLASS = "com.mysql.jdbc.Driver"; 
   
 
@@ -46,4 +47,15 @@ public class ConnectionFactory {
       }
       return connection;
   }   
+
+  // A connection of its own, for work that would tie up the shared one. The caller closes it.
+  public Connection openConnection() throws SQLException {
+      try {
+          Class.forName(DRIVER_CLASS);
+      } catch (ClassNotFoundException e) {
+          logger.error(this.getClass().getName() + ": openConnection()");
+          throw new SQLException(e);
+      }
+      return DriverManager.getConnection(URL, USER, PASSWORD);
+  }
 }
\ No newline at end of file
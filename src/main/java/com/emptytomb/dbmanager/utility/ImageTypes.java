@@ -0,0 +1,71 @@
+package com.emptytomb.dbmanager.utility;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The ImageTypes class recognizes the image formats accepted for pictures from their first
+ * bytes, so that the media type served does not depend on what an uploader claimed.
+ * 
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public final class ImageTypes {
+	/** The number of leading bytes needed to recognize every supported format. */
+	public static final int HEADER_LENGTH = 12;
+	
+	public static final String IMAGE_JPEG = "image/jpeg";
+	public static final String IMAGE_PNG = "image/png";
+	public static final String IMAGE_GIF = "image/gif";
+	public static final String IMAGE_WEBP = "image/webp";
+	public static final String IMAGE_BMP = "image/bmp";
+	
+	private static final byte[] JPEG = { (byte) 0xff, (byte) 0xd8, (byte) 0xff };
+	private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+	private static final byte[] GIF87A = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] GIF89A = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] BMP = "BM".getBytes(StandardCharsets.US_ASCII);
+	
+	private ImageTypes() {
+	}
+	
+	/**
+	 * This method returns the media type of the image that starts with the specified bytes.
+	 * 
+	 * @param   header  the first bytes of the image
+	 * @param   length  the number of bytes of header that are valid
+	 * @return          the media type, or null if the bytes are not a supported image
+	 */
+	public static String detect(byte[] header, int length) {
+		if (startsWith(header, length, 0, JPEG)) {
+			return IMAGE_JPEG;
+		}
+		if (startsWith(header, length, 0, PNG)) {
+			return IMAGE_PNG;
+		}
+		if (startsWith(header, length, 0, GIF87A) || startsWith(header, length, 0, GIF89A)) {
+			return IMAGE_GIF;
+		}
+		if (startsWith(header, length, 0, RIFF) && startsWith(header, length, 8, WEBP)) {
+			return IMAGE_WEBP;
+		}
+		if (startsWith(header, length, 0, BMP)) {
+			return IMAGE_BMP;
+		}
+		return null;
+	}
+	
+	private static boolean startsWith(byte[] header, int length, int offset, byte[] magic) {
+		if (header == null || length < offset + magic.length) {
+			return false;
+		}
+		for (int i = 0; i < magic.length; i++) {
+			if (header[offset + i] != magic[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,223 @@
+package com.emptytomb.dbmanager.utility;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The VerseReference class is a parsed scripture reference: a verse ("John 3:16"), a run of
+ * verses ("John 3:16-18"), a range across chapters ("Genesis 1:1-2:3"), a chapter
+ * ("Psalm 23") or a run of chapters ("Genesis 1-3"). In a book of one chapter a lone number
+ * is the verse, so "Jude 5" is Jude 1:5. Chapter and verse may be separated by a colon or
+ * a period.
+ *
+ * <p>Every verse has a canonical ordinal packing book, chapter and verse into one int as
+ * decimal digits BBCCCVVV, e.g. 43003016 for John 3:16, so that ordinals sort in canonical
+ * order and a range of verses is a range of ordinals.</p>
+ *
+ * @author  Jim Zombek
+ * @version 1.0
+ * @since   2026-10-19
+ */
+public final class VerseReference {
+	/** The largest chapter or verse number an ordinal can hold. */
+	public static final int MAX_NUMBER = 999;
+
+	private static final Pattern REFERENCE = Pattern.compile(
+			"\\s*(.*?[^\\s\\d.:]\\.?)\\s*(\\d+)(?:\\s*[:.]\\s*(\\d+))?(?:\\s*[-\\u2013\\u2014]\\s*(\\d+)(?:\\s*[:.]\\s*(\\d+))?)?\\s*");
+
+	private final int book;
+	private final int chapter;
+	private final int verse;
+	private final int endChapter;
+	private final int endVerse;
+
+	private VerseReference(int book, int chapter, int verse, int endChapter, int endVerse) {
+		this.book = book;
+		this.chapter = chapter;
+		this.verse = verse;
+		this.endChapter = endChapter;
+		this.endVerse = endVerse;
+	}
+
+	/**
+	 * This method parses the specified reference.
+	 *
+	 * @param   text  the reference, e.g. "1 Jn 2:3" or "Genesis 1:1-2:3"
+	 * @return        the VerseReference
+	 *
+	 * @throws  IllegalArgumentException if the reference is malformed, names an unknown book,
+	 *          or ends before it starts
+	 */
+	public static VerseReference parse(String text) {
+		Matcher matcher = REFERENCE.matcher(text == null ? "" : text);
+		if (!matcher.matches()) {
+			throw new IllegalArgumentException("not a scripture reference: " + text);
+		}
+		int book = Books.ordinal(matcher.group(1));
+		if (book == 0) {
+			throw new IllegalArgumentException("unknown book: " + matcher.group(1));
+		}
+		int first = number(matcher.group(2));
+		int second = number(matcher.group(3));
+		int third = number(matcher.group(4));
+		int fourth = number(matcher.group(5));
+		if (first == 0 || (matcher.group(3) != null && second == 0) || (matcher.group(4) != null && third == 0)
+				|| (matcher.group(5) != null && fourth == 0)) {
+			throw new IllegalArgumentException("chapters and verses start at 1: " + text);
+		}
+		int chapter;
+		int verse;
+		int endChapter;
+		int endVerse;
+		if (matcher.group(3) == null && Books.isSingleChapter(book)) {
+			// "Jude 5" and "Jude 3-5"
+			chapter = 1;
+			verse = first;
+			endChapter = matcher.group(5) != null ? third : 1;
+			endVerse = matcher.group(5) != null ? fourth : matcher.group(4) != null ? third : first;
+		} else if (matcher.group(3) == null) {
+			// "Psalm 23" and "Genesis 1-3", or "Genesis 1-2:3"
+			chapter = first;
+			verse = 0;
+			endChapter = matcher.group(4) != null ? third : first;
+			endVerse = matcher.group(5) != null ? fourth : 0;
+		} else if (matcher.group(5) == null) {
+			// "John 3:16" and "John 3:16-18"
+			chapter = first;
+			verse = second;
+			endChapter = first;
+			endVerse = matcher.group(4) != null ? third : second;
+		} else {
+			// "Genesis 1:1-2:3"
+			chapter = first;
+			verse = second;
+			endChapter = third;
+			endVerse = fourth;
+		}
+		VerseReference reference = new VerseReference(book, chapter, verse, endChapter, endVerse);
+		if (reference.getLastOrdinal() < reference.getFirstOrdinal()) {
+			throw new IllegalArgumentException("reference ends before it starts: " + text);
+		}
+		return reference;
+	}
+
+	/**
+	 * This method packs a verse into its canonical ordinal.
+	 *
+	 * @param   book     the ordinal of the book, from 1 to Books.COUNT
+	 * @param   chapter  the chapter, from 1 to MAX_NUMBER
+	 * @param   verse    the verse, from 1 to MAX_NUMBER; 0 sorts before the first verse of
+	 *                   the chapter and MAX_NUMBER after its last
+	 * @return           the canonical ordinal BBCCCVVV
+	 */
+	public static int ordinal(int book, int chapter, int verse) {
+		return (book * (MAX_NUMBER + 1) + chapter) * (MAX_NUMBER + 1) + verse;
+	}
+
+	/**
+	 * This method unpacks a canonical ordinal into a reference to that one verse.
+	 *
+	 * @param   ordinal  the canonical ordinal BBCCCVVV of a verse
+	 * @return           the VerseReference, e.g. John 3:16 for 43003016
+	 *
+	 * @throws  IllegalArgumentException if the ordinal is not that of a verse of a known book
+	 */
+	public static VerseReference of(int ordinal) {
+		int scale = MAX_NUMBER + 1;
+		int book = ordinal / scale / scale;
+		int chapter = ordinal / scale % scale;
+		int verse = ordinal % scale;
+		if (book < 1 || book > Books.COUNT || chapter < 1 || verse < 1) {
+			throw new IllegalArgumentException("not the ordinal of a verse: " + ordinal);
+		}
+		return new VerseReference(book, chapter, verse, chapter, verse);
+	}
+
+	/**
+	 * @return  the ordinal of the book, from 1 to Books.COUNT
+	 */
+	public int getBook() {
+		return book;
+	}
+
+	/**
+	 * @return  the first chapter
+	 */
+	public int getChapter() {
+		return chapter;
+	}
+
+	/**
+	 * @return  the first verse, or 0 if the reference starts with a whole chapter
+	 */
+	public int getVerse() {
+		return verse;
+	}
+
+	/**
+	 * @return  the last chapter
+	 */
+	public int getEndChapter() {
+		return endChapter;
+	}
+
+	/**
+	 * @return  the last verse, or 0 if the reference ends with a whole chapter
+	 */
+	public int getEndVerse() {
+		return endVerse;
+	}
+
+	/**
+	 * @return  true if the reference is to exactly one verse
+	 */
+	public boolean isSingleVerse() {
+		return verse != 0 && chapter == endChapter && verse == endVerse;
+	}
+
+	/**
+	 * @return  the lowest ordinal in the reference
+	 */
+	public int getFirstOrdinal() {
+		return ordinal(book, chapter, verse);
+	}
+
+	/**
+	 * @return  the highest ordinal in the reference
+	 */
+	public int getLastOrdinal() {
+		return ordinal(book, endChapter, endVerse == 0 ? MAX_NUMBER : endVerse);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(Books.name(book)).append(' ').append(chapter);
+		if (verse != 0) {
+			text.append(':').append(verse);
+		}
+		if (isSingleVerse() || (verse == 0 && endVerse == 0 && endChapter == chapter)) {
+			return text.toString();
+		}
+		text.append('-');
+		if (endChapter != chapter || verse == 0) {
+			text.append(endChapter);
+			if (endVerse != 0) {
+				text.append(':');
+			}
+		}
+		if (endVerse != 0) {
+			text.append(endVerse);
+		}
+		return text.toString();
+	}
+
+	private static int number(String digits) {
+		if (digits == null) {
+			return 0;
+		}
+		if (digits.length() > 3 || Integer.parseInt(digits) > MAX_NUMBER) {
+			throw new IllegalArgumentException("chapter or verse beyond " + MAX_NUMBER + ": " + digits);
+		}
+		return Integer.parseInt(digits);
+	}
+}
@@ -0,0 +1,11 @@
+-- Change log written by every DAO write in the same transaction as the write.
+-- Each DbManager node polls it to invalidate its in-process caches.
+CREATE TABLE IF NOT EXISTS change_log (
+  version   BIGINT      NOT NULL AUTO_INCREMENT,
+  tableName VARCHAR(64) NOT NULL,
+  rowId     INT         NOT NULL,
+  changed   TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (version),
+  KEY idx_change_log_table_version (tableName, version),
+  KEY idx_change_log_changed (changed)
+) ENGINE=InnoDB;
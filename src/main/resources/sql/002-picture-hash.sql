@@ -0,0 +1,7 @@
+-- Personality pictures move out of the row into the BlobStore, a directory of files named
+-- by the SHA-256 of their bytes; the row keeps only the digest.
+-- The picture column is emptied by each instance at startup (PersonalityDao.migratePictures)
+-- and can be dropped once every instance runs a build with this script.
+ALTER TABLE personality
+  ADD COLUMN pictureHash CHAR(64) NULL,
+  ADD KEY idx_personality_picture_hash (pictureHash);
@@ -0,0 +1,13 @@
+-- Each scripture row gets its canonical ordinal, book, chapter and verse packed into one
+-- int as decimal digits BBCCCVVV (John 3:16 is 43003016), so a range of verses is one
+-- index range scan. Books are numbered in canonical order, Genesis 1 to Revelation 66.
+-- The column is filled in by each instance at startup (ScriptureDao.migrateOrdinals),
+-- since only the application knows every way a book name is written; rows whose book is
+-- not recognized keep NULL and are left out of ranges.
+ALTER TABLE scripture
+  ADD COLUMN ordinal INT NULL,
+  ADD KEY idx_scripture_ordinal (ordinal);
+
+-- Joined from scripture for a range, one translation at a time
+ALTER TABLE passage
+  ADD KEY idx_passage_scripture_translation (scriptureId, translationId);
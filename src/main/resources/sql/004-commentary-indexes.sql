@@ -0,0 +1,6 @@
+-- Commentary is listed by passage and by personality a page at a time, each page starting
+-- after the last id of the one before (keyset pagination), so both lists are one range of
+-- an index in id order however deep the page.
+ALTER TABLE commentary
+  ADD KEY idx_commentary_passage_id (passageId, id),
+  ADD KEY idx_commentary_personality_id (personalityId, id);
@@ -0,0 +1,12 @@
+-- Each question choice belongs to one question. Choices written before this column existed
+-- keep NULL until they are assigned, and are not listed with any question. The choices of a
+-- page of questions are read in one query, one range of (questionId, id) per question.
+ALTER TABLE question_choice
+  ADD COLUMN questionId INT NULL,
+  ADD KEY idx_question_choice_question_id (questionId, id),
+  ADD CONSTRAINT fk_question_choice_question FOREIGN KEY (questionId) REFERENCES question (id);
+
+-- Questions are listed by category a page at a time, each page starting after the last id
+-- of the one before
+ALTER TABLE question
+  ADD KEY idx_question_category_id (categoryId, id);
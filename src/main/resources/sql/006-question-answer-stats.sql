@@ -0,0 +1,18 @@
+-- How often each question has been answered, and answered correctly, and how often each of
+-- its choices has been picked. Every instance counts answers in memory and adds what it
+-- counted to these rows every few seconds, so the counts of all instances add up and no
+-- answer costs a write of its own.
+CREATE TABLE question_stats (
+  questionId INT NOT NULL,
+  answers BIGINT NOT NULL DEFAULT 0,
+  correct BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (questionId)
+);
+
+CREATE TABLE question_choice_stats (
+  questionChoiceId INT NOT NULL,
+  questionId INT NOT NULL,
+  picks BIGINT NOT NULL DEFAULT 0,
+  PRIMARY KEY (questionChoiceId),
+  KEY idx_question_choice_stats_question_id (questionId, questionChoiceId)
+);